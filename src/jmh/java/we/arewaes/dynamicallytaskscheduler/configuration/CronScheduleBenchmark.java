@@ -0,0 +1,67 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cron construction and next fire time, for cron-utils' {@link CronSchedule} and for the interned
+ * {@link CompiledCronSchedule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CronScheduleBenchmark {
+
+    @Param({"0 0/5 14 * * *", "0 0 9-17 * * MON-FRI", "0 0 0 29 2 *"})
+    public String pattern;
+
+    private final ZoneId zoneId = ZoneId.of("Europe/Amsterdam");
+    private final CronScheduleCache cronScheduleCache = new CronScheduleCache(100);
+    private final ExecutionComplete executionComplete = ExecutionComplete.simulatedSuccess(Instant.parse("2024-06-01T10:15:30Z"));
+    private CronSchedule cronSchedule;
+    private CompiledCronSchedule compiledCronSchedule;
+
+    @Setup
+    public void setUp() {
+        cronSchedule = new CronSchedule(pattern, zoneId);
+        compiledCronSchedule = cronScheduleCache.get(pattern, zoneId);
+    }
+
+    @Benchmark
+    public CronSchedule construct() {
+        return new CronSchedule(pattern, zoneId);
+    }
+
+    @Benchmark
+    public CronSchedule constructCached() {
+        return cronScheduleCache.get(pattern, zoneId);
+    }
+
+    @Benchmark
+    public Instant nextExecutionTime() {
+        return cronSchedule.getNextExecutionTime(executionComplete);
+    }
+
+    @Benchmark
+    public Instant nextExecutionTimeCompiled() {
+        return compiledCronSchedule.getNextExecutionTime(executionComplete);
+    }
+}
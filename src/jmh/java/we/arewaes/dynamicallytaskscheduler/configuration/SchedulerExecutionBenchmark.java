@@ -0,0 +1,95 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+/**
+ * Executions whose body blocks for {@code blockMillis}, standing in for an HTTP call or a database write, run through
+ * the concurrency gate on a platform pool of {@code concurrency} threads or on one virtual thread each with
+ * {@code concurrency} permits. Reports executions per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerExecutionBenchmark {
+
+    private static final int EXECUTIONS = 2_000;
+
+    @Param({SchedulerExecution.PLATFORM, SchedulerExecution.VIRTUAL})
+    private String mode;
+
+    @Param({"10", "100", "1000"})
+    private int concurrency;
+
+    @Param({"10"})
+    private long blockMillis;
+
+    private SchedulerExecution schedulerExecution;
+    private ExecutorService executorService;
+    private ExecutionChain blockingChain;
+    private TaskInstance<Void> taskInstance;
+
+    @Setup
+    public void setUp() {
+        schedulerExecution = new SchedulerExecution(new SimpleMeterRegistry(), mode, concurrency, Integer.MAX_VALUE);
+        executorService = mode.equals(SchedulerExecution.VIRTUAL)
+                ? SchedulerExecution.virtualThreadExecutor()
+                : Executors.newFixedThreadPool(concurrency);
+        blockingChain = new ExecutionChain(List.of(), (instance, executionContext) -> {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        taskInstance = new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, "benchmark-task");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXECUTIONS)
+    public void blockingExecutions() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(EXECUTIONS);
+        for (int i = 0; i < EXECUTIONS; i++) {
+            executorService.execute(() -> {
+                try {
+                    schedulerExecution.execute(taskInstance, null, blockingChain);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
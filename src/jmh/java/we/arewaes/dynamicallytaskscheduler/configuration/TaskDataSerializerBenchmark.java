@@ -0,0 +1,68 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduleAndNoData} round trips through the compact format, and through plain Java serialization as a
+ * baseline for rows that have not been migrated yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskDataSerializerBenchmark {
+
+    private final TaskDataSerializer serializer = new TaskDataSerializer(Serializer.DEFAULT_JAVA_SERIALIZER, new CronScheduleCache(100));
+    private ScheduleAndNoData data;
+    private byte[] compactBytes;
+    private byte[] javaBytes;
+
+    @Setup
+    public void setUp() {
+        data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *", ZoneId.of("Europe/Amsterdam")), false);
+        compactBytes = serializer.serialize(data);
+        javaBytes = Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() {
+        return serializer.serialize(data);
+    }
+
+    @Benchmark
+    public ScheduleAndNoData deserializeCompact() {
+        return serializer.deserialize(ScheduleAndNoData.class, compactBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeJava() {
+        return Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data);
+    }
+
+    @Benchmark
+    public ScheduleAndNoData deserializeJava() {
+        return Serializer.DEFAULT_JAVA_SERIALIZER.deserialize(ScheduleAndNoData.class, javaBytes);
+    }
+
+    @Benchmark
+    public ScheduleAndNoData deserializeJavaInterned() {
+        return serializer.deserialize(ScheduleAndNoData.class, javaBytes);
+    }
+}
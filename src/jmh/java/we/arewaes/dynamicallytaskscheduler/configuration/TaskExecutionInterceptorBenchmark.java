@@ -0,0 +1,120 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.TaskExecutionCustomInterceptor;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskOnHoldJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+import we.arewaes.dynamicallytaskscheduler.service.TaskOnHoldCache;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+/**
+ * The interceptor decision for each outcome, with the repository stubbed so only the in-process cost is measured.
+ * The uncached variant invalidates the on-hold cache before every call, as happens after a hold change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskExecutionInterceptorBenchmark {
+
+    private static final String RUNNING_TASK = "running-task";
+    private static final String HELD_TASK = "held-task";
+
+    private TaskOnHoldCache taskOnHoldCache;
+    private ExecutionEventLog executionEventLog;
+    private TaskExecutionCustomInterceptor interceptor;
+    private ExecutionChain executionChain;
+    private TaskInstance<ScheduleAndNoData> running;
+    private ExecutionContext runningContext;
+    private TaskInstance<ScheduleAndNoData> held;
+    private TaskInstance<ScheduleAndNoData> released;
+
+    @Setup
+    public void setUp() {
+        DataSource unusedDataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        TaskOnHoldJdbcRepository repository = new TaskOnHoldJdbcRepository(unusedDataSource) {
+            @Override
+            public boolean isOnHold(String taskId) {
+                return HELD_TASK.equals(taskId);
+            }
+        };
+        taskOnHoldCache = new TaskOnHoldCache(repository, 1000, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        executionEventLog = new ExecutionEventLog(events -> {
+        }, new SimpleMeterRegistry(), 16384, ExecutionEventLog.DROP, 512, Duration.ofMillis(20));
+        executionEventLog.start();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulerMisfires schedulerMisfires = new SchedulerMisfires(meterRegistry, MisfirePolicy.FIRE_ONCE, Duration.ofMinutes(1), 0);
+        // an unlimited catch-up rate never defers, so no scheduler repository is needed
+        interceptor = new TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, null, meterRegistry);
+        CompletionHandler<Object> proceeded = (executionComplete, executionOperations) -> {
+        };
+        executionChain = new ExecutionChain(List.of(), (TaskInstance<Object> taskInstance, ExecutionContext executionContext) -> proceeded);
+
+        CronScheduleCache cronScheduleCache = new CronScheduleCache(100);
+        running = new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, RUNNING_TASK,
+                new ScheduleAndNoData(cronScheduleCache.get("0 0/5 * * * *"), false));
+        held = new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, HELD_TASK,
+                new ScheduleAndNoData(cronScheduleCache.get("0 0/5 * * * *"), true));
+        released = new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, RUNNING_TASK,
+                new ScheduleAndNoData(cronScheduleCache.get("0 0/5 * * * *"), true));
+        // executions that are not overdue, so the misfire check passes them through
+        runningContext = new ExecutionContext(null, new Execution(Instant.now().plus(Duration.ofDays(1)), running), null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executionEventLog.stop();
+    }
+
+    @Benchmark
+    public CompletionHandler<?> proceed() {
+        return interceptor.execute(running, runningContext, executionChain);
+    }
+
+    @Benchmark
+    public CompletionHandler<?> proceedUncached() {
+        taskOnHoldCache.invalidate(RUNNING_TASK);
+        return interceptor.execute(running, runningContext, executionChain);
+    }
+
+    @Benchmark
+    public CompletionHandler<?> rescheduleWhileOnHold() {
+        return interceptor.execute(held, null, executionChain);
+    }
+
+    @Benchmark
+    public CompletionHandler<?> replaceWhenReleased() {
+        return interceptor.execute(released, null, executionChain);
+    }
+}
@@ -0,0 +1,69 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eight executor threads recording an execution start, either the way the task body used to ({@code printf} of
+ * {@code LocalDateTime.now()} to standard out, which every thread serializes on) or by publishing to the event ring
+ * under the {@code block} policy, so the publishers' rate is bounded by what the drainer really writes rather than
+ * inflated by dropped events. Standard out discards, so formatting and locking are measured but the console is not.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ExecutionEventLogBenchmark {
+
+    private static final String TASK_EXECUTION_STARTED_MESSAGE = "INSTANCE ID: %s -> Task %s started at %s \n";
+
+    private PrintStream originalOut;
+    private ExecutionEventLog executionEventLog;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        executionEventLog = new ExecutionEventLog(new ExecutionEventSink.StdoutSink("benchmark-instance"),
+                new SimpleMeterRegistry(), 16384, ExecutionEventLog.BLOCK, 512, Duration.ofMillis(20));
+        executionEventLog.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executionEventLog.stop();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void printfToStdout() {
+        System.out.printf(TASK_EXECUTION_STARTED_MESSAGE, "benchmark-instance", "benchmark-task", LocalDateTime.now());
+    }
+
+    @Benchmark
+    public void publishEvent() {
+        executionEventLog.publish(ExecutionEventType.STARTED, "benchmark-task");
+    }
+}
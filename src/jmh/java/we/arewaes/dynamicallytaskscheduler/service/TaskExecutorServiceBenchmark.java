@@ -0,0 +1,57 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The task body. Standard out is swapped for a discarding stream, so the drainer's formatting happens but the console
+ * is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskExecutorServiceBenchmark {
+
+    private PrintStream originalOut;
+    private ExecutionEventLog executionEventLog;
+    private TaskExecutorService taskExecutorService;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        executionEventLog = new ExecutionEventLog(new ExecutionEventSink.StdoutSink("benchmark-instance"),
+                new SimpleMeterRegistry(), 16384, ExecutionEventLog.BLOCK, 512, Duration.ofMillis(20));
+        executionEventLog.start();
+        taskExecutorService = new TaskExecutorService(executionEventLog, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executionEventLog.stop();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void startTaskExecution() {
+        taskExecutorService.startTaskExecution("benchmark-task");
+    }
+}
@@ -0,0 +1,217 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+
+import java.io.Serial;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+/**
+ * A {@link CronSchedule} whose fields are additionally compiled into one bitmask each, so the next fire time is found
+ * by skipping over unset bits instead of walking cron-utils' expression tree. Only plain Spring cron syntax (values,
+ * names, ranges, lists, steps, {@code *} and {@code ?}) with at most one of day-of-month/day-of-week restricted is
+ * compiled; anything else, and any computation that crosses a zone offset transition, is left to {@link CronSchedule}.
+ * Instances are meant to be shared through {@link CronScheduleCache}.
+ */
+public class CompiledCronSchedule extends CronSchedule {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_OF_WEEK_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    private static final int MAX_ITERATIONS = 10_000;
+
+    private final transient Fields fields;
+
+    public CompiledCronSchedule(String pattern, ZoneId zoneId) {
+        super(pattern, zoneId);
+        this.fields = isDisabled() ? null : Fields.compile(pattern);
+    }
+
+    public boolean isCompiled() {
+        return fields != null;
+    }
+
+    @Override
+    public Instant getNextExecutionTime(ExecutionComplete executionComplete) {
+        if (fields == null) {
+            return super.getNextExecutionTime(executionComplete);
+        }
+        Instant timeDone = executionComplete.getTimeDone();
+        ZoneRules rules = getZoneId().getRules();
+        LocalDateTime start = LocalDateTime.ofInstant(timeDone, getZoneId()).truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        LocalDateTime next = fields.next(start);
+        if (next == null) {
+            return super.getNextExecutionTime(executionComplete);
+        }
+        Instant nextInstant = ZonedDateTime.ofLocal(next, getZoneId(), rules.getOffset(timeDone)).toInstant();
+        if (!rules.isFixedOffset()) {
+            ZoneOffsetTransition transition = rules.nextTransition(timeDone);
+            if (transition != null && !transition.getInstant().isAfter(nextInstant)) {
+                return super.getNextExecutionTime(executionComplete);
+            }
+        }
+        return nextInstant;
+    }
+
+    private record Fields(long seconds, long minutes, long hours, long daysOfMonth, long months, long daysOfWeek,
+                          boolean dayOfMonthRestricted, boolean dayOfWeekRestricted) {
+
+        static Fields compile(String pattern) {
+            String[] parts = pattern.trim().split("\\s+");
+            if (parts.length != 6) {
+                return null;
+            }
+            try {
+                boolean dayOfMonthRestricted = !isUnrestricted(parts[3]);
+                boolean dayOfWeekRestricted = !isUnrestricted(parts[5]);
+                if (dayOfMonthRestricted && dayOfWeekRestricted) {
+                    return null;
+                }
+                long daysOfWeek = parse(parts[5], 0, 7, DAY_OF_WEEK_NAMES, 0);
+                if ((daysOfWeek & (1L << 7)) != 0) {
+                    daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+                }
+                return new Fields(
+                        parse(parts[0], 0, 59, null, 0),
+                        parse(parts[1], 0, 59, null, 0),
+                        parse(parts[2], 0, 23, null, 0),
+                        parse(parts[3], 1, 31, null, 0),
+                        parse(parts[4], 1, 12, MONTH_NAMES, 1),
+                        daysOfWeek,
+                        dayOfMonthRestricted,
+                        dayOfWeekRestricted);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static boolean isUnrestricted(String field) {
+            return field.equals("*") || field.equals("?");
+        }
+
+        private static long parse(String field, int min, int max, String[] names, int nameOffset) {
+            long mask = 0;
+            for (String part : field.split(",")) {
+                int step = 1;
+                int slash = part.indexOf('/');
+                String range = part;
+                if (slash >= 0) {
+                    step = Integer.parseInt(part.substring(slash + 1));
+                    range = part.substring(0, slash);
+                    if (step <= 0) {
+                        throw new IllegalArgumentException("Step must be positive");
+                    }
+                }
+                int low;
+                int high;
+                if (range.equals("*") || range.equals("?")) {
+                    low = min;
+                    high = max;
+                } else {
+                    int dash = range.indexOf('-');
+                    if (dash > 0) {
+                        low = value(range.substring(0, dash), min, max, names, nameOffset);
+                        high = value(range.substring(dash + 1), min, max, names, nameOffset);
+                    } else {
+                        low = value(range, min, max, names, nameOffset);
+                        high = slash >= 0 ? max : low;
+                    }
+                }
+                if (low > high) {
+                    throw new IllegalArgumentException("Wrapping ranges are not compiled");
+                }
+                for (int value = low; value <= high; value += step) {
+                    mask |= 1L << value;
+                }
+            }
+            return mask;
+        }
+
+        private static int value(String token, int min, int max, String[] names, int nameOffset) {
+            if (names != null) {
+                String upper = token.toUpperCase(Locale.ROOT);
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].equals(upper)) {
+                        return i + nameOffset;
+                    }
+                }
+            }
+            int value = Integer.parseInt(token);
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("Value out of range");
+            }
+            return value;
+        }
+
+        private static int nextSetBit(long mask, int from) {
+            if (from > 63) {
+                return -1;
+            }
+            long remaining = mask >>> from;
+            return remaining == 0 ? -1 : from + Long.numberOfTrailingZeros(remaining);
+        }
+
+        private boolean dayMatches(LocalDateTime time) {
+            if (dayOfMonthRestricted) {
+                return (daysOfMonth & (1L << time.getDayOfMonth())) != 0;
+            }
+            if (dayOfWeekRestricted) {
+                return (daysOfWeek & (1L << (time.getDayOfWeek().getValue() % 7))) != 0;
+            }
+            return true;
+        }
+
+        LocalDateTime next(LocalDateTime start) {
+            LocalDateTime time = start;
+            for (int i = 0; i < MAX_ITERATIONS; i++) {
+                int month = nextSetBit(months, time.getMonthValue());
+                if (month < 0) {
+                    time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).withMonth(1).plusYears(1);
+                    continue;
+                }
+                if (month != time.getMonthValue()) {
+                    time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).withMonth(month);
+                    continue;
+                }
+                if (!dayMatches(time)) {
+                    time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                    continue;
+                }
+                int hour = nextSetBit(hours, time.getHour());
+                if (hour < 0) {
+                    time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                    continue;
+                }
+                if (hour != time.getHour()) {
+                    time = time.truncatedTo(ChronoUnit.DAYS).withHour(hour);
+                    continue;
+                }
+                int minute = nextSetBit(minutes, time.getMinute());
+                if (minute < 0) {
+                    time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                    continue;
+                }
+                if (minute != time.getMinute()) {
+                    time = time.truncatedTo(ChronoUnit.HOURS).withMinute(minute);
+                    continue;
+                }
+                int second = nextSetBit(seconds, time.getSecond());
+                if (second < 0) {
+                    time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                    continue;
+                }
+                return time.withSecond(second);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+
+/**
+ * Interns compiled cron schedules by expression and zone. Tasks share a small number of distinct expressions, so
+ * parsing and compiling happens once per expression instead of once per schedule, update or deserialized row.
+ */
+@Component
+public class CronScheduleCache {
+
+    private final Cache<Key, CompiledCronSchedule> cache;
+
+    public CronScheduleCache(@Value("${scheduler.cron-cache.maximum-size}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public CompiledCronSchedule get(String pattern) {
+        return get(pattern, ZoneId.systemDefault());
+    }
+
+    public CompiledCronSchedule get(String pattern, ZoneId zoneId) {
+        return cache.get(new Key(pattern, zoneId), key -> new CompiledCronSchedule(key.pattern(), key.zoneId()));
+    }
+
+    private record Key(String pattern, ZoneId zoneId) {
+    }
+}
@@ -0,0 +1,52 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Three Hikari pools on the same database, so one kind of traffic cannot starve another:
+ * <ul>
+ *     <li>{@code api} ({@code spring.datasource.hikari.*}), the primary pool used by JPA, Flyway and the REST API;</li>
+ *     <li>{@code scheduler} ({@code scheduler.datasource.hikari.*}) for db-scheduler's polling, heartbeats and
+ *     execution updates, plus the polling and due-executions queries and the task group leases around it;</li>
+ *     <li>{@code on-hold-lookup} ({@code scheduler.on-hold-cache.datasource.hikari.*}) for the execution interceptor's
+ *     on-hold lookups and the connection listening for hold changes.</li>
+ * </ul>
+ * All three share {@code spring.datasource.url} and credentials, and each reports its own {@code hikaricp.*} metrics
+ * tagged with its pool name.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    public static final String SCHEDULER_DATA_SOURCE = "schedulerDataSource";
+    public static final String ON_HOLD_LOOKUP_DATA_SOURCE = "onHoldLookupDataSource";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return createPool(dataSourceProperties, "api");
+    }
+
+    @Bean(SCHEDULER_DATA_SOURCE)
+    @ConfigurationProperties("scheduler.datasource.hikari")
+    public HikariDataSource schedulerDataSource(DataSourceProperties dataSourceProperties) {
+        return createPool(dataSourceProperties, "scheduler");
+    }
+
+    @Bean(ON_HOLD_LOOKUP_DATA_SOURCE)
+    @ConfigurationProperties("scheduler.on-hold-cache.datasource.hikari")
+    public HikariDataSource onHoldLookupDataSource(DataSourceProperties dataSourceProperties) {
+        return createPool(dataSourceProperties, "on-hold-lookup");
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties dataSourceProperties, String poolName) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
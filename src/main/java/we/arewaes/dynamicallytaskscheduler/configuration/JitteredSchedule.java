@@ -0,0 +1,47 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Fires a fixed {@code jitter} after every fire time of a cron schedule. The next fire is computed from the
+ * completion time shifted back by the jitter, so a task whose jitter reaches past its cron's next fire does not skip it.
+ */
+public class JitteredSchedule implements Schedule {
+
+    private final CronSchedule schedule;
+    private final Duration jitter;
+
+    public JitteredSchedule(CronSchedule schedule, Duration jitter) {
+        this.schedule = schedule;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public Instant getNextExecutionTime(ExecutionComplete executionComplete) {
+        if (schedule.isDisabled()) {
+            return NEVER;
+        }
+        Instant unjittered = executionComplete.getTimeDone().minus(jitter);
+        return schedule.getNextExecutionTime(ExecutionComplete.simulatedSuccess(unjittered)).plus(jitter);
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return schedule.isDeterministic();
+    }
+
+    @Override
+    public boolean isDisabled() {
+        return schedule.isDisabled();
+    }
+
+    @Override
+    public String toString() {
+        return schedule + " + " + jitter;
+    }
+}
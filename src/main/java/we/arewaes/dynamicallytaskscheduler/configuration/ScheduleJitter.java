@@ -0,0 +1,28 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Spreads tasks that opt in over {@code scheduler.jitter.window} after their cron fire time. The offset is a hash of
+ * the task id, so it is the same on every instance and every run, and is stored with the task rather than recomputed.
+ */
+@Component
+public class ScheduleJitter {
+
+    private final long windowSeconds;
+
+    public ScheduleJitter(@Value("${scheduler.jitter.window}") Duration window) {
+        this.windowSeconds = window.toSeconds();
+    }
+
+    public Duration offset(String taskId) {
+        if (windowSeconds <= 0) {
+            return Duration.ZERO;
+        }
+        long hash = taskId.hashCode() * 0x9E3779B97F4A7C15L;
+        return Duration.ofSeconds(Math.floorMod(hash ^ (hash >>> 32), windowSeconds));
+    }
+}
@@ -0,0 +1,354 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeouts and cancellation of running executions of dynamic tasks. Each execution gets a {@link Cancellation} that
+ * its task body reaches through {@link #cancellationOf(ExecutionContext)}. It is cancelled once it has run for its
+ * task's timeout, or {@code scheduler.execution.timeout.default} (0 for none), never longer than
+ * {@code scheduler.execution.timeout.max}, and when its task is deleted. Cancelling raises the signal and interrupts the
+ * executing thread, so a blocking wait such as a webhook call ends at once and a body that polls the signal stops at
+ * its next check; a body that does neither still runs to its end, as a thread cannot be stopped safely.
+ * <p>
+ * A cancelled execution fails with {@link ExecutionCancelledException}: after a timeout it backs off like any other
+ * failure, while the execution of a deleted task is removed. Deleting a task that runs on another instance sends its id
+ * on the {@value #CHANNEL} channel of its shard. Every instance listens to that channel on each shard's scheduler pool,
+ * on its own thread and whatever else is enabled, so it holds one more connection of that pool per shard. Ids sent
+ * while an instance is reconnecting are lost, and those executions run to their end or their timeout.
+ */
+@Component
+@Slf4j
+public class SchedulerCancellations implements ExecutionInterceptor, SmartLifecycle, DisposableBean {
+
+    public static final String CHANNEL = "scheduled_task_cancel";
+    static final String CANCELLATIONS_METRIC = "scheduler.execution.cancellations";
+
+    private final ExecutionEventLog executionEventLog;
+    private final ShardDatabases shardDatabases;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final Counter timedOut;
+    private final Counter cancelled;
+    private final ConcurrentMap<String, Cancellation> running = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer;
+    private final List<Thread> listenerThreads = new ArrayList<>();
+    private volatile boolean listening;
+
+    public SchedulerCancellations(ExecutionEventLog executionEventLog,
+                                  MeterRegistry meterRegistry,
+                                  ShardDatabases shardDatabases,
+                                  @Value("${scheduler.execution.timeout.default}") Duration defaultTimeout,
+                                  @Value("${scheduler.execution.timeout.max}") Duration maxTimeout,
+                                  @Value("${scheduler.execution.cancel.poll-timeout}") Duration pollTimeout,
+                                  @Value("${scheduler.execution.cancel.reconnect-delay}") Duration reconnectDelay) {
+        if (defaultTimeout.isNegative() || maxTimeout.isNegative()) {
+            throw new IllegalArgumentException("scheduler.execution.timeout.default and max must not be negative, 0 turns them off");
+        }
+        this.executionEventLog = executionEventLog;
+        this.shardDatabases = shardDatabases;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+        this.timedOut = meterRegistry.counter(CANCELLATIONS_METRIC, "reason", "timeout");
+        this.cancelled = meterRegistry.counter(CANCELLATIONS_METRIC, "reason", "cancelled");
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "db-scheduler-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // nearly every timeout is withdrawn when its execution ends in time
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return why the timeout of a task request is invalid, or {@code null} if it is valid
+     */
+    public static String validate(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero() || timeout.toMillis() > Integer.MAX_VALUE)) {
+            return "timeout must be positive and at most " + Duration.ofMillis(Integer.MAX_VALUE);
+        }
+        return null;
+    }
+
+    /**
+     * The timeout an execution of the task runs under, zero for none.
+     */
+    Duration timeoutOf(ScheduleAndNoData data) {
+        Duration timeout = data.getTimeout() != null ? data.getTimeout() : defaultTimeout;
+        if (!maxTimeout.isZero() && (timeout.isZero() || timeout.compareTo(maxTimeout) > 0)) {
+            return maxTimeout;
+        }
+        return timeout;
+    }
+
+    /**
+     * The cancellation signal of the execution, one that is never raised if it does not run through this interceptor.
+     */
+    public Cancellation cancellationOf(ExecutionContext executionContext) {
+        return running.getOrDefault(executionContext.getExecution().taskInstance.getId(), Cancellation.NONE);
+    }
+
+    /**
+     * Cancels the task's execution, here if this instance runs it and otherwise through the task's shard.
+     */
+    public void cancel(TaskShard shard, String taskId) {
+        if (cancelIfRunningHere(taskId)) {
+            return;
+        }
+        try {
+            shard.schedulerJdbcRepository().notify(CHANNEL, taskId);
+        } catch (DataAccessException e) {
+            log.warn("Could not ask other instances to cancel the execution of task {}", taskId, e);
+        }
+    }
+
+    /**
+     * @return whether this instance was running an execution of the task
+     */
+    public boolean cancelIfRunningHere(String taskId) {
+        Cancellation cancellation = running.get(taskId);
+        if (cancellation == null) {
+            return false;
+        }
+        cancel(cancellation, Reason.CANCELLED);
+        return true;
+    }
+
+    private void cancel(Cancellation cancellation, Reason reason) {
+        cancellation.cancel(reason, () -> {
+            if (reason == Reason.TIMEOUT) {
+                timedOut.increment();
+                executionEventLog.publish(ExecutionEventType.TIMED_OUT, cancellation.taskId);
+                log.warn("Execution of task {} timed out after {}", cancellation.taskId, cancellation.timeout);
+            } else {
+                cancelled.increment();
+                executionEventLog.publish(ExecutionEventType.CANCELLED, cancellation.taskId);
+            }
+        });
+    }
+
+    @Override
+    public CompletionHandler<?> execute(TaskInstance<?> taskInstance, ExecutionContext executionContext, ExecutionChain executionChain) {
+        if (!(taskInstance.getData() instanceof ScheduleAndNoData data)) {
+            return executionChain.proceed(taskInstance, executionContext);
+        }
+        Duration timeout = timeoutOf(data);
+        Cancellation cancellation = new Cancellation(taskInstance.getId(), Thread.currentThread(), timeout);
+        running.put(cancellation.taskId, cancellation);
+        ScheduledFuture<?> expiry = timeout.isZero() ? null
+                : timer.schedule(() -> cancel(cancellation, Reason.TIMEOUT), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            CompletionHandler<?> completionHandler = executionChain.proceed(taskInstance, executionContext);
+            cancellation.throwIfCancelled();
+            return completionHandler;
+        } catch (ExecutionCancelledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // what a cancelled body throws, usually from an interrupted wait, is the consequence and not the cause
+            ExecutionCancelledException cancelledException = cancellation.exception(e);
+            throw cancelledException != null ? cancelledException : e;
+        } finally {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+            running.remove(cancellation.taskId, cancellation);
+            if (cancellation.finish()) {
+                // the interrupt is meant for the body, not for db-scheduler completing the execution on this thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        listening = true;
+        for (int shard = 0; shard < shardDatabases.size(); shard++) {
+            DataSource dataSource = shardDatabases.get(shard).schedulerDataSource();
+            String name = ShardRouter.shardName(shard);
+            Thread listenerThread = new Thread(() -> listen(dataSource, name), "db-scheduler-cancel-listener-" + name);
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+            listenerThreads.add(listenerThread);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        listening = false;
+        listenerThreads.forEach(Thread::interrupt);
+        listenerThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return listening;
+    }
+
+    private void listen(DataSource dataSource, String shard) {
+        while (listening) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for cancellations on channel {} of {}", CHANNEL, shard);
+                while (listening) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        cancelIfRunningHere(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!listening) {
+                    return;
+                }
+                log.warn("Lost connection listening on channel {} of {}. Will reconnect in {}", CHANNEL, shard, reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    public enum Reason {
+        TIMEOUT,
+        CANCELLED
+    }
+
+    /**
+     * The signal a running execution is cancelled with. Cancelling and finishing hold its monitor only for
+     * bookkeeping, so the executing thread is never interrupted after its execution finished.
+     */
+    public static final class Cancellation {
+
+        public static final Cancellation NONE = new Cancellation(null, null, Duration.ZERO);
+
+        private final String taskId;
+        private final Thread thread;
+        private final Duration timeout;
+        private Reason reason;
+        private boolean finished;
+
+        private Cancellation(String taskId, Thread thread, Duration timeout) {
+            this.taskId = taskId;
+            this.thread = thread;
+            this.timeout = timeout;
+        }
+
+        public synchronized boolean isCancelled() {
+            return reason != null;
+        }
+
+        /**
+         * @throws ExecutionCancelledException if the execution was cancelled
+         */
+        public void throwIfCancelled() {
+            ExecutionCancelledException exception = exception(null);
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+        /**
+         * Records the cancellation before interrupting, so an interrupted body never stops before it is counted.
+         * Recording may block on the event log, so it runs outside the monitor.
+         */
+        private void cancel(Reason reason, Runnable record) {
+            if (!raise(reason)) {
+                return;
+            }
+            record.run();
+            interrupt();
+        }
+
+        private synchronized boolean raise(Reason reason) {
+            if (finished || this.reason != null) {
+                return false;
+            }
+            this.reason = reason;
+            return true;
+        }
+
+        private synchronized void interrupt() {
+            if (!finished) {
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * @return whether the execution was cancelled, and its thread possibly interrupted
+         */
+        private synchronized boolean finish() {
+            finished = true;
+            return reason != null;
+        }
+
+        private synchronized ExecutionCancelledException exception(Throwable cause) {
+            if (reason == null) {
+                return null;
+            }
+            String message = reason == Reason.TIMEOUT ? "Execution of task " + taskId + " timed out after " + timeout
+                    : "Execution of task " + taskId + " was cancelled";
+            return new ExecutionCancelledException(reason, message, cause);
+        }
+    }
+
+    /**
+     * The failure of a cancelled execution.
+     */
+    @Getter
+    public static class ExecutionCancelledException extends RuntimeException {
+
+        private final Reason reason;
+
+        ExecutionCancelledException(Reason reason, String message, Throwable cause) {
+            super(message, cause);
+            this.reason = reason;
+        }
+    }
+}
@@ -1,35 +1,59 @@
 package we.arewaes.dynamicallytaskscheduler.configuration;
 
 import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.SchedulerBuilder;
 import com.github.kagkarlsson.scheduler.event.ExecutionChain;
 import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
 import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
 import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.FailureHandler;
+import com.github.kagkarlsson.scheduler.task.Priority;
 import com.github.kagkarlsson.scheduler.task.TaskDescriptor;
 import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
 import com.github.kagkarlsson.scheduler.task.helper.RecurringTaskWithPersistentSchedule;
 import com.github.kagkarlsson.scheduler.task.helper.ScheduleAndData;
 import com.github.kagkarlsson.scheduler.task.helper.Tasks;
 import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import com.github.kagkarlsson.scheduler.task.schedule.FixedDelay;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardDatabases.ShardDatabase;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+import we.arewaes.dynamicallytaskscheduler.service.TaskDriftReconciler;
 import we.arewaes.dynamicallytaskscheduler.service.TaskExecutorService;
+import we.arewaes.dynamicallytaskscheduler.service.TaskOnHoldCache;
 
 import javax.sql.DataSource;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Configuration
 public class SchedulerConfiguration {
     public static final String DYNAMIC_RECURRING_TASK_NAME = "dynamic-recurring-task";
     public static final TaskDescriptor<ScheduleAndNoData> DYNAMIC_RECURRING_TASK =
             TaskDescriptor.of(DYNAMIC_RECURRING_TASK_NAME, ScheduleAndNoData.class);
+    public static final String TASK_DRIFT_RECONCILER_TASK_NAME = "task-drift-reconciler";
 
     @Bean
     public String instanceId(@Value("${instance.id}") String instanceId) {
@@ -37,26 +61,122 @@ public class SchedulerConfiguration {
     }
 
     @Bean
-    public Scheduler scheduler(DataSource dataSource, TaskExecutorService taskExecutorService, ScheduledTaskRepository scheduledTaskRepository) {
+    public Serializer taskDataSerializer(CronScheduleCache cronScheduleCache) {
+        return new TaskDataSerializer(Serializer.DEFAULT_JAVA_SERIALIZER, cronScheduleCache);
+    }
+
+    /**
+     * One scheduler per shard, each polling its own database. Every instance runs all of them, so the cluster still
+     * shares the executions of every shard.
+     */
+    @Bean
+    public TaskShards taskShards(ShardRouter shardRouter, ShardDatabases shardDatabases,
+                                 ScheduledTaskJdbcRepository scheduledTaskJdbcRepository,
+                                 SchedulerJdbcRepository schedulerJdbcRepository,
+                                 Serializer taskDataSerializer, TaskExecutorService taskExecutorService,
+                                 TaskOnHoldCache taskOnHoldCache, ObjectProvider<SchedulerListener> schedulerListeners,
+                                 MeterRegistry meterRegistry, SchedulerPolling schedulerPolling,
+                                 SchedulerExecution schedulerExecution, TaskDriftReconciler taskDriftReconciler,
+                                 ExecutionEventLog executionEventLog, SchedulerMisfires schedulerMisfires,
+                                 SchedulerFailures schedulerFailures, SchedulerGroups schedulerGroups,
+                                 SchedulerCancellations schedulerCancellations) {
+        List<TaskShard> shards = new ArrayList<>();
+        for (int index = 0; index < shardDatabases.size(); index++) {
+            ShardDatabase database = shardDatabases.get(index);
+            String name = ShardRouter.shardName(index);
+            ScheduledTaskJdbcRepository shardScheduledTaskJdbcRepository = index == 0 ? scheduledTaskJdbcRepository
+                    : new ScheduledTaskJdbcRepository(new JdbcTemplate(database.dataSource()), taskDataSerializer);
+            SchedulerJdbcRepository shardSchedulerJdbcRepository = index == 0 ? schedulerJdbcRepository
+                    : new SchedulerJdbcRepository(database.schedulerDataSource());
+            AtomicReference<Scheduler> shardScheduler = new AtomicReference<>();
+            SchedulerPolling shardPolling = index == 0 ? schedulerPolling
+                    : schedulerPolling.forShard(name, shardScheduler::get, shardSchedulerJdbcRepository);
+            TaskDriftReconciler shardReconciler = index == 0 ? taskDriftReconciler
+                    : taskDriftReconciler.forShard(shardScheduledTaskJdbcRepository);
+            TaskExecutionCustomInterceptor interceptor = new TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog,
+                    schedulerMisfires, shardSchedulerJdbcRepository, meterRegistry);
+
+            shardScheduler.set(createScheduler(database.schedulerDataSource(), taskDataSerializer, taskExecutorService,
+                    schedulerListeners, meterRegistry, shardPolling, schedulerExecution, shardReconciler, interceptor,
+                    schedulerGroups.interceptor(shardSchedulerJdbcRepository), schedulerCancellations,
+                    schedulerFailures.handler(shardScheduledTaskJdbcRepository)));
+            shards.add(new TaskShard(index, name, database.scheduledTaskRepository(), shardScheduledTaskJdbcRepository,
+                    shardSchedulerJdbcRepository, database.transactionManager(), shardScheduler.get()));
+        }
+        return new TaskShards(shardRouter, shards);
+    }
+
+    /**
+     * The scheduler of shard 0, which is the only one when sharding is off.
+     */
+    @Bean
+    public Scheduler scheduler(TaskShards taskShards) {
+        return taskShards.all().get(0).scheduler();
+    }
+
+    private static Scheduler createScheduler(DataSource dataSource, Serializer taskDataSerializer, TaskExecutorService taskExecutorService,
+                                             ObjectProvider<SchedulerListener> schedulerListeners, MeterRegistry meterRegistry,
+                                             SchedulerPolling schedulerPolling, SchedulerExecution schedulerExecution,
+                                             TaskDriftReconciler taskDriftReconciler, TaskExecutionCustomInterceptor interceptor,
+                                             ExecutionInterceptor groupInterceptor, SchedulerCancellations schedulerCancellations,
+                                             FailureHandler<ScheduleAndNoData> failureHandler) {
         final RecurringTaskWithPersistentSchedule<ScheduleAndNoData> dynamicRecurringTask =
                 Tasks.recurringWithPersistentSchedule(DYNAMIC_RECURRING_TASK)
-                        .execute((taskInstance, executionContext) -> taskExecutorService.startTaskExecution(taskInstance.getId()));
+                        .onFailure(failureHandler)
+                        .execute((taskInstance, executionContext) -> taskExecutorService.executeTask(taskInstance.getId(),
+                                taskInstance.getData(), executionContext.getExecution().executionTime,
+                                schedulerCancellations.cancellationOf(executionContext)));
+
+        final RecurringTask<String> taskDriftReconcilerTask =
+                Tasks.recurring(TASK_DRIFT_RECONCILER_TASK_NAME, FixedDelay.of(taskDriftReconciler.getInterval()), String.class)
+                        .initialData("")
+                        .executeStateful((taskInstance, executionContext) -> taskDriftReconciler.reconcile(taskInstance.getData()));
+
+        SchedulerBuilder schedulerBuilder = schedulerExecution.configure(schedulerPolling.configure(
+                        Scheduler.create(new SchedulerStatementTimer(dataSource, meterRegistry), dynamicRecurringTask, taskDriftReconcilerTask)))
+                .startTasks(taskDriftReconcilerTask)
+                .serializer(taskDataSerializer)
+                .enablePriority()
+                .addExecutionInterceptor(interceptor)
+                .addExecutionInterceptor(groupInterceptor)
+                .addExecutionInterceptor(schedulerCancellations)
+                .registerShutdownHook();
+        schedulerListeners.orderedStream()
+                .filter(listener -> !(listener instanceof SchedulerPolling))
+                .forEach(schedulerBuilder::addSchedulerListener);
+        schedulerBuilder.addSchedulerListener(schedulerPolling);
 
-        Scheduler scheduler = Scheduler.create(dataSource, dynamicRecurringTask)
-                .pollingInterval(Duration.ofSeconds(1))
-                .addExecutionInterceptor(new TaskExecutionCustomInterceptor(scheduledTaskRepository))
-                .registerShutdownHook()
-                .build();
+        Scheduler scheduler = schedulerBuilder.build();
 
         scheduler.start();
         return scheduler;
     }
 
-    @RequiredArgsConstructor
-    @Slf4j
     static class TaskExecutionCustomInterceptor implements ExecutionInterceptor {
 
-        private final ScheduledTaskRepository scheduledTaskRepository;
+        static final String DECISIONS_METRIC = "scheduler.interceptor.decisions";
+
+        private final TaskOnHoldCache taskOnHoldCache;
+        private final ExecutionEventLog executionEventLog;
+        private final SchedulerMisfires schedulerMisfires;
+        private final SchedulerJdbcRepository schedulerJdbcRepository;
+        private final Counter proceeded;
+        private final Counter rescheduled;
+        private final Counter replaced;
+        private final Counter deferred;
+
+        TaskExecutionCustomInterceptor(TaskOnHoldCache taskOnHoldCache, ExecutionEventLog executionEventLog,
+                                       SchedulerMisfires schedulerMisfires, SchedulerJdbcRepository schedulerJdbcRepository,
+                                       MeterRegistry meterRegistry) {
+            this.taskOnHoldCache = taskOnHoldCache;
+            this.executionEventLog = executionEventLog;
+            this.schedulerMisfires = schedulerMisfires;
+            this.schedulerJdbcRepository = schedulerJdbcRepository;
+            this.proceeded = meterRegistry.counter(DECISIONS_METRIC, "outcome", "proceed");
+            this.rescheduled = meterRegistry.counter(DECISIONS_METRIC, "outcome", "reschedule");
+            this.replaced = meterRegistry.counter(DECISIONS_METRIC, "outcome", "replace");
+            this.deferred = meterRegistry.counter(DECISIONS_METRIC, "outcome", "defer");
+        }
 
         private static boolean isDynamicRecurringTask(TaskInstance<?> taskInstance) {
             return taskInstance.getTaskName().equals(DYNAMIC_RECURRING_TASK_NAME) &&
@@ -65,7 +185,6 @@ public class SchedulerConfiguration {
 
         @Override
         public CompletionHandler<?> execute(TaskInstance<?> taskInstance, ExecutionContext executionContext, ExecutionChain executionChain) {
-            log.info("Custom interceptor is being executed");
             if (isDynamicRecurringTask(taskInstance)) {
                 TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule = (TaskInstance<ScheduleAndNoData>) taskInstance;
                 if (isOnHold(taskInstanceWithSchedule)) {
@@ -73,16 +192,67 @@ public class SchedulerConfiguration {
                 }
 
                 if (!isOnHold(taskInstanceWithSchedule) && isOnHoldDb(taskInstanceWithSchedule)) {
-                    return handleOnHoldNotInSyncWithDb("Task is on hold on the DB. Will be replaced \n", true, taskInstanceWithSchedule);
+                    return handleOnHoldNotInSyncWithDb(true, taskInstanceWithSchedule);
+                }
+
+                Instant executionTime = executionContext.getExecution().executionTime;
+                Instant admitted = schedulerMisfires.admittedMisfire(taskInstance.getId(), executionTime);
+                if (admitted != null) {
+                    return fireMisfire(taskInstanceWithSchedule, executionContext, executionChain, admitted);
+                }
+                if (schedulerMisfires.isMisfire(executionTime)) {
+                    return handleMisfire(taskInstanceWithSchedule, executionContext, executionChain, executionTime);
                 }
             }
-            log.info("Proceeding with the task execution");
+            proceeded.increment();
             return executionChain.proceed(taskInstance, executionContext);
         }
 
-        private CompletionHandler.OnCompleteReplace<ScheduleAndNoData> handleOnHoldNotInSyncWithDb(String log, boolean isOnHold, TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule) {
-            TaskExecutionCustomInterceptor.log.info(log);
-            ScheduleAndNoData newData = new ScheduleAndNoData(taskInstanceWithSchedule.getData().getSchedule(), isOnHold);
+        /**
+         * Handles an overdue fire according to the task's misfire policy. A skipped fire is rescheduled at once, while
+         * one that runs is handed back unrun, due at its catch-up slot, unless that slot has already come.
+         */
+        private CompletionHandler<?> handleMisfire(TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule, ExecutionContext executionContext,
+                                                   ExecutionChain executionChain, Instant executionTime) {
+            MisfirePolicy policy = schedulerMisfires.policyOf(taskInstanceWithSchedule.getData());
+            schedulerMisfires.count(policy);
+            if (policy == MisfirePolicy.SKIP) {
+                executionEventLog.publish(ExecutionEventType.SKIPPED_AS_MISFIRE, taskInstanceWithSchedule.getId());
+                rescheduled.increment();
+                return new CompletionHandler.OnCompleteReschedule<>(taskInstanceWithSchedule.getData().getSchedule());
+            }
+            Instant slot = schedulerMisfires.reserveCatchUp(taskInstanceWithSchedule.getId(), executionTime);
+            if (slot != null) {
+                deferred.increment();
+                return new SchedulerGroups.Deferral(schedulerJdbcRepository, slot);
+            }
+            return fireMisfire(taskInstanceWithSchedule, executionContext, executionChain, executionTime);
+        }
+
+        /**
+         * Runs the fire missed at {@code missed}. With {@link MisfirePolicy#FIRE_ALL} the next execution is the first
+         * fire after the missed one rather than after now, so every missed fire runs in turn, unless its group deferred
+         * it unrun.
+         */
+        private CompletionHandler<?> fireMisfire(TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule, ExecutionContext executionContext,
+                                                 ExecutionChain executionChain, Instant missed) {
+            MisfirePolicy policy = schedulerMisfires.policyOf(taskInstanceWithSchedule.getData());
+            Schedule schedule = taskInstanceWithSchedule.getData().getSchedule();
+            proceeded.increment();
+            CompletionHandler<?> completionHandler = executionChain.proceed(taskInstanceWithSchedule, executionContext);
+            if (policy == MisfirePolicy.FIRE_ONCE || completionHandler instanceof SchedulerGroups.Deferral) {
+                return completionHandler;
+            }
+            Instant nextMissed = schedule.getNextExecutionTime(ExecutionComplete.simulatedSuccess(missed));
+            return (CompletionHandler<ScheduleAndNoData>) (executionComplete, executionOperations) ->
+                    executionOperations.reschedule(executionComplete, nextMissed);
+        }
+
+        private CompletionHandler.OnCompleteReplace<ScheduleAndNoData> handleOnHoldNotInSyncWithDb(boolean isOnHold, TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule) {
+            executionEventLog.publish(isOnHold ? ExecutionEventType.PUT_ON_HOLD : ExecutionEventType.RELEASED_FROM_HOLD,
+                    taskInstanceWithSchedule.getId());
+            replaced.increment();
+            ScheduleAndNoData newData = taskInstanceWithSchedule.getData().withOnHold(isOnHold);
             return new CompletionHandler.OnCompleteReplace<>(taskInstanceWithSchedule.getTaskName(), newData);
         }
 
@@ -90,11 +260,12 @@ public class SchedulerConfiguration {
             if (isOnHoldDb(taskInstanceWithSchedule)) {
                 return rescheduleTaskExecutor(taskInstanceWithSchedule);
             }
-            return handleOnHoldNotInSyncWithDb("Task was on hold. Will be replaced \n", false, taskInstanceWithSchedule);
+            return handleOnHoldNotInSyncWithDb(false, taskInstanceWithSchedule);
         }
 
         private CompletionHandler.OnCompleteReschedule<Object> rescheduleTaskExecutor(TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule) {
-            log.info("Task is on hold. Will be rescheduled \n");
+            executionEventLog.publish(ExecutionEventType.RESCHEDULED_ON_HOLD, taskInstanceWithSchedule.getId());
+            rescheduled.increment();
             return new CompletionHandler.OnCompleteReschedule<>(taskInstanceWithSchedule.getData().getSchedule());
         }
 
@@ -103,17 +274,90 @@ public class SchedulerConfiguration {
         }
 
         private boolean isOnHoldDb(TaskInstance<ScheduleAndNoData> taskInstanceWithSchedule) {
-            return scheduledTaskRepository.findByIdAndOnHoldTrue(taskInstanceWithSchedule.getId()).isPresent();
+            return taskOnHoldCache.isOnHold(taskInstanceWithSchedule.getId());
         }
     }
 
-    @Getter
-    @RequiredArgsConstructor
+    /**
+     * The cron schedule of a dynamic task, shifted by its jitter, the webhook it calls when it fires, if any, its
+     * misfire policy and timeout, {@code null} for the defaults, and its group and priority, {@code null} for none. Rows
+     * Java-serialized before these existed deserialize with {@code null} for all of them.
+     */
     public static class ScheduleAndNoData implements ScheduleAndData, Serializable {
         @Serial
         private static final long serialVersionUID = 1L;
         private final CronSchedule schedule;
+        @Getter
         private final boolean isOnHold;
+        private final Duration jitter;
+        @Getter
+        private final Webhook webhook;
+        @Getter
+        private final MisfirePolicy misfirePolicy;
+        @Getter
+        private final String group;
+        @Getter
+        private final Integer priority;
+        @Getter
+        private final Duration timeout;
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold) {
+            this(schedule, isOnHold, Duration.ZERO);
+        }
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold, Duration jitter) {
+            this(schedule, isOnHold, jitter, null);
+        }
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold, Duration jitter, Webhook webhook) {
+            this(schedule, isOnHold, jitter, webhook, null);
+        }
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold, Duration jitter, Webhook webhook, MisfirePolicy misfirePolicy) {
+            this(schedule, isOnHold, jitter, webhook, misfirePolicy, null, null);
+        }
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold, Duration jitter, Webhook webhook, MisfirePolicy misfirePolicy,
+                                 String group, Integer priority) {
+            this(schedule, isOnHold, jitter, webhook, misfirePolicy, group, priority, null);
+        }
+
+        public ScheduleAndNoData(CronSchedule schedule, boolean isOnHold, Duration jitter, Webhook webhook, MisfirePolicy misfirePolicy,
+                                 String group, Integer priority, Duration timeout) {
+            this.schedule = schedule;
+            this.isOnHold = isOnHold;
+            this.jitter = jitter;
+            this.webhook = webhook;
+            this.misfirePolicy = misfirePolicy;
+            this.group = group;
+            this.priority = priority;
+            this.timeout = timeout;
+        }
+
+        public CronSchedule getCronSchedule() {
+            return schedule;
+        }
+
+        public Duration getJitter() {
+            return jitter == null ? Duration.ZERO : jitter;
+        }
+
+        /**
+         * The priority column of the task's execution, db-scheduler's default for tasks without a priority.
+         */
+        public int getExecutionPriority() {
+            return priority == null ? Priority.MEDIUM : priority;
+        }
+
+        public ScheduleAndNoData withOnHold(boolean onHold) {
+            return new ScheduleAndNoData(schedule, onHold, jitter, webhook, misfirePolicy, group, priority, timeout);
+        }
+
+        @Override
+        public Schedule getSchedule() {
+            Duration jitter = getJitter();
+            return jitter.isZero() ? schedule : new JitteredSchedule(schedule, jitter);
+        }
 
         @Override
         public Object getData() {
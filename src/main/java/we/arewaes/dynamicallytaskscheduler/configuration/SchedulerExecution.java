@@ -0,0 +1,114 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.SchedulerBuilder;
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads that run executions. In {@code platform} mode db-scheduler runs them on its fixed pool of
+ * {@code scheduler.threads} threads; in {@code virtual} mode every execution gets its own virtual thread and
+ * {@code scheduler.threads} only bounds how many executions are picked at a time, so it can be raised far beyond what
+ * a platform pool could hold. Either way at most {@code max-concurrency} executions run their interceptors and task
+ * body at once, which keeps them from queueing on a connection pool that also serves polling and completions.
+ */
+@Component
+@Slf4j
+public class SchedulerExecution implements ExecutionInterceptor {
+
+    static final String PLATFORM = "platform";
+    static final String VIRTUAL = "virtual";
+    static final String PERMIT_WAIT_TIMER = "scheduler.execution.permit.wait";
+
+    private final boolean virtual;
+    private final Semaphore permits;
+    private final Timer permitWait;
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    public SchedulerExecution(MeterRegistry meterRegistry,
+                              @Value("${scheduler.execution.mode}") String mode,
+                              @Value("${scheduler.execution.max-concurrency}") int maxConcurrency,
+                              @Value("${scheduler.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this.virtual = switch (mode.toLowerCase(Locale.ROOT)) {
+            case PLATFORM -> false;
+            case VIRTUAL -> true;
+            default -> throw new IllegalArgumentException("Unknown scheduler.execution.mode " + mode);
+        };
+        if (maxConcurrency >= connectionPoolSize) {
+            log.warn("scheduler.execution.max-concurrency ({}) leaves no connections of the scheduler pool ({}) for polling and heartbeats",
+                    maxConcurrency, connectionPoolSize);
+        }
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.permitWait = Timer.builder(PERMIT_WAIT_TIMER)
+                .description("Time executions wait for a concurrency permit")
+                .tag("mode", virtual ? VIRTUAL : PLATFORM)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("scheduler.execution.permits.available", permits, Semaphore::availablePermits)
+                .description("Concurrency permits not held by a running execution")
+                .register(meterRegistry);
+    }
+
+    static ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-scheduler-virtual-", 0).factory());
+    }
+
+    public SchedulerBuilder configure(SchedulerBuilder schedulerBuilder) {
+        if (virtual) {
+            schedulerBuilder.executorService(virtualThreadExecutor());
+        }
+        return schedulerBuilder.addExecutionInterceptor(this);
+    }
+
+    @Override
+    public CompletionHandler<?> execute(TaskInstance<?> taskInstance, ExecutionContext executionContext, ExecutionChain executionChain) {
+        long start = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to execute " + taskInstance.getTaskAndInstance(), e);
+        }
+        permitWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return executionChain.proceed(taskInstance, executionContext);
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs a wait that needs no scheduler connection, such as a webhook call, without holding the execution's permit,
+     * so slow downstreams do not keep other executions from starting. The permit is taken back before returning.
+     */
+    public void releasePermitDuring(Runnable wait) {
+        if (holdsPermit.get() == null) {
+            wait.run();
+            return;
+        }
+        permits.release();
+        try {
+            wait.run();
+        } finally {
+            long start = System.nanoTime();
+            permits.acquireUninterruptibly();
+            permitWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.ExecutionOperations;
+import com.github.kagkarlsson.scheduler.task.FailureHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.ExecutionCancelledException;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Reason;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Failed fires of dynamic tasks. After its n-th consecutive failure a task backs off for
+ * {@code initial-delay * multiplier^(n-1)}, capped at {@code max-delay} and spread by {@code jitter} either way, and
+ * fires next at its first cron fire after that, so a broken task fires less and less often instead of on every tick.
+ * After {@code scheduler.failure.dead-letter-after} consecutive failures the task is parked instead: SCHEDULED_TASK
+ * records when and why, and its execution is removed until the task is requeued. The execution of a task that was
+ * cancelled because it was deleted is removed right away, while a timed out execution counts as a failure.
+ */
+@Component
+@Slf4j
+public class SchedulerFailures {
+
+    static final String FAILURES_METRIC = "scheduler.failures";
+    public static final int MAX_CAUSE_LENGTH = 1000;
+
+    private final ExecutionEventLog executionEventLog;
+    private final Duration initialDelay;
+    private final double multiplier;
+    private final Duration maxDelay;
+    private final double jitter;
+    private final int deadLetterAfter;
+    private final Counter backedOff;
+    private final Counter deadLettered;
+
+    public SchedulerFailures(ExecutionEventLog executionEventLog,
+                             MeterRegistry meterRegistry,
+                             @Value("${scheduler.failure.backoff.initial-delay}") Duration initialDelay,
+                             @Value("${scheduler.failure.backoff.multiplier}") double multiplier,
+                             @Value("${scheduler.failure.backoff.max-delay}") Duration maxDelay,
+                             @Value("${scheduler.failure.backoff.jitter}") double jitter,
+                             @Value("${scheduler.failure.dead-letter-after}") int deadLetterAfter) {
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("scheduler.failure.backoff.multiplier must be at least 1");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("scheduler.failure.backoff.jitter must be in [0, 1)");
+        }
+        if (deadLetterAfter < 0) {
+            throw new IllegalArgumentException("scheduler.failure.dead-letter-after must not be negative, 0 turns it off");
+        }
+        this.executionEventLog = executionEventLog;
+        this.initialDelay = initialDelay;
+        this.multiplier = multiplier;
+        this.maxDelay = maxDelay;
+        this.jitter = jitter;
+        this.deadLetterAfter = deadLetterAfter;
+        this.backedOff = meterRegistry.counter(FAILURES_METRIC, "outcome", "backoff");
+        this.deadLettered = meterRegistry.counter(FAILURES_METRIC, "outcome", "dead-letter");
+    }
+
+    /**
+     * The delay after the given number of consecutive failures, at least one.
+     */
+    public Duration backoff(int consecutiveFailures) {
+        double delayMillis = Math.min(initialDelay.toMillis() * Math.pow(multiplier, consecutiveFailures - 1), maxDelay.toMillis());
+        double spread = jitter == 0 ? 1 : 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.round(Math.min(delayMillis * spread, maxDelay.toMillis())));
+    }
+
+    /**
+     * The failure handler of the dynamic task on the shard whose SCHEDULED_TASK rows the repository writes.
+     */
+    public FailureHandler<ScheduleAndNoData> handler(ScheduledTaskJdbcRepository scheduledTaskJdbcRepository) {
+        return (executionComplete, executionOperations) -> onFailure(scheduledTaskJdbcRepository, executionComplete, executionOperations);
+    }
+
+    private void onFailure(ScheduledTaskJdbcRepository scheduledTaskJdbcRepository, ExecutionComplete executionComplete,
+                           ExecutionOperations<ScheduleAndNoData> executionOperations) {
+        String taskId = executionComplete.getExecution().taskInstance.getId();
+        if (executionComplete.getCause().orElse(null) instanceof ExecutionCancelledException cancelled
+                && cancelled.getReason() == Reason.CANCELLED) {
+            executionOperations.stop();
+            return;
+        }
+        int consecutiveFailures = executionComplete.getExecution().consecutiveFailures + 1;
+        if (deadLetterAfter > 0 && consecutiveFailures >= deadLetterAfter) {
+            try {
+                scheduledTaskJdbcRepository.deadLetter(taskId, executionComplete.getTimeDone(), cause(executionComplete));
+                executionOperations.stop();
+                deadLettered.increment();
+                executionEventLog.publish(ExecutionEventType.DEAD_LETTERED, taskId);
+                log.warn("Task {} dead-lettered after {} consecutive failures", taskId, consecutiveFailures);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Could not dead-letter task {}, backing off instead", taskId, e);
+            }
+        }
+        ScheduleAndNoData data = (ScheduleAndNoData) executionComplete.getExecution().taskInstance.getData();
+        Instant retryAfter = executionComplete.getTimeDone().plus(backoff(consecutiveFailures));
+        backedOff.increment();
+        executionOperations.reschedule(executionComplete,
+                data.getSchedule().getNextExecutionTime(ExecutionComplete.simulatedSuccess(retryAfter)));
+    }
+
+    private static String cause(ExecutionComplete executionComplete) {
+        String cause = executionComplete.getCause().map(Throwable::toString).orElse("unknown");
+        return cause.length() <= MAX_CAUSE_LENGTH ? cause : cause.substring(0, MAX_CAUSE_LENGTH);
+    }
+}
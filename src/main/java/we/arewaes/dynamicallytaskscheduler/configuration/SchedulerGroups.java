@@ -0,0 +1,478 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.ExecutionOperations;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskGroupLeaseJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskGroupLeaseJdbcRepository.Lease;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair sharing of executions between task groups, such as tenants. Tasks without a group share {@link #DEFAULT_GROUP}.
+ * <p>
+ * Locally, the {@code scheduler.threads} executions each shard can have picked are split between the groups with
+ * work, by their {@code scheduler.groups.weights} (1 unless set): a group that wants less than its share keeps what it
+ * does not need for the others, and no group is held below one. A group that runs into its share has the execution
+ * deferred, handed back to the database unrun and due {@code defer-delay} later, which lets the other groups' due
+ * executions be picked first. Shares follow the demand seen in the last {@code lease-interval}, and a group that
+ * filled its share asks for one more, since its other due executions may not have been picked yet.
+ * <p>
+ * Across the cluster, a group with a cap ({@code scheduler.groups.limits}, or {@code scheduler.groups.max-concurrency}
+ * for every other group, 0 for none) runs no more executions at once than the cap. Every {@code lease-interval} each
+ * instance renews its leases on the groups it runs in one transaction on shard 0: it reports its demand and takes the
+ * permits no other instance holds, or only its equal part of the cap while another instance wants more than it
+ * holds. Executions only check the lease held locally, so capping costs no database round trip per execution. A lease
+ * expires after three intervals without renewal, and until its first renewal an instance runs nothing of a capped
+ * group.
+ */
+@Component
+@Slf4j
+public class SchedulerGroups implements SmartLifecycle {
+
+    public static final String DEFAULT_GROUP = "default";
+    static final int MAX_GROUP_LENGTH = 64;
+    static final String DEFERRALS_METRIC = "scheduler.groups.deferrals";
+    static final String LEASE_RENEWALS_METRIC = "scheduler.groups.lease.renewals";
+    private static final int LEASE_TTL_INTERVALS = 3;
+
+    private final TaskGroupLeaseJdbcRepository taskGroupLeaseJdbcRepository;
+    private final String instanceId;
+    private final int slots;
+    private final int defaultLimit;
+    private final Map<String, Integer> limits;
+    private final Map<String, Double> weights;
+    private final Duration leaseInterval;
+    private final Duration leaseTtl;
+    private final Duration deferDelay;
+    private final Counter deferrals;
+    private final Counter renewals;
+    private final Counter failedRenewals;
+    private final ConcurrentMap<String, GroupState> groups = new ConcurrentHashMap<>();
+    private ScheduledExecutorService renewer;
+    private volatile boolean running;
+
+    public SchedulerGroups(TaskGroupLeaseJdbcRepository taskGroupLeaseJdbcRepository,
+                           ShardRouter shardRouter,
+                           MeterRegistry meterRegistry,
+                           @Value("${instance.id}") String instanceId,
+                           @Value("${scheduler.threads}") int threads,
+                           @Value("${scheduler.groups.max-concurrency}") int defaultLimit,
+                           @Value("${scheduler.groups.limits}") String limits,
+                           @Value("${scheduler.groups.weights}") String weights,
+                           @Value("${scheduler.groups.lease-interval}") Duration leaseInterval,
+                           @Value("${scheduler.groups.defer-delay}") Duration deferDelay) {
+        if (defaultLimit < 0) {
+            throw new IllegalArgumentException("scheduler.groups.max-concurrency must not be negative, 0 turns it off");
+        }
+        if (leaseInterval.isNegative() || leaseInterval.isZero() || deferDelay.isNegative() || deferDelay.isZero()) {
+            throw new IllegalArgumentException("scheduler.groups.lease-interval and defer-delay must be positive");
+        }
+        this.taskGroupLeaseJdbcRepository = taskGroupLeaseJdbcRepository;
+        this.instanceId = instanceId;
+        this.slots = threads * shardRouter.shardCount();
+        this.defaultLimit = defaultLimit;
+        this.limits = new HashMap<>();
+        parse("scheduler.groups.limits", limits).forEach((group, limit) -> this.limits.put(group, (int) Math.round(limit)));
+        this.weights = parse("scheduler.groups.weights", weights);
+        if (this.limits.values().stream().anyMatch(limit -> limit < 0) || this.weights.values().stream().anyMatch(weight -> weight <= 0)) {
+            throw new IllegalArgumentException("scheduler.groups.limits must not be negative and scheduler.groups.weights must be positive");
+        }
+        this.leaseInterval = leaseInterval;
+        this.leaseTtl = leaseInterval.multipliedBy(LEASE_TTL_INTERVALS);
+        this.deferDelay = deferDelay;
+        this.deferrals = meterRegistry.counter(DEFERRALS_METRIC);
+        this.renewals = meterRegistry.counter(LEASE_RENEWALS_METRIC, "outcome", "success");
+        this.failedRenewals = meterRegistry.counter(LEASE_RENEWALS_METRIC, "outcome", "failure");
+        Gauge.builder("scheduler.groups.active", groups, Map::size)
+                .description("Task groups with executions on this instance in the last lease intervals")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads {@code group=number} pairs separated by commas.
+     */
+    private static Map<String, Double> parse(String property, String value) {
+        Map<String, Double> parsed = new HashMap<>();
+        if (!StringUtils.hasText(value)) {
+            return parsed;
+        }
+        for (String pair : value.split(",")) {
+            String[] parts = pair.split("=");
+            try {
+                if (parts.length != 2 || parts[0].isBlank()) {
+                    throw new NumberFormatException();
+                }
+                parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(property + " must be a list of group=number pairs, got '" + pair + "'");
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * @return why the group or priority of a task request is invalid, or {@code null} if both are valid
+     */
+    public static String validate(String group, Integer priority) {
+        if (group != null && (group.isBlank() || group.length() > MAX_GROUP_LENGTH)) {
+            return "group must be between 1 and " + MAX_GROUP_LENGTH + " characters";
+        }
+        if (priority != null && (priority < 0 || priority > Short.MAX_VALUE)) {
+            return "priority must be between 0 and " + Short.MAX_VALUE;
+        }
+        return null;
+    }
+
+    static String groupOf(ScheduleAndNoData data) {
+        return data.getGroup() == null ? DEFAULT_GROUP : data.getGroup();
+    }
+
+    int limitOf(String group) {
+        return limits.getOrDefault(group, defaultLimit);
+    }
+
+    double weightOf(String group) {
+        return weights.getOrDefault(group, 1d);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-scheduler-group-leases");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renew, 0, leaseInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        try {
+            taskGroupLeaseJdbcRepository.releaseAll(instanceId);
+        } catch (DataAccessException e) {
+            log.warn("Could not release the task group leases of {}, they expire in {}", instanceId, leaseTtl, e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The execution interceptor of the shard whose executions the repository defers. It runs after the hold and
+     * misfire checks, so only executions that would run take a permit of their group.
+     */
+    public ExecutionInterceptor interceptor(SchedulerJdbcRepository schedulerJdbcRepository) {
+        return new GroupInterceptor(schedulerJdbcRepository);
+    }
+
+    /**
+     * Takes a permit of the group if it is below both its local share and the permits it leases.
+     *
+     * @return the group's state to release the permit on, or {@code null} if the execution has to be deferred
+     */
+    GroupState tryAcquire(String group) {
+        GroupState state = groups.get(group);
+        if (state == null) {
+            state = groups.computeIfAbsent(group, GroupState::new);
+            updateShares();
+        }
+        state.lastSeenNanos = System.nanoTime();
+        int limit = Math.min(state.share, leaseLimit(state));
+        while (true) {
+            int current = state.running.get();
+            if (current >= limit) {
+                state.deferred.incrementAndGet();
+                deferrals.increment();
+                return null;
+            }
+            if (state.running.compareAndSet(current, current + 1)) {
+                state.peak.accumulateAndGet(current + 1, Math::max);
+                if (current + 1 >= limit) {
+                    state.saturated = true;
+                }
+                return state;
+            }
+        }
+    }
+
+    void release(GroupState state) {
+        state.running.decrementAndGet();
+    }
+
+    private int leaseLimit(GroupState state) {
+        if (limitOf(state.group) == 0) {
+            return Integer.MAX_VALUE;
+        }
+        return System.nanoTime() - state.leaseExpiresNanos < 0 ? state.leased : 0;
+    }
+
+    /**
+     * Recomputes the local shares and renews the leases of the capped groups, then forgets groups that have been idle
+     * for a lease lifetime.
+     */
+    void renew() {
+        long start = System.nanoTime();
+        for (GroupState state : groups.values()) {
+            state.busy = state.peak.getAndSet(state.running.get());
+            int probe = state.saturated ? 1 : 0;
+            state.saturated = false;
+            state.pending = state.pending / 2 + state.deferred.getAndSet(0) + probe;
+        }
+        updateShares();
+        renewLeases(start);
+        long idleNanos = leaseTtl.toNanos();
+        groups.values().removeIf(state -> state.running.get() == 0 && state.busy == 0 && state.pending < 1 && state.leased == 0
+                && start - state.lastSeenNanos > idleNanos);
+    }
+
+    private synchronized void updateShares() {
+        Map<String, Double> groupWeights = new HashMap<>();
+        Map<String, Integer> demands = new HashMap<>();
+        for (GroupState state : groups.values()) {
+            groupWeights.put(state.group, weightOf(state.group));
+            demands.put(state.group, state.demand());
+        }
+        shares(slots, groupWeights, demands).forEach((group, share) -> {
+            GroupState state = groups.get(group);
+            if (state != null) {
+                state.share = share;
+            }
+        });
+    }
+
+    private void renewLeases(long start) {
+        Map<String, Integer> demands = new LinkedHashMap<>();
+        for (GroupState state : groups.values()) {
+            if (limitOf(state.group) > 0 && (state.demand() > 0 || state.leased > 0)) {
+                demands.put(state.group, state.demand());
+            }
+        }
+        if (demands.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> granted = new HashMap<>();
+        try {
+            taskGroupLeaseJdbcRepository.renew(instanceId, demands, leaseTtl, (group, demand, others) -> {
+                int permits = grant(limitOf(group), demand, others);
+                granted.put(group, permits);
+                GroupState state = groups.get(group);
+                // permits still in use stay leased until they are released, so the cap holds while a grant shrinks
+                return Math.max(permits, state == null ? 0 : state.running.get());
+            });
+        } catch (DataAccessException e) {
+            failedRenewals.increment();
+            log.warn("Could not renew the leases of {} task groups, they expire in {}", demands.size(), leaseTtl, e);
+            return;
+        }
+        renewals.increment();
+        long expiresNanos = start + leaseTtl.toNanos();
+        granted.forEach((group, permits) -> {
+            GroupState state = groups.get(group);
+            if (state != null) {
+                state.leased = permits;
+                state.leaseExpiresNanos = expiresNanos;
+            }
+        });
+    }
+
+    /**
+     * Weighted max-min shares of {@code slots}: groups that want less than their weighted part of what is left get
+     * what they want, the others split the rest by weight, and whatever nobody wants is spread over every group by
+     * weight, so a quiet group is not deferred as soon as it gets busy. Every group gets at least one.
+     */
+    static Map<String, Integer> shares(int slots, Map<String, Double> weights, Map<String, Integer> demands) {
+        Map<String, Double> allocated = new HashMap<>();
+        Map<String, Double> unsatisfied = new HashMap<>();
+        demands.forEach((group, demand) -> {
+            if (demand > 0) {
+                unsatisfied.put(group, weights.get(group));
+            }
+        });
+        double remaining = slots;
+        boolean satisfiedAny = true;
+        while (!unsatisfied.isEmpty() && satisfiedAny) {
+            double totalWeight = unsatisfied.values().stream().mapToDouble(Double::doubleValue).sum();
+            double level = remaining / totalWeight;
+            satisfiedAny = false;
+            for (Map.Entry<String, Double> entry : List.copyOf(unsatisfied.entrySet())) {
+                int demand = demands.get(entry.getKey());
+                if (demand <= level * entry.getValue()) {
+                    allocated.put(entry.getKey(), (double) demand);
+                    unsatisfied.remove(entry.getKey());
+                    remaining -= demand;
+                    satisfiedAny = true;
+                }
+            }
+            if (!satisfiedAny) {
+                unsatisfied.forEach((group, weight) -> allocated.put(group, level * weight));
+            }
+        }
+        double spare = Math.max(0, slots - allocated.values().stream().mapToDouble(Double::doubleValue).sum());
+        double allWeight = demands.keySet().stream().mapToDouble(weights::get).sum();
+        Map<String, Double> exact = new HashMap<>();
+        Map<String, Integer> shares = new HashMap<>();
+        int left = slots;
+        for (String group : demands.keySet()) {
+            double share = allocated.getOrDefault(group, 0d) + spare * weights.get(group) / allWeight;
+            exact.put(group, share);
+            shares.put(group, (int) share);
+            left -= (int) share;
+        }
+        // the slots lost to rounding down go to the largest remainders
+        List<String> byRemainder = new ArrayList<>(demands.keySet());
+        byRemainder.sort(Comparator.comparingDouble((String group) -> exact.get(group) - shares.get(group)).reversed());
+        for (int i = 0; i < left && i < byRemainder.size(); i++) {
+            shares.merge(byRemainder.get(i), 1, Integer::sum);
+        }
+        shares.replaceAll((group, share) -> Math.max(1, share));
+        return shares;
+    }
+
+    /**
+     * The permits an instance with {@code demand} leases on a group capped at {@code cap}, given the live leases of the
+     * other instances: none without demand, otherwise whatever they leave free, but no more than an equal part of the
+     * cap among the instances with demand while one of them wants more than it holds.
+     */
+    static int grant(int cap, int demand, List<Lease> others) {
+        if (demand == 0) {
+            return 0;
+        }
+        int held = 0;
+        int contenders = 1;
+        boolean starving = false;
+        for (Lease lease : others) {
+            held += lease.permits();
+            if (lease.demand() > 0) {
+                contenders++;
+            }
+            if (lease.demand() > lease.permits()) {
+                starving = true;
+            }
+        }
+        int wanted = starving ? Math.min(demand, Math.max(1, cap / contenders)) : cap;
+        return Math.min(wanted, Math.max(0, cap - held));
+    }
+
+    /**
+     * What this instance knows of one group: the executions it runs and the most it ran in the last interval, the
+     * deferrals since the last renewal and their decaying sum over the previous ones, its local share and its lease.
+     */
+    static final class GroupState {
+
+        private final String group;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final AtomicInteger deferred = new AtomicInteger();
+        private volatile int busy;
+        private volatile boolean saturated;
+        private volatile double pending;
+        private volatile int share = 1;
+        private volatile int leased;
+        private volatile long leaseExpiresNanos = System.nanoTime();
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        private GroupState(String group) {
+            this.group = group;
+        }
+
+        private int demand() {
+            return Math.max(running.get(), busy) + deferred.get() + (int) Math.ceil(pending);
+        }
+
+        int running() {
+            return running.get();
+        }
+    }
+
+    private final class GroupInterceptor implements ExecutionInterceptor {
+
+        private final SchedulerJdbcRepository schedulerJdbcRepository;
+
+        private GroupInterceptor(SchedulerJdbcRepository schedulerJdbcRepository) {
+            this.schedulerJdbcRepository = schedulerJdbcRepository;
+        }
+
+        @Override
+        public CompletionHandler<?> execute(TaskInstance<?> taskInstance, ExecutionContext executionContext, ExecutionChain executionChain) {
+            if (!(taskInstance.getData() instanceof ScheduleAndNoData data)) {
+                return executionChain.proceed(taskInstance, executionContext);
+            }
+            GroupState state = tryAcquire(groupOf(data));
+            if (state == null) {
+                long spreadMillis = ThreadLocalRandom.current().nextLong(deferDelay.toMillis() / 2 + 1);
+                return new Deferral(schedulerJdbcRepository, Instant.now().plus(deferDelay).plusMillis(spreadMillis));
+            }
+            try {
+                return executionChain.proceed(taskInstance, executionContext);
+            } finally {
+                release(state);
+            }
+        }
+    }
+
+    /**
+     * Hands a picked execution back unrun. Unlike a reschedule through db-scheduler it is not recorded as a success,
+     * so it keeps its consecutive failures.
+     */
+    static final class Deferral implements CompletionHandler<ScheduleAndNoData> {
+
+        private final SchedulerJdbcRepository schedulerJdbcRepository;
+        private final Instant until;
+
+        Deferral(SchedulerJdbcRepository schedulerJdbcRepository, Instant until) {
+            this.schedulerJdbcRepository = schedulerJdbcRepository;
+            this.until = until;
+        }
+
+        Instant until() {
+            return until;
+        }
+
+        @Override
+        public void complete(ExecutionComplete executionComplete, ExecutionOperations<ScheduleAndNoData> executionOperations) {
+            Execution execution = executionComplete.getExecution();
+            if (!schedulerJdbcRepository.deferExecution(execution.taskInstance.getTaskName(), execution.taskInstance.getId(),
+                    execution.version, until)) {
+                log.warn("Could not defer {}, it was no longer picked by this instance", execution.taskInstance.getTaskAndInstance());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scheduler metrics, tagged by task name and event type only so cardinality stays bounded regardless of the number of
+ * task instances: schedule lag and execution duration per task name, scheduler and candidate events, and gauges for
+ * due-but-unpicked executions and executor thread utilization. The gauges add up the schedulers of all shards.
+ */
+@Component
+public class SchedulerMetrics extends AbstractSchedulerListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> lagTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> durationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> eventCounters = new ConcurrentHashMap<>();
+
+    public SchedulerMetrics(MeterRegistry meterRegistry,
+                            ObjectProvider<TaskShards> taskShards,
+                            @Value("${scheduler.threads}") int threads) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("scheduler.executions.due", taskShards, SchedulerMetrics::countDueExecutions)
+                .description("Executions that are due but not picked yet")
+                .register(meterRegistry);
+        Gauge.builder("scheduler.executor.active", taskShards, SchedulerMetrics::countCurrentlyExecuting)
+                .description("Executions currently running on this instance")
+                .register(meterRegistry);
+        Gauge.builder("scheduler.executor.utilization", taskShards,
+                        shards -> countCurrentlyExecuting(shards) / ((double) threads * shards.getObject().size()))
+                .description("Share of the executor threads that are busy")
+                .register(meterRegistry);
+    }
+
+    private static double countDueExecutions(ObjectProvider<TaskShards> taskShards) {
+        return taskShards.getObject().all().stream()
+                .mapToLong(shard -> shard.schedulerJdbcRepository().countDueExecutions())
+                .sum();
+    }
+
+    private static double countCurrentlyExecuting(ObjectProvider<TaskShards> taskShards) {
+        return taskShards.getObject().all().stream()
+                .mapToInt(shard -> shard.scheduler().getCurrentlyExecuting().size())
+                .sum();
+    }
+
+    @Override
+    public void onExecutionStart(CurrentlyExecuting currentlyExecuting) {
+        String taskName = currentlyExecuting.getTaskInstance().getTaskName();
+        Duration lag = Duration.between(currentlyExecuting.getExecution().executionTime, Instant.now());
+        lagTimers.computeIfAbsent(taskName, name -> Timer.builder("scheduler.execution.lag")
+                        .description("Time between an execution being due and it starting")
+                        .tag("task", name)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    @Override
+    public void onExecutionComplete(ExecutionComplete executionComplete) {
+        String taskName = executionComplete.getExecution().getTaskName();
+        String result = executionComplete.getResult().name().toLowerCase();
+        durationTimers.computeIfAbsent(taskName + '/' + result, key -> Timer.builder("scheduler.execution.duration")
+                        .description("Execution duration, including the execution interceptor")
+                        .tag("task", taskName)
+                        .tag("result", result)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(executionComplete.getDuration());
+    }
+
+    @Override
+    public void onSchedulerEvent(SchedulerEventType type) {
+        count("scheduler", type.name());
+    }
+
+    @Override
+    public void onCandidateEvent(CandidateEventType type) {
+        count("candidate", type.name());
+    }
+
+    private void count(String kind, String type) {
+        eventCounters.computeIfAbsent(kind + '/' + type, key -> Counter.builder("scheduler.events")
+                        .tag("kind", kind)
+                        .tag("type", type.toLowerCase())
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,136 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires of dynamic tasks that are more than {@code scheduler.misfire.threshold} overdue, like the backlog every
+ * instance finds when the whole cluster comes back after downtime. What happens to such a fire is its task's
+ * {@link MisfirePolicy}, or {@code scheduler.misfire.policy} for tasks without one. Fires that run are let through at
+ * most {@code scheduler.misfire.catch-up-rate} per second per instance, in the order the scheduler picked them, oldest
+ * first, so the backlog drains at a bounded rate instead of all at once. A fire whose catch-up slot has not come yet is
+ * handed back to the database due at its slot rather than waited for on an executor thread, and is let through when
+ * this instance picks it there. Another instance picking it runs it as an on-time fire, so a {@code FIRE_ALL} task
+ * then continues from its slot instead of its remaining missed fires.
+ */
+@Component
+public class SchedulerMisfires {
+
+    static final String MISFIRES_METRIC = "scheduler.misfires";
+    static final String CATCH_UP_WAIT_TIMER = "scheduler.misfire.catch-up.wait";
+
+    private final MisfirePolicy defaultPolicy;
+    private final Duration threshold;
+    private final long catchUpIntervalNanos;
+    private final AtomicLong nextCatchUpSlot = new AtomicLong(System.nanoTime());
+    private final Map<MisfirePolicy, Counter> misfires = new EnumMap<>(MisfirePolicy.class);
+    private final Timer catchUpWait;
+    // deferred fires by task id, until they are picked at their slot or could no longer be
+    private final Cache<String, Admission> admissions;
+
+    public SchedulerMisfires(MeterRegistry meterRegistry,
+                             @Value("${scheduler.misfire.policy}") MisfirePolicy defaultPolicy,
+                             @Value("${scheduler.misfire.threshold}") Duration threshold,
+                             @Value("${scheduler.misfire.catch-up-rate}") int catchUpRate) {
+        if (catchUpRate < 0) {
+            throw new IllegalArgumentException("scheduler.misfire.catch-up-rate must not be negative, 0 turns the limit off");
+        }
+        this.defaultPolicy = defaultPolicy;
+        this.threshold = threshold;
+        this.catchUpIntervalNanos = catchUpRate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / catchUpRate;
+        for (MisfirePolicy policy : MisfirePolicy.values()) {
+            misfires.put(policy, meterRegistry.counter(MISFIRES_METRIC, "policy", policy.name().toLowerCase(Locale.ROOT)));
+        }
+        this.catchUpWait = Timer.builder(CATCH_UP_WAIT_TIMER)
+                .description("Time misfired executions are deferred until their catch-up slot")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.admissions = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Admission>() {
+                    @Override
+                    public long expireAfterCreate(String taskId, Admission admission, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), admission.slot().plus(threshold)).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String taskId, Admission admission, long currentTime, long currentDuration) {
+                        return expireAfterCreate(taskId, admission, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String taskId, Admission admission, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean isMisfire(Instant executionTime) {
+        return executionTime.plus(threshold).isBefore(Instant.now());
+    }
+
+    public MisfirePolicy policyOf(ScheduleAndNoData data) {
+        return data.getMisfirePolicy() == null ? defaultPolicy : data.getMisfirePolicy();
+    }
+
+    public void count(MisfirePolicy policy) {
+        misfires.get(policy).increment();
+    }
+
+    /**
+     * Takes the next catch-up slot, the previous slot plus one interval of the catch-up rate, for the fire missed at
+     * {@code missed}.
+     *
+     * @return the slot to defer the execution to, or {@code null} if it may run now
+     */
+    public Instant reserveCatchUp(String taskId, Instant missed) {
+        if (catchUpIntervalNanos == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long previous = nextCatchUpSlot.getAndAccumulate(now, (next, start) -> Math.max(next, start) + catchUpIntervalNanos);
+        long wait = previous - now;
+        if (wait <= 0) {
+            catchUpWait.record(0, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        catchUpWait.record(wait, TimeUnit.NANOSECONDS);
+        // the database keeps microseconds, so the slot reads back exactly as deferred
+        Instant slot = Instant.now().plusNanos(wait).truncatedTo(ChronoUnit.MILLIS);
+        admissions.put(taskId, new Admission(missed, slot));
+        return slot;
+    }
+
+    /**
+     * @return the fire time an execution picked at {@code executionTime} was missed at, if this instance deferred it
+     * to that slot, or {@code null}
+     */
+    public Instant admittedMisfire(String taskId, Instant executionTime) {
+        Admission admission = admissions.getIfPresent(taskId);
+        if (admission == null || !admission.slot().equals(executionTime)) {
+            return null;
+        }
+        admissions.invalidate(taskId);
+        return admission.missed();
+    }
+
+    private record Admission(Instant missed, Instant slot) {
+    }
+}
@@ -0,0 +1,243 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.PollingStrategyConfig;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.SchedulerBuilder;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor size, polling strategy and polling interval of the scheduler. In adaptive mode the scheduler's own poll
+ * interval is the back-off ceiling, and polls in between are triggered from here: at once after a poll whose batch
+ * filled the executor, without waiting even the minimum interval, and otherwise at an interval that halves while polls
+ * find work and doubles while they come back empty.
+ * An empty poll never backs off past the next unpicked execution, so recurring tasks still start on time when idle.
+ * That execution time is looked up while backing off and then only once it has passed, so an idle scheduler at the
+ * ceiling costs one statement per poll; an execution scheduled in between is found by the ceiling poll at the latest.
+ * With precise fires on, their wakeups already cover every execution due soon and nothing is looked up.
+ * With {@code strategy=auto} the scheduler uses lock-and-fetch once the cluster is large enough for pick contention to
+ * matter, and fetch-and-lock-on-execute below that. Every shard's scheduler polls on its own: shard 0 uses this bean
+ * and the others a {@link #forShard copy} that keeps its own interval.
+ */
+@Component
+@Slf4j
+public class SchedulerPolling extends AbstractSchedulerListener {
+
+    static final String AUTO = "auto";
+    static final String FETCH = "fetch";
+    static final String LOCK_AND_FETCH = "lock-and-fetch";
+    // looked up, and nothing is scheduled
+    private static final Instant NO_EXECUTION = Instant.MAX;
+
+    private final Supplier<Scheduler> scheduler;
+    private final SchedulerJdbcRepository schedulerJdbcRepository;
+    private final MeterRegistry meterRegistry;
+    private final int threads;
+    private final boolean adaptive;
+    private final boolean preciseFires;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final PollingStrategyConfig.Type strategy;
+    private final AtomicInteger startedSinceLastPoll = new AtomicInteger();
+    private final ScheduledExecutorService trigger;
+    private final List<SchedulerPolling> shardCopies = new CopyOnWriteArrayList<>();
+    private volatile Duration interval;
+    private volatile Instant nextExecution;
+    private ScheduledFuture<?> nextPoll;
+
+    public SchedulerPolling(ObjectProvider<Scheduler> scheduler,
+                            SchedulerJdbcRepository schedulerJdbcRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${scheduler.threads}") int threads,
+                            @Value("${scheduler.polling.adaptive}") boolean adaptive,
+                            @Value("${scheduler.precise-fires.enabled}") boolean preciseFires,
+                            @Value("${scheduler.polling.interval}") Duration minInterval,
+                            @Value("${scheduler.polling.max-interval}") Duration maxInterval,
+                            @Value("${scheduler.polling.strategy}") String strategy,
+                            @Value("${scheduler.cluster-size}") int clusterSize,
+                            @Value("${scheduler.polling.lock-and-fetch-min-instances}") int lockAndFetchMinInstances) {
+        this(scheduler::getObject, schedulerJdbcRepository, meterRegistry, ShardRouter.shardName(0), threads, adaptive,
+                preciseFires, minInterval, maxInterval, strategy(strategy, clusterSize, lockAndFetchMinInstances));
+        Gauge.builder("scheduler.polling.strategy", () -> 1)
+                .description("Polling strategy in use")
+                .tag("strategy", this.strategy.name().toLowerCase(Locale.ROOT))
+                .tag("adaptive", String.valueOf(adaptive))
+                .register(meterRegistry);
+        Gauge.builder("scheduler.executor.threads", () -> threads)
+                .description("Executor threads of the scheduler")
+                .register(meterRegistry);
+    }
+
+    private SchedulerPolling(Supplier<Scheduler> scheduler, SchedulerJdbcRepository schedulerJdbcRepository,
+                             MeterRegistry meterRegistry, String shard, int threads, boolean adaptive,
+                             boolean preciseFires, Duration minInterval, Duration maxInterval, PollingStrategyConfig.Type strategy) {
+        if (adaptive && maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("scheduler.polling.max-interval must not be shorter than scheduler.polling.interval");
+        }
+        this.scheduler = scheduler;
+        this.schedulerJdbcRepository = schedulerJdbcRepository;
+        this.meterRegistry = meterRegistry;
+        this.threads = threads;
+        this.adaptive = adaptive;
+        this.preciseFires = preciseFires;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.strategy = strategy;
+        this.interval = minInterval;
+        this.trigger = adaptive ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-scheduler-adaptive-poll-" + shard);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        Gauge.builder("scheduler.polling.interval", this, polling -> polling.interval.toNanos() / 1e9)
+                .description("Current interval between polls for due executions")
+                .baseUnit("seconds")
+                .tag("shard", shard)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Polling for the scheduler of another shard, with the same settings and its own adaptive interval. It is stopped
+     * together with this bean.
+     */
+    public SchedulerPolling forShard(String shard, Supplier<Scheduler> shardScheduler, SchedulerJdbcRepository shardSchedulerJdbcRepository) {
+        SchedulerPolling copy = new SchedulerPolling(shardScheduler, shardSchedulerJdbcRepository, meterRegistry, shard,
+                threads, adaptive, preciseFires, minInterval, maxInterval, strategy);
+        shardCopies.add(copy);
+        return copy;
+    }
+
+    static PollingStrategyConfig.Type strategy(String strategy, int clusterSize, int lockAndFetchMinInstances) {
+        return switch (strategy.toLowerCase(Locale.ROOT)) {
+            case FETCH -> PollingStrategyConfig.Type.FETCH;
+            case LOCK_AND_FETCH -> PollingStrategyConfig.Type.LOCK_AND_FETCH;
+            case AUTO -> clusterSize >= lockAndFetchMinInstances ? PollingStrategyConfig.Type.LOCK_AND_FETCH : PollingStrategyConfig.Type.FETCH;
+            default -> throw new IllegalArgumentException("Unknown scheduler.polling.strategy " + strategy);
+        };
+    }
+
+    public SchedulerBuilder configure(SchedulerBuilder schedulerBuilder) {
+        log.info("Scheduler polling with {} threads, strategy {}, {} interval {}", threads, strategy,
+                adaptive ? "adaptive" : "fixed", adaptive ? minInterval + ".." + maxInterval : minInterval);
+        schedulerBuilder.threads(threads).pollingInterval(adaptive ? maxInterval : minInterval);
+        if (strategy == PollingStrategyConfig.Type.LOCK_AND_FETCH) {
+            PollingStrategyConfig config = PollingStrategyConfig.DEFAULT_SELECT_FOR_UPDATE;
+            return schedulerBuilder.pollUsingLockAndFetch(config.lowerLimitFractionOfThreads, config.upperLimitFractionOfThreads);
+        }
+        PollingStrategyConfig config = PollingStrategyConfig.DEFAULT_FETCH;
+        return schedulerBuilder.pollUsingFetchAndLockOnExecute(config.lowerLimitFractionOfThreads, config.upperLimitFractionOfThreads);
+    }
+
+    Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Executions start on the executor after the poll that fetched them has finished, so the number started since the
+     * previous poll stands in for the size of the batch that poll returned.
+     */
+    @Override
+    public void onExecutionStart(CurrentlyExecuting currentlyExecuting) {
+        if (adaptive) {
+            startedSinceLastPoll.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onSchedulerEvent(SchedulerEventType type) {
+        if (adaptive && type == SchedulerEventType.RAN_EXECUTE_DUE) {
+            int fetched = startedSinceLastPoll.getAndSet(0);
+            Duration previous = interval;
+            Duration next = nextInterval(fetched);
+            if (fetched > 0) {
+                nextExecution = null;
+                // a full batch likely left more due, so the next poll does not wait for the interval
+                scheduleNextPoll(fetched >= threads ? Duration.ZERO : next);
+            } else {
+                scheduleNextPoll(min(next, untilNextExecution(!next.equals(previous))));
+            }
+        }
+    }
+
+    private Duration untilNextExecution(boolean backingOff) {
+        if (preciseFires) {
+            return maxInterval;
+        }
+        Instant now = Instant.now();
+        Instant next = nextExecution;
+        if (backingOff || next == null || !next.isAfter(now)) {
+            try {
+                next = schedulerJdbcRepository.findNextExecutionTime().orElse(NO_EXECUTION);
+                nextExecution = next;
+            } catch (DataAccessException e) {
+                nextExecution = null;
+                log.warn("Could not look up the next execution time, polling at {}", minInterval, e);
+                return minInterval;
+            }
+        }
+        return next == NO_EXECUTION ? maxInterval : max(minInterval, Duration.between(now, next));
+    }
+
+    Duration nextInterval(int fetched) {
+        Duration next;
+        if (fetched >= threads) {
+            next = minInterval;
+        } else if (fetched > 0) {
+            next = max(minInterval, interval.dividedBy(2));
+        } else {
+            next = min(maxInterval, interval.multipliedBy(2));
+        }
+        interval = next;
+        return next;
+    }
+
+    private synchronized void scheduleNextPoll(Duration delay) {
+        if (trigger.isShutdown()) {
+            return;
+        }
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+        }
+        if (delay.compareTo(maxInterval) < 0) {
+            nextPoll = trigger.schedule(() -> scheduler.get().triggerCheckForDueExecutions(), delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (trigger != null) {
+            trigger.shutdownNow();
+        }
+        shardCopies.forEach(SchedulerPolling::stop);
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,119 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the scheduler's DataSource and times each prepared statement db-scheduler runs, tagged by what the statement
+ * does (fetching due executions, picking, heartbeating, rescheduling, removing), so poll and fetch cost shows up
+ * separately from the task bodies.
+ */
+public class SchedulerStatementTimer extends DelegatingDataSource {
+
+    static final String TIMER_NAME = "scheduler.db.statement";
+    private static final int MAX_CLASSIFIED_STATEMENTS = 256;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timersBySql = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SchedulerStatementTimer(DataSource dataSource, MeterRegistry meterRegistry) {
+        super(dataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    static String operation(String sql) {
+        String normalized = sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (normalized.contains("execution_time <= ?")) {
+            return "fetch-due";
+        }
+        if (normalized.startsWith("delete")) {
+            return "remove";
+        }
+        if (normalized.startsWith("update")) {
+            if (normalized.contains("set last_heartbeat = ?")) {
+                return "heartbeat";
+            }
+            if (normalized.contains("last_success = ?")) {
+                return "reschedule";
+            }
+            if (normalized.contains("set picked = ?, picked_by = ?, last_heartbeat = ?, version = version + 1")) {
+                return "pick";
+            }
+        }
+        return "other";
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    private Timer timer(String sql) {
+        Timer timer = timersBySql.get(sql);
+        if (timer != null) {
+            return timer;
+        }
+        timer = timers.computeIfAbsent(operation(sql), operation -> Timer.builder(TIMER_NAME)
+                .description("Statements run by db-scheduler against scheduled_tasks")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        if (timersBySql.size() < MAX_CLASSIFIED_STATEMENTS) {
+            timersBySql.put(sql, timer);
+        }
+        return timer;
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                        return timed(statement, timer((String) args[0]));
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement timed(PreparedStatement statement, Timer timer) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
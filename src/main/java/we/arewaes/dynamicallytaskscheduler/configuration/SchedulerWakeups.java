@@ -0,0 +1,236 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sub-second fire precision, on with {@code scheduler.precise-fires.enabled}. Every {@code refresh-interval} each
+ * shard looks up the execution times due within {@code look-ahead} and arms a wakeup at each one on a local delay
+ * queue, which makes the shard's scheduler poll at that instant instead of on its next interval. Scheduling or
+ * rescheduling a task that is due within the look-ahead arms its wakeup here and sends its execution time on the
+ * {@code scheduled_task_due_soon} channel, so every other instance arms it as well without waiting for a refresh.
+ * <p>
+ * Nothing is picked ahead of time: db-scheduler only runs executions its own poll picked, so a wakeup only makes that
+ * poll happen on time. A crashed instance leaves no claimed executions behind, and heartbeats and dead-execution
+ * detection work as before.
+ */
+@Component
+@Slf4j
+public class SchedulerWakeups implements SmartLifecycle {
+
+    static final String CHANNEL = "scheduled_task_due_soon";
+    static final String WAKEUPS_METRIC = "scheduler.wakeups";
+
+    private final TaskShards taskShards;
+    private final ShardDatabases shardDatabases;
+    private final boolean enabled;
+    private final Duration lookAhead;
+    private final Duration refreshInterval;
+    private final int maxArmed;
+    private final Duration reconnectDelay;
+    private final Counter prefetched;
+    private final Counter notified;
+    private volatile List<ShardWakeups> shards = List.of();
+    private volatile boolean running;
+
+    public SchedulerWakeups(TaskShards taskShards,
+                            ShardDatabases shardDatabases,
+                            MeterRegistry meterRegistry,
+                            @Value("${scheduler.precise-fires.enabled}") boolean enabled,
+                            @Value("${scheduler.precise-fires.look-ahead}") Duration lookAhead,
+                            @Value("${scheduler.precise-fires.refresh-interval}") Duration refreshInterval,
+                            @Value("${scheduler.precise-fires.max-armed}") int maxArmed,
+                            @Value("${scheduler.precise-fires.reconnect-delay}") Duration reconnectDelay) {
+        if (enabled && refreshInterval.compareTo(lookAhead) >= 0) {
+            throw new IllegalArgumentException("scheduler.precise-fires.refresh-interval must be shorter than scheduler.precise-fires.look-ahead");
+        }
+        this.taskShards = taskShards;
+        this.shardDatabases = shardDatabases;
+        this.enabled = enabled;
+        this.lookAhead = lookAhead;
+        this.refreshInterval = refreshInterval;
+        this.maxArmed = maxArmed;
+        this.reconnectDelay = reconnectDelay;
+        this.prefetched = meterRegistry.counter(WAKEUPS_METRIC, "source", "prefetch");
+        this.notified = meterRegistry.counter(WAKEUPS_METRIC, "source", "notify");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Precise fires with a look-ahead of {}, refreshed every {}", lookAhead, refreshInterval);
+        running = true;
+        List<ShardWakeups> started = new ArrayList<>();
+        for (TaskShard shard : taskShards.all()) {
+            ShardWakeups wakeups = new ShardWakeups(shard.name(), shard::scheduler, shard.schedulerJdbcRepository());
+            wakeups.start(shardDatabases.get(shard.index()).schedulerDataSource());
+            started.add(wakeups);
+        }
+        shards = List.copyOf(started);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        shards.forEach(ShardWakeups::stop);
+        shards = List.of();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Makes every instance poll the task's shard at {@code executionTime}, if it is within the look-ahead.
+     */
+    public void dueAt(TaskShard shard, Instant executionTime) {
+        List<ShardWakeups> current = shards;
+        if (current.isEmpty() || executionTime == null || executionTime.isAfter(Instant.now().plus(lookAhead))) {
+            return;
+        }
+        current.get(shard.index()).arm(executionTime, notified);
+        try {
+            shard.schedulerJdbcRepository().notify(CHANNEL, String.valueOf(executionTime.toEpochMilli()));
+        } catch (DataAccessException e) {
+            log.warn("Could not notify other instances of an execution due at {}", executionTime, e);
+        }
+    }
+
+    /**
+     * The wakeups of one shard: a delay queue of scheduler polls, deduplicated by millisecond, and the thread
+     * listening for execution times sent by other instances.
+     */
+    private final class ShardWakeups {
+
+        private final String shard;
+        private final Supplier<Scheduler> scheduler;
+        private final SchedulerJdbcRepository schedulerJdbcRepository;
+        private final Set<Long> armed = ConcurrentHashMap.newKeySet();
+        private final ScheduledExecutorService timer;
+        private Thread listenerThread;
+
+        private ShardWakeups(String shard, Supplier<Scheduler> scheduler, SchedulerJdbcRepository schedulerJdbcRepository) {
+            this.shard = shard;
+            this.scheduler = scheduler;
+            this.schedulerJdbcRepository = schedulerJdbcRepository;
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-scheduler-wakeup-" + shard);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void start(DataSource listenDataSource) {
+            timer.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toNanos(), TimeUnit.NANOSECONDS);
+            listenerThread = new Thread(() -> listen(listenDataSource), "db-scheduler-wakeup-listener-" + shard);
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+        }
+
+        private void stop() {
+            timer.shutdownNow();
+            if (listenerThread != null) {
+                listenerThread.interrupt();
+            }
+        }
+
+        private void refresh() {
+            Instant now = Instant.now();
+            try {
+                for (Instant executionTime : schedulerJdbcRepository.findExecutionTimesBetween(now, now.plus(lookAhead), maxArmed)) {
+                    arm(executionTime, prefetched);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not look up the executions due soon on {}", shard, e);
+            }
+        }
+
+        private void arm(Instant executionTime, Counter source) {
+            long millis = executionTime.toEpochMilli();
+            if (armed.size() >= maxArmed || !armed.add(millis)) {
+                return;
+            }
+            source.increment();
+            long delay = Math.max(0, millis - System.currentTimeMillis());
+            try {
+                timer.schedule(() -> {
+                    armed.remove(millis);
+                    scheduler.get().triggerCheckForDueExecutions();
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                armed.remove(millis);
+            }
+        }
+
+        private void listen(DataSource dataSource) {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try (Connection connection = dataSource.getConnection()) {
+                    PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("LISTEN " + CHANNEL);
+                    }
+                    // executions scheduled while nobody was listening
+                    timer.execute(this::refresh);
+                    while (running) {
+                        PGNotification[] notifications = pgConnection.getNotifications((int) refreshInterval.toMillis());
+                        if (notifications == null) {
+                            continue;
+                        }
+                        for (PGNotification notification : notifications) {
+                            armNotified(notification.getParameter());
+                        }
+                    }
+                } catch (SQLException | RejectedExecutionException e) {
+                    if (!running) {
+                        return;
+                    }
+                    log.warn("Lost connection listening on channel {} of {}. Will reconnect in {}", CHANNEL, shard, reconnectDelay, e);
+                    try {
+                        Thread.sleep(reconnectDelay.toMillis());
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void armNotified(String payload) {
+            try {
+                Instant executionTime = Instant.ofEpochMilli(Long.parseLong(payload));
+                if (!executionTime.isAfter(Instant.now().plus(lookAhead))) {
+                    arm(executionTime, notified);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring notification '{}' on channel {} of {}", payload, CHANNEL, shard);
+            }
+        }
+    }
+}
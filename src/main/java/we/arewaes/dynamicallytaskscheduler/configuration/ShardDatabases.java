@@ -0,0 +1,140 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.entity.ScheduledTask;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.DataSourceConfiguration.ON_HOLD_LOOKUP_DATA_SOURCE;
+import static we.arewaes.dynamicallytaskscheduler.configuration.DataSourceConfiguration.SCHEDULER_DATA_SOURCE;
+
+/**
+ * The database of every shard. Shard 0 is {@code spring.datasource.url} with the application's own pools, JPA
+ * repository and transaction manager. Every database in {@code task.sharding.urls} gets copies of the three pools
+ * configured for shard 0, pointed at its url and named after the shard, is migrated with the application's Flyway
+ * configuration, and gets its own entity manager factory, transaction manager and {@link ScheduledTaskRepository}.
+ */
+@Component
+@Slf4j
+public class ShardDatabases implements DisposableBean {
+
+    private final List<ShardDatabase> databases = new ArrayList<>();
+    private final List<LocalContainerEntityManagerFactoryBean> entityManagerFactories = new ArrayList<>();
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ShardDatabases(@Value("${task.sharding.urls:}") String[] urls,
+                          DataSource dataSource,
+                          @Qualifier(SCHEDULER_DATA_SOURCE) DataSource schedulerDataSource,
+                          @Qualifier(ON_HOLD_LOOKUP_DATA_SOURCE) DataSource onHoldLookupDataSource,
+                          ScheduledTaskRepository scheduledTaskRepository,
+                          PlatformTransactionManager transactionManager,
+                          EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                          JpaProperties jpaProperties,
+                          HibernateProperties hibernateProperties,
+                          ObjectProvider<Flyway> flyway) {
+        databases.add(new ShardDatabase(dataSource, schedulerDataSource, onHoldLookupDataSource, scheduledTaskRepository, transactionManager));
+        List<String> extraShardUrls = ShardRouter.extraShardUrls(urls);
+        try {
+            for (int shard = 1; shard <= extraShardUrls.size(); shard++) {
+                String url = extraShardUrls.get(shard - 1);
+                String name = ShardRouter.shardName(shard);
+                HikariDataSource api = copyPool(dataSource, url, "api-" + name);
+                HikariDataSource scheduler = copyPool(schedulerDataSource, url, "scheduler-" + name);
+                HikariDataSource onHoldLookup = copyPool(onHoldLookupDataSource, url, "on-hold-lookup-" + name);
+                migrate(flyway.getIfAvailable(), api, name);
+
+                LocalContainerEntityManagerFactoryBean factoryBean = entityManagerFactoryBuilder.dataSource(api)
+                        .packages(ScheduledTask.class)
+                        .persistenceUnit(name)
+                        .properties(hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(), new HibernateSettings()))
+                        .build();
+                factoryBean.afterPropertiesSet();
+                entityManagerFactories.add(factoryBean);
+                EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+                JpaTransactionManager shardTransactionManager = new JpaTransactionManager(entityManagerFactory);
+                shardTransactionManager.setDataSource(api);
+                ScheduledTaskRepository shardRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                        .getRepository(ScheduledTaskRepository.class);
+
+                databases.add(new ShardDatabase(api, scheduler, onHoldLookup, shardRepository, shardTransactionManager));
+                log.info("Task shard {} at {}", name, url);
+            }
+        } catch (RuntimeException e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    /**
+     * The pool beans may be wrapped, by a statement-counting proxy for instance, so the settings are read from the
+     * Hikari pool underneath.
+     */
+    private HikariDataSource copyPool(DataSource template, String url, String poolName) {
+        HikariConfig config = new HikariConfig();
+        try {
+            template.unwrap(HikariDataSource.class).copyStateTo(config);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Task shards need Hikari pools to copy, " + poolName + " has none", e);
+        }
+        config.setJdbcUrl(url);
+        config.setPoolName(poolName);
+        HikariDataSource pool = new HikariDataSource(config);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static void migrate(Flyway flyway, DataSource dataSource, String name) {
+        if (flyway == null) {
+            log.warn("Flyway is disabled, not migrating task shard {}", name);
+            return;
+        }
+        Flyway.configure().configuration(flyway.getConfiguration()).dataSource(dataSource).load().migrate();
+    }
+
+    public List<ShardDatabase> all() {
+        return databases;
+    }
+
+    public ShardDatabase get(int shard) {
+        return databases.get(shard);
+    }
+
+    public int size() {
+        return databases.size();
+    }
+
+    @Override
+    public void destroy() {
+        entityManagerFactories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+        pools.forEach(HikariDataSource::close);
+    }
+
+    public record ShardDatabase(DataSource dataSource,
+                                DataSource schedulerDataSource,
+                                DataSource onHoldLookupDataSource,
+                                ScheduledTaskRepository scheduledTaskRepository,
+                                PlatformTransactionManager transactionManager) {
+    }
+}
@@ -0,0 +1,93 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes a task id to its shard on a consistent-hash ring, where every shard owns {@code task.sharding.virtual-nodes}
+ * points named after the shard. A shard's points do not depend on how many shards there are, so appending a database
+ * to {@code task.sharding.urls} only moves tasks onto the new shard and leaves every other task where it is.
+ */
+@Component
+public class ShardRouter {
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    @Autowired
+    public ShardRouter(@Value("${task.sharding.urls:}") String[] urls,
+                       @Value("${task.sharding.virtual-nodes}") int virtualNodes) {
+        this(extraShardUrls(urls).size() + 1, virtualNodes);
+    }
+
+    public ShardRouter(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("At least one shard and one virtual node per shard are required");
+        }
+        this.shardCount = shardCount;
+        long[][] ring = new long[shardCount * virtualNodes][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring[shard * virtualNodes + node] = new long[]{hash(shardName(shard) + '#' + node), shard};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[ring.length];
+        this.owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * The databases of shards 1 and up, in shard order; shard 0 is {@code spring.datasource.url}.
+     */
+    public static List<String> extraShardUrls(String[] urls) {
+        return urls == null ? List.of() : Arrays.stream(urls).filter(StringUtils::hasText).map(String::trim).toList();
+    }
+
+    public static String shardName(int shard) {
+        return "shard-" + shard;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(String taskId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(points, hash(taskId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer, so the ring is the same on every
+     * instance and JVM.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,146 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.exceptions.SerializationException;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+
+/**
+ * Stores {@link ScheduleAndNoData} in a compact layout instead of a Java serialized object graph:
+ * <ul>
+ *     <li>{@code [magic][version][flags][cron pattern][zone id]}, the flags holding {@link #FLAG_ON_HOLD}, the
+ *     field flags below and the misfire policy in {@link #MISFIRE_POLICY_MASK} (its ordinal plus one, zero for none)</li>
+ *     <li>the jitter in seconds, if {@link #FLAG_JITTERED}</li>
+ *     <li>the webhook url, method and timeout in milliseconds, if {@link #FLAG_WEBHOOK}</li>
+ *     <li>the group, if {@link #FLAG_GROUP}</li>
+ *     <li>the priority as a short, if {@link #FLAG_PRIORITY}</li>
+ *     <li>the execution timeout in milliseconds, if {@link #FLAG_TIMEOUT}</li>
+ * </ul>
+ * {@link #VERSION_1} only knows the hold flag, so it is written for data that uses nothing else and stays readable by
+ * nodes that predate the other fields, while {@link #VERSION_2} is written otherwise. A reader fails on a version it does
+ * not know rather than drop fields and write the data back without them, so a layout that grows, now that the flag
+ * byte is full, needs a new version. Other data, and rows written before this format existed (which start with the Java
+ * serialization stream magic), goes through the Java serializer. Schedules are always resolved through the
+ * {@link CronScheduleCache}, so deserializing a row never parses a cron expression that was seen before.
+ */
+public class TaskDataSerializer implements Serializer {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+    static final int FLAGS_OFFSET = 2;
+    static final byte FLAG_ON_HOLD = 0x01;
+    static final byte FLAG_JITTERED = 0x02;
+    static final byte FLAG_WEBHOOK = 0x04;
+    static final int MISFIRE_POLICY_SHIFT = 3;
+    static final byte MISFIRE_POLICY_MASK = 0x18;
+    static final byte FLAG_GROUP = 0x20;
+    static final byte FLAG_PRIORITY = 0x40;
+    static final byte FLAG_TIMEOUT = (byte) 0x80;
+    private static final MisfirePolicy[] MISFIRE_POLICIES = MisfirePolicy.values();
+
+    private final Serializer fallback;
+    private final CronScheduleCache cronScheduleCache;
+
+    public TaskDataSerializer(Serializer fallback, CronScheduleCache cronScheduleCache) {
+        this.fallback = fallback;
+        this.cronScheduleCache = cronScheduleCache;
+    }
+
+    public static boolean isCompact(byte[] serializedData) {
+        return serializedData != null && serializedData.length > FLAGS_OFFSET && serializedData[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] serialize(Object data) {
+        if (!(data instanceof ScheduleAndNoData scheduleAndNoData)) {
+            return fallback.serialize(data);
+        }
+        var schedule = scheduleAndNoData.getCronSchedule();
+        long jitterSeconds = scheduleAndNoData.getJitter().toSeconds();
+        Webhook webhook = scheduleAndNoData.getWebhook();
+        String group = scheduleAndNoData.getGroup();
+        Integer priority = scheduleAndNoData.getPriority();
+        Duration timeout = scheduleAndNoData.getTimeout();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + schedule.getPattern().length()
+                + (webhook == null ? 0 : 16 + webhook.url().length()) + (group == null ? 0 : 2 + group.length()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            MisfirePolicy misfirePolicy = scheduleAndNoData.getMisfirePolicy();
+            int flags = (scheduleAndNoData.isOnHold() ? FLAG_ON_HOLD : 0) | (jitterSeconds != 0 ? FLAG_JITTERED : 0)
+                    | (webhook != null ? FLAG_WEBHOOK : 0) | (group != null ? FLAG_GROUP : 0) | (priority != null ? FLAG_PRIORITY : 0)
+                    | (timeout != null ? FLAG_TIMEOUT : 0)
+                    | (misfirePolicy == null ? 0 : (misfirePolicy.ordinal() + 1) << MISFIRE_POLICY_SHIFT);
+            out.writeByte(MAGIC);
+            out.writeByte((flags & ~FLAG_ON_HOLD) == 0 ? VERSION_1 : VERSION_2);
+            out.writeByte(flags);
+            out.writeUTF(schedule.getPattern());
+            out.writeUTF(schedule.getZoneId().getId());
+            if (jitterSeconds != 0) {
+                out.writeInt(Math.toIntExact(jitterSeconds));
+            }
+            if (webhook != null) {
+                out.writeUTF(webhook.url());
+                out.writeUTF(webhook.method());
+                out.writeInt(Math.toIntExact(webhook.timeout().toMillis()));
+            }
+            if (group != null) {
+                out.writeUTF(group);
+            }
+            if (priority != null) {
+                out.writeShort(priority);
+            }
+            if (timeout != null) {
+                out.writeInt(Math.toIntExact(timeout.toMillis()));
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize task data", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> clazz, byte[] serializedData) {
+        if (clazz != ScheduleAndNoData.class) {
+            return fallback.deserialize(clazz, serializedData);
+        }
+        if (!isCompact(serializedData)) {
+            ScheduleAndNoData legacy = fallback.deserialize(ScheduleAndNoData.class, serializedData);
+            if (legacy == null) {
+                return null;
+            }
+            var schedule = cronScheduleCache.get(legacy.getCronSchedule().getPattern(), legacy.getCronSchedule().getZoneId());
+            return clazz.cast(new ScheduleAndNoData(schedule, legacy.isOnHold(), legacy.getJitter(), legacy.getWebhook(),
+                    legacy.getMisfirePolicy(), legacy.getGroup(), legacy.getPriority(), legacy.getTimeout()));
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serializedData))) {
+            in.readByte();
+            byte version = in.readByte();
+            if (version != VERSION_1 && version != VERSION_2) {
+                throw new SerializationException("Unsupported task data version " + version, null);
+            }
+            byte flags = in.readByte();
+            String pattern = in.readUTF();
+            ZoneId zoneId = ZoneId.of(in.readUTF());
+            Duration jitter = (flags & FLAG_JITTERED) != 0 ? Duration.ofSeconds(in.readInt()) : Duration.ZERO;
+            Webhook webhook = (flags & FLAG_WEBHOOK) != 0
+                    ? new Webhook(in.readUTF(), in.readUTF(), Duration.ofMillis(in.readInt())) : null;
+            String group = (flags & FLAG_GROUP) != 0 ? in.readUTF() : null;
+            Integer priority = (flags & FLAG_PRIORITY) != 0 ? Integer.valueOf(in.readShort()) : null;
+            Duration timeout = (flags & FLAG_TIMEOUT) != 0 ? Duration.ofMillis(in.readInt()) : null;
+            int misfirePolicy = (flags & MISFIRE_POLICY_MASK) >> MISFIRE_POLICY_SHIFT;
+            return clazz.cast(new ScheduleAndNoData(cronScheduleCache.get(pattern, zoneId), (flags & FLAG_ON_HOLD) != 0, jitter, webhook,
+                    misfirePolicy == 0 ? null : MISFIRE_POLICIES[misfirePolicy - 1], group, priority, timeout));
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize task data", e);
+        }
+    }
+}
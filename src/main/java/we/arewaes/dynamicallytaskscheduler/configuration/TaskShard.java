@@ -0,0 +1,32 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+/**
+ * One database holding both SCHEDULED_TASK and scheduled_tasks for the tasks routed to it, with its own repositories,
+ * transaction manager and db-scheduler {@link Scheduler}. The JPA repository of a shard other than shard 0 has no
+ * transactional proxy, so it is only used inside {@link #transaction()}.
+ */
+public record TaskShard(int index,
+                        String name,
+                        ScheduledTaskRepository scheduledTaskRepository,
+                        ScheduledTaskJdbcRepository scheduledTaskJdbcRepository,
+                        SchedulerJdbcRepository schedulerJdbcRepository,
+                        PlatformTransactionManager transactionManager,
+                        Scheduler scheduler) {
+
+    public TransactionTemplate transaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    public TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+}
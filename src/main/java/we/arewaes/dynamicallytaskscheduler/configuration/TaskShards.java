@@ -0,0 +1,99 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The shards of this instance, in shard order. Operations that span tasks on several shards run on every shard in
+ * parallel on a pool of one thread per shard; with a single shard they run on the calling thread.
+ */
+public class TaskShards implements DisposableBean {
+
+    private final ShardRouter shardRouter;
+    private final List<TaskShard> shards;
+    private final ExecutorService fanOutExecutor;
+
+    public TaskShards(ShardRouter shardRouter, List<TaskShard> shards) {
+        if (shards.size() != shardRouter.shardCount()) {
+            throw new IllegalArgumentException("Expected " + shardRouter.shardCount() + " shards but got " + shards.size());
+        }
+        this.shardRouter = shardRouter;
+        this.shards = List.copyOf(shards);
+        AtomicInteger threads = new AtomicInteger();
+        this.fanOutExecutor = shards.size() == 1 ? null : Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "task-shard-fan-out-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TaskShard forTask(String taskId) {
+        return shards.get(shardRouter.shardFor(taskId));
+    }
+
+    public List<TaskShard> all() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * Groups items by the shard of their task id, keeping their order within each shard.
+     */
+    public <T> Map<TaskShard, List<T>> partition(Collection<T> items, Function<T, String> taskId) {
+        Map<TaskShard, List<T>> partitions = new LinkedHashMap<>();
+        for (T item : items) {
+            partitions.computeIfAbsent(forTask(taskId.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return partitions;
+    }
+
+    public <R> List<R> fanOut(Function<TaskShard, R> operation) {
+        return fanOut(shards, operation);
+    }
+
+    /**
+     * Applies {@code operation} to every shard in {@code targets} at once and returns the results in the same order.
+     * The first failure is rethrown once all shards are done.
+     */
+    public <R> List<R> fanOut(Collection<TaskShard> targets, Function<TaskShard, R> operation) {
+        if (fanOutExecutor == null || targets.size() <= 1) {
+            return targets.stream().map(operation).toList();
+        }
+        List<CompletableFuture<R>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> operation.apply(shard), fanOutExecutor))
+                .toList();
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @Override
+    public void destroy() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+}
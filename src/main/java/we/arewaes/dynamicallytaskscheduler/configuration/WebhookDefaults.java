@@ -0,0 +1,39 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.time.Duration;
+
+/**
+ * Completes the webhook of a task request with {@code task.webhook.default-timeout} and POST, and rejects webhooks
+ * that cannot be called or would hold an execution longer than {@code task.webhook.max-timeout}.
+ */
+@Component
+public class WebhookDefaults {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    public WebhookDefaults(@Value("${task.webhook.default-timeout}") Duration defaultTimeout,
+                           @Value("${task.webhook.max-timeout}") Duration maxTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * @return the webhook with its defaults applied, or {@code null} for a task without one
+     * @throws IllegalArgumentException if the webhook is invalid
+     */
+    public Webhook apply(Webhook webhook) {
+        if (webhook == null) {
+            return null;
+        }
+        String error = webhook.validate(maxTimeout);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return webhook.withDefaults(defaultTimeout);
+    }
+}
@@ -1,29 +1,81 @@
 package we.arewaes.dynamicallytaskscheduler.controller;
 
+import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceCurrentlyExecutingException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkOperationResult;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkTaskResult;
+import we.arewaes.dynamicallytaskscheduler.domain.RebalanceResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskImportResult;
 import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskView;
+import we.arewaes.dynamicallytaskscheduler.service.BulkTaskOperationService;
+import we.arewaes.dynamicallytaskscheduler.service.BulkTaskService;
+import we.arewaes.dynamicallytaskscheduler.service.ShardRebalancer;
+import we.arewaes.dynamicallytaskscheduler.service.TaskCatalogService;
+import we.arewaes.dynamicallytaskscheduler.service.TaskQueryService;
 import we.arewaes.dynamicallytaskscheduler.service.TaskService;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/task")
 @RequiredArgsConstructor
 public class TaskController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final TaskService taskService;
+    private final BulkTaskService bulkTaskService;
+    private final BulkTaskOperationService bulkTaskOperationService;
+    private final TaskQueryService taskQueryService;
+    private final ShardRebalancer shardRebalancer;
+    private final TaskCatalogService taskCatalogService;
+
+    @GetMapping("/{taskId}")
+    public ResponseEntity<TaskView> getTask(@PathVariable String taskId) {
+        return ResponseEntity.of(taskQueryService.findTask(taskId));
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> listTasks(@RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> taskQueryService.writeTasks(after, limit, out));
+    }
 
     @PostMapping("/create")
     public ResponseEntity<String> createTask(@RequestBody TaskRequest taskRequest) {
-        taskService.scheduleTask(taskRequest);
+        try {
+            taskService.scheduleTask(taskRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         return ResponseEntity.ok("Task created successfully");
     }
 
+    @PostMapping(value = "/create/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkTaskResult> createTasks(InputStream tasks) throws IOException {
+        return ResponseEntity.ok(bulkTaskService.scheduleTasks(tasks));
+    }
+
     @PostMapping("/hold")
     public ResponseEntity<String> holdTask(@RequestParam String taskId, @RequestParam boolean onHold, @RequestParam boolean onlyDb) {
         if (onlyDb) {
@@ -35,9 +87,66 @@ public class TaskController {
         return ResponseEntity.ok("Task put on hold successfully");
     }
 
+    @PostMapping("/hold/bulk")
+    public ResponseEntity<BulkOperationResult> holdTasks(@RequestBody TaskSelector selector, @RequestParam boolean onHold) {
+        if (!selector.hasCriteria()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bulkTaskOperationService.setTasksOnHold(selector, onHold));
+    }
+
+    @PostMapping("/dead-letters/requeue")
+    public ResponseEntity<BulkOperationResult> requeueTasks(@RequestBody TaskSelector selector) {
+        if (!selector.hasCriteria()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bulkTaskOperationService.requeueTasks(selector));
+    }
+
+    @PatchMapping("/cron")
+    public ResponseEntity<String> updateTaskCron(@RequestBody TaskRequest taskRequest) {
+        try {
+            taskService.updateTaskCron(taskRequest);
+        } catch (TaskInstanceCurrentlyExecutingException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Task is currently executing, try again later");
+        }
+        return ResponseEntity.ok("Task cron updated successfully");
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<String> deleteTask(@RequestParam String taskId) {
         taskService.cancelTask(taskId);
         return ResponseEntity.ok("Task deleted successfully");
     }
+
+    @PostMapping("/delete/bulk")
+    public ResponseEntity<BulkOperationResult> deleteTasks(@RequestBody TaskSelector selector) {
+        if (!selector.hasCriteria()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bulkTaskOperationService.cancelTasks(selector));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tasks.csv")
+                .body(taskCatalogService::exportTasks);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<TaskImportResult> importTasks(InputStream tasks,
+                                                        @RequestParam(defaultValue = "false") boolean overwrite) throws IOException {
+        try {
+            return ResponseEntity.ok(taskCatalogService.importTasks(tasks, overwrite));
+        } catch (IllegalArgumentException | DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<RebalanceResult> rebalanceShards() {
+        return ResponseEntity.ok(shardRebalancer.rebalance());
+    }
 }
@@ -0,0 +1,13 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Data;
+
+@Data
+public class BulkOperationResult {
+
+    private long matched;
+    private long tasksAffected;
+    private long executionsAffected;
+    private long skipped;
+    private long elapsedMillis;
+}
@@ -0,0 +1,15 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskFailure {
+
+    private long line;
+    private String taskId;
+    private String reason;
+}
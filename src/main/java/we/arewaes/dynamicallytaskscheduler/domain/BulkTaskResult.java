@@ -0,0 +1,17 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkTaskResult {
+
+    private long received;
+    private long created;
+    private long failed;
+    private long elapsedMillis;
+    private double tasksPerSecond;
+    private List<BulkTaskFailure> failures = new ArrayList<>();
+}
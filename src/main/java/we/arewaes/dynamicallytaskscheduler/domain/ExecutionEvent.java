@@ -0,0 +1,4 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+public record ExecutionEvent(long timestampMillis, ExecutionEventType type, String taskId) {
+}
@@ -0,0 +1,20 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExecutionEventType {
+
+    STARTED("started"),
+    RESCHEDULED_ON_HOLD("rescheduled on hold"),
+    PUT_ON_HOLD("put on hold"),
+    RELEASED_FROM_HOLD("released from hold"),
+    SKIPPED_AS_MISFIRE("skipped as misfire"),
+    DEAD_LETTERED("dead-lettered"),
+    TIMED_OUT("timed out"),
+    CANCELLED("cancelled");
+
+    private final String label;
+}
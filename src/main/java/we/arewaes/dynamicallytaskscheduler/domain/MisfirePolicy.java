@@ -0,0 +1,23 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+/**
+ * What a task does with a fire that is overdue by more than {@code scheduler.misfire.threshold}, typically after every
+ * instance was down. Tasks without a policy use {@code scheduler.misfire.policy}.
+ */
+public enum MisfirePolicy {
+
+    /**
+     * Runs the overdue fire once and continues with the first fire after it completes.
+     */
+    FIRE_ONCE,
+
+    /**
+     * Runs the overdue fire and every fire missed after it, one after the other, until the task has caught up.
+     */
+    FIRE_ALL,
+
+    /**
+     * Does not run the overdue fire and continues with the first fire from now on.
+     */
+    SKIP
+}
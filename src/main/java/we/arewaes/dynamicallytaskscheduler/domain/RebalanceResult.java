@@ -0,0 +1,13 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Data;
+
+@Data
+public class RebalanceResult {
+
+    private long scanned;
+    private long misplaced;
+    private long moved;
+    private long skipped;
+    private long elapsedMillis;
+}
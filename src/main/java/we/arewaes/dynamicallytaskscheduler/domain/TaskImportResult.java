@@ -0,0 +1,14 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Data;
+
+@Data
+public class TaskImportResult {
+
+    private long staged;
+    private long inserted;
+    private long updated;
+    private long skipped;
+    private long executionsWritten;
+    private long elapsedMillis;
+}
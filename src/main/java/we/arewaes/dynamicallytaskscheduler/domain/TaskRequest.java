@@ -2,9 +2,17 @@ package we.arewaes.dynamicallytaskscheduler.domain;
 
 import lombok.Data;
 
+import java.time.Duration;
+
 @Data
 public class TaskRequest {
 
     private String taskId;
     private String cron;
+    private boolean spread;
+    private Webhook webhook;
+    private MisfirePolicy misfirePolicy;
+    private String group;
+    private Integer priority;
+    private Duration timeout;
 }
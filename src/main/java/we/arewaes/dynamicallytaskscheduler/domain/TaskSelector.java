@@ -0,0 +1,23 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Selects tasks for a bulk operation. All criteria that are set must match. {@code deadLettered} selects the tasks
+ * parked after too many consecutive failures, or with {@code false} the live ones.
+ */
+@Data
+public class TaskSelector {
+
+    private List<String> taskIds;
+    private String taskIdPrefix;
+    private String cron;
+    private Boolean deadLettered;
+
+    public boolean hasCriteria() {
+        return (taskIds != null && !taskIds.isEmpty()) || (taskIdPrefix != null && !taskIdPrefix.isEmpty()) || cron != null
+                || deadLettered != null;
+    }
+}
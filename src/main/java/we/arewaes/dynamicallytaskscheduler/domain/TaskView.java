@@ -0,0 +1,24 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskView {
+
+    private String taskId;
+    private String cron;
+    private boolean onHold;
+    private Instant nextExecutionTime;
+    private String pickedBy;
+    private Integer consecutiveFailures;
+    private Instant deadLetteredAt;
+    private String deadLetterCause;
+    private String group;
+    private Integer priority;
+}
@@ -0,0 +1,51 @@
+package we.arewaes.dynamicallytaskscheduler.domain;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * The HTTP endpoint a task calls on every fire. {@code method} defaults to POST and {@code timeout}, which bounds the
+ * whole call including the wait for a per-host slot, to {@code task.webhook.default-timeout}.
+ */
+public record Webhook(String url, String method, Duration timeout) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_URL_LENGTH = 2048;
+    public static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+
+    public Webhook withDefaults(Duration defaultTimeout) {
+        return new Webhook(url, method == null ? "POST" : method.toUpperCase(), timeout == null ? defaultTimeout : timeout);
+    }
+
+    /**
+     * @return why the webhook cannot be called, or {@code null} if it can
+     */
+    public String validate(Duration maxTimeout) {
+        if (url == null || url.isBlank()) {
+            return "webhook.url is required";
+        }
+        if (url.length() > MAX_URL_LENGTH) {
+            return "webhook.url must be at most " + MAX_URL_LENGTH + " characters";
+        }
+        try {
+            URI uri = URI.create(url);
+            if (!("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) || uri.getHost() == null) {
+                return "webhook.url must be an absolute http or https URL";
+            }
+        } catch (IllegalArgumentException e) {
+            return "webhook.url is not a valid URL";
+        }
+        if (method != null && !METHODS.contains(method.toUpperCase())) {
+            return "webhook.method must be one of " + METHODS;
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero() || timeout.compareTo(maxTimeout) > 0)) {
+            return "webhook.timeout must be positive and at most " + maxTimeout;
+        }
+        return null;
+    }
+}
@@ -2,9 +2,16 @@ package we.arewaes.dynamicallytaskscheduler.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Data;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.time.Duration;
+import java.time.Instant;
 
 @Entity
 @Table(name = "SCHEDULED_TASK")
@@ -21,4 +28,53 @@ public class ScheduledTask {
     @Column(name = "ON_HOLD", nullable = false, columnDefinition = "boolean")
     private boolean onHold;
 
+    @Column(name = "JITTER_SECONDS", nullable = false)
+    private int jitterSeconds;
+
+    @Column(name = "WEBHOOK_URL")
+    private String webhookUrl;
+
+    @Column(name = "WEBHOOK_METHOD")
+    private String webhookMethod;
+
+    @Column(name = "WEBHOOK_TIMEOUT_MS")
+    private Integer webhookTimeoutMillis;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "MISFIRE_POLICY")
+    private MisfirePolicy misfirePolicy;
+
+    @Column(name = "DEAD_LETTERED_AT")
+    private Instant deadLetteredAt;
+
+    @Column(name = "DEAD_LETTER_CAUSE")
+    private String deadLetterCause;
+
+    @Column(name = "TASK_GROUP")
+    private String taskGroup;
+
+    @Column(name = "PRIORITY")
+    private Integer priority;
+
+    @Column(name = "TIMEOUT_MS")
+    private Integer timeoutMillis;
+
+    public Webhook getWebhook() {
+        return webhookUrl == null ? null : new Webhook(webhookUrl, webhookMethod, Duration.ofMillis(webhookTimeoutMillis));
+    }
+
+    public void setWebhook(Webhook webhook) {
+        webhookUrl = webhook == null ? null : webhook.url();
+        webhookMethod = webhook == null ? null : webhook.method();
+        webhookTimeoutMillis = webhook == null ? null : Math.toIntExact(webhook.timeout().toMillis());
+    }
+
+    public Duration getTimeout() {
+        return timeoutMillis == null ? null : Duration.ofMillis(timeoutMillis);
+    }
+
+    public void setTimeout(Duration timeout) {
+        timeoutMillis = timeout == null ? null : Math.toIntExact(timeout.toMillis());
+    }
+
 }
@@ -0,0 +1,695 @@
+package we.arewaes.dynamicallytaskscheduler.repository;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.Priority;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskView;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+@Repository
+@RequiredArgsConstructor
+public class ScheduledTaskJdbcRepository {
+
+    private static final String INSERT_SCHEDULED_TASK =
+            "INSERT INTO SCHEDULED_TASK (ID, CRON, ON_HOLD, JITTER_SECONDS, WEBHOOK_URL, WEBHOOK_METHOD, WEBHOOK_TIMEOUT_MS, MISFIRE_POLICY, " +
+                    "TASK_GROUP, PRIORITY, TIMEOUT_MS) VALUES (?, ?, false, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (ID) DO NOTHING";
+    private static final String INSERT_EXECUTION =
+            "INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked, version, priority) " +
+                    "VALUES (?, ?, ?, ?, false, 1, ?) ON CONFLICT (task_name, task_instance) DO NOTHING";
+    private static final String SELECT_JAVA_SERIALIZED_EXECUTIONS =
+            "SELECT task_instance, task_data, version FROM scheduled_tasks " +
+                    "WHERE task_name = ? AND task_instance > ? AND picked = false " +
+                    "AND substring(task_data from 1 for 2) = '\\xaced'::bytea " +
+                    "ORDER BY task_instance LIMIT ?";
+    private static final String SELECT_EXECUTIONS_WITHOUT_PRIORITY =
+            "SELECT task_instance FROM scheduled_tasks WHERE task_name = ? AND task_instance > ? AND priority IS NULL " +
+                    "ORDER BY task_instance LIMIT ?";
+    private static final String BACKFILL_PRIORITY =
+            "UPDATE scheduled_tasks SET priority = ? WHERE task_name = ? AND task_instance = ANY (?) AND priority IS NULL";
+    private static final String UPDATE_TASK_DATA =
+            "UPDATE scheduled_tasks SET task_data = ?, version = version + 1 " +
+                    "WHERE task_name = ? AND task_instance = ? AND version = ? AND picked = false";
+    private static final String UPDATE_EXECUTION_DATA =
+            "UPDATE scheduled_tasks SET task_data = ?, version = version + 1 " +
+                    "WHERE task_name = ? AND task_instance = ? AND picked = false";
+    private static final String UPDATE_EXECUTION_DATA_AND_TIME =
+            "UPDATE scheduled_tasks SET task_data = ?, execution_time = ?, version = version + 1 " +
+                    "WHERE task_name = ? AND task_instance = ? AND picked = false";
+    private static final String UPDATE_ON_HOLD =
+            "UPDATE SCHEDULED_TASK SET ON_HOLD = ? WHERE ID = ANY (?) AND ON_HOLD IS DISTINCT FROM ?";
+    // only compact rows carry the flag at a fixed offset; Java serialized rows are reconciled by the execution interceptor
+    private static final String UPDATE_EXECUTIONS_ON_HOLD =
+            "UPDATE scheduled_tasks SET task_data = set_byte(task_data, 2, (get_byte(task_data, 2) & ~1) | ?), " +
+                    "version = version + 1 " +
+                    "WHERE task_name = ? AND task_instance = ANY (?) AND picked = false " +
+                    "AND get_byte(task_data, 0) = 197 AND (get_byte(task_data, 2) & 1) <> ?";
+    private static final String DELETE_EXECUTIONS =
+            "DELETE FROM scheduled_tasks WHERE task_name = ? AND task_instance = ANY (?) AND picked = false";
+    private static final String DELETE_SCHEDULED_TASKS =
+            "DELETE FROM SCHEDULED_TASK t WHERE t.ID = ANY (?) AND NOT EXISTS " +
+                    "(SELECT 1 FROM scheduled_tasks e WHERE e.task_name = ? AND e.task_instance = t.ID)";
+    private static final String REMOVE_EXECUTIONS = DELETE_EXECUTIONS + " RETURNING task_instance, task_data, execution_time, priority";
+    private static final String TASK_DEFINITION_COLUMNS = "t.ID, t.CRON, t.ON_HOLD, t.JITTER_SECONDS, " +
+            "t.WEBHOOK_URL, t.WEBHOOK_METHOD, t.WEBHOOK_TIMEOUT_MS, t.MISFIRE_POLICY, t.DEAD_LETTERED_AT, t.DEAD_LETTER_CAUSE, " +
+            "t.TASK_GROUP, t.PRIORITY, t.TIMEOUT_MS";
+    private static final String REMOVE_SCHEDULED_TASKS = DELETE_SCHEDULED_TASKS + " RETURNING " + TASK_DEFINITION_COLUMNS;
+    private static final String INSERT_TASK_DEFINITION =
+            "INSERT INTO SCHEDULED_TASK (ID, CRON, ON_HOLD, JITTER_SECONDS, WEBHOOK_URL, WEBHOOK_METHOD, WEBHOOK_TIMEOUT_MS, MISFIRE_POLICY, " +
+                    "DEAD_LETTERED_AT, DEAD_LETTER_CAUSE, TASK_GROUP, PRIORITY, TIMEOUT_MS) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (ID) DO NOTHING";
+    private static final String DEAD_LETTER_TASK =
+            "UPDATE SCHEDULED_TASK SET DEAD_LETTERED_AT = ?, DEAD_LETTER_CAUSE = ? WHERE ID = ? AND DEAD_LETTERED_AT IS NULL";
+    private static final String REQUEUE_DEAD_LETTERED_TASKS =
+            "UPDATE SCHEDULED_TASK t SET DEAD_LETTERED_AT = NULL, DEAD_LETTER_CAUSE = NULL " +
+                    "WHERE t.ID = ANY (?) AND t.DEAD_LETTERED_AT IS NOT NULL RETURNING " + TASK_DEFINITION_COLUMNS;
+    private static final String SORT_TASK_IDS =
+            "SELECT ID FROM unnest(?::varchar[]) AS t(ID) ORDER BY ID LIMIT ?";
+    private static final String SELECT_TASK_VIEWS =
+            "SELECT t.ID, t.CRON, t.ON_HOLD, e.execution_time, e.picked_by, e.consecutive_failures, t.DEAD_LETTERED_AT, t.DEAD_LETTER_CAUSE, " +
+                    "t.TASK_GROUP, t.PRIORITY " +
+                    "FROM SCHEDULED_TASK t LEFT JOIN scheduled_tasks e ON e.task_name = ? AND e.task_instance = t.ID ";
+    private static final String SELECT_TASK_VIEW = SELECT_TASK_VIEWS + "WHERE t.ID = ?";
+    private static final String SELECT_TASK_VIEWS_PAGE = SELECT_TASK_VIEWS + "WHERE t.ID > ? ORDER BY t.ID LIMIT ?";
+
+    private static final String FIND_TASK_ID_RANGE_END =
+            "SELECT ID FROM SCHEDULED_TASK WHERE ID > ? ORDER BY ID OFFSET ? LIMIT 1";
+    // dead-lettered tasks have no execution on purpose
+    private static final String FIND_TASKS_WITHOUT_EXECUTION =
+            "SELECT " + TASK_DEFINITION_COLUMNS + " FROM SCHEDULED_TASK t WHERE t.ID > ? %s AND t.DEAD_LETTERED_AT IS NULL AND NOT EXISTS " +
+                    "(SELECT 1 FROM scheduled_tasks e WHERE e.task_name = ? AND e.task_instance = t.ID)";
+    private static final String DELETE_ORPHAN_EXECUTIONS =
+            "DELETE FROM scheduled_tasks e WHERE e.task_name = ? AND e.task_instance > ? %s AND e.picked = false " +
+                    "AND NOT EXISTS (SELECT 1 FROM SCHEDULED_TASK t WHERE t.ID = e.task_instance)";
+    private static final String REPAIR_EXECUTIONS_ON_HOLD =
+            "UPDATE scheduled_tasks e SET task_data = set_byte(e.task_data, 2, (get_byte(e.task_data, 2) & ~1) | " +
+                    "CASE WHEN t.ON_HOLD THEN 1 ELSE 0 END), version = e.version + 1 " +
+                    "FROM SCHEDULED_TASK t WHERE e.task_name = ? AND e.task_instance = t.ID AND t.ID > ? %s " +
+                    "AND e.picked = false AND get_byte(e.task_data, 0) = 197 " +
+                    "AND (get_byte(e.task_data, 2) & 1) <> CASE WHEN t.ON_HOLD THEN 1 ELSE 0 END";
+
+    /**
+     * The columns of a task export, in the order {@code EXPORT_TASKS} writes them and the import staging table reads
+     * them.
+     */
+    public static final String TASK_EXPORT_HEADER =
+            "id,cron,on_hold,jitter_seconds,webhook_url,webhook_method,webhook_timeout_ms,misfire_policy,task_group,priority," +
+                    "timeout_ms,dead_lettered_at,dead_letter_cause,execution_time,task_data";
+    private static final String EXPORT_TASKS =
+            "COPY (SELECT t.ID, t.CRON, coalesce(t.ON_HOLD, false), t.JITTER_SECONDS, " +
+                    "t.WEBHOOK_URL, t.WEBHOOK_METHOD, t.WEBHOOK_TIMEOUT_MS, t.MISFIRE_POLICY, t.TASK_GROUP, t.PRIORITY, t.TIMEOUT_MS, " +
+                    "t.DEAD_LETTERED_AT, t.DEAD_LETTER_CAUSE, e.execution_time, e.task_data " +
+                    "FROM SCHEDULED_TASK t LEFT JOIN scheduled_tasks e " +
+                    "ON e.task_name = '" + DYNAMIC_RECURRING_TASK_NAME + "' AND e.task_instance = t.ID) TO STDOUT (FORMAT csv)";
+    private static final String CREATE_IMPORT_TABLE =
+            "CREATE TEMP TABLE task_import (ID varchar(36) NOT NULL, CRON varchar(80) NOT NULL, ON_HOLD boolean, " +
+                    "JITTER_SECONDS integer NOT NULL, WEBHOOK_URL varchar(2048), WEBHOOK_METHOD varchar(8), " +
+                    "WEBHOOK_TIMEOUT_MS integer, MISFIRE_POLICY varchar(16) CHECK (MISFIRE_POLICY IN (" + misfirePolicyNames() + ")), " +
+                    "TASK_GROUP varchar(64), PRIORITY smallint, TIMEOUT_MS integer CHECK (TIMEOUT_MS > 0), " +
+                    "DEAD_LETTERED_AT timestamptz, DEAD_LETTER_CAUSE varchar(1000), execution_time timestamptz, task_data bytea) ON COMMIT DROP";
+    private static final String COPY_IMPORT = "COPY task_import FROM STDIN (FORMAT csv)";
+    // the last row wins for ids repeated in the import; only tasks inserted or changed get the imported execution, and
+    // a dead-lettered task stays parked: it gets none, and an overwrite removes the one it had
+    private static final String MERGE_IMPORT =
+            "WITH staged AS MATERIALIZED (SELECT DISTINCT ON (ID) * FROM task_import ORDER BY ID), " +
+                    "merged AS (INSERT INTO SCHEDULED_TASK (ID, CRON, ON_HOLD, JITTER_SECONDS, WEBHOOK_URL, WEBHOOK_METHOD, WEBHOOK_TIMEOUT_MS, MISFIRE_POLICY, " +
+                    "TASK_GROUP, PRIORITY, TIMEOUT_MS, DEAD_LETTERED_AT, DEAD_LETTER_CAUSE) " +
+                    "SELECT ID, CRON, coalesce(ON_HOLD, false), JITTER_SECONDS, WEBHOOK_URL, WEBHOOK_METHOD, WEBHOOK_TIMEOUT_MS, MISFIRE_POLICY, " +
+                    "TASK_GROUP, PRIORITY, TIMEOUT_MS, DEAD_LETTERED_AT, DEAD_LETTER_CAUSE FROM staged " +
+                    "ON CONFLICT (ID) %s RETURNING ID, xmax = 0 AS inserted), " +
+                    "executions AS (INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked, version, priority) " +
+                    "SELECT ?, s.ID, s.task_data, s.execution_time, false, 1, coalesce(s.PRIORITY, " + Priority.MEDIUM + ") " +
+                    "FROM staged s JOIN merged m ON m.ID = s.ID " +
+                    "WHERE s.execution_time IS NOT NULL AND s.task_data IS NOT NULL AND s.DEAD_LETTERED_AT IS NULL " +
+                    "ON CONFLICT (task_name, task_instance) %s RETURNING 1), " +
+                    "parked AS (DELETE FROM scheduled_tasks WHERE task_name = ? AND NOT picked AND task_instance IN " +
+                    "(SELECT s.ID FROM staged s JOIN merged m ON m.ID = s.ID WHERE s.DEAD_LETTERED_AT IS NOT NULL)) " +
+                    "SELECT (SELECT count(*) FROM task_import) AS staged, " +
+                    "(SELECT count(*) FROM merged WHERE inserted) AS inserted, " +
+                    "(SELECT count(*) FROM merged WHERE NOT inserted) AS updated, " +
+                    "(SELECT count(*) FROM executions) AS executions";
+    private static final String MERGE_IMPORT_SKIPPING = MERGE_IMPORT.formatted("DO NOTHING", "DO NOTHING");
+    private static final String MERGE_IMPORT_OVERWRITING = MERGE_IMPORT.formatted(
+            "DO UPDATE SET CRON = EXCLUDED.CRON, ON_HOLD = EXCLUDED.ON_HOLD, JITTER_SECONDS = EXCLUDED.JITTER_SECONDS, " +
+                    "WEBHOOK_URL = EXCLUDED.WEBHOOK_URL, WEBHOOK_METHOD = EXCLUDED.WEBHOOK_METHOD, " +
+                    "WEBHOOK_TIMEOUT_MS = EXCLUDED.WEBHOOK_TIMEOUT_MS, MISFIRE_POLICY = EXCLUDED.MISFIRE_POLICY, " +
+                    "TASK_GROUP = EXCLUDED.TASK_GROUP, PRIORITY = EXCLUDED.PRIORITY, TIMEOUT_MS = EXCLUDED.TIMEOUT_MS, " +
+                    "DEAD_LETTERED_AT = EXCLUDED.DEAD_LETTERED_AT, DEAD_LETTER_CAUSE = EXCLUDED.DEAD_LETTER_CAUSE " +
+                    "WHERE (SCHEDULED_TASK.CRON, SCHEDULED_TASK.ON_HOLD, SCHEDULED_TASK.JITTER_SECONDS, SCHEDULED_TASK.WEBHOOK_URL, " +
+                    "SCHEDULED_TASK.WEBHOOK_METHOD, SCHEDULED_TASK.WEBHOOK_TIMEOUT_MS, SCHEDULED_TASK.MISFIRE_POLICY, " +
+                    "SCHEDULED_TASK.TASK_GROUP, SCHEDULED_TASK.PRIORITY, SCHEDULED_TASK.TIMEOUT_MS, SCHEDULED_TASK.DEAD_LETTERED_AT, " +
+                    "SCHEDULED_TASK.DEAD_LETTER_CAUSE) IS DISTINCT FROM " +
+                    "(EXCLUDED.CRON, EXCLUDED.ON_HOLD, EXCLUDED.JITTER_SECONDS, EXCLUDED.WEBHOOK_URL, EXCLUDED.WEBHOOK_METHOD, " +
+                    "EXCLUDED.WEBHOOK_TIMEOUT_MS, EXCLUDED.MISFIRE_POLICY, EXCLUDED.TASK_GROUP, EXCLUDED.PRIORITY, EXCLUDED.TIMEOUT_MS, " +
+                    "EXCLUDED.DEAD_LETTERED_AT, EXCLUDED.DEAD_LETTER_CAUSE)",
+            "DO UPDATE SET task_data = EXCLUDED.task_data, execution_time = EXCLUDED.execution_time, priority = EXCLUDED.priority, " +
+                    "version = scheduled_tasks.version + 1 WHERE NOT scheduled_tasks.picked");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Serializer taskDataSerializer;
+
+    /**
+     * Inserts the tasks, keyed by id, as one JDBC batch, skipping ids that already exist.
+     *
+     * @return the ids that were actually inserted
+     */
+    public List<String> insertScheduledTasks(Map<String, ScheduleAndNoData> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<String, ScheduleAndNoData>> entries = new ArrayList<>(tasks.entrySet());
+        int[] updateCounts = jdbcTemplate.batchUpdate(INSERT_SCHEDULED_TASK, entries, entries.size(),
+                (ps, task) -> {
+                    ps.setString(1, task.getKey());
+                    ps.setString(2, task.getValue().getCronSchedule().getPattern());
+                    ps.setInt(3, Math.toIntExact(task.getValue().getJitter().toSeconds()));
+                    setWebhook(ps, 4, task.getValue().getWebhook());
+                    setMisfirePolicy(ps, 7, task.getValue().getMisfirePolicy());
+                    ps.setString(8, task.getValue().getGroup());
+                    ps.setObject(9, task.getValue().getPriority(), Types.INTEGER);
+                    setTimeout(ps, 10, task.getValue().getTimeout());
+                })[0];
+        List<String> inserted = new ArrayList<>(entries.size());
+        for (int i = 0; i < updateCounts.length; i++) {
+            // 0 means ON CONFLICT DO NOTHING skipped the row; SUCCESS_NO_INFO (-2) is reported by some drivers
+            if (updateCounts[i] != 0) {
+                inserted.add(entries.get(i).getKey());
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the db-scheduler executions as one JDBC batch, with the first execution time computed from
+     * each task's schedule, the same way {@code scheduledAccordingToData()} would.
+     *
+     * @return the earliest execution time inserted, or {@code null} if there were no executions
+     */
+    public Instant insertExecutions(Map<String, ScheduleAndNoData> executions, Instant now) {
+        if (executions.isEmpty()) {
+            return null;
+        }
+        List<Map.Entry<String, ScheduleAndNoData>> entries = new ArrayList<>(executions.entrySet());
+        Instant[] earliest = new Instant[1];
+        jdbcTemplate.batchUpdate(INSERT_EXECUTION, entries, entries.size(), (ps, execution) -> {
+            Instant executionTime = execution.getValue().getSchedule().getInitialExecutionTime(now);
+            if (earliest[0] == null || executionTime.isBefore(earliest[0])) {
+                earliest[0] = executionTime;
+            }
+            ps.setString(1, DYNAMIC_RECURRING_TASK_NAME);
+            ps.setString(2, execution.getKey());
+            ps.setBytes(3, taskDataSerializer.serialize(execution.getValue()));
+            ps.setObject(4, OffsetDateTime.ofInstant(executionTime, ZoneOffset.UTC));
+            ps.setInt(5, execution.getValue().getExecutionPriority());
+        });
+        return earliest[0];
+    }
+
+    /**
+     * Keyset-paginated scan for unpicked executions whose task_data is still a Java serialization stream.
+     */
+    public List<StoredTaskData> findJavaSerializedTaskData(String afterTaskInstance, int limit) {
+        return jdbcTemplate.query(SELECT_JAVA_SERIALIZED_EXECUTIONS,
+                (rs, rowNum) -> new StoredTaskData(rs.getString("task_instance"), rs.getBytes("task_data"), rs.getLong("version")),
+                DYNAMIC_RECURRING_TASK_NAME, afterTaskInstance, limit);
+    }
+
+    /**
+     * Keyset-paginated scan for executions written before executions got a priority.
+     */
+    public List<String> findExecutionsWithoutPriority(String afterTaskInstance, int limit) {
+        return jdbcTemplate.queryForList(SELECT_EXECUTIONS_WITHOUT_PRIORITY, String.class,
+                DYNAMIC_RECURRING_TASK_NAME, afterTaskInstance, limit);
+    }
+
+    /**
+     * Gives the executions that still have no priority db-scheduler's default one.
+     *
+     * @return the number of rows updated
+     */
+    public int backfillPriority(List<String> taskInstances) {
+        return jdbcTemplate.update(BACKFILL_PRIORITY, Priority.MEDIUM, DYNAMIC_RECURRING_TASK_NAME, taskInstances.toArray(String[]::new));
+    }
+
+    /**
+     * Rewrites task_data of unpicked executions, guarded by the version read alongside the data.
+     *
+     * @return the number of rows updated
+     */
+    public int updateTaskData(List<StoredTaskData> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_TASK_DATA, rows, rows.size(), (ps, row) -> {
+            ps.setBytes(1, row.taskData());
+            ps.setString(2, DYNAMIC_RECURRING_TASK_NAME);
+            ps.setString(3, row.taskInstance());
+            ps.setLong(4, row.version());
+        })[0];
+        int updated = 0;
+        for (int updateCount : updateCounts) {
+            updated += Math.max(updateCount, 0);
+        }
+        return updated;
+    }
+
+    /**
+     * Replaces the data of an execution that is not currently picked, in place. Bumping the version makes any
+     * scheduler that read the row before this update fail its own version-checked pick or reschedule.
+     *
+     * @param executionTime the new execution time, or {@code null} to keep the current one
+     * @return whether the execution was updated; {@code false} if it does not exist or is currently picked
+     */
+    public boolean updateExecution(String taskInstance, ScheduleAndNoData data, Instant executionTime) {
+        byte[] taskData = taskDataSerializer.serialize(data);
+        int updated = executionTime == null
+                ? jdbcTemplate.update(UPDATE_EXECUTION_DATA, taskData, DYNAMIC_RECURRING_TASK_NAME, taskInstance)
+                : jdbcTemplate.update(UPDATE_EXECUTION_DATA_AND_TIME, taskData,
+                OffsetDateTime.ofInstant(executionTime, ZoneOffset.UTC), DYNAMIC_RECURRING_TASK_NAME, taskInstance);
+        return updated == 1;
+    }
+
+    /**
+     * Keyset-paginated scan for the ids of SCHEDULED_TASK rows matching every criterion set on the selector. A prefix
+     * also bounds the range of the primary key scanned, as {@code LIKE} cannot use it under a non-C collation.
+     */
+    public List<String> findTaskIds(TaskSelector selector, String afterTaskId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ID FROM SCHEDULED_TASK WHERE ID > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(afterTaskId);
+        if (selector.getTaskIds() != null && !selector.getTaskIds().isEmpty()) {
+            sql.append(" AND ID = ANY (?)");
+            args.add(selector.getTaskIds().toArray(String[]::new));
+        }
+        if (selector.getTaskIdPrefix() != null && !selector.getTaskIdPrefix().isEmpty()) {
+            String prefix = selector.getTaskIdPrefix();
+            sql.append(" AND ID >= ? AND ID < (? || U&'\\FFFF') AND ID LIKE ? ESCAPE '\\'");
+            args.add(prefix);
+            args.add(prefix);
+            args.add(prefix.replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+        if (selector.getCron() != null) {
+            sql.append(" AND CRON = ?");
+            args.add(selector.getCron());
+        }
+        if (selector.getDeadLettered() != null) {
+            sql.append(selector.getDeadLettered() ? " AND DEAD_LETTERED_AT IS NOT NULL" : " AND DEAD_LETTERED_AT IS NULL");
+        }
+        sql.append(" ORDER BY ID LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray());
+    }
+
+    /**
+     * @return the number of SCHEDULED_TASK rows whose hold flag changed
+     */
+    public int updateOnHold(List<String> taskIds, boolean onHold) {
+        return jdbcTemplate.update(UPDATE_ON_HOLD, onHold, taskIds.toArray(String[]::new), onHold);
+    }
+
+    /**
+     * Flips the hold flag byte of unpicked compact executions in place, without deserializing them.
+     *
+     * @return the number of executions whose hold flag changed
+     */
+    public int updateExecutionsOnHold(List<String> taskIds, boolean onHold) {
+        int flag = onHold ? 1 : 0;
+        return jdbcTemplate.update(UPDATE_EXECUTIONS_ON_HOLD, flag, DYNAMIC_RECURRING_TASK_NAME, taskIds.toArray(String[]::new), flag);
+    }
+
+    /**
+     * @return the number of unpicked executions deleted
+     */
+    public int deleteExecutions(List<String> taskIds) {
+        return jdbcTemplate.update(DELETE_EXECUTIONS, DYNAMIC_RECURRING_TASK_NAME, taskIds.toArray(String[]::new));
+    }
+
+    /**
+     * Deletes the SCHEDULED_TASK rows that no longer have an execution, so tasks that were executing are kept.
+     *
+     * @return the number of SCHEDULED_TASK rows deleted
+     */
+    public int deleteScheduledTasksWithoutExecution(List<String> taskIds) {
+        return jdbcTemplate.update(DELETE_SCHEDULED_TASKS, taskIds.toArray(String[]::new), DYNAMIC_RECURRING_TASK_NAME);
+    }
+
+    /**
+     * Deletes the unpicked executions of the tasks and returns them as stored, for moving them to another shard.
+     */
+    public List<StoredExecution> removeExecutions(List<String> taskIds) {
+        return jdbcTemplate.query(REMOVE_EXECUTIONS,
+                (rs, rowNum) -> new StoredExecution(rs.getString("task_instance"), rs.getBytes("task_data"),
+                        rs.getObject("execution_time", OffsetDateTime.class).toInstant(), rs.getInt("priority")),
+                DYNAMIC_RECURRING_TASK_NAME, taskIds.toArray(String[]::new));
+    }
+
+    /**
+     * Parks a task after too many consecutive failures. The caller removes its execution.
+     *
+     * @return whether the task was live until now
+     */
+    public boolean deadLetter(String taskId, Instant deadLetteredAt, String cause) {
+        return jdbcTemplate.update(DEAD_LETTER_TASK, OffsetDateTime.ofInstant(deadLetteredAt, ZoneOffset.UTC), cause, taskId) == 1;
+    }
+
+    /**
+     * Clears the dead-letter state of the tasks that have one and returns them, so the caller can schedule them again.
+     */
+    public List<TaskDefinition> requeueDeadLettered(List<String> taskIds) {
+        return jdbcTemplate.query(REQUEUE_DEAD_LETTERED_TASKS, ScheduledTaskJdbcRepository::mapTaskDefinition,
+                (Object) taskIds.toArray(String[]::new));
+    }
+
+    /**
+     * Deletes the SCHEDULED_TASK rows that no longer have an execution and returns them, for moving them to another
+     * shard.
+     */
+    public List<TaskDefinition> removeScheduledTasksWithoutExecution(List<String> taskIds) {
+        return jdbcTemplate.query(REMOVE_SCHEDULED_TASKS,
+                ScheduledTaskJdbcRepository::mapTaskDefinition,
+                taskIds.toArray(String[]::new), DYNAMIC_RECURRING_TASK_NAME);
+    }
+
+    /**
+     * Inserts tasks and executions moved from another shard as they were stored there, skipping ids that already
+     * exist, so a move that is repeated after a failure does not fail on the rows it already copied.
+     */
+    public void insertMovedTasks(List<TaskDefinition> tasks, List<StoredExecution> executions) {
+        if (!tasks.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TASK_DEFINITION, tasks, tasks.size(), (ps, task) -> {
+                ps.setString(1, task.taskId());
+                ps.setString(2, task.cron());
+                ps.setBoolean(3, task.onHold());
+                ps.setInt(4, task.jitterSeconds());
+                setWebhook(ps, 5, task.webhook());
+                setMisfirePolicy(ps, 8, task.misfirePolicy());
+                ps.setObject(9, task.deadLetteredAt() == null ? null : OffsetDateTime.ofInstant(task.deadLetteredAt(), ZoneOffset.UTC),
+                        Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setString(10, task.deadLetterCause());
+                ps.setString(11, task.group());
+                ps.setObject(12, task.priority(), Types.INTEGER);
+                setTimeout(ps, 13, task.timeout());
+            });
+        }
+        if (!executions.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EXECUTION, executions, executions.size(), (ps, execution) -> {
+                ps.setString(1, DYNAMIC_RECURRING_TASK_NAME);
+                ps.setString(2, execution.taskInstance());
+                ps.setBytes(3, execution.taskData());
+                ps.setObject(4, OffsetDateTime.ofInstant(execution.executionTime(), ZoneOffset.UTC));
+                ps.setInt(5, execution.priority());
+            });
+        }
+    }
+
+    /**
+     * Sorts task ids read from several shards the way {@code ORDER BY ID} on SCHEDULED_TASK does, using the database's
+     * collation rather than Java's, so pages merged from several shards line up with keyset pagination.
+     */
+    public List<String> sortTaskIds(List<String> taskIds, int limit) {
+        return jdbcTemplate.queryForList(SORT_TASK_IDS, String.class, taskIds.toArray(String[]::new), limit);
+    }
+
+    public Optional<TaskView> findTaskView(String taskId) {
+        return jdbcTemplate.query(SELECT_TASK_VIEW, ScheduledTaskJdbcRepository::mapTaskView, DYNAMIC_RECURRING_TASK_NAME, taskId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Keyset-paginated scan of tasks joined with their executions. Rows are handed to the consumer as they are read,
+     * {@code fetchSize} at a time when called inside a transaction, so a page is never materialized as a list.
+     */
+    public void streamTaskViews(String afterTaskId, int limit, int fetchSize, Consumer<TaskView> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_TASK_VIEWS_PAGE);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, DYNAMIC_RECURRING_TASK_NAME);
+            ps.setString(2, afterTaskId);
+            ps.setInt(3, limit);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapTaskView(rs, rs.getRow())));
+    }
+
+    private static TaskView mapTaskView(ResultSet rs, int rowNum) throws SQLException {
+        OffsetDateTime executionTime = rs.getObject("execution_time", OffsetDateTime.class);
+        return new TaskView(rs.getString("ID"), rs.getString("CRON"), rs.getBoolean("ON_HOLD"),
+                executionTime == null ? null : executionTime.toInstant(), rs.getString("picked_by"),
+                rs.getObject("consecutive_failures", Integer.class), deadLetteredAt(rs), rs.getString("DEAD_LETTER_CAUSE"),
+                rs.getString("TASK_GROUP"), rs.getObject("PRIORITY", Integer.class));
+    }
+
+    /**
+     * @return the id {@code size} rows after {@code afterTaskId} in SCHEDULED_TASK, or {@code null} if fewer remain
+     */
+    public String findTaskIdRangeEnd(String afterTaskId, int size) {
+        List<String> ids = jdbcTemplate.queryForList(FIND_TASK_ID_RANGE_END, String.class, afterTaskId, size - 1);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Tasks in {@code (afterTaskId, upToTaskId]} that have no execution. A {@code null} upper bound means no bound.
+     */
+    public List<TaskDefinition> findTasksWithoutExecution(String afterTaskId, String upToTaskId) {
+        return jdbcTemplate.query(FIND_TASKS_WITHOUT_EXECUTION.formatted(upperBound("t.ID", upToTaskId)),
+                ScheduledTaskJdbcRepository::mapTaskDefinition,
+                rangeArgs(afterTaskId, upToTaskId, DYNAMIC_RECURRING_TASK_NAME));
+    }
+
+    /**
+     * Deletes unpicked executions in {@code (afterTaskId, upToTaskId]} that have no SCHEDULED_TASK row.
+     *
+     * @return the number of executions deleted
+     */
+    public int deleteOrphanExecutions(String afterTaskId, String upToTaskId) {
+        List<Object> args = new ArrayList<>();
+        args.add(DYNAMIC_RECURRING_TASK_NAME);
+        args.addAll(List.of(rangeArgs(afterTaskId, upToTaskId)));
+        return jdbcTemplate.update(DELETE_ORPHAN_EXECUTIONS.formatted(upperBound("e.task_instance", upToTaskId)), args.toArray());
+    }
+
+    /**
+     * Sets the hold flag of unpicked compact executions in {@code (afterTaskId, upToTaskId]} to the ON_HOLD of their
+     * SCHEDULED_TASK row, where the two differ.
+     *
+     * @return the number of executions repaired
+     */
+    public int repairExecutionsOnHold(String afterTaskId, String upToTaskId) {
+        List<Object> args = new ArrayList<>();
+        args.add(DYNAMIC_RECURRING_TASK_NAME);
+        args.addAll(List.of(rangeArgs(afterTaskId, upToTaskId)));
+        return jdbcTemplate.update(REPAIR_EXECUTIONS_ON_HOLD.formatted(upperBound("t.ID", upToTaskId)), args.toArray());
+    }
+
+    private static String upperBound(String column, String upToTaskId) {
+        return upToTaskId == null ? "" : "AND " + column + " <= ?";
+    }
+
+    private static Object[] rangeArgs(String afterTaskId, String upToTaskId, Object... more) {
+        List<Object> args = new ArrayList<>();
+        args.add(afterTaskId);
+        if (upToTaskId != null) {
+            args.add(upToTaskId);
+        }
+        args.addAll(List.of(more));
+        return args.toArray();
+    }
+
+    /**
+     * Writes every task with its execution to {@code out} as CSV rows in {@link #TASK_EXPORT_HEADER} order, straight
+     * from COPY, without a header line.
+     *
+     * @return the number of rows written
+     */
+    public long exportTasks(OutputStream out) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(EXPORT_TASKS, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Creates the import staging table and starts a COPY into it. Must be called in a transaction, which holds the
+     * connection the COPY runs on until {@link TaskImport#finish} and drops the staging table when it ends.
+     */
+    public TaskImport startImport() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A task import must run in a transaction");
+        }
+        return jdbcTemplate.execute((ConnectionCallback<TaskImport>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_IMPORT_TABLE);
+            }
+            return new TaskImport(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IMPORT));
+        });
+    }
+
+    /**
+     * A COPY of CSV rows in {@link #TASK_EXPORT_HEADER} order into the staging table of one import.
+     */
+    public class TaskImport {
+
+        private final CopyIn copyIn;
+        private final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        private int buffered;
+
+        private TaskImport(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        public void write(byte[] bytes, int offset, int length) {
+            if (buffered + length > buffer.length) {
+                flush();
+            }
+            if (length > buffer.length) {
+                writeToCopy(bytes, offset, length);
+            } else {
+                System.arraycopy(bytes, offset, buffer, buffered, length);
+                buffered += length;
+            }
+        }
+
+        private void flush() {
+            if (buffered > 0) {
+                writeToCopy(buffer, 0, buffered);
+                buffered = 0;
+            }
+        }
+
+        private void writeToCopy(byte[] bytes, int offset, int length) {
+            try {
+                copyIn.writeToCopy(bytes, offset, length);
+            } catch (SQLException e) {
+                throw translate(e);
+            }
+        }
+
+        /**
+         * Ends the COPY and merges the staging table into SCHEDULED_TASK and scheduled_tasks. Existing tasks are
+         * skipped, or with {@code overwrite} updated where they differ, along with their execution unless it is
+         * picked.
+         */
+        public ImportCounts finish(boolean overwrite) {
+            flush();
+            try {
+                copyIn.endCopy();
+            } catch (SQLException e) {
+                throw translate(e);
+            }
+            return jdbcTemplate.queryForObject(overwrite ? MERGE_IMPORT_OVERWRITING : MERGE_IMPORT_SKIPPING,
+                    (rs, rowNum) -> new ImportCounts(rs.getLong("staged"), rs.getLong("inserted"),
+                            rs.getLong("updated"), rs.getLong("executions")),
+                    DYNAMIC_RECURRING_TASK_NAME, DYNAMIC_RECURRING_TASK_NAME);
+        }
+
+        /**
+         * Aborts the COPY if it is still running, so the transaction can roll back on its connection.
+         */
+        public void cancel() {
+            if (copyIn.isActive()) {
+                try {
+                    copyIn.cancelCopy();
+                } catch (SQLException e) {
+                    // the transaction rolls back anyway, the cause is already being thrown
+                }
+            }
+        }
+
+        private DataAccessException translate(SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_IMPORT, e);
+            return translated != null ? translated : new UncategorizedSQLException("COPY", COPY_IMPORT, e);
+        }
+    }
+
+    public record ImportCounts(long staged, long inserted, long updated, long executions) {
+    }
+
+    private static TaskDefinition mapTaskDefinition(ResultSet rs, int rowNum) throws SQLException {
+        String webhookUrl = rs.getString("WEBHOOK_URL");
+        Webhook webhook = webhookUrl == null ? null
+                : new Webhook(webhookUrl, rs.getString("WEBHOOK_METHOD"), Duration.ofMillis(rs.getInt("WEBHOOK_TIMEOUT_MS")));
+        String misfirePolicy = rs.getString("MISFIRE_POLICY");
+        return new TaskDefinition(rs.getString("ID"), rs.getString("CRON"), rs.getBoolean("ON_HOLD"), rs.getInt("JITTER_SECONDS"), webhook,
+                misfirePolicy == null ? null : MisfirePolicy.valueOf(misfirePolicy), deadLetteredAt(rs), rs.getString("DEAD_LETTER_CAUSE"),
+                rs.getString("TASK_GROUP"), rs.getObject("PRIORITY", Integer.class), timeout(rs));
+    }
+
+    private static Duration timeout(ResultSet rs) throws SQLException {
+        Integer timeoutMillis = rs.getObject("TIMEOUT_MS", Integer.class);
+        return timeoutMillis == null ? null : Duration.ofMillis(timeoutMillis);
+    }
+
+    private static Instant deadLetteredAt(ResultSet rs) throws SQLException {
+        OffsetDateTime deadLetteredAt = rs.getObject("DEAD_LETTERED_AT", OffsetDateTime.class);
+        return deadLetteredAt == null ? null : deadLetteredAt.toInstant();
+    }
+
+    private static void setWebhook(PreparedStatement ps, int index, Webhook webhook) throws SQLException {
+        ps.setString(index, webhook == null ? null : webhook.url());
+        ps.setString(index + 1, webhook == null ? null : webhook.method());
+        ps.setObject(index + 2, webhook == null ? null : Math.toIntExact(webhook.timeout().toMillis()), Types.INTEGER);
+    }
+
+    private static void setTimeout(PreparedStatement ps, int index, Duration timeout) throws SQLException {
+        ps.setObject(index, timeout == null ? null : Math.toIntExact(timeout.toMillis()), Types.INTEGER);
+    }
+
+    private static void setMisfirePolicy(PreparedStatement ps, int index, MisfirePolicy misfirePolicy) throws SQLException {
+        ps.setString(index, misfirePolicy == null ? null : misfirePolicy.name());
+    }
+
+    private static String misfirePolicyNames() {
+        return Arrays.stream(MisfirePolicy.values()).map(policy -> "'" + policy.name() + "'").collect(Collectors.joining(", "));
+    }
+
+    public record TaskDefinition(String taskId, String cron, boolean onHold, int jitterSeconds, Webhook webhook, MisfirePolicy misfirePolicy,
+                                 Instant deadLetteredAt, String deadLetterCause, String group, Integer priority, Duration timeout) {
+
+        public TaskDefinition(String taskId, String cron, boolean onHold, int jitterSeconds) {
+            this(taskId, cron, onHold, jitterSeconds, null, null, null, null, null, null, null);
+        }
+    }
+
+    public record StoredExecution(String taskInstance, byte[] taskData, Instant executionTime, int priority) {
+    }
+
+    public record StoredTaskData(String taskInstance, byte[] taskData, long version) {
+    }
+}
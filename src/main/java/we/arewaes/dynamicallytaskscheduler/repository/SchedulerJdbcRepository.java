@@ -0,0 +1,73 @@
+package we.arewaes.dynamicallytaskscheduler.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.DataSourceConfiguration.SCHEDULER_DATA_SOURCE;
+
+/**
+ * Queries about db-scheduler's own table that run alongside polling, on the scheduler's connection pool.
+ */
+@Repository
+public class SchedulerJdbcRepository {
+
+    private static final String COUNT_DUE_EXECUTIONS =
+            "SELECT count(*) FROM scheduled_tasks WHERE picked = false AND execution_time <= now()";
+    private static final String FIND_NEXT_EXECUTION_TIME =
+            "SELECT min(execution_time) FROM scheduled_tasks WHERE picked = false";
+    private static final String FIND_EXECUTION_TIMES_BETWEEN =
+            "SELECT DISTINCT execution_time FROM scheduled_tasks WHERE picked = false AND execution_time > ? AND execution_time <= ? " +
+                    "ORDER BY execution_time LIMIT ?";
+    private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+    // unlike a reschedule through db-scheduler, this leaves consecutive_failures, last_success and last_failure alone
+    private static final String DEFER_EXECUTION =
+            "UPDATE scheduled_tasks SET picked = false, picked_by = null, last_heartbeat = null, execution_time = ?, " +
+                    "version = version + 1 WHERE task_name = ? AND task_instance = ? AND version = ? AND picked = true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchedulerJdbcRepository(@Qualifier(SCHEDULER_DATA_SOURCE) DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public long countDueExecutions() {
+        Long count = jdbcTemplate.queryForObject(COUNT_DUE_EXECUTIONS, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public Optional<Instant> findNextExecutionTime() {
+        OffsetDateTime next = jdbcTemplate.queryForObject(FIND_NEXT_EXECUTION_TIME, OffsetDateTime.class);
+        return Optional.ofNullable(next).map(OffsetDateTime::toInstant);
+    }
+
+    /**
+     * The distinct execution times of unpicked executions in {@code (after, upTo]}, earliest first.
+     */
+    public List<Instant> findExecutionTimesBetween(Instant after, Instant upTo, int limit) {
+        return jdbcTemplate.query(FIND_EXECUTION_TIMES_BETWEEN,
+                (rs, rowNum) -> rs.getObject(1, OffsetDateTime.class).toInstant(),
+                after.atOffset(ZoneOffset.UTC), upTo.atOffset(ZoneOffset.UTC), limit);
+    }
+
+    public void notify(String channel, String payload) {
+        jdbcTemplate.query(NOTIFY, rs -> null, channel, payload);
+    }
+
+    /**
+     * Hands a picked execution back unrun, due again at {@code executionTime}, guarded by the version it was picked
+     * with.
+     *
+     * @return whether the execution was still picked with that version
+     */
+    public boolean deferExecution(String taskName, String taskInstance, long version, Instant executionTime) {
+        return jdbcTemplate.update(DEFER_EXECUTION, executionTime.atOffset(ZoneOffset.UTC), taskName, taskInstance, version) == 1;
+    }
+}
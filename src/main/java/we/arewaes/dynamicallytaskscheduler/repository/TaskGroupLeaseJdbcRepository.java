@@ -0,0 +1,120 @@
+package we.arewaes.dynamicallytaskscheduler.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static we.arewaes.dynamicallytaskscheduler.configuration.DataSourceConfiguration.SCHEDULER_DATA_SOURCE;
+
+/**
+ * TASK_GROUP_LEASE, the concurrency permits each instance holds per capped task group. Only shard 0 has the leases
+ * of the whole cluster.
+ */
+@Repository
+public class TaskGroupLeaseJdbcRepository {
+
+    // the first key of the two-key advisory locks, so they cannot collide with other users of advisory locks
+    static final int LEASE_LOCK_CLASS = 0x7467;
+
+    // locks in the order of the array, which every instance sorts the same way, so two renewals cannot deadlock
+    private static final String LOCK_GROUPS =
+            "SELECT count(pg_advisory_xact_lock(?, hashtext(g.key))) FROM unnest(?::varchar[]) AS g(key)";
+    private static final String DELETE_EXPIRED_LEASES =
+            "DELETE FROM TASK_GROUP_LEASE WHERE GROUP_KEY = ANY (?) AND EXPIRES_AT <= now()";
+    private static final String SELECT_OTHER_LEASES =
+            "SELECT GROUP_KEY, INSTANCE_ID, PERMITS, DEMAND FROM TASK_GROUP_LEASE WHERE GROUP_KEY = ANY (?) AND INSTANCE_ID <> ?";
+    private static final String UPSERT_LEASE =
+            "INSERT INTO TASK_GROUP_LEASE (GROUP_KEY, INSTANCE_ID, PERMITS, DEMAND, EXPIRES_AT) " +
+                    "VALUES (?, ?, ?, ?, now() + make_interval(secs => ?)) ON CONFLICT (GROUP_KEY, INSTANCE_ID) " +
+                    "DO UPDATE SET PERMITS = EXCLUDED.PERMITS, DEMAND = EXCLUDED.DEMAND, EXPIRES_AT = EXCLUDED.EXPIRES_AT";
+    private static final String DELETE_LEASES =
+            "DELETE FROM TASK_GROUP_LEASE WHERE GROUP_KEY = ANY (?) AND INSTANCE_ID = ?";
+    private static final String DELETE_INSTANCE_LEASES =
+            "DELETE FROM TASK_GROUP_LEASE WHERE INSTANCE_ID = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskGroupLeaseJdbcRepository(@Qualifier(SCHEDULER_DATA_SOURCE) DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Renews the leases of this instance on the given groups in one transaction, holding a lock per group so that no
+     * two instances grant permits of the same group at once. A group whose grant is zero while it has no demand
+     * releases its lease.
+     *
+     * @param demands the executions this instance runs or had to defer, per group
+     * @return the permits now held per group
+     */
+    public Map<String, Integer> renew(String instanceId, Map<String, Integer> demands, Duration ttl, LeaseGrant grant) {
+        if (demands.isEmpty()) {
+            return Map.of();
+        }
+        String[] groups = new TreeMap<>(demands).keySet().toArray(String[]::new);
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject(LOCK_GROUPS, Long.class, LEASE_LOCK_CLASS, groups);
+            jdbcTemplate.update(DELETE_EXPIRED_LEASES, (Object) groups);
+            Map<String, List<Lease>> others = new HashMap<>();
+            jdbcTemplate.query(SELECT_OTHER_LEASES, rs -> {
+                others.computeIfAbsent(rs.getString("GROUP_KEY"), group -> new ArrayList<>())
+                        .add(new Lease(rs.getString("INSTANCE_ID"), rs.getInt("PERMITS"), rs.getInt("DEMAND")));
+            }, groups, instanceId);
+
+            Map<String, Integer> held = new HashMap<>();
+            List<String> released = new ArrayList<>();
+            for (String group : groups) {
+                int demand = demands.get(group);
+                int permits = grant.permits(group, demand, others.getOrDefault(group, List.of()));
+                if (permits == 0 && demand == 0) {
+                    released.add(group);
+                } else {
+                    held.put(group, permits);
+                }
+            }
+            List<Map.Entry<String, Integer>> leases = new ArrayList<>(held.entrySet());
+            jdbcTemplate.batchUpdate(UPSERT_LEASE, leases, leases.size(), (ps, lease) -> {
+                ps.setString(1, lease.getKey());
+                ps.setString(2, instanceId);
+                ps.setInt(3, lease.getValue());
+                ps.setInt(4, demands.get(lease.getKey()));
+                ps.setDouble(5, ttl.toMillis() / 1000d);
+            });
+            if (!released.isEmpty()) {
+                jdbcTemplate.update(DELETE_LEASES, released.toArray(String[]::new), instanceId);
+            }
+            return held;
+        });
+    }
+
+    /**
+     * Drops every lease of this instance, so the others can take its permits without waiting for them to expire.
+     */
+    public void releaseAll(String instanceId) {
+        jdbcTemplate.update(DELETE_INSTANCE_LEASES, instanceId);
+    }
+
+    @FunctionalInterface
+    public interface LeaseGrant {
+
+        /**
+         * @param others the live leases other instances hold on the group
+         * @return the permits this instance holds on the group from now on
+         */
+        int permits(String group, int demand, List<Lease> others);
+    }
+
+    public record Lease(String instanceId, int permits, int demand) {
+    }
+}
@@ -0,0 +1,44 @@
+package we.arewaes.dynamicallytaskscheduler.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardDatabases;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardDatabases.ShardDatabase;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * The execution interceptor's ON_HOLD lookups, on their own connection pool so API traffic cannot delay executions.
+ * Each lookup goes to the on-hold-lookup pool of the task's shard.
+ */
+@Repository
+public class TaskOnHoldJdbcRepository {
+
+    private static final String IS_ON_HOLD =
+            "SELECT EXISTS (SELECT 1 FROM SCHEDULED_TASK WHERE ID = ? AND ON_HOLD)";
+
+    private final List<JdbcTemplate> jdbcTemplates;
+    private final ShardRouter shardRouter;
+
+    @Autowired
+    public TaskOnHoldJdbcRepository(ShardDatabases shardDatabases, ShardRouter shardRouter) {
+        this(shardDatabases.all().stream().map(ShardDatabase::onHoldLookupDataSource).toList(), shardRouter);
+    }
+
+    public TaskOnHoldJdbcRepository(DataSource dataSource) {
+        this(List.of(dataSource), new ShardRouter(1, 1));
+    }
+
+    private TaskOnHoldJdbcRepository(List<DataSource> dataSources, ShardRouter shardRouter) {
+        this.jdbcTemplates = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.shardRouter = shardRouter;
+    }
+
+    public boolean isOnHold(String taskId) {
+        JdbcTemplate jdbcTemplate = jdbcTemplates.get(shardRouter.shardFor(taskId));
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_ON_HOLD, Boolean.class, taskId));
+    }
+}
@@ -0,0 +1,150 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkOperationResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds, resumes, cancels or requeues every task matching a {@link TaskSelector}. Matching ids are walked in keyset order one
+ * chunk at a time, and each chunk is a few set-based statements over SCHEDULED_TASK and scheduled_tasks in its own
+ * transaction, so row locks are only held for one chunk. Every shard walks its own tasks in parallel and the results
+ * are added up.
+ */
+@Service
+@Slf4j
+public class BulkTaskOperationService {
+
+    private final TaskShards taskShards;
+    private final TaskOnHoldCache taskOnHoldCache;
+    private final CronScheduleCache cronScheduleCache;
+    private final SchedulerWakeups schedulerWakeups;
+    private final int chunkSize;
+
+    public BulkTaskOperationService(TaskShards taskShards,
+                                    TaskOnHoldCache taskOnHoldCache,
+                                    CronScheduleCache cronScheduleCache,
+                                    SchedulerWakeups schedulerWakeups,
+                                    @Value("${task.bulk.chunk-size}") int chunkSize) {
+        this.taskShards = taskShards;
+        this.taskOnHoldCache = taskOnHoldCache;
+        this.cronScheduleCache = cronScheduleCache;
+        this.schedulerWakeups = schedulerWakeups;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkOperationResult setTasksOnHold(TaskSelector selector, boolean onHold) {
+        return forEachChunk(selector, (shard, taskIds, result) -> {
+            ScheduledTaskJdbcRepository scheduledTaskJdbcRepository = shard.scheduledTaskJdbcRepository();
+            shard.transaction().executeWithoutResult(status -> {
+                result.setTasksAffected(result.getTasksAffected() + scheduledTaskJdbcRepository.updateOnHold(taskIds, onHold));
+                result.setExecutionsAffected(result.getExecutionsAffected() + scheduledTaskJdbcRepository.updateExecutionsOnHold(taskIds, onHold));
+            });
+            taskIds.forEach(taskOnHoldCache::invalidate);
+        }, "hold=" + onHold);
+    }
+
+    /**
+     * Executions that are running right now are left alone, together with their SCHEDULED_TASK row, and reported as
+     * skipped so the caller can retry them.
+     */
+    public BulkOperationResult cancelTasks(TaskSelector selector) {
+        return forEachChunk(selector, (shard, taskIds, result) -> {
+            ScheduledTaskJdbcRepository scheduledTaskJdbcRepository = shard.scheduledTaskJdbcRepository();
+            shard.transaction().executeWithoutResult(status -> {
+                result.setExecutionsAffected(result.getExecutionsAffected() + scheduledTaskJdbcRepository.deleteExecutions(taskIds));
+                int deleted = scheduledTaskJdbcRepository.deleteScheduledTasksWithoutExecution(taskIds);
+                result.setTasksAffected(result.getTasksAffected() + deleted);
+                result.setSkipped(result.getSkipped() + taskIds.size() - deleted);
+            });
+            taskIds.forEach(taskOnHoldCache::invalidate);
+        }, "cancel");
+    }
+
+    /**
+     * Clears the dead-letter state of the matching dead-lettered tasks and schedules each at its next fire time, with
+     * its failure count starting over. Live tasks matching the selector are left alone.
+     */
+    public BulkOperationResult requeueTasks(TaskSelector selector) {
+        if (selector != null && selector.hasCriteria()) {
+            selector.setDeadLettered(true);
+        }
+        return forEachChunk(selector, (shard, taskIds, result) -> {
+            ScheduledTaskJdbcRepository scheduledTaskJdbcRepository = shard.scheduledTaskJdbcRepository();
+            Instant earliest = shard.transaction().execute(status -> {
+                Map<String, ScheduleAndNoData> executions = new LinkedHashMap<>();
+                for (TaskDefinition task : scheduledTaskJdbcRepository.requeueDeadLettered(taskIds)) {
+                    try {
+                        executions.put(task.taskId(), new ScheduleAndNoData(cronScheduleCache.get(task.cron()), task.onHold(),
+                                Duration.ofSeconds(task.jitterSeconds()), task.webhook(), task.misfirePolicy(),
+                                task.group(), task.priority(), task.timeout()));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Task {} has an invalid cron '{}', not scheduling it", task.taskId(), task.cron());
+                    }
+                }
+                result.setTasksAffected(result.getTasksAffected() + executions.size());
+                result.setExecutionsAffected(result.getExecutionsAffected() + executions.size());
+                return scheduledTaskJdbcRepository.insertExecutions(executions, Instant.now());
+            });
+            if (earliest != null) {
+                schedulerWakeups.dueAt(shard, earliest);
+            }
+        }, "requeue");
+    }
+
+    private BulkOperationResult forEachChunk(TaskSelector selector, ChunkOperation operation, String description) {
+        if (selector == null || !selector.hasCriteria()) {
+            throw new IllegalArgumentException("At least one selector criterion is required");
+        }
+        long start = System.nanoTime();
+        BulkOperationResult result = new BulkOperationResult();
+        for (BulkOperationResult shardResult : taskShards.fanOut(shard -> forEachChunk(shard, selector, operation))) {
+            result.setMatched(result.getMatched() + shardResult.getMatched());
+            result.setTasksAffected(result.getTasksAffected() + shardResult.getTasksAffected());
+            result.setExecutionsAffected(result.getExecutionsAffected() + shardResult.getExecutionsAffected());
+            result.setSkipped(result.getSkipped() + shardResult.getSkipped());
+        }
+
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Bulk {} matched {} tasks, changed {} tasks and {} executions, skipped {} in {} ms", description,
+                result.getMatched(), result.getTasksAffected(), result.getExecutionsAffected(), result.getSkipped(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    private BulkOperationResult forEachChunk(TaskShard shard, TaskSelector selector, ChunkOperation operation) {
+        BulkOperationResult result = new BulkOperationResult();
+        String lastTaskId = "";
+        List<String> taskIds;
+        do {
+            taskIds = shard.scheduledTaskJdbcRepository().findTaskIds(selector, lastTaskId, chunkSize);
+            if (taskIds.isEmpty()) {
+                break;
+            }
+            lastTaskId = taskIds.get(taskIds.size() - 1);
+            result.setMatched(result.getMatched() + taskIds.size());
+            operation.apply(shard, taskIds, result);
+        } while (taskIds.size() == chunkSize);
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface ChunkOperation {
+        void apply(TaskShard shard, List<String> taskIds, BulkOperationResult result);
+    }
+}
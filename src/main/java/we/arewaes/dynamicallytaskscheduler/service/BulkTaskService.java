@@ -0,0 +1,227 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.ScheduleJitter;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerGroups;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.configuration.WebhookDefaults;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkTaskFailure;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkTaskResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules tasks read from an NDJSON stream. The stream is consumed one chunk at a time, and each chunk is written
+ * to both SCHEDULED_TASK and scheduled_tasks as JDBC batches in a single transaction, so the request body is never
+ * held in memory and the client is only read as fast as the database accepts the rows. With several shards a chunk
+ * is split by shard and every shard writes its part in parallel, in its own transaction.
+ */
+@Service
+@Slf4j
+public class BulkTaskService {
+
+    private static final int MAX_TASK_ID_LENGTH = 36;
+    private static final int MAX_CRON_LENGTH = 80;
+
+    private final TaskShards taskShards;
+    private final CronScheduleCache cronScheduleCache;
+    private final ScheduleJitter scheduleJitter;
+    private final WebhookDefaults webhookDefaults;
+    private final SchedulerWakeups schedulerWakeups;
+    private final ObjectReader taskRequestReader;
+    private final int chunkSize;
+    private final int maxReportedFailures;
+
+    public BulkTaskService(TaskShards taskShards,
+                           CronScheduleCache cronScheduleCache,
+                           ScheduleJitter scheduleJitter,
+                           WebhookDefaults webhookDefaults,
+                           SchedulerWakeups schedulerWakeups,
+                           ObjectMapper objectMapper,
+                           @Value("${task.bulk.chunk-size}") int chunkSize,
+                           @Value("${task.bulk.max-reported-failures}") int maxReportedFailures) {
+        this.taskShards = taskShards;
+        this.cronScheduleCache = cronScheduleCache;
+        this.scheduleJitter = scheduleJitter;
+        this.webhookDefaults = webhookDefaults;
+        this.schedulerWakeups = schedulerWakeups;
+        this.taskRequestReader = objectMapper.readerFor(TaskRequest.class);
+        this.chunkSize = chunkSize;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    public BulkTaskResult scheduleTasks(InputStream ndjson) throws IOException {
+        long start = System.nanoTime();
+        BulkTaskResult result = new BulkTaskResult();
+        List<PendingTask> chunk = new ArrayList<>(chunkSize);
+        Set<String> chunkTaskIds = new HashSet<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            result.setReceived(result.getReceived() + 1);
+            PendingTask pendingTask = parse(lineNumber, line, result);
+            if (pendingTask == null) {
+                continue;
+            }
+            if (!chunkTaskIds.add(pendingTask.request().getTaskId())) {
+                addFailure(result, lineNumber, pendingTask.request().getTaskId(), "Duplicate taskId in request");
+                continue;
+            }
+            chunk.add(pendingTask);
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, result);
+                chunk.clear();
+                chunkTaskIds.clear();
+            }
+        }
+        flush(chunk, result);
+
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setTasksPerSecond(elapsedNanos == 0 ? 0 : result.getCreated() * 1_000_000_000d / elapsedNanos);
+        log.info("Bulk scheduled {} of {} tasks in {} ms ({} tasks/s)", result.getCreated(), result.getReceived(),
+                result.getElapsedMillis(), Math.round(result.getTasksPerSecond()));
+        return result;
+    }
+
+    private PendingTask parse(long lineNumber, String line, BulkTaskResult result) {
+        TaskRequest taskRequest;
+        try {
+            taskRequest = taskRequestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            addFailure(result, lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            return null;
+        }
+
+        String error = validate(taskRequest);
+        if (error != null) {
+            addFailure(result, lineNumber, taskRequest.getTaskId(), error);
+            return null;
+        }
+
+        Webhook webhook;
+        try {
+            webhook = webhookDefaults.apply(taskRequest.getWebhook());
+        } catch (IllegalArgumentException e) {
+            addFailure(result, lineNumber, taskRequest.getTaskId(), "Invalid webhook: " + e.getMessage());
+            return null;
+        }
+
+        try {
+            Duration jitter = taskRequest.isSpread() ? scheduleJitter.offset(taskRequest.getTaskId()) : Duration.ZERO;
+            return new PendingTask(lineNumber, taskRequest,
+                    new ScheduleAndNoData(cronScheduleCache.get(taskRequest.getCron()), false, jitter, webhook,
+                            taskRequest.getMisfirePolicy(), taskRequest.getGroup(), taskRequest.getPriority(),
+                            taskRequest.getTimeout()));
+        } catch (IllegalArgumentException e) {
+            addFailure(result, lineNumber, taskRequest.getTaskId(), "Invalid cron: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String validate(TaskRequest taskRequest) {
+        if (taskRequest.getTaskId() == null || taskRequest.getTaskId().isBlank()) {
+            return "taskId is required";
+        }
+        if (taskRequest.getTaskId().length() > MAX_TASK_ID_LENGTH) {
+            return "taskId must be at most " + MAX_TASK_ID_LENGTH + " characters";
+        }
+        if (taskRequest.getCron() == null || taskRequest.getCron().isBlank()) {
+            return "cron is required";
+        }
+        if (taskRequest.getCron().length() > MAX_CRON_LENGTH) {
+            return "cron must be at most " + MAX_CRON_LENGTH + " characters";
+        }
+        String groupError = SchedulerGroups.validate(taskRequest.getGroup(), taskRequest.getPriority());
+        return groupError != null ? groupError : SchedulerCancellations.validate(taskRequest.getTimeout());
+    }
+
+    private void flush(List<PendingTask> chunk, BulkTaskResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<TaskShard, List<PendingTask>> partitions = taskShards.partition(chunk, pendingTask -> pendingTask.request().getTaskId());
+        for (ShardChunk shardChunk : taskShards.fanOut(partitions.keySet(), shard -> insertChunk(shard, partitions.get(shard)))) {
+            if (shardChunk.failure() != null) {
+                log.warn("Bulk chunk of {} tasks was rolled back", shardChunk.tasks().size(), shardChunk.failure());
+                String reason = "Chunk rolled back: " + shardChunk.failure().getMostSpecificCause().getMessage();
+                for (PendingTask pendingTask : shardChunk.tasks()) {
+                    addFailure(result, pendingTask.line(), pendingTask.request().getTaskId(), reason);
+                }
+                continue;
+            }
+            for (PendingTask pendingTask : shardChunk.tasks()) {
+                if (shardChunk.inserted().contains(pendingTask.request().getTaskId())) {
+                    result.setCreated(result.getCreated() + 1);
+                } else {
+                    addFailure(result, pendingTask.line(), pendingTask.request().getTaskId(), "Task already exists");
+                }
+            }
+        }
+    }
+
+    private ShardChunk insertChunk(TaskShard shard, List<PendingTask> chunk) {
+        Map<String, ScheduleAndNoData> tasks = new LinkedHashMap<>();
+        for (PendingTask pendingTask : chunk) {
+            tasks.put(pendingTask.request().getTaskId(), pendingTask.data());
+        }
+        Instant[] earliest = new Instant[1];
+        try {
+            Set<String> inserted = shard.transaction().execute(status -> {
+                Set<String> insertedIds = new HashSet<>(shard.scheduledTaskJdbcRepository().insertScheduledTasks(tasks));
+                tasks.keySet().retainAll(insertedIds);
+                earliest[0] = shard.scheduledTaskJdbcRepository().insertExecutions(tasks, Instant.now());
+                return insertedIds;
+            });
+            schedulerWakeups.dueAt(shard, earliest[0]);
+            return new ShardChunk(chunk, inserted == null ? Set.of() : inserted, null);
+        } catch (DataAccessException e) {
+            return new ShardChunk(chunk, Set.of(), e);
+        }
+    }
+
+    private void addFailure(BulkTaskResult result, long line, String taskId, String reason) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures().size() < maxReportedFailures) {
+            result.getFailures().add(new BulkTaskFailure(line, taskId, reason));
+        }
+    }
+
+    private record PendingTask(long line, TaskRequest request, ScheduleAndNoData data) {
+    }
+
+    private record ShardChunk(List<PendingTask> tasks, Set<String> inserted, DataAccessException failure) {
+    }
+}
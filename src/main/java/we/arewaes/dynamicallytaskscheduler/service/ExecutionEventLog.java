@@ -0,0 +1,184 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEvent;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Execution events published by executor threads into a bounded {@link ExecutionEventRing} and written in batches by
+ * a single drainer thread, so executions never format text or wait on an output stream. When the ring is full the
+ * {@code drop} policy discards the event and counts it, while {@code block} parks the publisher until the drainer
+ * frees a slot.
+ */
+@Component
+@Slf4j
+public class ExecutionEventLog implements SmartLifecycle {
+
+    public static final String DROP = "drop";
+    public static final String BLOCK = "block";
+    static final String DROPPED_METRIC = "scheduler.execution.events.dropped";
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ExecutionEventRing ring;
+    private final ExecutionEventSink sink;
+    private final boolean block;
+    private final int batchSize;
+    private final long idleParkNanos;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread drainerThread;
+
+    @Autowired
+    public ExecutionEventLog(MeterRegistry meterRegistry,
+                             ObjectMapper objectMapper,
+                             @Value("${instance.id}") String instanceId,
+                             @Value("${scheduler.execution.events.sink}") String sink,
+                             @Value("${scheduler.execution.events.file}") Path file,
+                             @Value("${scheduler.execution.events.capacity}") int capacity,
+                             @Value("${scheduler.execution.events.overflow}") String overflow,
+                             @Value("${scheduler.execution.events.batch-size}") int batchSize,
+                             @Value("${scheduler.execution.events.drain-interval}") Duration drainInterval) {
+        this(createSink(sink, instanceId, file, objectMapper), meterRegistry, capacity, overflow, batchSize, drainInterval);
+    }
+
+    public ExecutionEventLog(ExecutionEventSink sink, MeterRegistry meterRegistry, int capacity, String overflow,
+                             int batchSize, Duration drainInterval) {
+        this.ring = new ExecutionEventRing(capacity);
+        this.sink = sink;
+        this.block = switch (overflow.toLowerCase(Locale.ROOT)) {
+            case DROP -> false;
+            case BLOCK -> true;
+            default -> throw new IllegalArgumentException("Unknown scheduler.execution.events.overflow " + overflow);
+        };
+        this.batchSize = batchSize;
+        this.idleParkNanos = drainInterval.toNanos();
+        this.dropped = Counter.builder(DROPPED_METRIC)
+                .description("Execution events discarded because the ring was full")
+                .register(meterRegistry);
+        this.written = Counter.builder("scheduler.execution.events.written")
+                .description("Execution events written by the sink")
+                .register(meterRegistry);
+        this.failed = Counter.builder("scheduler.execution.events.failed")
+                .description("Execution events lost to a failing sink")
+                .register(meterRegistry);
+        Gauge.builder("scheduler.execution.events.pending", ring, ExecutionEventRing::size)
+                .description("Execution events waiting for the drainer")
+                .register(meterRegistry);
+    }
+
+    private static ExecutionEventSink createSink(String sink, String instanceId, Path file, ObjectMapper objectMapper) {
+        return switch (sink.toLowerCase(Locale.ROOT)) {
+            case "stdout" -> new ExecutionEventSink.StdoutSink(instanceId);
+            case "slf4j" -> new ExecutionEventSink.LoggerSink(instanceId);
+            case "json" -> {
+                try {
+                    yield new ExecutionEventSink.JsonLinesSink(instanceId, file, objectMapper.getFactory());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open execution event file " + file, e);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown scheduler.execution.events.sink " + sink);
+        };
+    }
+
+    public void publish(ExecutionEventType type, String taskId) {
+        long timestampMillis = System.currentTimeMillis();
+        while (!ring.offer(timestampMillis, type, taskId)) {
+            if (!block || !running || Thread.currentThread().isInterrupted()) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainerThread = new Thread(this::drain, "execution-event-drainer");
+        drainerThread.setDaemon(true);
+        drainerThread.start();
+    }
+
+    /**
+     * Writes whatever is still in the ring before returning, so events of executions that finished before shutdown
+     * are not lost.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (drainerThread != null) {
+            LockSupport.unpark(drainerThread);
+            try {
+                drainerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sink.close();
+        } catch (IOException e) {
+            log.warn("Failed to close execution event sink", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before and stopped after everything else, as the scheduler publishes until it has shut down.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    private void drain() {
+        List<ExecutionEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (ring.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(idleParkNanos);
+            } else {
+                write(batch);
+            }
+        }
+        while (ring.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    private void write(List<ExecutionEvent> batch) {
+        try {
+            sink.write(batch);
+            written.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Failed to write {} execution events", batch.size(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
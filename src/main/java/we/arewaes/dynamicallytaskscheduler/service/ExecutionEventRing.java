@@ -0,0 +1,95 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEvent;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of execution events. Producers claim a slot with a CAS on the tail and
+ * publish it by advancing the slot's sequence, so offering never locks and never allocates; the event record is only
+ * built when the consumer drains the slot.
+ */
+final class ExecutionEventRing {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final ExecutionEventType[] types;
+    private final String[] taskIds;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    ExecutionEventRing(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Ring capacity must be at least 2 but was " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.timestamps = new long[capacity];
+        this.types = new ExecutionEventType[capacity];
+        this.taskIds = new String[capacity];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns {@code false} without waiting when every slot holds an event the consumer has not drained yet.
+     */
+    boolean offer(long timestampMillis, ExecutionEventType type, String taskId) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long lag = sequences.getAcquire(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    timestamps[index] = timestampMillis;
+                    types[index] = type;
+                    taskIds[index] = taskId;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} published events into {@code batch}. Only one thread may drain.
+     */
+    int drainTo(List<ExecutionEvent> batch, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index) != position + 1) {
+                break;
+            }
+            batch.add(new ExecutionEvent(timestamps[index], types[index], taskIds[index]));
+            types[index] = null;
+            taskIds[index] = null;
+            sequences.setRelease(index, position + capacity);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
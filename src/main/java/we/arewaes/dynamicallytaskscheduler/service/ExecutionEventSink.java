@@ -0,0 +1,126 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEvent;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Where the {@link ExecutionEventLog} drainer writes batches of events. Sinks are only ever called from the drainer
+ * thread.
+ */
+public interface ExecutionEventSink extends Closeable {
+
+    void write(List<ExecutionEvent> events) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * The {@code INSTANCE ID: <id> -> Task <id> started at <local time>} lines the service has always printed, one
+     * print and flush per batch.
+     */
+    final class StdoutSink implements ExecutionEventSink {
+
+        private final String instanceId;
+        private final ZoneId zone = ZoneId.systemDefault();
+        private final StringBuilder lines = new StringBuilder();
+
+        public StdoutSink(String instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        @Override
+        public void write(List<ExecutionEvent> events) {
+            lines.setLength(0);
+            for (ExecutionEvent event : events) {
+                lines.append("INSTANCE ID: ").append(instanceId)
+                        .append(" -> Task ").append(event.taskId())
+                        .append(' ').append(event.type().getLabel())
+                        .append(" at ").append(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestampMillis()), zone))
+                        .append(" \n");
+            }
+            PrintStream out = System.out;
+            out.print(lines);
+            out.flush();
+        }
+    }
+
+    /**
+     * One JSON object per line, appended to {@code file}.
+     */
+    final class JsonLinesSink implements ExecutionEventSink {
+
+        private final String instanceId;
+        private final JsonGenerator generator;
+
+        public JsonLinesSink(String instanceId, Path file, JsonFactory jsonFactory) throws IOException {
+            this.instanceId = instanceId;
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            this.generator = jsonFactory.createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(List<ExecutionEvent> events) throws IOException {
+            for (ExecutionEvent event : events) {
+                generator.writeStartObject();
+                generator.writeStringField("timestamp", Instant.ofEpochMilli(event.timestampMillis()).toString());
+                generator.writeStringField("instance", instanceId);
+                generator.writeStringField("task", event.taskId());
+                generator.writeStringField("event", event.type().name());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * Each event as an INFO line of this class' logger, for deployments that ship logs rather than stdout.
+     */
+    @Slf4j
+    final class LoggerSink implements ExecutionEventSink {
+
+        private final String instanceId;
+
+        public LoggerSink(String instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        @Override
+        public void write(List<ExecutionEvent> events) {
+            if (!log.isInfoEnabled()) {
+                return;
+            }
+            for (ExecutionEvent event : events) {
+                log.info("INSTANCE ID: {} -> Task {} {} at {}", instanceId, event.taskId(), event.type().getLabel(),
+                        Instant.ofEpochMilli(event.timestampMillis()));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.RebalanceResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.StoredExecution;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves tasks stored on a shard other than the one they route to, which is the case for some tasks of every shard
+ * after a database is appended to {@code task.sharding.urls}. The ids of each shard are walked in keyset order one
+ * chunk at a time, and the misplaced tasks of a chunk are deleted from their shard and inserted into their target in a
+ * transaction nested in the source's, so the target commits first. If the source then fails to commit, the task is
+ * left on both shards and the next rebalance removes the copy on the source. Tasks that are executing right now stay
+ * where they are and are reported as skipped. Shards are rebalanced one after the other, so a rebalance never takes
+ * every fan-out thread away from API requests.
+ */
+@Service
+@Slf4j
+public class ShardRebalancer {
+
+    private static final TaskSelector ALL_TASKS = new TaskSelector();
+
+    private final TaskShards taskShards;
+    private final int chunkSize;
+
+    public ShardRebalancer(TaskShards taskShards, @Value("${task.sharding.rebalance.chunk-size}") int chunkSize) {
+        this.taskShards = taskShards;
+        this.chunkSize = chunkSize;
+    }
+
+    public RebalanceResult rebalance() {
+        long start = System.nanoTime();
+        RebalanceResult result = new RebalanceResult();
+        if (taskShards.size() > 1) {
+            for (TaskShard shard : taskShards.all()) {
+                rebalance(shard, result);
+            }
+        }
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Rebalanced {} shards: scanned {} tasks, moved {} of {} misplaced, skipped {} in {} ms", taskShards.size(),
+                result.getScanned(), result.getMoved(), result.getMisplaced(), result.getSkipped(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void rebalance(TaskShard source, RebalanceResult result) {
+        String lastTaskId = "";
+        List<String> taskIds;
+        do {
+            taskIds = source.scheduledTaskJdbcRepository().findTaskIds(ALL_TASKS, lastTaskId, chunkSize);
+            if (taskIds.isEmpty()) {
+                break;
+            }
+            lastTaskId = taskIds.get(taskIds.size() - 1);
+            result.setScanned(result.getScanned() + taskIds.size());
+            Map<TaskShard, List<String>> targets = taskShards.partition(taskIds, taskId -> taskId);
+            targets.remove(source);
+            for (Map.Entry<TaskShard, List<String>> target : targets.entrySet()) {
+                int moved = move(source, target.getKey(), target.getValue());
+                result.setMisplaced(result.getMisplaced() + target.getValue().size());
+                result.setMoved(result.getMoved() + moved);
+                result.setSkipped(result.getSkipped() + target.getValue().size() - moved);
+            }
+        } while (taskIds.size() == chunkSize);
+    }
+
+    private int move(TaskShard source, TaskShard target, List<String> taskIds) {
+        Integer moved = source.transaction().execute(status -> {
+            List<StoredExecution> executions = source.scheduledTaskJdbcRepository().removeExecutions(taskIds);
+            List<TaskDefinition> tasks = source.scheduledTaskJdbcRepository().removeScheduledTasksWithoutExecution(taskIds);
+            target.transaction().executeWithoutResult(targetStatus ->
+                    target.scheduledTaskJdbcRepository().insertMovedTasks(tasks, executions));
+            return tasks.size();
+        });
+        if (moved != null && moved > 0) {
+            log.info("Moved {} tasks from {} to {}", moved, source.name(), target.name());
+        }
+        return moved == null ? 0 : moved;
+    }
+}
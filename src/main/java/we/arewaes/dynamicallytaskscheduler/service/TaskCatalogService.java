@@ -0,0 +1,199 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskImportResult;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.ImportCounts;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskImport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TASK_EXPORT_HEADER;
+
+/**
+ * Exports and imports the task catalogue, every SCHEDULED_TASK row with its execution, as CSV through the COPY
+ * protocol, so neither side materializes the rows. An export writes a header line and then the COPY output of each
+ * shard in turn. An import checks the header and streams the rest of the body into a staging table on every shard,
+ * routing each row by its task id when there are several, then merges the staging tables once the body ends. All
+ * shards stay in one transaction each until every merge is done, so a bad row rolls the whole import back.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TaskCatalogService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_LENGTH = 1024;
+
+    private final TaskShards taskShards;
+
+    public void exportTasks(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        out.write((TASK_EXPORT_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        long rows = 0;
+        try {
+            for (TaskShard shard : taskShards.all()) {
+                rows += shard.scheduledTaskJdbcRepository().exportTasks(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Exported {} tasks in {} ms", rows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Imports an export of {@link #exportTasks}. Tasks that already exist are skipped, or with {@code overwrite}
+     * replaced by the imported definition and execution.
+     *
+     * @throws IllegalArgumentException if the body does not start with the export header
+     */
+    public TaskImportResult importTasks(InputStream csv, boolean overwrite) throws IOException {
+        long start = System.nanoTime();
+        String header = readHeader(csv);
+        if (!TASK_EXPORT_HEADER.equals(header)) {
+            throw new IllegalArgumentException("Expected the header " + TASK_EXPORT_HEADER + " but got " + header);
+        }
+        TaskImportResult result = new TaskImportResult();
+        try {
+            importInShardTransactions(0, new ArrayList<>(), csv, overwrite, result);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        result.setSkipped(result.getStaged() - result.getInserted() - result.getUpdated());
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Imported {} tasks: inserted {}, updated {}, skipped {}, {} executions written in {} ms", result.getStaged(),
+                result.getInserted(), result.getUpdated(), result.getSkipped(), result.getExecutionsWritten(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void importInShardTransactions(int shardIndex, List<TaskImport> imports, InputStream csv, boolean overwrite,
+                                           TaskImportResult result) {
+        if (shardIndex == taskShards.size()) {
+            importRows(imports, csv, overwrite, result);
+            return;
+        }
+        TaskShard shard = taskShards.all().get(shardIndex);
+        shard.transaction().executeWithoutResult(status -> {
+            imports.add(shard.scheduledTaskJdbcRepository().startImport());
+            importInShardTransactions(shardIndex + 1, imports, csv, overwrite, result);
+        });
+    }
+
+    private void importRows(List<TaskImport> imports, InputStream csv, boolean overwrite, TaskImportResult result) {
+        try {
+            if (imports.size() == 1) {
+                copy(csv, imports.get(0));
+            } else {
+                route(csv, imports);
+            }
+            for (TaskImport taskImport : imports) {
+                ImportCounts counts = taskImport.finish(overwrite);
+                result.setStaged(result.getStaged() + counts.staged());
+                result.setInserted(result.getInserted() + counts.inserted());
+                result.setUpdated(result.getUpdated() + counts.updated());
+                result.setExecutionsWritten(result.getExecutionsWritten() + counts.executions());
+            }
+        } catch (IOException e) {
+            imports.forEach(TaskImport::cancel);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            log.warn("Task import rolled back: {}", e.getMessage());
+            imports.forEach(TaskImport::cancel);
+            throw e;
+        }
+    }
+
+    private static void copy(InputStream csv, TaskImport taskImport) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = csv.read(buffer)) != -1) {
+            taskImport.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Splits the body into CSV rows, which only end at a newline outside quotes, and hands each row to the import of
+     * the shard its task id routes to.
+     */
+    private void route(InputStream csv, List<TaskImport> imports) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] row = new byte[256];
+        int rowLength = 0;
+        boolean quoted = false;
+        int read;
+        while ((read = csv.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (rowLength == row.length) {
+                    row = Arrays.copyOf(row, row.length * 2);
+                }
+                row[rowLength++] = b;
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    routeRow(row, rowLength, imports);
+                    rowLength = 0;
+                }
+            }
+        }
+        if (rowLength > 0) {
+            routeRow(row, rowLength, imports);
+        }
+    }
+
+    private void routeRow(byte[] row, int length, List<TaskImport> imports) {
+        if (row[0] == '\n' || row[0] == '\r') {
+            return;
+        }
+        imports.get(taskShards.forTask(taskIdOf(row, length)).index()).write(row, 0, length);
+    }
+
+    static String taskIdOf(byte[] row, int length) {
+        if (row[0] != '"') {
+            int end = 0;
+            while (end < length && row[end] != ',' && row[end] != '\n' && row[end] != '\r') {
+                end++;
+            }
+            return new String(row, 0, end, StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream taskId = new ByteArrayOutputStream();
+        for (int i = 1; i < length; i++) {
+            if (row[i] == '"') {
+                if (i + 1 < length && row[i + 1] == '"') {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            taskId.write(row[i]);
+        }
+        return taskId.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String readHeader(InputStream csv) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int b;
+        while ((b = csv.read()) != -1 && b != '\n') {
+            if (header.size() == MAX_HEADER_LENGTH) {
+                return null;
+            }
+            header.write(b);
+        }
+        if (b == -1 && header.size() == 0) {
+            return null;
+        }
+        return header.toString(StandardCharsets.UTF_8).stripTrailing();
+    }
+}
@@ -0,0 +1,120 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.StoredTaskData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites task_data rows that are still Java serialized into the compact format, in small keyset-paginated
+ * batches, one shard after the other. Every update is version checked and skips picked rows, so it is safe to run on
+ * all instances at once. Executions written before executions got a priority are then given the default one the same
+ * way, instead of in one statement over the whole table during the migration that added it.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "task.data-migration.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskDataMigrationService {
+
+    private final TaskShards taskShards;
+    private final Serializer taskDataSerializer;
+    private final int batchSize;
+    private final Duration pauseBetweenBatches;
+
+    public TaskDataMigrationService(TaskShards taskShards,
+                                    Serializer taskDataSerializer,
+                                    @Value("${task.data-migration.batch-size}") int batchSize,
+                                    @Value("${task.data-migration.pause-between-batches}") Duration pauseBetweenBatches) {
+        this.taskShards = taskShards;
+        this.taskDataSerializer = taskDataSerializer;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatches = pauseBetweenBatches;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        Thread thread = new Thread(this::migrate, "task-data-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public long migrate() {
+        long migrated = 0;
+        for (TaskShard shard : taskShards.all()) {
+            migrated += migrate(shard.name(), shard.scheduledTaskJdbcRepository());
+            backfillPriority(shard.name(), shard.scheduledTaskJdbcRepository());
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+        return migrated;
+    }
+
+    private long migrate(String shard, ScheduledTaskJdbcRepository scheduledTaskJdbcRepository) {
+        long migrated = 0;
+        String lastTaskInstance = "";
+        try {
+            List<StoredTaskData> batch;
+            do {
+                batch = scheduledTaskJdbcRepository.findJavaSerializedTaskData(lastTaskInstance, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastTaskInstance = batch.get(batch.size() - 1).taskInstance();
+                migrated += scheduledTaskJdbcRepository.updateTaskData(reserialize(batch));
+                Thread.sleep(pauseBetweenBatches.toMillis());
+            } while (batch.size() == batchSize);
+            log.info("Migrated {} executions of {} to the compact task data format", migrated, shard);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Task data migration of {} stopped after {} executions at task {}", shard, migrated, lastTaskInstance, e);
+        }
+        return migrated;
+    }
+
+    private void backfillPriority(String shard, ScheduledTaskJdbcRepository scheduledTaskJdbcRepository) {
+        long backfilled = 0;
+        String lastTaskInstance = "";
+        try {
+            List<String> batch;
+            do {
+                batch = scheduledTaskJdbcRepository.findExecutionsWithoutPriority(lastTaskInstance, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastTaskInstance = batch.get(batch.size() - 1);
+                backfilled += scheduledTaskJdbcRepository.backfillPriority(batch);
+                Thread.sleep(pauseBetweenBatches.toMillis());
+            } while (batch.size() == batchSize);
+            if (backfilled > 0) {
+                log.info("Gave {} executions of {} the default priority", backfilled, shard);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Priority backfill of {} stopped after {} executions at task {}", shard, backfilled, lastTaskInstance, e);
+        }
+    }
+
+    private List<StoredTaskData> reserialize(List<StoredTaskData> batch) {
+        List<StoredTaskData> rewritten = new ArrayList<>(batch.size());
+        for (StoredTaskData row : batch) {
+            ScheduleAndNoData data = taskDataSerializer.deserialize(ScheduleAndNoData.class, row.taskData());
+            rewritten.add(new StoredTaskData(row.taskInstance(), taskDataSerializer.serialize(data), row.version()));
+        }
+        return rewritten;
+    }
+}
@@ -0,0 +1,137 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerFailures;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Repairs drift between SCHEDULED_TASK and scheduled_tasks, one id range per run: tasks without an execution get one,
+ * unpicked executions without a task are deleted, and compact executions whose hold flag differs from ON_HOLD are
+ * flipped in place. A task whose cron does not parse is dead-lettered, so it is reported once and not on every sweep. Runs as a db-scheduler recurring task, so only one instance reconciles at a time, and the id it
+ * stopped at is kept as the task's data so every run continues where the previous one left off. Every shard runs its
+ * own reconciler task over its own database.
+ */
+@Service
+@Slf4j
+public class TaskDriftReconciler {
+
+    static final String DRIFT_METRIC = "task.drift.repaired";
+
+    private final ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    private final CronScheduleCache cronScheduleCache;
+    private final boolean enabled;
+    @Getter
+    private final Duration interval;
+    private final int batchSize;
+    private final Counter missingExecutions;
+    private final Counter orphanExecutions;
+    private final Counter holdMismatches;
+    private final Counter invalidCrons;
+    private final Counter sweeps;
+
+    public TaskDriftReconciler(ScheduledTaskJdbcRepository scheduledTaskJdbcRepository,
+                               CronScheduleCache cronScheduleCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${task.reconciler.enabled}") boolean enabled,
+                               @Value("${task.reconciler.interval}") Duration interval,
+                               @Value("${task.reconciler.batch-size}") int batchSize) {
+        this(scheduledTaskJdbcRepository, cronScheduleCache, enabled, interval, batchSize,
+                meterRegistry.counter(DRIFT_METRIC, "type", "missing-execution"),
+                meterRegistry.counter(DRIFT_METRIC, "type", "orphan-execution"),
+                meterRegistry.counter(DRIFT_METRIC, "type", "hold-mismatch"),
+                meterRegistry.counter(DRIFT_METRIC, "type", "invalid-cron"),
+                meterRegistry.counter("task.drift.sweeps"));
+    }
+
+    private TaskDriftReconciler(ScheduledTaskJdbcRepository scheduledTaskJdbcRepository, CronScheduleCache cronScheduleCache,
+                                boolean enabled, Duration interval, int batchSize, Counter missingExecutions,
+                                Counter orphanExecutions, Counter holdMismatches, Counter invalidCrons, Counter sweeps) {
+        this.scheduledTaskJdbcRepository = scheduledTaskJdbcRepository;
+        this.cronScheduleCache = cronScheduleCache;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.missingExecutions = missingExecutions;
+        this.orphanExecutions = orphanExecutions;
+        this.holdMismatches = holdMismatches;
+        this.invalidCrons = invalidCrons;
+        this.sweeps = sweeps;
+    }
+
+    /**
+     * A reconciler with the same settings over the database of another shard, counting into the same metrics.
+     */
+    public TaskDriftReconciler forShard(ScheduledTaskJdbcRepository shardScheduledTaskJdbcRepository) {
+        return new TaskDriftReconciler(shardScheduledTaskJdbcRepository, cronScheduleCache, enabled, interval, batchSize,
+                missingExecutions, orphanExecutions, holdMismatches, invalidCrons, sweeps);
+    }
+
+    /**
+     * Reconciles the ids after {@code watermark}, up to {@code batch-size} SCHEDULED_TASK rows.
+     *
+     * @return the watermark for the next run; empty once the last range has been reconciled
+     */
+    public String reconcile(String watermark) {
+        if (!enabled) {
+            return watermark;
+        }
+        String after = watermark == null ? "" : watermark;
+        String upTo = scheduledTaskJdbcRepository.findTaskIdRangeEnd(after, batchSize);
+
+        int missing = scheduleMissingExecutions(after, upTo);
+        int orphans = scheduledTaskJdbcRepository.deleteOrphanExecutions(after, upTo);
+        int mismatches = scheduledTaskJdbcRepository.repairExecutionsOnHold(after, upTo);
+        missingExecutions.increment(missing);
+        orphanExecutions.increment(orphans);
+        holdMismatches.increment(mismatches);
+        if (missing + orphans + mismatches > 0) {
+            log.info("Repaired drift for tasks ({}, {}]: {} missing executions, {} orphan executions, {} hold mismatches",
+                    after, upTo == null ? "end" : upTo, missing, orphans, mismatches);
+        }
+
+        if (upTo == null) {
+            sweeps.increment();
+            return "";
+        }
+        return upTo;
+    }
+
+    private int scheduleMissingExecutions(String after, String upTo) {
+        Map<String, ScheduleAndNoData> executions = new LinkedHashMap<>();
+        for (TaskDefinition task : scheduledTaskJdbcRepository.findTasksWithoutExecution(after, upTo)) {
+            try {
+                executions.put(task.taskId(), new ScheduleAndNoData(cronScheduleCache.get(task.cron()), task.onHold(),
+                        Duration.ofSeconds(task.jitterSeconds()), task.webhook(), task.misfirePolicy(),
+                        task.group(), task.priority(), task.timeout()));
+            } catch (IllegalArgumentException e) {
+                deadLetterInvalidCron(task);
+            }
+        }
+        scheduledTaskJdbcRepository.insertExecutions(executions, Instant.now());
+        return executions.size();
+    }
+
+    private void deadLetterInvalidCron(TaskDefinition task) {
+        String cause = "Invalid cron '" + task.cron() + "'";
+        if (cause.length() > SchedulerFailures.MAX_CAUSE_LENGTH) {
+            cause = cause.substring(0, SchedulerFailures.MAX_CAUSE_LENGTH);
+        }
+        if (scheduledTaskJdbcRepository.deadLetter(task.taskId(), Instant.now(), cause)) {
+            invalidCrons.increment();
+            log.warn("Task {} has an invalid cron '{}', dead-lettered it", task.taskId(), task.cron());
+        }
+    }
+}
@@ -2,17 +2,35 @@ package we.arewaes.dynamicallytaskscheduler.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Cancellation;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerExecution;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class TaskExecutorService {
 
-    private static final String TASK_EXECUTION_STARTED_MESSAGE = "INSTANCE ID: %s -> Task %s started at %s \n";
-    private final String instanceId;
+    private final ExecutionEventLog executionEventLog;
+    private final WebhookExecutor webhookExecutor;
+    private final SchedulerExecution schedulerExecution;
+
+    /**
+     * Runs one fire of a dynamic task. A task with a webhook completes only once the webhook answered; a failed call
+     * fails the execution. The execution's concurrency permit is released while waiting for the response, and a
+     * cancelled execution stops before calling the webhook or, through the interrupt, while waiting for it.
+     */
+    public void executeTask(String taskId, ScheduleAndNoData data, Instant executionTime, Cancellation cancellation) {
+        startTaskExecution(taskId);
+        if (data != null && data.getWebhook() != null) {
+            cancellation.throwIfCancelled();
+            schedulerExecution.releasePermitDuring(() -> webhookExecutor.call(taskId, data.getWebhook(), executionTime));
+        }
+    }
 
     public void startTaskExecution(String taskId) {
-        System.out.printf(TASK_EXECUTION_STARTED_MESSAGE, instanceId, taskId, LocalDateTime.now());
+        executionEventLog.publish(ExecutionEventType.STARTED, taskId);
     }
 }
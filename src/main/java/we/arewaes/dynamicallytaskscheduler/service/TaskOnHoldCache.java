@@ -0,0 +1,78 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskOnHoldJdbcRepository;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-instance cache of the ON_HOLD flag of {@code SCHEDULED_TASK}, so the execution interceptor does not hit the
+ * database on every fire. Entries are invalidated cluster-wide by {@link TaskOnHoldNotificationListener}; the
+ * expire-after-write only bounds staleness if a notification is ever lost.
+ * <p>
+ * A miss is loaded on the calling thread behind a placeholder future rather than inside the cache's compute, which
+ * holds a monitor for the duration of the query and would pin the carrier of a virtual execution thread. Concurrent
+ * misses for the same task still share one query, and an invalidation during the query drops its result.
+ */
+@Component
+public class TaskOnHoldCache {
+
+    static final String CACHE_NAME = "task-on-hold";
+    static final String LOOKUP_TIMER = "scheduler.on-hold.lookup";
+
+    private final TaskOnHoldJdbcRepository taskOnHoldJdbcRepository;
+    private final AsyncCache<String, Boolean> cache;
+    private final Timer lookupTimer;
+
+    public TaskOnHoldCache(TaskOnHoldJdbcRepository taskOnHoldJdbcRepository,
+                           @Value("${scheduler.on-hold-cache.maximum-size}") long maximumSize,
+                           @Value("${scheduler.on-hold-cache.expire-after-write}") Duration expireAfterWrite,
+                           MeterRegistry meterRegistry) {
+        this.taskOnHoldJdbcRepository = taskOnHoldJdbcRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.lookupTimer = Timer.builder(LOOKUP_TIMER)
+                .description("Database lookups of the ON_HOLD flag on cache misses")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean isOnHold(String taskId) {
+        CompletableFuture<Boolean> cached = cache.getIfPresent(taskId);
+        if (cached != null) {
+            return cached.join();
+        }
+        CompletableFuture<Boolean> loading = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = cache.asMap().putIfAbsent(taskId, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            loading.complete(lookupTimer.record(() -> taskOnHoldJdbcRepository.isOnHold(taskId)));
+        } catch (RuntimeException e) {
+            cache.asMap().remove(taskId, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    public void invalidate(String taskId) {
+        cache.synchronous().invalidate(taskId);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
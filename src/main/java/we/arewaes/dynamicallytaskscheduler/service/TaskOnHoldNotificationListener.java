@@ -0,0 +1,114 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardDatabases;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listens on the channel fed by the {@code scheduled_task_on_hold_notify} trigger and evicts the changed task ids
+ * from the {@link TaskOnHoldCache}. Whenever the listening connection is (re)established the whole cache is dropped,
+ * as notifications sent while nobody was listening are lost. Every shard has its own trigger and is listened to on
+ * its own thread and on-hold-lookup pool.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "scheduler.on-hold-cache.listen.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskOnHoldNotificationListener implements SmartLifecycle {
+
+    static final String CHANNEL = "scheduled_task_on_hold";
+
+    private final ShardDatabases shardDatabases;
+    private final TaskOnHoldCache taskOnHoldCache;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private final List<Thread> listenerThreads = new ArrayList<>();
+
+    public TaskOnHoldNotificationListener(ShardDatabases shardDatabases,
+                                          TaskOnHoldCache taskOnHoldCache,
+                                          @Value("${scheduler.on-hold-cache.listen.poll-timeout}") Duration pollTimeout,
+                                          @Value("${scheduler.on-hold-cache.listen.reconnect-delay}") Duration reconnectDelay) {
+        this.shardDatabases = shardDatabases;
+        this.taskOnHoldCache = taskOnHoldCache;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int shard = 0; shard < shardDatabases.size(); shard++) {
+            DataSource dataSource = shardDatabases.get(shard).onHoldLookupDataSource();
+            String name = ShardRouter.shardName(shard);
+            Thread listenerThread = new Thread(() -> listen(dataSource, name), "task-on-hold-listener-" + name);
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+            listenerThreads.add(listenerThread);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listenerThreads.forEach(Thread::interrupt);
+        listenerThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen(DataSource dataSource, String shard) {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                taskOnHoldCache.invalidateAll();
+                log.info("Listening for on hold changes on channel {} of {}", CHANNEL, shard);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        taskOnHoldCache.invalidate(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost connection listening on channel {} of {}. Will reconnect in {}", CHANNEL, shard, reconnectDelay, e);
+                taskOnHoldCache.invalidateAll();
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskView;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read side of the task API. Tasks are read as {@link TaskView} projections over plain JDBC, so nothing is loaded
+ * into the persistence context, and pages are keyset-paginated on the task id and written to the response as they
+ * are read from the database. With several shards a page is read from every shard in parallel and the first
+ * {@code limit} tasks of their union are written, so up to {@code limit} tasks per shard are held in memory.
+ */
+@Service
+public class TaskQueryService {
+
+    private final TaskShards taskShards;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int fetchSize;
+
+    public TaskQueryService(TaskShards taskShards,
+                            ObjectMapper objectMapper,
+                            @Value("${task.list.default-limit}") int defaultLimit,
+                            @Value("${task.list.max-limit}") int maxLimit,
+                            @Value("${task.list.fetch-size}") int fetchSize) {
+        this.taskShards = taskShards;
+        this.objectMapper = objectMapper;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.fetchSize = fetchSize;
+    }
+
+    public Optional<TaskView> findTask(String taskId) {
+        return taskShards.forTask(taskId).scheduledTaskJdbcRepository().findTaskView(taskId);
+    }
+
+    /**
+     * Writes {@code {"tasks":[...],"next":...}} with up to {@code limit} tasks whose id sorts after {@code after}.
+     * {@code next} is the id to pass as {@code after} for the following page, or {@code null} on the last page.
+     */
+    public void writeTasks(String after, Integer limit, OutputStream out) throws IOException {
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("tasks");
+            Page page = new Page();
+            String afterTaskId = after == null ? "" : after;
+            if (taskShards.size() == 1) {
+                streamTaskViews(taskShards.all().get(0), afterTaskId, pageSize, task -> write(generator, page, task));
+            } else {
+                for (TaskView task : mergeShardPages(afterTaskId, pageSize)) {
+                    write(generator, page, task);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeStringField("next", page.count == pageSize ? page.lastTaskId : null);
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void streamTaskViews(TaskShard shard, String afterTaskId, int pageSize, Consumer<TaskView> consumer) {
+        shard.readOnlyTransaction().executeWithoutResult(status -> shard.scheduledTaskJdbcRepository()
+                .streamTaskViews(afterTaskId, pageSize, Math.min(fetchSize, pageSize), consumer));
+    }
+
+    private List<TaskView> mergeShardPages(String afterTaskId, int pageSize) {
+        Map<String, TaskView> tasks = new HashMap<>();
+        for (List<TaskView> shardPage : taskShards.fanOut(shard -> {
+            List<TaskView> views = new ArrayList<>(pageSize);
+            streamTaskViews(shard, afterTaskId, pageSize, views::add);
+            return views;
+        })) {
+            shardPage.forEach(task -> tasks.put(task.getTaskId(), task));
+        }
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        List<String> taskIds = taskShards.all().get(0).scheduledTaskJdbcRepository().sortTaskIds(new ArrayList<>(tasks.keySet()), pageSize);
+        return taskIds.stream().map(tasks::get).toList();
+    }
+
+    private static void write(JsonGenerator generator, Page page, TaskView task) {
+        try {
+            generator.writeObject(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.count++;
+        page.lastTaskId = task.getTaskId();
+    }
+
+    private static class Page {
+        private int count;
+        private String lastTaskId;
+    }
+}
@@ -1,51 +1,128 @@
 package we.arewaes.dynamicallytaskscheduler.service;
 
-import com.github.kagkarlsson.scheduler.Scheduler;
 import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceCurrentlyExecutingException;
 import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceNotFoundException;
+import com.github.kagkarlsson.scheduler.ScheduledExecution;
 import com.github.kagkarlsson.scheduler.task.TaskInstance;
-import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations;
 import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 
 import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK;
 import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
 
+/**
+ * Executions of dynamic tasks, each handled by the scheduler and database of the task's shard.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TaskSchedulerService {
-    private final Scheduler scheduler;
+    private final TaskShards taskShards;
+    private final CronScheduleCache cronScheduleCache;
+    private final SchedulerWakeups schedulerWakeups;
+    private final SchedulerCancellations schedulerCancellations;
 
-    public void scheduleTaskExecution(String taskId, String trigger) {
+    public void scheduleTaskExecution(String taskId, String trigger, Duration jitter, Webhook webhook, MisfirePolicy misfirePolicy,
+                                      String group, Integer priority, Duration timeout) {
         log.info("Schedule task with taskId: {} \n", taskId);
-        this.scheduler.scheduleIfNotExists(DYNAMIC_RECURRING_TASK
+        ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(cronScheduleCache.get(trigger), false, jitter, webhook, misfirePolicy,
+                group, priority, timeout);
+        TaskShard shard = taskShards.forTask(taskId);
+        if (shard.scheduler().scheduleIfNotExists(DYNAMIC_RECURRING_TASK
                 .instance(taskId)
-                .data(new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule(trigger), false))
-                .scheduledAccordingToData());
+                .data(data)
+                .priority(data.getExecutionPriority())
+                .scheduledAccordingToData())) {
+            schedulerWakeups.dueAt(shard, data.getSchedule().getInitialExecutionTime(Instant.now()));
+        }
     }
 
+    /**
+     * Removes the task's execution. One that is running right now is cancelled and removed once it stops.
+     */
     public void cancelTaskExecution(String taskId) {
         log.info("Cancel task with taskId: {} \n", taskId);
+        TaskShard shard = taskShards.forTask(taskId);
         try {
-            this.scheduler.cancel(new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, taskId));
+            shard.scheduler().cancel(new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, taskId));
         } catch (TaskInstanceNotFoundException e) {
             log.warn("Task not found with taskId: {}", taskId);
         } catch (TaskInstanceCurrentlyExecutingException e) {
-            log.warn("Task with taskId {} is currently executing. Will be cancelled after execution.", taskId);
+            log.warn("Task with taskId {} is currently executing. Cancelling its execution.", taskId);
+            schedulerCancellations.cancel(shard, taskId);
         }
-        // in both exceptions, you can choose how you handle according to the project needs.
-        // let's assume that after this succeeds, the task data is deleted also on the repository
     }
 
-    public void updateTaskExecution(String taskId, String trigger, boolean onHold) {
+    /**
+     * Updates the hold flag in place, keeping the current execution time. If the task is executing right now the
+     * update is skipped: SCHEDULED_TASK already holds the new flag and the execution interceptor reconciles the
+     * execution with it on its next run.
+     */
+    public void updateTaskExecution(String taskId, String trigger, boolean onHold, Duration jitter, Webhook webhook,
+                                    MisfirePolicy misfirePolicy, String group, Integer priority, Duration timeout) {
         log.info("Update task with taskId: {} \n", taskId);
-        this.cancelTaskExecution(taskId);
-        this.scheduler.scheduleIfNotExists(DYNAMIC_RECURRING_TASK
+        ScheduleAndNoData data = new ScheduleAndNoData(cronScheduleCache.get(trigger), onHold, jitter, webhook, misfirePolicy, group, priority,
+                timeout);
+        TaskShard shard = taskShards.forTask(taskId);
+        if (shard.scheduledTaskJdbcRepository().updateExecution(taskId, data, null)) {
+            return;
+        }
+        if (findExecution(shard, taskId).map(ScheduledExecution::isPicked).orElse(false)) {
+            log.info("Task with taskId {} is currently executing. Hold will be applied on its next run.", taskId);
+            return;
+        }
+        scheduleIfMissing(shard, taskId, data);
+    }
+
+    /**
+     * Replaces the cron in place and moves the execution time to the next fire of the new cron.
+     *
+     * @throws TaskInstanceCurrentlyExecutingException if the task is executing, since its completion would
+     *                                                 reschedule it with the old cron
+     */
+    public void rescheduleTaskExecution(String taskId, String trigger, boolean onHold, Duration jitter, Webhook webhook,
+                                        MisfirePolicy misfirePolicy, String group, Integer priority, Duration timeout) {
+        log.info("Reschedule task with taskId: {} \n", taskId);
+        ScheduleAndNoData data = new ScheduleAndNoData(cronScheduleCache.get(trigger), onHold, jitter, webhook, misfirePolicy, group, priority,
+                timeout);
+        Instant executionTime = data.getSchedule().getInitialExecutionTime(Instant.now());
+        TaskShard shard = taskShards.forTask(taskId);
+        if (shard.scheduledTaskJdbcRepository().updateExecution(taskId, data, executionTime)) {
+            schedulerWakeups.dueAt(shard, executionTime);
+            return;
+        }
+        if (findExecution(shard, taskId).map(ScheduledExecution::isPicked).orElse(false)) {
+            throw new TaskInstanceCurrentlyExecutingException(DYNAMIC_RECURRING_TASK_NAME, taskId);
+        }
+        scheduleIfMissing(shard, taskId, data);
+    }
+
+    private Optional<ScheduledExecution<Object>> findExecution(TaskShard shard, String taskId) {
+        return shard.scheduler().getScheduledExecution(new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, taskId));
+    }
+
+    private void scheduleIfMissing(TaskShard shard, String taskId, ScheduleAndNoData data) {
+        log.warn("No execution found for taskId: {}. Scheduling it again.", taskId);
+        if (shard.scheduler().scheduleIfNotExists(DYNAMIC_RECURRING_TASK
                 .instance(taskId)
-                .data(new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule(trigger), onHold))
-                .scheduledAccordingToData());
+                .data(data)
+                .priority(data.getExecutionPriority())
+                .scheduledAccordingToData())) {
+            schedulerWakeups.dueAt(shard, data.getSchedule().getInitialExecutionTime(Instant.now()));
+        }
     }
 }
@@ -2,50 +2,126 @@ package we.arewaes.dynamicallytaskscheduler.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.ScheduleJitter;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerGroups;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.configuration.WebhookDefaults;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
 import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
 import we.arewaes.dynamicallytaskscheduler.entity.ScheduledTask;
-import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
 
+import java.time.Duration;
+
+/**
+ * Writes of single tasks. Each runs in a transaction on the task's shard.
+ */
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
     private final TaskSchedulerService taskSchedulerService;
-    private final ScheduledTaskRepository scheduledTaskRepository;
+    private final TaskShards taskShards;
+    private final TaskOnHoldCache taskOnHoldCache;
+    private final ScheduleJitter scheduleJitter;
+    private final WebhookDefaults webhookDefaults;
+    private final CronScheduleCache cronScheduleCache;
 
-    private static ScheduledTask generateScheduledTask(String taskId, String cron) {
+    private static ScheduledTask generateScheduledTask(String taskId, String cron, Duration jitter, Webhook webhook,
+                                                       MisfirePolicy misfirePolicy, String group, Integer priority,
+                                                       Duration timeout) {
         ScheduledTask scheduledTask = new ScheduledTask();
         scheduledTask.setId(taskId);
         scheduledTask.setCron(cron);
         scheduledTask.setOnHold(false);
+        scheduledTask.setJitterSeconds(Math.toIntExact(jitter.toSeconds()));
+        scheduledTask.setWebhook(webhook);
+        scheduledTask.setMisfirePolicy(misfirePolicy);
+        scheduledTask.setTaskGroup(group);
+        scheduledTask.setPriority(priority);
+        scheduledTask.setTimeout(timeout);
         return scheduledTask;
     }
 
+    private static Duration jitter(ScheduledTask task) {
+        return Duration.ofSeconds(task.getJitterSeconds());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request's cron, webhook, group, priority or timeout is invalid
+     */
     public void scheduleTask(TaskRequest taskRequest) {
-        ScheduledTask scheduledTask = generateScheduledTask(taskRequest.getTaskId(), taskRequest.getCron());
-        scheduledTaskRepository.save(scheduledTask);
-        taskSchedulerService.scheduleTaskExecution(taskRequest.getTaskId(), taskRequest.getCron());
+        cronScheduleCache.get(taskRequest.getCron());
+        String groupError = SchedulerGroups.validate(taskRequest.getGroup(), taskRequest.getPriority());
+        if (groupError != null) {
+            throw new IllegalArgumentException(groupError);
+        }
+        String timeoutError = SchedulerCancellations.validate(taskRequest.getTimeout());
+        if (timeoutError != null) {
+            throw new IllegalArgumentException(timeoutError);
+        }
+        Webhook webhook = webhookDefaults.apply(taskRequest.getWebhook());
+        Duration jitter = taskRequest.isSpread() ? scheduleJitter.offset(taskRequest.getTaskId()) : Duration.ZERO;
+        ScheduledTask scheduledTask = generateScheduledTask(taskRequest.getTaskId(), taskRequest.getCron(), jitter, webhook,
+                taskRequest.getMisfirePolicy(), taskRequest.getGroup(), taskRequest.getPriority(), taskRequest.getTimeout());
+        TaskShard shard = taskShards.forTask(taskRequest.getTaskId());
+        shard.transaction().executeWithoutResult(status -> shard.scheduledTaskRepository().save(scheduledTask));
+        taskSchedulerService.scheduleTaskExecution(taskRequest.getTaskId(), taskRequest.getCron(), jitter, webhook,
+                taskRequest.getMisfirePolicy(), taskRequest.getGroup(), taskRequest.getPriority(), taskRequest.getTimeout());
     }
 
     public void cancelTask(String taskId) {
         taskSchedulerService.cancelTaskExecution(taskId);
-        scheduledTaskRepository.deleteById(taskId);
+        TaskShard shard = taskShards.forTask(taskId);
+        shard.transaction().executeWithoutResult(status -> shard.scheduledTaskRepository().deleteById(taskId));
     }
 
+    /**
+     * A dead-lettered task only gets the new flag in SCHEDULED_TASK, which its requeue schedules from.
+     */
     public void setTaskOnHold(String taskId, boolean onHold) {
-        ScheduledTask task = fetchScheduledTaskAndUpdateOnHOld(taskId, onHold);
-        taskSchedulerService.updateTaskExecution(taskId, task.getCron(), onHold);
+        TaskShard shard = taskShards.forTask(taskId);
+        shard.transaction().executeWithoutResult(status -> {
+            ScheduledTask task = fetchScheduledTaskAndUpdateOnHOld(shard, taskId, onHold);
+            if (task.getDeadLetteredAt() != null) {
+                return;
+            }
+            taskSchedulerService.updateTaskExecution(taskId, task.getCron(), onHold, jitter(task), task.getWebhook(),
+                    task.getMisfirePolicy(), task.getTaskGroup(), task.getPriority(), task.getTimeout());
+        });
+    }
+
+    /**
+     * A dead-lettered task has no execution to reschedule; the new cron applies once it is requeued.
+     */
+    public void updateTaskCron(TaskRequest taskRequest) {
+        TaskShard shard = taskShards.forTask(taskRequest.getTaskId());
+        shard.transaction().executeWithoutResult(status -> {
+            ScheduledTask task = shard.scheduledTaskRepository().findById(taskRequest.getTaskId()).orElseThrow(() -> new RuntimeException("Task not found"));
+            task.setCron(taskRequest.getCron());
+            shard.scheduledTaskRepository().save(task);
+            if (task.getDeadLetteredAt() != null) {
+                return;
+            }
+            taskSchedulerService.rescheduleTaskExecution(task.getId(), task.getCron(), task.isOnHold(), jitter(task), task.getWebhook(),
+                    task.getMisfirePolicy(), task.getTaskGroup(), task.getPriority(), task.getTimeout());
+        });
     }
 
-    private ScheduledTask fetchScheduledTaskAndUpdateOnHOld(String taskId, boolean onHold) {
-        ScheduledTask task = scheduledTaskRepository.findById(taskId).orElseThrow(() -> new RuntimeException("Task not found"));
+    private ScheduledTask fetchScheduledTaskAndUpdateOnHOld(TaskShard shard, String taskId, boolean onHold) {
+        ScheduledTask task = shard.scheduledTaskRepository().findById(taskId).orElseThrow(() -> new RuntimeException("Task not found"));
         task.setOnHold(onHold);
-        scheduledTaskRepository.save(task);
+        shard.scheduledTaskRepository().save(task);
+        taskOnHoldCache.invalidate(taskId);
         return task;
     }
 
     public void setTasOnHoldOnlyDb(String taskId, boolean onHold) {
-        fetchScheduledTaskAndUpdateOnHOld(taskId, onHold);
+        TaskShard shard = taskShards.forTask(taskId);
+        shard.transaction().executeWithoutResult(status -> fetchScheduledTaskAndUpdateOnHOld(shard, taskId, onHold));
     }
 
 }
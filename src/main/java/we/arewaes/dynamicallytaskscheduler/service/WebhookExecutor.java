@@ -0,0 +1,158 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls task webhooks through one shared {@link HttpClient}. The client is asynchronous: waiting for a response holds
+ * the execution but no client thread. It keeps connections alive between fires and uses HTTP/2 where the endpoint
+ * supports it. At most {@code task.webhook.max-concurrent-per-host} calls run against one host at a time, so one slow
+ * downstream cannot use up every connection. A call fails, and the fire is recorded as a failure, when the
+ * webhook's timeout passes before the response arrives, counting any wait for a per-host slot, or when the status
+ * is not 2xx.
+ */
+@Service
+public class WebhookExecutor {
+
+    static final String REQUEST_TIMER = "task.webhook.requests";
+    static final String SUCCESS = "success";
+    static final String HTTP_ERROR = "http-error";
+    static final String TIMEOUT = "timeout";
+    static final String HOST_LIMIT = "host-limit";
+    static final String ERROR = "error";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final int maxConcurrentPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public WebhookExecutor(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${task.webhook.connect-timeout}") Duration connectTimeout,
+                           @Value("${task.webhook.max-concurrent-per-host}") int maxConcurrentPerHost,
+                           @Value("${task.webhook.http-version}") HttpClient.Version httpVersion) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.objectMapper = objectMapper;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("task.webhook.in-flight", inFlight, AtomicInteger::get)
+                .description("Webhook calls waiting for a response")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calls the webhook and waits for its response.
+     *
+     * @throws IllegalStateException if the call fails, times out or is answered with a status other than 2xx
+     */
+    public void call(String taskId, Webhook webhook, Instant executionTime) {
+        long start = System.nanoTime();
+        long deadline = start + webhook.timeout().toNanos();
+        URI uri = URI.create(webhook.url());
+        Semaphore permits = hostPermits.computeIfAbsent(uri.getAuthority(), authority -> new Semaphore(maxConcurrentPerHost));
+        if (!tryAcquire(permits, deadline)) {
+            record(HOST_LIMIT, webhook, start);
+            throw new IllegalStateException("Webhook of task " + taskId + " waited " + webhook.timeout()
+                    + " for one of the " + maxConcurrentPerHost + " concurrent calls allowed to " + uri.getAuthority());
+        }
+        inFlight.incrementAndGet();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())))
+                    .header("Content-Type", "application/json")
+                    .header("X-Task-Id", taskId)
+                    .method(webhook.method(), body(webhook, taskId, executionTime))
+                    .build();
+            int status = await(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()), taskId, webhook, start).statusCode();
+            if (status < 200 || status >= 300) {
+                record(HTTP_ERROR, webhook, start);
+                throw new IllegalStateException("Webhook of task " + taskId + " answered " + status);
+            }
+            record(SUCCESS, webhook, start);
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private HttpResponse<Void> await(CompletableFuture<HttpResponse<Void>> response, String taskId, Webhook webhook, long start) {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            record(ERROR, webhook, start);
+            throw new IllegalStateException("Interrupted while calling the webhook of task " + taskId, e);
+        } catch (ExecutionException e) {
+            boolean timedOut = e.getCause() instanceof HttpTimeoutException;
+            record(timedOut ? TIMEOUT : ERROR, webhook, start);
+            String reason = timedOut ? "timed out after " + webhook.timeout()
+                    : e.getCause() instanceof ConnectException ? "could not connect" : "failed";
+            throw new IllegalStateException("Webhook of task " + taskId + " " + reason, e.getCause());
+        }
+    }
+
+    private static boolean tryAcquire(Semaphore permits, long deadline) {
+        try {
+            return permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.BodyPublisher body(Webhook webhook, String taskId, Instant executionTime) {
+        if (webhook.method().equals("GET") || webhook.method().equals("DELETE")) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("taskId", taskId);
+        body.put("executionTime", executionTime == null ? null : executionTime.toString());
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void record(String outcome, Webhook webhook, long start) {
+        timers.computeIfAbsent(webhook.method() + ' ' + outcome, key -> Timer.builder(REQUEST_TIMER)
+                        .description("Webhook calls from sending the request to receiving the response status")
+                        .tag("method", webhook.method().toLowerCase(Locale.ROOT))
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
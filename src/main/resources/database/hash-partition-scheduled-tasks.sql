@@ -0,0 +1,43 @@
+-- Optional: rebuilds scheduled_tasks as 16 hash partitions on task_instance, so vacuum, index maintenance and bloat
+-- are handled per partition instead of on one very large table. Polls read every partition's due index and merge
+-- them in execution_time order. Run once, after the Flyway migrations, with the schedulers stopped: rows are copied
+-- inside a single transaction.
+
+BEGIN;
+
+ALTER TABLE scheduled_tasks RENAME TO scheduled_tasks_unpartitioned;
+ALTER INDEX scheduled_tasks_pkey RENAME TO scheduled_tasks_unpartitioned_pkey;
+ALTER INDEX scheduled_tasks_due_idx RENAME TO scheduled_tasks_unpartitioned_due_idx;
+ALTER INDEX scheduled_tasks_priority_due_idx RENAME TO scheduled_tasks_unpartitioned_priority_due_idx;
+ALTER INDEX scheduled_tasks_picked_heartbeat_idx RENAME TO scheduled_tasks_unpartitioned_picked_heartbeat_idx;
+
+CREATE TABLE scheduled_tasks
+(
+    LIKE scheduled_tasks_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (task_name, task_instance)
+) PARTITION BY HASH (task_instance);
+
+DO
+$$
+    BEGIN
+        FOR i IN 0..15
+            LOOP
+                EXECUTE format('CREATE TABLE scheduled_tasks_p%s PARTITION OF scheduled_tasks ' ||
+                               'FOR VALUES WITH (MODULUS 16, REMAINDER %s) ' ||
+                               'WITH (fillfactor = 70, autovacuum_vacuum_scale_factor = 0.02, ' ||
+                               'autovacuum_analyze_scale_factor = 0.02, autovacuum_vacuum_insert_scale_factor = 0.05)',
+                               i, i);
+            END LOOP;
+    END
+$$;
+
+CREATE INDEX scheduled_tasks_due_idx ON scheduled_tasks (execution_time) WHERE picked = false;
+CREATE INDEX scheduled_tasks_priority_due_idx ON scheduled_tasks (priority desc, execution_time asc) WHERE picked = false;
+CREATE INDEX scheduled_tasks_picked_heartbeat_idx ON scheduled_tasks (last_heartbeat) WHERE picked = true;
+
+INSERT INTO scheduled_tasks SELECT * FROM scheduled_tasks_unpartitioned;
+DROP TABLE scheduled_tasks_unpartitioned;
+
+ANALYZE scheduled_tasks;
+
+COMMIT;
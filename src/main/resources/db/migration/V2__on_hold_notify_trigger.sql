@@ -0,0 +1,24 @@
+-- Tells every instance which task's hold flag changed or which task was deleted, on the scheduled_task_on_hold channel
+-- that TaskOnHoldNotificationListener listens to. Replaced rather than created, as databases set up from the last
+-- init-schema.sql already have it while those baselined from the first one do not.
+
+CREATE OR REPLACE FUNCTION notify_scheduled_task_on_hold() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('scheduled_task_on_hold', OLD.ID);
+        RETURN OLD;
+    END IF;
+    IF NEW.ON_HOLD IS DISTINCT FROM OLD.ON_HOLD THEN
+        PERFORM pg_notify('scheduled_task_on_hold', NEW.ID);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS scheduled_task_on_hold_notify ON SCHEDULED_TASK;
+CREATE TRIGGER scheduled_task_on_hold_notify
+    AFTER UPDATE OF ON_HOLD OR DELETE
+    ON SCHEDULED_TASK
+    FOR EACH ROW
+EXECUTE FUNCTION notify_scheduled_task_on_hold();
@@ -0,0 +1,31 @@
+-- Indexes only cover the rows the queries that use them can match: polling and the due/next-execution lookups only
+-- read unpicked executions, dead-execution detection only reads picked ones. Built concurrently so existing tables
+-- stay writable, which is why this script runs outside a transaction (see the .conf file next to it).
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_tasks_due_idx
+    ON scheduled_tasks (execution_time) WHERE picked = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_tasks_priority_due_idx
+    ON scheduled_tasks (priority desc, execution_time asc) WHERE picked = false;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_tasks_picked_heartbeat_idx
+    ON scheduled_tasks (last_heartbeat) WHERE picked = true;
+
+DROP INDEX CONCURRENTLY IF EXISTS execution_time_idx;
+DROP INDEX CONCURRENTLY IF EXISTS last_heartbeat_idx;
+DROP INDEX CONCURRENTLY IF EXISTS priority_execution_time_idx;
+
+-- the few held tasks, and the CRON selector of the bulk operations walked in ID order
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_task_on_hold_idx
+    ON SCHEDULED_TASK (ID) WHERE ON_HOLD;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_task_cron_idx
+    ON SCHEDULED_TASK (CRON, ID);
+
+-- every fire updates its execution row at least twice (pick, reschedule) and heartbeats update it while running.
+-- Free space on each page keeps the updates that do not touch an indexed column HOT, and vacuum keeps up with the
+-- dead tuples instead of waiting for 20% of the table. fillfactor applies to pages written from now on; rewrite the
+-- table (pg_repack, VACUUM FULL) to apply it to existing pages.
+ALTER TABLE scheduled_tasks SET (
+    fillfactor = 70,
+    autovacuum_vacuum_scale_factor = 0.02,
+    autovacuum_analyze_scale_factor = 0.02,
+    autovacuum_vacuum_insert_scale_factor = 0.05
+    );
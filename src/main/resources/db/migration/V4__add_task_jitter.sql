@@ -0,0 +1,4 @@
+-- Seconds a task fires after each of its cron fire times, see ScheduleJitter. Adding a column with a constant default
+-- only touches the catalog, so existing rows are not rewritten.
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS JITTER_SECONDS INTEGER NOT NULL DEFAULT 0;
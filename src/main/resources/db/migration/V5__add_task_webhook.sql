@@ -0,0 +1,6 @@
+-- The HTTP endpoint a task calls when it fires, see WebhookExecutor. NULL for tasks that only log their fires. Nullable
+-- columns without a default only touch the catalog.
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS WEBHOOK_URL VARCHAR(2048);
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS WEBHOOK_METHOD VARCHAR(8);
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS WEBHOOK_TIMEOUT_MS INTEGER;
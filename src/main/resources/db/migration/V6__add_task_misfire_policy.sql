@@ -0,0 +1,4 @@
+-- What a task does with a fire that is overdue after downtime, see SchedulerMisfires. NULL for tasks that follow
+-- scheduler.misfire.policy. A nullable column without a default only touches the catalog.
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS MISFIRE_POLICY VARCHAR(16);
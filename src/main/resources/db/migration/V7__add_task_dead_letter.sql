@@ -0,0 +1,9 @@
+-- When a task was parked after too many consecutive failures and why, see SchedulerFailures. NULL for live tasks.
+-- Nullable columns without a default only touch the catalog. The partial index keeps the few parked tasks cheap to
+-- find for the requeue selector; built concurrently, so this script runs outside a transaction (see the .conf file).
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS DEAD_LETTERED_AT TIMESTAMPTZ;
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS DEAD_LETTER_CAUSE VARCHAR(1000);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_task_dead_lettered_idx
+    ON SCHEDULED_TASK (ID) WHERE DEAD_LETTERED_AT IS NOT NULL;
@@ -0,0 +1,22 @@
+-- The group (tenant) and priority of a task, see SchedulerGroups. NULL for tasks outside any group and for the
+-- default priority. Nullable columns without a default only touch the catalog.
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS TASK_GROUP VARCHAR(64);
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS PRIORITY INTEGER;
+
+-- Executions are fetched by priority from now on, and NULL sorts first under priority DESC, so new executions get
+-- db-scheduler's default priority. A column default only touches the catalog; executions written before are given it
+-- in small batches by TaskDataMigrationService, as one UPDATE here would lock and rewrite every row at startup.
+ALTER TABLE scheduled_tasks ALTER COLUMN priority SET DEFAULT 50;
+
+-- The concurrency permits each instance holds for each capped group, renewed every scheduler.groups.lease-interval.
+-- Rows past EXPIRES_AT belong to instances that stopped renewing and count for nothing.
+CREATE TABLE IF NOT EXISTS TASK_GROUP_LEASE
+(
+    GROUP_KEY   VARCHAR(64)  NOT NULL,
+    INSTANCE_ID VARCHAR(255) NOT NULL,
+    PERMITS     INTEGER      NOT NULL,
+    DEMAND      INTEGER      NOT NULL,
+    EXPIRES_AT  TIMESTAMPTZ  NOT NULL,
+    PRIMARY KEY (GROUP_KEY, INSTANCE_ID)
+);
@@ -0,0 +1,4 @@
+-- How long one fire of a task may run before it is cancelled, see SchedulerCancellations. NULL for tasks that use
+-- scheduler.execution.timeout.default. A nullable column without a default only touches the catalog.
+
+ALTER TABLE SCHEDULED_TASK ADD COLUMN IF NOT EXISTS TIMEOUT_MS INTEGER;
@@ -0,0 +1,180 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.TaskQueryService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds every connection of the API pool while more API callers queue for one, and checks that executions keep
+ * firing on time: their lag while the API pool is exhausted stays within a second of the lag measured before.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.minimum-idle=2",
+        "spring.datasource.hikari.connection-timeout=500",
+        "task.reconciler.enabled=false",
+        "task.data-migration.enabled=false"})
+@ActiveProfiles("test")
+@DisplayName("A saturated API connection pool does not delay scheduled executions")
+class ConnectionPoolIsolationITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final int TASKS = 20;
+    private static final int API_CALLERS = 8;
+    private static final Duration PHASE = Duration.ofSeconds(8);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "pass");
+    }
+
+    @TestConfiguration
+    static class LagRecorderConfiguration {
+
+        @Bean
+        LagRecorder lagRecorder() {
+            return new LagRecorder();
+        }
+    }
+
+    static class LagRecorder extends AbstractSchedulerListener {
+
+        private final ConcurrentLinkedQueue<Long> lagMillis = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onExecutionStart(CurrentlyExecuting currentlyExecuting) {
+            lagMillis.add(Duration.between(currentlyExecuting.getExecution().executionTime, Instant.now()).toMillis());
+        }
+
+        List<Long> drain() {
+            List<Long> drained = new ArrayList<>();
+            for (Long lag = lagMillis.poll(); lag != null; lag = lagMillis.poll()) {
+                drained.add(lag);
+            }
+            return drained;
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+
+    @Autowired
+    private TaskQueryService taskQueryService;
+
+    @Autowired
+    private CronScheduleCache cronScheduleCache;
+
+    @Autowired
+    private LagRecorder lagRecorder;
+
+    @Test
+    @DisplayName("Execution lag stays flat while the API pool is exhausted")
+    void executionLag_shouldStayFlat_whenApiPoolIsSaturated() throws Exception {
+        Map<String, ScheduleAndNoData> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < TASKS; i++) {
+            tasks.put("pool-isolation-" + i, new ScheduleAndNoData(cronScheduleCache.get("* * * * * *"), false));
+        }
+        scheduledTaskJdbcRepository.insertScheduledTasks(tasks);
+        scheduledTaskJdbcRepository.insertExecutions(tasks, Instant.now());
+
+        Thread.sleep(PHASE.toMillis());
+        lagRecorder.drain();
+        Thread.sleep(PHASE.toMillis());
+        List<Long> baseline = lagRecorder.drain();
+
+        HikariDataSource apiPool = dataSource.unwrap(HikariDataSource.class);
+        List<Connection> held = new ArrayList<>();
+        ExecutorService apiCallers = Executors.newFixedThreadPool(API_CALLERS);
+        AtomicLong rejectedApiCalls = new AtomicLong();
+        List<Long> saturated;
+        try {
+            for (int i = 0; i < apiPool.getMaximumPoolSize(); i++) {
+                held.add(dataSource.getConnection());
+            }
+            for (int i = 0; i < API_CALLERS; i++) {
+                apiCallers.execute(() -> {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        try {
+                            taskQueryService.findTask("pool-isolation-0");
+                        } catch (RuntimeException e) {
+                            rejectedApiCalls.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            Thread.sleep(PHASE.toMillis());
+            assertEquals(apiPool.getMaximumPoolSize(), apiPool.getHikariPoolMXBean().getActiveConnections());
+            saturated = lagRecorder.drain();
+        } finally {
+            apiCallers.shutdownNow();
+            apiCallers.awaitTermination(10, TimeUnit.SECONDS);
+            for (Connection connection : held) {
+                close(connection);
+            }
+        }
+
+        assertTrue(rejectedApiCalls.get() > 0, "API callers never waited for a connection");
+        assertTrue(saturated.size() >= baseline.size() * 0.9,
+                "executions dropped from " + baseline.size() + " to " + saturated.size() + " while the API pool was saturated");
+        long baselineMax = baseline.stream().mapToLong(Long::longValue).max().orElse(0);
+        long saturatedMax = saturated.stream().mapToLong(Long::longValue).max().orElse(0);
+        assertTrue(saturatedMax <= baselineMax + 1_000,
+                "max lag went from " + baselineMax + " ms to " + saturatedMax + " ms while the API pool was saturated");
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
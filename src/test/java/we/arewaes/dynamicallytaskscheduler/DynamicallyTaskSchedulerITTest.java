@@ -19,7 +19,6 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
-import org.testcontainers.utility.MountableFile;
 import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
 
 import static io.restassured.RestAssured.given;
@@ -38,10 +37,7 @@ public class DynamicallyTaskSchedulerITTest implements BeforeAllCallback, AfterA
             .withDatabaseName("test")
             .withUsername("sa")
             .withPassword("pass")
-            .withDatabaseName("db")
-            .withCopyFileToContainer(
-                    MountableFile.forClasspathResource("database/init-schema.sql"), "/docker-entrypoint-initdb.d/"
-            );
+            .withDatabaseName("db");
 
     private static ObjectMapper objectMapper;
 
@@ -86,6 +82,27 @@ public class DynamicallyTaskSchedulerITTest implements BeforeAllCallback, AfterA
                 .body(equalTo("Task created successfully"));
     }
 
+    @Test
+    @DisplayName("Create Tasks in bulk should report created and failed lines")
+    void createTasksInBulk_shouldReportCreatedAndFailedLines() {
+        String body = """
+                {"taskId":"bulkTaskId-1","cron":"0/10 * * * * *"}
+                {"taskId":"bulkTaskId-2","cron":"0/10 * * * * *"}
+                {"taskId":"bulkTaskId-1","cron":"0/10 * * * * *"}
+                {"taskId":"bulkTaskId-3","cron":"invalid"}
+                """;
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                .post("/task/create/bulk")
+                .then()
+                .statusCode(200)
+                .body("received", equalTo(4))
+                .body("created", equalTo(2))
+                .body("failed", equalTo(2));
+    }
+
     @Test
     @DisplayName("On Hold Task should return success when only DB is true")
     void holdTask_shouldReturnSuccess_whenOnlyDbIsTrue() throws JsonProcessingException {
@@ -160,4 +177,44 @@ public class DynamicallyTaskSchedulerITTest implements BeforeAllCallback, AfterA
                 .statusCode(200)
                 .body(equalTo("Task deleted successfully"));
     }
+
+    @Test
+    @DisplayName("Bulk hold and delete by prefix should report affected tasks")
+    void holdAndDeleteTasksInBulk_shouldReportAffectedTasks() {
+        String body = """
+                {"taskId":"tenant-7-a","cron":"0 0 3 * * *"}
+                {"taskId":"tenant-7-b","cron":"0 0 3 * * *"}
+                {"taskId":"tenant-70-c","cron":"0 0 3 * * *"}
+                """;
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                .post("/task/create/bulk")
+                .then()
+                .statusCode(200)
+                .body("created", equalTo(3));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"taskIdPrefix\":\"tenant-7-\"}")
+                .when()
+                .post("/task/hold/bulk?onHold=true")
+                .then()
+                .statusCode(200)
+                .body("matched", equalTo(2))
+                .body("tasksAffected", equalTo(2))
+                .body("executionsAffected", equalTo(2));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"taskIdPrefix\":\"tenant-7\"}")
+                .when()
+                .post("/task/delete/bulk")
+                .then()
+                .statusCode(200)
+                .body("matched", equalTo(3))
+                .body("tasksAffected", equalTo(3))
+                .body("executionsAffected", equalTo(3));
+    }
 }
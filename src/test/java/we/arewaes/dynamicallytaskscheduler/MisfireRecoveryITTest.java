@@ -0,0 +1,211 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskDataSerializer;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+/**
+ * Misfire recovery benchmark: a cluster of {@code misfire.instances} instances starts at once on a database where all
+ * {@code misfire.tasks} tasks (cron {@code misfire.cron}) were last due {@code misfire.outage} ago, as after downtime
+ * of the whole cluster. Once a second it samples Postgres for committed transactions, rows written and the executions
+ * still more than a minute overdue, and reports how long the cluster took to reach steady state, with no such
+ * executions left, and the database load on the way there. {@code misfire.policy} and {@code misfire.catch-up-rate}
+ * set {@code scheduler.misfire.*}, so running it with different values compares them.
+ * <p>
+ * Only runs when {@code misfire.tasks} is set, e.g.
+ * {@code mvn test -Dtest=MisfireRecoveryITTest -Dmisfire.tasks=500000 -Dmisfire.policy=SKIP -Dmisfire.catch-up-rate=2000}.
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "misfire.tasks", matches = "\\d+")
+@DisplayName("Time to steady state and database load after cluster downtime")
+class MisfireRecoveryITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final int TASKS = Integer.getInteger("misfire.tasks", 100_000);
+    private static final int INSTANCES = Integer.getInteger("misfire.instances", 3);
+    private static final String CRON = System.getProperty("misfire.cron", "0 0/5 * * * *");
+    private static final Duration OUTAGE = Duration.parse(System.getProperty("misfire.outage", "PT1H"));
+    private static final MisfirePolicy POLICY = MisfirePolicy.valueOf(System.getProperty("misfire.policy", "FIRE_ONCE"));
+    private static final int CATCH_UP_RATE = Integer.getInteger("misfire.catch-up-rate", 500);
+    private static final Duration TIMEOUT = Duration.parse(System.getProperty("misfire.timeout", "PT30M"));
+    private static final Duration THRESHOLD = Duration.ofMinutes(1);
+    private static final int INSERT_CHUNK_SIZE = 5_000;
+    private static final String SAMPLE_DATABASE =
+            "SELECT xact_commit + xact_rollback AS transactions, tup_inserted + tup_updated + tup_deleted AS written " +
+                    "FROM pg_stat_database WHERE datname = current_database()";
+    private static final String COUNT_OVERDUE =
+            "SELECT count(*) FROM scheduled_tasks WHERE task_name = ? AND execution_time < now() - make_interval(secs => ?)";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db")
+                    .withCommand("postgres", "-c", "max_connections=" + Math.max(100, INSTANCES * 40));
+
+    @Test
+    @DisplayName("Overdue executions drain to steady state")
+    void recoverFromDowntime() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgreSQLContainer.getJdbcUrl(), "sa", "pass");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        scheduleOverdueTasks(jdbcTemplate);
+        long overdueAtStart = countOverdue(jdbcTemplate);
+
+        AtomicLong completed = new AtomicLong();
+        List<ConfigurableApplicationContext> instances = new ArrayList<>();
+        List<Sample> samples = new ArrayList<>();
+        PrintStream originalOut = System.out;
+        // the stdout event sink prints one line per execution
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Instant start = Instant.now();
+        Duration timeToSteadyState = null;
+        try {
+            Sample previous = sample(jdbcTemplate, start);
+            for (int i = 1; i <= INSTANCES; i++) {
+                instances.add(startInstance("misfire-instance-" + i, completed));
+            }
+            while (timeToSteadyState == null && Duration.between(start, Instant.now()).compareTo(TIMEOUT) < 0) {
+                sleep(Duration.ofSeconds(1));
+                Sample current = sample(jdbcTemplate, start);
+                samples.add(current.minus(previous));
+                previous = current;
+                if (current.overdue() == 0) {
+                    timeToSteadyState = Duration.between(start, Instant.now());
+                }
+            }
+        } finally {
+            for (ConfigurableApplicationContext instance : instances) {
+                instance.getBean(Scheduler.class).stop();
+            }
+            System.setOut(originalOut);
+        }
+
+        System.out.printf("tasks=%d overdueAtStart=%d instances=%d cron='%s' outage=%s policy=%s catchUpRate=%d/s per instance%n",
+                TASKS, overdueAtStart, INSTANCES, CRON, OUTAGE, POLICY, CATCH_UP_RATE);
+        System.out.printf("timeToSteadyState=%s completedExecutions=%d misfires=%.0f%n",
+                timeToSteadyState, completed.get(), instances.stream().mapToDouble(MisfireRecoveryITTest::misfires).sum());
+        System.out.printf("transactions/s: mean=%.1f peak=%d  rows written/s: mean=%.1f peak=%d%n",
+                samples.stream().mapToLong(Sample::transactions).average().orElse(0),
+                samples.stream().mapToLong(Sample::transactions).max().orElse(0),
+                samples.stream().mapToLong(Sample::written).average().orElse(0),
+                samples.stream().mapToLong(Sample::written).max().orElse(0));
+        for (Sample sample : samples) {
+            System.out.printf("  t=%4ds transactions=%d written=%d overdue=%d%n",
+                    sample.second(), sample.transactions(), sample.written(), sample.overdue());
+        }
+        instances.forEach(ConfigurableApplicationContext::close);
+
+        assertEquals(0, countOverdue(jdbcTemplate), "executions still overdue after " + TIMEOUT);
+    }
+
+    private ConfigurableApplicationContext startInstance(String instanceId, AtomicLong completed) {
+        return new SpringApplicationBuilder(DynamicallytaskschedulerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=pass",
+                        "instance.id=" + instanceId,
+                        "task.data-migration.enabled=false",
+                        "scheduler.misfire.policy=" + POLICY,
+                        "scheduler.misfire.threshold=" + THRESHOLD.toSeconds() + "s",
+                        "scheduler.misfire.catch-up-rate=" + CATCH_UP_RATE,
+                        "logging.level.root=WARN")
+                .initializers(context -> context.getBeanFactory().registerSingleton("misfireRecoveryListener", new AbstractSchedulerListener() {
+                    @Override
+                    public void onExecutionComplete(ExecutionComplete executionComplete) {
+                        completed.incrementAndGet();
+                    }
+                }))
+                .run();
+    }
+
+    /**
+     * Stores every task with its first fire after the start of the outage, so all of them are overdue.
+     */
+    private static void scheduleOverdueTasks(JdbcTemplate jdbcTemplate) {
+        CronScheduleCache cronScheduleCache = new CronScheduleCache(10);
+        ScheduledTaskJdbcRepository repository = new ScheduledTaskJdbcRepository(jdbcTemplate,
+                new TaskDataSerializer(Serializer.DEFAULT_JAVA_SERIALIZER, cronScheduleCache));
+        Instant outageStart = Instant.now().minus(OUTAGE);
+        Map<String, ScheduleAndNoData> chunk = new LinkedHashMap<>(INSERT_CHUNK_SIZE * 2);
+        for (int i = 0; i < TASKS; i++) {
+            chunk.put("misfire-" + i, new ScheduleAndNoData(cronScheduleCache.get(CRON), false));
+            if (chunk.size() == INSERT_CHUNK_SIZE || i == TASKS - 1) {
+                repository.insertScheduledTasks(chunk);
+                repository.insertExecutions(chunk, outageStart);
+                chunk.clear();
+            }
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE scheduled_tasks");
+    }
+
+    private static long countOverdue(JdbcTemplate jdbcTemplate) {
+        Long overdue = jdbcTemplate.queryForObject(COUNT_OVERDUE, Long.class, DYNAMIC_RECURRING_TASK_NAME, THRESHOLD.toSeconds());
+        return overdue == null ? 0 : overdue;
+    }
+
+    private static Sample sample(JdbcTemplate jdbcTemplate, Instant start) {
+        long overdue = countOverdue(jdbcTemplate);
+        return jdbcTemplate.queryForObject(SAMPLE_DATABASE, (rs, rowNum) -> new Sample(
+                Duration.between(start, Instant.now()).toSeconds(), rs.getLong("transactions"), rs.getLong("written"), overdue));
+    }
+
+    private static double misfires(ConfigurableApplicationContext instance) {
+        return instance.getBean(MeterRegistry.class).find("scheduler.misfires").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cumulative database counters at one point in time, or the difference between two of them.
+     */
+    private record Sample(long second, long transactions, long written, long overdue) {
+
+        private Sample minus(Sample previous) {
+            return new Sample(second, transactions - previous.transactions, written - previous.written, overdue);
+        }
+    }
+}
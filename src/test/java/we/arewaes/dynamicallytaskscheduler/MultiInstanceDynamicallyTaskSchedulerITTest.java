@@ -12,7 +12,6 @@ import org.testcontainers.images.builder.ImageFromDockerfile;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
-import org.testcontainers.utility.MountableFile;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -39,12 +38,7 @@ class MultiInstanceDynamicallyTaskSchedulerITTest implements BeforeAllCallback,
                     .withDatabaseName("test")
                     .withUsername("sa")
                     .withPassword("pass")
-                    .withDatabaseName("db")
-                    .withCopyFileToContainer(
-                            MountableFile.forClasspathResource(
-                                    "database/init-schema.sql"),
-                            "/docker-entrypoint-initdb.d/"
-                    );
+                    .withDatabaseName("db");
 
     private Path dockerfilePath;
     private String jdbc_url;
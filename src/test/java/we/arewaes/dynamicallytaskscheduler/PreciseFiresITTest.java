@@ -0,0 +1,103 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.service.TaskSchedulerService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Polls only every 10 seconds, so executions can only start within a fraction of a second of their execution time
+ * through precise-fire wakeups: the first fire of a new task through its NOTIFY, later fires through the look-ahead
+ * prefetch. Prints the p50 and p99 fire lag.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "scheduler.polling.adaptive=false",
+        "scheduler.polling.interval=10s",
+        "scheduler.precise-fires.enabled=true",
+        "task.reconciler.enabled=false",
+        "task.data-migration.enabled=false"})
+@ActiveProfiles("test")
+@DisplayName("Precise fires start executions on time between polls")
+class PreciseFiresITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final Duration RUN = Duration.ofSeconds(9);
+    private static final long MAX_P99_LAG_MILLIS = 500;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "pass");
+    }
+
+    @TestConfiguration
+    static class LagRecorderConfiguration {
+
+        @Bean
+        LagRecorder lagRecorder() {
+            return new LagRecorder();
+        }
+    }
+
+    static class LagRecorder extends AbstractSchedulerListener {
+
+        private final ConcurrentLinkedQueue<Long> lagMillis = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onExecutionStart(CurrentlyExecuting currentlyExecuting) {
+            if (currentlyExecuting.getTaskInstance().getId().startsWith("precise-")) {
+                lagMillis.add(Duration.between(currentlyExecuting.getExecution().executionTime, Instant.now()).toMillis());
+            }
+        }
+    }
+
+    @Autowired
+    private TaskSchedulerService taskSchedulerService;
+
+    @Autowired
+    private LagRecorder lagRecorder;
+
+    @Test
+    @DisplayName("Fires every two seconds start well within a second of their execution time")
+    void executions_shouldStartOnTime_betweenPolls() throws InterruptedException {
+        taskSchedulerService.scheduleTaskExecution("precise-1", "*/2 * * * * *", Duration.ZERO, null, null, null, null, null);
+        taskSchedulerService.scheduleTaskExecution("precise-2", "1/2 * * * * *", Duration.ZERO, null, null, null, null, null);
+
+        Thread.sleep(RUN.toMillis());
+
+        List<Long> lags = lagRecorder.lagMillis.stream().sorted().toList();
+        long p50 = lags.get(lags.size() / 2);
+        long p99 = lags.get((int) Math.ceil(lags.size() * 0.99) - 1);
+        System.out.printf("%d fires, lag ms: p50=%d p99=%d max=%d%n", lags.size(), p50, p99, lags.get(lags.size() - 1));
+        assertTrue(lags.size() >= 6, "fires: " + lags.size());
+        assertTrue(p99 <= MAX_P99_LAG_MILLIS, "p99 fire lag " + p99 + " ms");
+    }
+}
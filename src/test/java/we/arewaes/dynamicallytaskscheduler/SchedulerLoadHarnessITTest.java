@@ -0,0 +1,377 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.ScheduleJitter;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load and latency harness: starts {@code load.instances} application contexts in this JVM against one Postgres
+ * container, bulk-schedules {@code load.tasks} tasks whose cron second is Zipf-distributed with exponent
+ * {@code load.skew} (so a few seconds of every period are hot), lets them run for {@code load.duration} and writes
+ * an HDR histogram of fire lag plus a per-instance summary to {@code target/load-report}. With {@code load.spread}
+ * set to a window, every task is spread over it with {@link ScheduleJitter}, so running once with and once without
+ * shows what jitter does to peak statements per second and fire lag. {@code load.precise-fires=true} turns on
+ * {@code scheduler.precise-fires}, to compare fire lag percentiles with and without it.
+ * <p>
+ * Only runs when {@code load.tasks} is set, e.g.
+ * {@code mvn test -Dtest=SchedulerLoadHarnessITTest -Dload.tasks=100000 -Dload.instances=4 -Dload.duration=PT5M}.
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "load.tasks", matches = "\\d+")
+@DisplayName("Load and latency harness for multiple scheduler instances")
+class SchedulerLoadHarnessITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final int TASKS = Integer.getInteger("load.tasks", 10_000);
+    private static final int INSTANCES = Integer.getInteger("load.instances", 3);
+    private static final int PERIOD_MINUTES = Integer.getInteger("load.period-minutes", 1);
+    private static final double SKEW = Double.parseDouble(System.getProperty("load.skew", "1.2"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT3M"));
+    private static final Duration SPREAD = Duration.parse(System.getProperty("load.spread", "PT0S"));
+    private static final boolean PRECISE_FIRES = Boolean.getBoolean("load.precise-fires");
+    // fires due this close to the end of the run may legitimately not have started yet
+    private static final Duration MISSED_FIRE_GRACE = Duration.ofSeconds(30);
+    private static final int INSERT_CHUNK_SIZE = 5_000;
+    private static final Path REPORT_DIRECTORY = Path.of("target", "load-report");
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db")
+                    .withCommand("postgres", "-c", "max_connections=" + Math.max(100, INSTANCES * 40));
+
+    @Test
+    @DisplayName("Scheduled tasks fire once each, with fire lag reported")
+    void runLoad() throws IOException {
+        LoadRecorder recorder = new LoadRecorder();
+        List<ConfigurableApplicationContext> instances = new ArrayList<>();
+        PrintStream originalOut = System.out;
+        // TaskExecutorService prints one line per execution
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Instant windowStart;
+        Instant windowEnd;
+        Map<String, ScheduleAndNoData> schedules;
+        try {
+            for (int i = 1; i <= INSTANCES; i++) {
+                instances.add(startInstance("load-instance-" + i, recorder));
+            }
+            schedules = scheduleTasks(instances.get(0).getBean(ScheduledTaskJdbcRepository.class),
+                    instances.get(0).getBean(CronScheduleCache.class));
+            windowStart = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+            windowEnd = windowStart.plus(DURATION);
+            sleepUntil(windowEnd);
+            recorder.sampleCpu();
+        } finally {
+            for (ConfigurableApplicationContext instance : instances) {
+                instance.getBean(Scheduler.class).stop();
+                instance.close();
+            }
+            System.setOut(originalOut);
+        }
+
+        long missedFires = recorder.countMissedFires(schedules, windowStart, windowEnd.minus(MISSED_FIRE_GRACE));
+        String report = recorder.report(windowStart, windowEnd, missedFires);
+        Files.createDirectories(REPORT_DIRECTORY);
+        Files.writeString(REPORT_DIRECTORY.resolve("summary.txt"), report);
+        try (PrintStream histogram = new PrintStream(Files.newOutputStream(REPORT_DIRECTORY.resolve("fire-lag.hgrm")))) {
+            recorder.fireLag.outputPercentileDistribution(histogram, 1000.0);
+        }
+        System.out.println(report);
+
+        assertEquals(0, recorder.duplicates.get(), "duplicate executions");
+    }
+
+    private ConfigurableApplicationContext startInstance(String instanceId, LoadRecorder recorder) {
+        InstanceStats stats = recorder.instance(instanceId);
+        return new SpringApplicationBuilder(DynamicallytaskschedulerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=pass",
+                        "instance.id=" + instanceId,
+                        "task.data-migration.enabled=false",
+                        "scheduler.precise-fires.enabled=" + PRECISE_FIRES,
+                        "logging.level.root=WARN")
+                .initializers(context -> {
+                    context.getBeanFactory().registerSingleton("loadRecorderListener", recorder.listener(stats));
+                    context.getBeanFactory().addBeanPostProcessor(new QueryCountingPostProcessor(stats.queries, recorder.queriesPerSecond));
+                })
+                .run();
+    }
+
+    /**
+     * Inserts the tasks through the bulk JDBC path, each with a cron that fires every {@code load.period-minutes}
+     * at a Zipf-distributed second, jittered over {@code load.spread}.
+     */
+    private Map<String, ScheduleAndNoData> scheduleTasks(ScheduledTaskJdbcRepository repository, CronScheduleCache cronScheduleCache) {
+        Random random = new Random(42);
+        double[] cumulative = new double[60];
+        double total = 0;
+        for (int rank = 0; rank < 60; rank++) {
+            total += 1 / Math.pow(rank + 1, SKEW);
+            cumulative[rank] = total;
+        }
+
+        ScheduleJitter scheduleJitter = new ScheduleJitter(SPREAD);
+        Map<String, ScheduleAndNoData> schedules = new LinkedHashMap<>(TASKS * 2);
+        Map<String, ScheduleAndNoData> chunk = new LinkedHashMap<>(INSERT_CHUNK_SIZE * 2);
+        for (int i = 0; i < TASKS; i++) {
+            double sample = random.nextDouble() * total;
+            int second = 0;
+            while (cumulative[second] < sample) {
+                second++;
+            }
+            String taskId = "load-" + i;
+            ScheduleAndNoData data = new ScheduleAndNoData(cronScheduleCache.get(second + " 0/" + PERIOD_MINUTES + " * * * *"),
+                    false, scheduleJitter.offset(taskId));
+            schedules.put(taskId, data);
+            chunk.put(taskId, data);
+            if (chunk.size() == INSERT_CHUNK_SIZE || i == TASKS - 1) {
+                repository.insertScheduledTasks(chunk);
+                repository.insertExecutions(chunk, Instant.now());
+                chunk.clear();
+            }
+        }
+        return schedules;
+    }
+
+    private static void sleepUntil(Instant end) {
+        try {
+            Thread.sleep(Math.max(0, Duration.between(Instant.now(), end).toMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class InstanceStats {
+        private final String instanceId;
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong queries = new AtomicLong();
+        private final Set<Long> threadIds = ConcurrentHashMap.newKeySet();
+        private long cpuNanos;
+
+        private InstanceStats(String instanceId) {
+            this.instanceId = instanceId;
+        }
+    }
+
+    private static final class LoadRecorder {
+        private final Histogram fireLag = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+        private final Map<String, Set<Long>> firesByTask = new ConcurrentHashMap<>();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final Map<String, InstanceStats> instances = new ConcurrentHashMap<>();
+        private final Map<Long, AtomicLong> queriesPerSecond = new ConcurrentHashMap<>();
+
+        private InstanceStats instance(String instanceId) {
+            return instances.computeIfAbsent(instanceId, InstanceStats::new);
+        }
+
+        /**
+         * Records every scheduler thread that reports an event, so CPU can be attributed to the instance owning it.
+         */
+        private SchedulerListener listener(InstanceStats stats) {
+            return new AbstractSchedulerListener() {
+                @Override
+                public void onExecutionStart(CurrentlyExecuting currentlyExecuting) {
+                    Instant executionTime = currentlyExecuting.getExecution().executionTime;
+                    fireLag.recordValue(Math.max(0, ChronoUnit.MICROS.between(executionTime, Instant.now())));
+                    boolean first = firesByTask
+                            .computeIfAbsent(currentlyExecuting.getTaskInstance().getId(), id -> ConcurrentHashMap.newKeySet())
+                            .add(executionTime.getEpochSecond());
+                    if (!first) {
+                        duplicates.incrementAndGet();
+                    }
+                    stats.executions.incrementAndGet();
+                    stats.threadIds.add(Thread.currentThread().threadId());
+                }
+
+                @Override
+                public void onExecutionComplete(ExecutionComplete executionComplete) {
+                    stats.threadIds.add(Thread.currentThread().threadId());
+                }
+
+                @Override
+                public void onSchedulerEvent(SchedulerEventType type) {
+                    stats.threadIds.add(Thread.currentThread().threadId());
+                }
+            };
+        }
+
+        private void sampleCpu() {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            for (InstanceStats stats : instances.values()) {
+                stats.cpuNanos = stats.threadIds.stream()
+                        .mapToLong(threadMXBean::getThreadCpuTime)
+                        .filter(nanos -> nanos > 0)
+                        .sum();
+            }
+        }
+
+        private long countMissedFires(Map<String, ScheduleAndNoData> schedules, Instant from, Instant to) {
+            long missed = 0;
+            for (Map.Entry<String, ScheduleAndNoData> task : schedules.entrySet()) {
+                Set<Long> fires = firesByTask.getOrDefault(task.getKey(), Set.of());
+                var schedule = task.getValue().getSchedule();
+                Instant fire = schedule.getNextExecutionTime(ExecutionComplete.simulatedSuccess(from.minusSeconds(1)));
+                while (!fire.isAfter(to)) {
+                    if (!fires.contains(fire.getEpochSecond())) {
+                        missed++;
+                    }
+                    fire = schedule.getNextExecutionTime(ExecutionComplete.simulatedSuccess(fire));
+                }
+            }
+            return missed;
+        }
+
+        private String report(Instant windowStart, Instant windowEnd, long missedFires) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+            out.printf("tasks=%d instances=%d period=%dm skew=%.2f spread=%s preciseFires=%s window=%s..%s%n",
+                    TASKS, INSTANCES, PERIOD_MINUTES, SKEW, SPREAD, PRECISE_FIRES, windowStart, windowEnd);
+            out.printf("executions=%d duplicates=%d missedFires=%d%n",
+                    fireLag.getTotalCount(), duplicates.get(), missedFires);
+            out.printf("fireLag ms: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    fireLag.getValueAtPercentile(50) / 1000.0, fireLag.getValueAtPercentile(90) / 1000.0,
+                    fireLag.getValueAtPercentile(99) / 1000.0, fireLag.getValueAtPercentile(99.9) / 1000.0,
+                    fireLag.getMaxValue() / 1000.0);
+            long[] perSecond = queriesPerSecond.entrySet().stream()
+                    .filter(second -> second.getKey() >= windowStart.getEpochSecond() && second.getKey() < windowEnd.getEpochSecond())
+                    .mapToLong(second -> second.getValue().get())
+                    .sorted()
+                    .toArray();
+            out.printf("statements/s: mean=%.1f p99=%d peak=%d%n",
+                    perSecond.length == 0 ? 0 : (double) Arrays.stream(perSecond).sum() / DURATION.toSeconds(),
+                    perSecond.length == 0 ? 0 : perSecond[(int) Math.min(perSecond.length - 1, Math.ceil(perSecond.length * 0.99) - 1)],
+                    perSecond.length == 0 ? 0 : perSecond[perSecond.length - 1]);
+            instances.values().stream()
+                    .sorted((a, b) -> a.instanceId.compareTo(b.instanceId))
+                    .forEach(stats -> {
+                        long executions = stats.executions.get();
+                        out.printf("%s: executions=%d queries=%d queriesPerExecution=%.2f cpuMs=%d cpuUsPerExecution=%.1f%n",
+                                stats.instanceId, executions, stats.queries.get(),
+                                executions == 0 ? 0 : (double) stats.queries.get() / executions,
+                                TimeUnit.NANOSECONDS.toMillis(stats.cpuNanos),
+                                executions == 0 ? 0 : stats.cpuNanos / 1000.0 / executions);
+                    });
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Wraps the instance's DataSource so every statement executed through it is counted, in total for the instance and
+     * per wall-clock second across all instances.
+     */
+    private record QueryCountingPostProcessor(AtomicLong queries, Map<Long, AtomicLong> queriesPerSecond) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(new Class<?>[]{DataSource.class, Closeable.class}, (method, args) -> {
+                if (method.getDeclaringClass() == Closeable.class) {
+                    if (dataSource instanceof Closeable closeable) {
+                        closeable.close();
+                    }
+                    return null;
+                }
+                Object result = invoke(dataSource, method, args);
+                return result instanceof Connection connection ? countingConnection(connection) : result;
+            });
+        }
+
+        private Connection countingConnection(Connection connection) {
+            return proxy(new Class<?>[]{Connection.class}, (method, args) -> {
+                Object result = invoke(connection, method, args);
+                return result instanceof Statement statement ? countingStatement(statement) : result;
+            });
+        }
+
+        private Statement countingStatement(Statement statement) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return proxy(new Class<?>[]{type}, (method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    queries.incrementAndGet();
+                    queriesPerSecond.computeIfAbsent(System.currentTimeMillis() / 1000, second -> new AtomicLong()).incrementAndGet();
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<?>[] interfaces, Handler handler) {
+            return (T) Proxy.newProxyInstance(QueryCountingPostProcessor.class.getClassLoader(), interfaces,
+                    (proxy, method, args) -> handler.handle(method, args));
+        }
+
+        @FunctionalInterface
+        private interface Handler {
+            Object handle(Method method, Object[] args) throws Throwable;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the plans of the scheduler's hot queries against the migrated schema, and reports poll latency per table
+ * size. The sizes default to a quick run; pass e.g. {@code -Dschema.rows=1000000,10000000} for the full benchmark.
+ * Statements are prepared and executed past pgjdbc's and PostgreSQL's plan caching thresholds before being explained,
+ * because db-scheduler binds {@code picked} as a parameter and a generic plan could not use the partial indexes.
+ */
+@Testcontainers
+@DisplayName("Schema indexes keep the scheduler queries on index scans")
+class SchemaIndexITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final List<Integer> ROWS = Arrays.stream(System.getProperty("schema.rows", "200000").split(","))
+            .map(String::trim).map(Integer::parseInt).toList();
+    private static final int PLAN_CACHE_WARMUP = 10;
+    private static final int TIMED_POLLS = 200;
+
+    // the statements db-scheduler 15 issues on PostgreSQL, with the batch limit inlined the way it does
+    private static final String FETCH_DUE =
+            "select * from scheduled_tasks where picked = $1 and execution_time <= $2 ORDER BY execution_time ASC LIMIT 30";
+    private static final String LOCK_AND_FETCH =
+            "WITH locked_executions as (UPDATE scheduled_tasks st1 SET picked = $1, picked_by = $2, last_heartbeat = $3, " +
+                    "version = version + 1 WHERE (st1.task_name, st1.task_instance) IN (SELECT st2.task_name, st2.task_instance " +
+                    "FROM scheduled_tasks st2 WHERE picked = $4 and execution_time <= $5 ORDER BY execution_time ASC " +
+                    "FOR UPDATE SKIP LOCKED LIMIT 30) RETURNING st1.*) SELECT * FROM locked_executions";
+    private static final String DETECT_DEAD =
+            "select * from scheduled_tasks where picked = $1 and last_heartbeat <= $2 ORDER BY last_heartbeat ASC";
+    private static final String COUNT_DUE =
+            "SELECT count(*) FROM scheduled_tasks WHERE picked = false AND execution_time <= now()";
+    private static final String NEXT_EXECUTION_TIME =
+            "SELECT min(execution_time) FROM scheduled_tasks WHERE picked = false";
+    private static final String FIND_ON_HOLD =
+            "SELECT EXISTS (SELECT 1 FROM SCHEDULED_TASK WHERE ID = $1 AND ON_HOLD)";
+    private static final String TASK_IDS_BY_CRON =
+            "SELECT ID FROM SCHEDULED_TASK WHERE ID > $1 AND CRON = $2 ORDER BY ID LIMIT 5000";
+    private static final String TASK_VIEWS_PAGE =
+            "SELECT t.ID, t.CRON, t.ON_HOLD, e.execution_time, e.picked_by, e.consecutive_failures FROM SCHEDULED_TASK t " +
+                    "LEFT JOIN scheduled_tasks e ON e.task_name = 'dynamic-recurring-task' AND e.task_instance = t.ID " +
+                    "WHERE t.ID > $1 ORDER BY t.ID LIMIT 1000";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Hot queries use the partial indexes and poll latency stays flat as the table grows")
+    void hotQueriesStayOnIndexes() throws Exception {
+        Map<String, Double> pollMillis = new LinkedHashMap<>();
+        for (int rows : ROWS) {
+            for (boolean partitioned : new boolean[]{false, true}) {
+                Flyway flyway = Flyway.configure()
+                        .dataSource(postgreSQLContainer.getJdbcUrl(), "sa", "pass")
+                        .cleanDisabled(false)
+                        .load();
+                flyway.clean();
+                flyway.migrate();
+                try (Connection connection = connect()) {
+                    if (partitioned) {
+                        execute(connection, new ClassPathResource("database/hash-partition-scheduled-tasks.sql")
+                                .getContentAsString(StandardCharsets.UTF_8));
+                    }
+                    populate(connection, rows);
+                    String layout = (partitioned ? "partitioned" : "plain") + ", " + rows + " rows";
+
+                    assertIndexScan(layout, "scheduled_tasks_due_idx", plan(connection, FETCH_DUE, "false", "now() + interval '1 minute'"));
+                    assertIndexScan(layout, "scheduled_tasks_due_idx",
+                            planInRolledBackTransaction(connection, LOCK_AND_FETCH, "true", "'explain'", "now()", "false", "now() + interval '1 minute'"));
+                    assertIndexScan(layout, "scheduled_tasks_picked_heartbeat_idx", plan(connection, DETECT_DEAD, "true", "now() - interval '5 minutes'"));
+                    assertIndexOnlyScan(layout, plan(connection, COUNT_DUE));
+                    assertIndexOnlyScan(layout, plan(connection, NEXT_EXECUTION_TIME));
+                    assertIndexScan(layout, null, plan(connection, FIND_ON_HOLD, "'task-000001000'"));
+                    assertIndexScan(layout, "scheduled_task_cron_idx", plan(connection, TASK_IDS_BY_CRON, "''", "'0 7 * * * *'"));
+                    assertIndexScan(layout, null, plan(connection, TASK_VIEWS_PAGE, "'task-000100000'"));
+
+                    pollMillis.put(layout, medianPollMillis(connection));
+                }
+            }
+        }
+
+        System.out.println("Median fetch-due poll latency:");
+        pollMillis.forEach((layout, millis) -> System.out.printf("  %-30s %8.3f ms%n", layout, millis));
+        if (ROWS.size() > 1) {
+            int smallest = ROWS.stream().min(Integer::compare).orElseThrow();
+            int largest = ROWS.stream().max(Integer::compare).orElseThrow();
+            for (String layout : List.of("plain", "partitioned")) {
+                double small = pollMillis.get(layout + ", " + smallest + " rows");
+                double large = pollMillis.get(layout + ", " + largest + " rows");
+                assertTrue(large <= Math.max(5, small * 4),
+                        layout + " poll latency grew from " + small + " ms to " + large + " ms");
+            }
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgreSQLContainer.getJdbcUrl(), "sa", "pass");
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void populate(Connection connection, int rows) throws SQLException {
+        // one execution per task, spread over a day; one in ten thousand is picked and heartbeating, one in a thousand
+        // is held, and tasks are spread over sixty cron expressions
+        execute(connection, "INSERT INTO SCHEDULED_TASK (ID, CRON, ON_HOLD) " +
+                "SELECT 'task-' || lpad(i::text, 9, '0'), '0 ' || (i % 60) || ' * * * *', i % 1000 = 0 " +
+                "FROM generate_series(1, " + rows + ") i");
+        execute(connection, "INSERT INTO scheduled_tasks (task_name, task_instance, task_data, execution_time, picked, " +
+                "picked_by, last_heartbeat, version) " +
+                "SELECT 'dynamic-recurring-task', 'task-' || lpad(i::text, 9, '0'), '\\xc50100'::bytea, " +
+                "now() + (i % 86400) * interval '1 second', i % 10000 = 0, " +
+                "CASE WHEN i % 10000 = 0 THEN 'instance-1' END, CASE WHEN i % 10000 = 0 THEN now() END, 1 " +
+                "FROM generate_series(1, " + rows + ") i");
+        execute(connection, "VACUUM ANALYZE scheduled_tasks");
+        execute(connection, "VACUUM ANALYZE SCHEDULED_TASK");
+    }
+
+    private JsonNode plan(Connection connection, String sql, String... arguments) throws Exception {
+        if (arguments.length == 0) {
+            return explain(connection, "EXPLAIN (FORMAT JSON) " + sql);
+        }
+        String name = "explained_" + Integer.toHexString(sql.hashCode() & 0x7fffffff);
+        execute(connection, "PREPARE " + name + " AS " + sql);
+        try {
+            String executeSql = "EXECUTE " + name + "(" + String.join(", ", arguments) + ")";
+            for (int i = 0; i < PLAN_CACHE_WARMUP; i++) {
+                execute(connection, executeSql);
+            }
+            return explain(connection, "EXPLAIN (FORMAT JSON) " + executeSql);
+        } finally {
+            execute(connection, "DEALLOCATE " + name);
+        }
+    }
+
+    private JsonNode planInRolledBackTransaction(Connection connection, String sql, String... arguments) throws Exception {
+        connection.setAutoCommit(false);
+        try {
+            return plan(connection, sql, arguments);
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private JsonNode explain(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return objectMapper.readTree(rs.getString(1)).get(0).get("Plan");
+        }
+    }
+
+    private static List<JsonNode> scans(JsonNode plan) {
+        List<JsonNode> scans = new ArrayList<>();
+        if (plan.has("Relation Name")) {
+            scans.add(plan);
+        }
+        if (plan.has("Plans")) {
+            plan.get("Plans").forEach(child -> scans.addAll(scans(child)));
+        }
+        return scans;
+    }
+
+    private static void assertIndexScan(String layout, String indexPrefix, JsonNode plan) {
+        List<JsonNode> scans = scans(plan);
+        assertFalse(scans.isEmpty(), layout + ": no table access in " + plan);
+        for (JsonNode scan : scans) {
+            String nodeType = scan.get("Node Type").asText();
+            assertFalse(nodeType.equals("Seq Scan"), layout + ": sequential scan in " + plan);
+        }
+        if (indexPrefix != null && !layout.startsWith("partitioned")) {
+            assertTrue(scans.stream().anyMatch(scan -> scan.has("Index Name") && scan.get("Index Name").asText().startsWith(indexPrefix)),
+                    layout + ": expected " + indexPrefix + " in " + plan);
+        }
+    }
+
+    private static void assertIndexOnlyScan(String layout, JsonNode plan) {
+        List<JsonNode> scans = scans(plan);
+        assertFalse(scans.isEmpty(), layout + ": no table access in " + plan);
+        assertTrue(scans.stream().allMatch(scan -> scan.get("Node Type").asText().equals("Index Only Scan")),
+                layout + ": expected index-only scans in " + plan);
+    }
+
+    private static double medianPollMillis(Connection connection) throws SQLException {
+        String sql = FETCH_DUE.replace("$1", "?").replace("$2", "?");
+        long[] nanos = new long[TIMED_POLLS];
+        try (var statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < TIMED_POLLS + PLAN_CACHE_WARMUP; i++) {
+                statement.setBoolean(1, false);
+                statement.setObject(2, OffsetDateTime.now().plusMinutes(1));
+                long start = System.nanoTime();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getBytes("task_data");
+                    }
+                }
+                if (i >= PLAN_CACHE_WARMUP) {
+                    nanos[i - PLAN_CACHE_WARMUP] = System.nanoTime() - start;
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        return nanos[TIMED_POLLS / 2] / 1e6;
+    }
+}
@@ -0,0 +1,166 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.RebalanceResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.service.ShardRebalancer;
+import we.arewaes.dynamicallytaskscheduler.service.TaskQueryService;
+import we.arewaes.dynamicallytaskscheduler.service.TaskService;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the service on three databases of one Postgres container: tasks are stored on the shard they route to, the
+ * task list merges every shard in id order, and a rebalance moves tasks stored on the wrong shard.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "task.reconciler.enabled=false",
+        "task.data-migration.enabled=false"})
+@ActiveProfiles("test")
+@DisplayName("Tasks are sharded across several databases")
+class ShardedSchedulingITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final List<String> SHARD_DATABASES = List.of("db", "shard1", "shard2");
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        JdbcTemplate admin = jdbcTemplate("db");
+        for (String database : SHARD_DATABASES.subList(1, SHARD_DATABASES.size())) {
+            admin.execute("CREATE DATABASE " + database);
+        }
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "pass");
+        registry.add("task.sharding.urls", () -> url("shard1") + "," + url("shard2"));
+    }
+
+    private static String url(String database) {
+        return postgreSQLContainer.getJdbcUrl().replace("/db?", "/" + database + "?");
+    }
+
+    private static JdbcTemplate jdbcTemplate(String database) {
+        return new JdbcTemplate(new DriverManagerDataSource(url(database), "sa", "pass"));
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskQueryService taskQueryService;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private TaskShards taskShards;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CronScheduleCache cronScheduleCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Tasks are stored on their shard and listed from all shards in id order")
+    void scheduleTask_shouldStoreTasksOnTheirShard_andListThemInOrder() throws Exception {
+        List<String> taskIds = IntStream.range(0, 30).mapToObj(i -> "sharded-%02d".formatted(i)).toList();
+        for (String taskId : taskIds) {
+            TaskRequest taskRequest = new TaskRequest();
+            taskRequest.setTaskId(taskId);
+            taskRequest.setCron("0 0 * * * *");
+            taskService.scheduleTask(taskRequest);
+        }
+
+        for (String taskId : taskIds) {
+            String database = SHARD_DATABASES.get(shardRouter.shardFor(taskId));
+            assertEquals(List.of(database), databasesStoring(taskId), taskId);
+            assertEquals(1, jdbcTemplate(database).queryForObject(
+                    "SELECT count(*) FROM scheduled_tasks WHERE task_instance = ?", Integer.class, taskId), taskId);
+        }
+
+        List<String> listed = new ArrayList<>();
+        String after = "sharded-";
+        do {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            taskQueryService.writeTasks(after, 7, out);
+            JsonNode page = objectMapper.readTree(out.toByteArray());
+            page.get("tasks").forEach(task -> listed.add(task.get("taskId").asText()));
+            after = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (after != null);
+        assertEquals(taskIds, listed.stream().filter(taskId -> taskId.startsWith("sharded-")).toList());
+    }
+
+    @Test
+    @DisplayName("A rebalance moves tasks stored on the wrong shard to the shard they route to")
+    void rebalance_shouldMoveMisplacedTasks() {
+        TaskShard shardZero = taskShards.all().get(0);
+        Map<String, ScheduleAndNoData> misplaced = new LinkedHashMap<>();
+        IntStream.range(0, 200).mapToObj(i -> "misplaced-" + i)
+                .filter(taskId -> shardRouter.shardFor(taskId) != 0)
+                .limit(20)
+                .forEach(taskId -> misplaced.put(taskId, new ScheduleAndNoData(cronScheduleCache.get("0 0 * * * *"), false)));
+        shardZero.transaction().executeWithoutResult(status -> {
+            shardZero.scheduledTaskJdbcRepository().insertScheduledTasks(misplaced);
+            shardZero.scheduledTaskJdbcRepository().insertExecutions(misplaced, Instant.now().plusSeconds(3600));
+        });
+
+        RebalanceResult result = shardRebalancer.rebalance();
+
+        assertTrue(result.getMoved() >= misplaced.size(), "Moved " + result.getMoved());
+        assertEquals(0, result.getSkipped());
+        for (String taskId : misplaced.keySet()) {
+            String database = SHARD_DATABASES.get(shardRouter.shardFor(taskId));
+            assertEquals(List.of(database), databasesStoring(taskId), taskId);
+            assertEquals(1, jdbcTemplate(database).queryForObject(
+                    "SELECT count(*) FROM scheduled_tasks WHERE task_instance = ?", Integer.class, taskId), taskId);
+        }
+        assertTrue(taskQueryService.findTask(misplaced.keySet().iterator().next()).isPresent());
+    }
+
+    private static List<String> databasesStoring(String taskId) {
+        return SHARD_DATABASES.stream()
+                .filter(database -> jdbcTemplate(database).queryForObject(
+                        "SELECT count(*) FROM SCHEDULED_TASK WHERE ID = ?", Integer.class, taskId) > 0)
+                .toList();
+    }
+}
@@ -0,0 +1,168 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskImportResult;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.TaskCatalogService;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exports the catalogue to a file, empties both tables and imports the file back, then imports it again with and
+ * without overwriting. {@code -Dcopy.tasks=1000000} reports the export and import times of a large catalogue.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "task.reconciler.enabled=false",
+        "task.data-migration.enabled=false"})
+@ActiveProfiles("test")
+@DisplayName("The task catalogue survives a COPY export and import")
+class TaskCatalogCopyITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final int TASKS = Integer.getInteger("copy.tasks", 10_000);
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "pass");
+    }
+
+    @Autowired
+    private TaskCatalogService taskCatalogService;
+
+    @Autowired
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+
+    @Autowired
+    private CronScheduleCache cronScheduleCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    @DisplayName("Export, restore into empty tables and re-import")
+    void importTasks_shouldRestoreAnExport() throws Exception {
+        ScheduleAndNoData hourly = new ScheduleAndNoData(cronScheduleCache.get("0 0 * * * *"), false);
+        for (int from = 0; from < TASKS; from += INSERT_CHUNK) {
+            Map<String, ScheduleAndNoData> chunk = new LinkedHashMap<>();
+            for (int i = from; i < Math.min(TASKS, from + INSERT_CHUNK); i++) {
+                chunk.put("copy-" + i, hourly);
+            }
+            scheduledTaskJdbcRepository.insertScheduledTasks(chunk);
+            scheduledTaskJdbcRepository.insertExecutions(chunk, Instant.now());
+        }
+        jdbcTemplate.update("UPDATE SCHEDULED_TASK SET ON_HOLD = true WHERE ID = 'copy-1'");
+        List<Map<String, Object>> before = catalogue();
+
+        Path export = tempDir.resolve("tasks.csv");
+        long exportStart = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(export)) {
+            taskCatalogService.exportTasks(out);
+        }
+        long exportMillis = (System.nanoTime() - exportStart) / 1_000_000;
+        jdbcTemplate.update("DELETE FROM scheduled_tasks");
+        jdbcTemplate.update("DELETE FROM SCHEDULED_TASK");
+
+        TaskImportResult restored = importFile(export, false);
+        System.out.printf("%d tasks: export %d ms (%d MB), import %d ms%n",
+                TASKS, exportMillis, Files.size(export) >> 20, restored.getElapsedMillis());
+        assertEquals(TASKS, restored.getInserted());
+        assertEquals(TASKS, restored.getExecutionsWritten());
+        assertEquals(before, catalogue());
+
+        TaskImportResult skipped = importFile(export, false);
+        assertEquals(TASKS, skipped.getSkipped());
+        assertEquals(0, skipped.getExecutionsWritten());
+
+        jdbcTemplate.update("UPDATE SCHEDULED_TASK SET CRON = '0 30 * * * *' WHERE ID = 'copy-2'");
+        TaskImportResult overwritten = importFile(export, true);
+        assertEquals(1, overwritten.getUpdated());
+        assertEquals(1, overwritten.getExecutionsWritten());
+        assertEquals(before, catalogue());
+    }
+
+    @Test
+    @DisplayName("A dead-lettered task comes back parked")
+    void importTasks_shouldKeepDeadLetteredTasksParked() throws Exception {
+        jdbcTemplate.update("DELETE FROM scheduled_tasks");
+        jdbcTemplate.update("DELETE FROM SCHEDULED_TASK");
+        Map<String, ScheduleAndNoData> tasks = Map.of("parked-0", new ScheduleAndNoData(cronScheduleCache.get("0 0 * * * *"), false));
+        scheduledTaskJdbcRepository.insertScheduledTasks(tasks);
+        scheduledTaskJdbcRepository.insertExecutions(tasks, Instant.now());
+        scheduledTaskJdbcRepository.deadLetter("parked-0", Instant.parse("2026-01-01T00:00:00Z"), "java.lang.IllegalStateException: gone");
+        jdbcTemplate.update("DELETE FROM scheduled_tasks WHERE task_instance = 'parked-0'");
+        List<Map<String, Object>> before = parked();
+
+        Path export = tempDir.resolve("parked.csv");
+        try (OutputStream out = Files.newOutputStream(export)) {
+            taskCatalogService.exportTasks(out);
+        }
+        jdbcTemplate.update("DELETE FROM SCHEDULED_TASK");
+
+        TaskImportResult restored = importFile(export, false);
+        assertEquals(1, restored.getInserted());
+        assertEquals(0, restored.getExecutionsWritten());
+        assertEquals(before, parked());
+
+        // a live copy of the task is parked again, and its execution removed, by overwriting it with the export
+        jdbcTemplate.update("UPDATE SCHEDULED_TASK SET DEAD_LETTERED_AT = NULL, DEAD_LETTER_CAUSE = NULL WHERE ID = 'parked-0'");
+        scheduledTaskJdbcRepository.insertExecutions(tasks, Instant.now());
+        TaskImportResult overwritten = importFile(export, true);
+        assertEquals(1, overwritten.getUpdated());
+        assertEquals(before, parked());
+        jdbcTemplate.update("DELETE FROM SCHEDULED_TASK");
+    }
+
+    private TaskImportResult importFile(Path file, boolean overwrite) throws Exception {
+        try (InputStream in = Files.newInputStream(file)) {
+            return taskCatalogService.importTasks(in, overwrite);
+        }
+    }
+
+    private List<Map<String, Object>> parked() {
+        return jdbcTemplate.queryForList("SELECT t.ID, t.DEAD_LETTERED_AT, t.DEAD_LETTER_CAUSE, e.execution_time " +
+                "FROM SCHEDULED_TASK t LEFT JOIN scheduled_tasks e ON e.task_instance = t.ID WHERE t.ID = 'parked-0'");
+    }
+
+    private List<Map<String, Object>> catalogue() {
+        return jdbcTemplate.queryForList("SELECT t.ID, t.CRON, t.ON_HOLD, t.JITTER_SECONDS, e.execution_time, encode(e.task_data, 'hex') AS task_data " +
+                "FROM SCHEDULED_TASK t LEFT JOIN scheduled_tasks e ON e.task_instance = t.ID " +
+                "WHERE t.ID IN ('copy-0', 'copy-1', 'copy-2', 'copy-" + (TASKS - 1) + "') ORDER BY t.ID");
+    }
+}
@@ -0,0 +1,181 @@
+package we.arewaes.dynamicallytaskscheduler;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.event.AbstractSchedulerListener;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Webhook load test: schedules {@code webhook.tasks} tasks that all fire at second 0 of every minute, a share
+ * {@code webhook.slow-share} of them calling a WireMock downstream that answers after {@code webhook.slow-delay} and
+ * the rest one that answers after {@code webhook.fast-delay}. After {@code webhook.duration} it prints completed
+ * fires per second and the HDR percentiles of the time from the scheduled fire to the webhook's response, separately
+ * for both downstreams, so the effect of a slow host on the fast one is visible.
+ * <p>
+ * Only runs when {@code webhook.tasks} is set, e.g.
+ * {@code mvn test -Dtest=WebhookLoadITTest -Dwebhook.tasks=5000 -Dwebhook.slow-share=0.2 -Dwebhook.slow-delay=PT3S}.
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "webhook.tasks", matches = "\\d+")
+@DisplayName("Webhook fires per second and tail latency against slow downstreams")
+class WebhookLoadITTest {
+
+    private static final String DOCKER_IMAGE_POSTGRES_17_ALPINE = "postgres:17-alpine";
+    private static final int TASKS = Integer.getInteger("webhook.tasks", 1_000);
+    private static final double SLOW_SHARE = Double.parseDouble(System.getProperty("webhook.slow-share", "0.1"));
+    private static final Duration FAST_DELAY = Duration.parse(System.getProperty("webhook.fast-delay", "PT0.02S"));
+    private static final Duration SLOW_DELAY = Duration.parse(System.getProperty("webhook.slow-delay", "PT2S"));
+    private static final Duration TIMEOUT = Duration.parse(System.getProperty("webhook.timeout", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("webhook.duration", "PT3M"));
+    private static final String EXECUTION_MODE = System.getProperty("webhook.execution-mode", "platform");
+    private static final int THREADS = Integer.getInteger("webhook.threads", 200);
+    private static final int INSERT_CHUNK_SIZE = 5_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>(DockerImageName.parse(DOCKER_IMAGE_POSTGRES_17_ALPINE))
+                    .withUsername("sa")
+                    .withPassword("pass")
+                    .withDatabaseName("db");
+
+    @Test
+    @DisplayName("Webhook fires complete with their responses")
+    void runLoad() {
+        WireMockServer fast = downstream(FAST_DELAY);
+        WireMockServer slow = downstream(SLOW_DELAY);
+        Recorder fastRecorder = new Recorder();
+        Recorder slowRecorder = new Recorder();
+        PrintStream originalOut = System.out;
+        // the stdout event sink prints one line per execution
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ConfigurableApplicationContext context = null;
+        try {
+            context = new SpringApplicationBuilder(DynamicallytaskschedulerApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                            "spring.datasource.username=sa",
+                            "spring.datasource.password=pass",
+                            "task.data-migration.enabled=false",
+                            "scheduler.threads=" + THREADS,
+                            "scheduler.execution.mode=" + EXECUTION_MODE,
+                            "logging.level.root=WARN")
+                    .initializers(ctx -> ctx.getBeanFactory().registerSingleton("webhookLoadListener", new AbstractSchedulerListener() {
+                        @Override
+                        public void onExecutionComplete(ExecutionComplete executionComplete) {
+                            int task = Integer.parseInt(executionComplete.getExecution().taskInstance.getId().substring("webhook-".length()));
+                            (isSlow(task) ? slowRecorder : fastRecorder).record(executionComplete);
+                        }
+                    }))
+                    .run();
+            scheduleTasks(context.getBean(ScheduledTaskJdbcRepository.class), context.getBean(CronScheduleCache.class),
+                    fast.baseUrl(), slow.baseUrl());
+            sleep(DURATION);
+        } finally {
+            if (context != null) {
+                context.getBean(Scheduler.class).stop();
+                context.close();
+            }
+            fast.stop();
+            slow.stop();
+            System.setOut(originalOut);
+        }
+
+        System.out.printf("tasks=%d slowShare=%.2f fastDelay=%s slowDelay=%s mode=%s threads=%d duration=%s%n",
+                TASKS, SLOW_SHARE, FAST_DELAY, SLOW_DELAY, EXECUTION_MODE, THREADS, DURATION);
+        fastRecorder.print("fast");
+        slowRecorder.print("slow");
+        assertEquals(0, fastRecorder.failures.get(), "failed fast webhooks");
+    }
+
+    private static boolean isSlow(int task) {
+        return task < TASKS * SLOW_SHARE;
+    }
+
+    private static WireMockServer downstream(Duration delay) {
+        WireMockServer server = new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(THREADS + 50)
+                .asynchronousResponseEnabled(true)
+                .disableRequestJournal());
+        server.start();
+        server.stubFor(post(urlEqualTo("/fire")).willReturn(aResponse().withStatus(204).withFixedDelay((int) delay.toMillis())));
+        return server;
+    }
+
+    private static void scheduleTasks(ScheduledTaskJdbcRepository repository, CronScheduleCache cronScheduleCache,
+                                      String fastUrl, String slowUrl) {
+        Map<String, ScheduleAndNoData> chunk = new LinkedHashMap<>(INSERT_CHUNK_SIZE * 2);
+        for (int i = 0; i < TASKS; i++) {
+            Webhook webhook = new Webhook((isSlow(i) ? slowUrl : fastUrl) + "/fire", "POST", TIMEOUT);
+            chunk.put("webhook-" + i, new ScheduleAndNoData(cronScheduleCache.get("0 * * * * *"), false, Duration.ZERO, webhook));
+            if (chunk.size() == INSERT_CHUNK_SIZE || i == TASKS - 1) {
+                repository.insertScheduledTasks(chunk);
+                repository.insertExecutions(chunk, Instant.now());
+                chunk.clear();
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Recorder {
+        private final Histogram completionLag = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+        private final AtomicLong failures = new AtomicLong();
+
+        private void record(ExecutionComplete executionComplete) {
+            if (executionComplete.getResult() != ExecutionComplete.Result.OK) {
+                failures.incrementAndGet();
+                return;
+            }
+            completionLag.recordValue(Math.max(0, ChronoUnit.MICROS.between(
+                    executionComplete.getExecution().executionTime, executionComplete.getTimeDone())));
+        }
+
+        private void print(String downstream) {
+            System.out.printf("%s: completed=%d failed=%d fires/s=%.1f fire-to-response ms: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    downstream, completionLag.getTotalCount(), failures.get(),
+                    completionLag.getTotalCount() / (double) DURATION.toSeconds(),
+                    completionLag.getValueAtPercentile(50) / 1000.0, completionLag.getValueAtPercentile(99) / 1000.0,
+                    completionLag.getValueAtPercentile(99.9) / 1000.0, completionLag.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledCronScheduleTest {
+
+    private static final ZoneId[] ZONES = {ZoneId.of("UTC"), ZoneId.of("Europe/Amsterdam"), ZoneId.of("America/Sao_Paulo")};
+    private static final Instant FROM = Instant.parse("2024-01-01T00:00:00Z");
+    private static final long RANGE_SECONDS = 3L * 365 * 24 * 3600;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0 0/5 14 * * *",
+            "*/10 * * * * *",
+            "0 0 * * * *",
+            "30 15 2 * * *",
+            "0 0 9-17 * * MON-FRI",
+            "0 0 12 1,15 * ?",
+            "0 0 0 29 2 *",
+            "0 0 0 31 * *",
+            "0 0/30 8-10 ? JAN,JUN,DEC SUN",
+            "0 0 3 * * 7",
+            "15,45 10/7 * * * *"
+    })
+    void getNextExecutionTime_shouldMatchCronSchedule(String pattern) {
+        Random random = new Random(pattern.hashCode());
+        for (ZoneId zone : ZONES) {
+            CompiledCronSchedule compiled = new CompiledCronSchedule(pattern, zone);
+            CronSchedule reference = new CronSchedule(pattern, zone);
+            assertTrue(compiled.isCompiled());
+            for (int i = 0; i < 500; i++) {
+                Instant timeDone = FROM.plusSeconds((long) (random.nextDouble() * RANGE_SECONDS)).plusMillis(random.nextInt(1000));
+                ExecutionComplete complete = ExecutionComplete.simulatedSuccess(timeDone);
+                assertEquals(reference.getNextExecutionTime(complete), compiled.getNextExecutionTime(complete),
+                        pattern + " in " + zone + " after " + timeDone);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0 0 12 L * *", "0 0 12 1 * MON", "0 0 12 ? * MON#1", "0 0 12 LW * ?"})
+    void getNextExecutionTime_shouldFallBack_whenPatternIsNotCompiled(String pattern) {
+        CompiledCronSchedule compiled = new CompiledCronSchedule(pattern, ZoneId.of("UTC"));
+        CronSchedule reference = new CronSchedule(pattern, ZoneId.of("UTC"));
+        ExecutionComplete complete = ExecutionComplete.simulatedSuccess(FROM);
+
+        assertFalse(compiled.isCompiled());
+        assertEquals(reference.getNextExecutionTime(complete), compiled.getNextExecutionTime(complete));
+    }
+}
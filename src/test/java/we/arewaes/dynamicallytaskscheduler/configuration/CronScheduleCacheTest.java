@@ -0,0 +1,30 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CronScheduleCacheTest {
+
+    private final CronScheduleCache cronScheduleCache = new CronScheduleCache(100);
+
+    @Test
+    void get_shouldReturnSameInstance_forSamePatternAndZone() {
+        assertSame(cronScheduleCache.get("0 0/5 14 * * *"), cronScheduleCache.get("0 0/5 14 * * *"));
+    }
+
+    @Test
+    void get_shouldReturnDifferentInstances_forDifferentZones() {
+        assertNotSame(cronScheduleCache.get("0 0/5 14 * * *", ZoneId.of("UTC")),
+                cronScheduleCache.get("0 0/5 14 * * *", ZoneId.of("Europe/Amsterdam")));
+    }
+
+    @Test
+    void get_shouldThrow_whenPatternIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> cronScheduleCache.get("not a cron"));
+    }
+}
@@ -0,0 +1,44 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JitteredScheduleTest {
+
+    private final CronSchedule hourly = new CompiledCronSchedule("0 0 * * * *", ZoneId.of("UTC"));
+
+    private static Instant next(Schedule schedule, String timeDone) {
+        return schedule.getNextExecutionTime(ExecutionComplete.simulatedSuccess(Instant.parse(timeDone)));
+    }
+
+    @Test
+    void getNextExecutionTime_shouldShiftCronFireByJitter() {
+        JitteredSchedule schedule = new JitteredSchedule(hourly, Duration.ofSeconds(90));
+
+        assertEquals(Instant.parse("2025-01-01T11:01:30Z"), next(schedule, "2025-01-01T10:30:00Z"));
+    }
+
+    @Test
+    void getNextExecutionTime_shouldNotSkipNextFire_whenCompletingAfterTheUnjitteredFire() {
+        JitteredSchedule schedule = new JitteredSchedule(hourly, Duration.ofMinutes(50));
+
+        // fired at 10:50 for the 10:00 fire; the 11:00 fire is due at 11:50
+        assertEquals(Instant.parse("2025-01-01T11:50:00Z"), next(schedule, "2025-01-01T10:50:02Z"));
+    }
+
+    @Test
+    void getInitialExecutionTime_shouldReturnFirstJitteredFireAfterNow() {
+        JitteredSchedule schedule = new JitteredSchedule(hourly, Duration.ofMinutes(10));
+
+        assertEquals(Instant.parse("2025-01-01T10:10:00Z"), schedule.getInitialExecutionTime(Instant.parse("2025-01-01T10:05:00Z")));
+        assertEquals(Instant.parse("2025-01-01T11:10:00Z"), schedule.getInitialExecutionTime(Instant.parse("2025-01-01T10:15:00Z")));
+    }
+}
@@ -0,0 +1,39 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleJitterTest {
+
+    private final ScheduleJitter scheduleJitter = new ScheduleJitter(Duration.ofMinutes(5));
+
+    @Test
+    void offset_shouldBeDeterministicAndWithinWindow() {
+        for (int i = 0; i < 1000; i++) {
+            Duration offset = scheduleJitter.offset("task-" + i);
+            assertEquals(offset, new ScheduleJitter(Duration.ofMinutes(5)).offset("task-" + i));
+            assertTrue(!offset.isNegative() && offset.compareTo(Duration.ofMinutes(5)) < 0);
+        }
+    }
+
+    @Test
+    void offset_shouldSpreadSimilarTaskIds() {
+        Set<Duration> offsets = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            offsets.add(scheduleJitter.offset("task-" + i));
+        }
+
+        assertTrue(offsets.size() > 250, "distinct offsets: " + offsets.size());
+    }
+
+    @Test
+    void offset_shouldBeZero_whenWindowIsZero() {
+        assertEquals(Duration.ZERO, new ScheduleJitter(Duration.ZERO).offset("task-1"));
+    }
+}
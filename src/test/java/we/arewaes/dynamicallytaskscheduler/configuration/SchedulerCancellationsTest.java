@@ -0,0 +1,213 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Cancellation;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.ExecutionCancelledException;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Reason;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerCancellationsTest {
+
+    private static final String TASK_ID = "slowTaskId";
+
+    @Mock
+    private ExecutionEventLog executionEventLog;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SchedulerCancellations schedulerCancellations;
+
+    @AfterEach
+    void tearDown() {
+        if (schedulerCancellations != null) {
+            schedulerCancellations.destroy();
+        }
+    }
+
+    private SchedulerCancellations schedulerCancellations(Duration defaultTimeout, Duration maxTimeout) {
+        schedulerCancellations = new SchedulerCancellations(executionEventLog, meterRegistry, null, defaultTimeout, maxTimeout,
+                Duration.ofSeconds(1), Duration.ofSeconds(1));
+        return schedulerCancellations;
+    }
+
+    private static ScheduleAndNoData data(Duration timeout) {
+        return new ScheduleAndNoData(new CronSchedule("0 * * * * *", ZoneOffset.UTC), false, Duration.ZERO, null, null, null, null, timeout);
+    }
+
+    private static TaskInstance<ScheduleAndNoData> taskInstance(Duration timeout) {
+        return new TaskInstance<>(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME, TASK_ID, data(timeout));
+    }
+
+    private static ExecutionContext executionContext(TaskInstance<?> taskInstance) {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecution()).thenReturn(new Execution(Instant.now(), taskInstance));
+        return executionContext;
+    }
+
+    private double cancellations(String reason) {
+        return meterRegistry.get(SchedulerCancellations.CANCELLATIONS_METRIC).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void constructor_shouldRejectNegativeTimeouts() {
+        assertThrows(IllegalArgumentException.class, () -> schedulerCancellations(Duration.ofSeconds(-1), Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> schedulerCancellations(Duration.ZERO, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void validate_shouldAcceptOnlyPositiveTimeoutsThatFitTheColumn() {
+        assertNull(SchedulerCancellations.validate(null));
+        assertNull(SchedulerCancellations.validate(Duration.ofMillis(1)));
+        assertTrue(SchedulerCancellations.validate(Duration.ZERO) != null);
+        assertTrue(SchedulerCancellations.validate(Duration.ofSeconds(-5)) != null);
+        assertTrue(SchedulerCancellations.validate(Duration.ofDays(30)) != null);
+    }
+
+    @Test
+    void timeoutOf_shouldFallBackToTheDefaultAndNeverExceedTheMax() {
+        assertEquals(Duration.ofSeconds(30), schedulerCancellations(Duration.ofSeconds(30), Duration.ofHours(1)).timeoutOf(data(null)));
+        assertEquals(Duration.ofSeconds(5), schedulerCancellations.timeoutOf(data(Duration.ofSeconds(5))));
+        assertEquals(Duration.ofHours(1), schedulerCancellations.timeoutOf(data(Duration.ofHours(2))));
+
+        schedulerCancellations.destroy();
+        assertEquals(Duration.ofHours(1), schedulerCancellations(Duration.ZERO, Duration.ofHours(1)).timeoutOf(data(null)));
+        schedulerCancellations.destroy();
+        assertEquals(Duration.ZERO, schedulerCancellations(Duration.ZERO, Duration.ZERO).timeoutOf(data(null)));
+    }
+
+    @Test
+    void execute_shouldInterruptABlockedBody_whenItTimesOut() {
+        SchedulerCancellations schedulerCancellations = schedulerCancellations(Duration.ZERO, Duration.ZERO);
+        TaskInstance<ScheduleAndNoData> taskInstance = taskInstance(Duration.ofMillis(50));
+        ExecutionContext executionContext = executionContext(taskInstance);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        when(executionChain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> {
+            try {
+                new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            }
+            return null;
+        });
+
+        ExecutionCancelledException exception = assertThrows(ExecutionCancelledException.class,
+                () -> schedulerCancellations.execute(taskInstance, executionContext, executionChain));
+
+        assertEquals(Reason.TIMEOUT, exception.getReason());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(1, cancellations("timeout"));
+        verify(executionEventLog).publish(ExecutionEventType.TIMED_OUT, TASK_ID);
+        assertSame(Cancellation.NONE, schedulerCancellations.cancellationOf(executionContext));
+    }
+
+    @Test
+    void execute_shouldCompleteNormally_whenTheBodyEndsInTime() {
+        SchedulerCancellations schedulerCancellations = schedulerCancellations(Duration.ZERO, Duration.ZERO);
+        TaskInstance<ScheduleAndNoData> taskInstance = taskInstance(Duration.ofMinutes(1));
+        ExecutionContext executionContext = executionContext(taskInstance);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        CompletionHandler<?> completionHandler = mock(CompletionHandler.class);
+        when(executionChain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> {
+            assertFalse(schedulerCancellations.cancellationOf(executionContext).isCancelled());
+            assertTrue(schedulerCancellations.cancellationOf(executionContext) != Cancellation.NONE);
+            return completionHandler;
+        });
+
+        assertSame(completionHandler, schedulerCancellations.execute(taskInstance, executionContext, executionChain));
+
+        assertEquals(0, cancellations("timeout"));
+        verify(executionEventLog, never()).publish(ExecutionEventType.TIMED_OUT, TASK_ID);
+    }
+
+    @Test
+    void cancelIfRunningHere_shouldCancelTheRunningExecution() throws Exception {
+        SchedulerCancellations schedulerCancellations = schedulerCancellations(Duration.ZERO, Duration.ZERO);
+        TaskInstance<ScheduleAndNoData> taskInstance = taskInstance(null);
+        ExecutionContext executionContext = executionContext(taskInstance);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        CountDownLatch started = new CountDownLatch(1);
+        when(executionChain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> {
+            Cancellation cancellation = schedulerCancellations.cancellationOf(executionContext);
+            started.countDown();
+            // a body that polls the signal instead of blocking
+            while (!cancellation.isCancelled()) {
+                Thread.onSpinWait();
+            }
+            cancellation.throwIfCancelled();
+            return null;
+        });
+
+        CompletableFuture<Throwable> failure = CompletableFuture.supplyAsync(() -> {
+            try {
+                schedulerCancellations.execute(taskInstance, executionContext, executionChain);
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(schedulerCancellations.cancelIfRunningHere(TASK_ID));
+
+        ExecutionCancelledException exception = assertInstanceOf(ExecutionCancelledException.class, failure.get(5, TimeUnit.SECONDS));
+        assertEquals(Reason.CANCELLED, exception.getReason());
+        assertEquals(1, cancellations("cancelled"));
+        verify(executionEventLog).publish(ExecutionEventType.CANCELLED, TASK_ID);
+        assertFalse(schedulerCancellations.cancelIfRunningHere(TASK_ID));
+    }
+
+    @Test
+    void cancel_shouldNotifyOtherInstances_whenTheExecutionRunsElsewhere() {
+        SchedulerJdbcRepository schedulerJdbcRepository = mock(SchedulerJdbcRepository.class);
+        TaskShard shard = new TaskShard(0, "shard-0", null, null, schedulerJdbcRepository, null, null);
+
+        schedulerCancellations(Duration.ZERO, Duration.ZERO).cancel(shard, TASK_ID);
+
+        verify(schedulerJdbcRepository).notify(SchedulerCancellations.CHANNEL, TASK_ID);
+        assertEquals(0, cancellations("cancelled"));
+    }
+
+    @Test
+    void cancellationOf_shouldNeverBeCancelled_outsideAnExecution() {
+        Cancellation cancellation = schedulerCancellations(Duration.ZERO, Duration.ZERO).cancellationOf(executionContext(taskInstance(null)));
+
+        assertSame(Cancellation.NONE, cancellation);
+        assertFalse(cancellation.isCancelled());
+        cancellation.throwIfCancelled();
+    }
+}
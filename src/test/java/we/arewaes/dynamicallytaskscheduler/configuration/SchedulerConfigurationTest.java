@@ -2,20 +2,37 @@ package we.arewaes.dynamicallytaskscheduler.configuration;
 
 import com.github.kagkarlsson.scheduler.event.ExecutionChain;
 import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
 import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.ExecutionOperations;
 import com.github.kagkarlsson.scheduler.task.TaskInstance;
 import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import we.arewaes.dynamicallytaskscheduler.entity.ScheduledTask;
-import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskOnHoldJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+import we.arewaes.dynamicallytaskscheduler.service.TaskOnHoldCache;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,8 +40,46 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class SchedulerConfigurationTest {
 
+    private static final String TASK_ID = "exampleTaskId";
+
+    @Mock
+    private TaskOnHoldJdbcRepository taskOnHoldJdbcRepository;
+
+    @Mock
+    private ExecutionEventLog executionEventLog;
+
     @Mock
-    private ScheduledTaskRepository scheduledTaskRepository;
+    private SchedulerJdbcRepository schedulerJdbcRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskOnHoldCache taskOnHoldCache;
+    private SchedulerMisfires schedulerMisfires;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        taskOnHoldCache = new TaskOnHoldCache(taskOnHoldJdbcRepository, 100, Duration.ofMinutes(10), meterRegistry);
+        schedulerMisfires = new SchedulerMisfires(meterRegistry, MisfirePolicy.FIRE_ONCE, Duration.ofMinutes(1), 0);
+    }
+
+    private double decisions(String outcome) {
+        return meterRegistry.get(SchedulerConfiguration.TaskExecutionCustomInterceptor.DECISIONS_METRIC).tag("outcome", outcome).counter().count();
+    }
+
+    private double misfires(String policy) {
+        return meterRegistry.get(SchedulerMisfires.MISFIRES_METRIC).tag("policy", policy).counter().count();
+    }
+
+    private static TaskInstance<SchedulerConfiguration.ScheduleAndNoData> overdueTask(MisfirePolicy misfirePolicy) {
+        return new TaskInstance<>(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME, TASK_ID,
+                new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneOffset.UTC), false, Duration.ZERO, null, misfirePolicy));
+    }
+
+    private static ExecutionContext executionContext(TaskInstance<?> taskInstance, Instant executionTime) {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getExecution()).thenReturn(new Execution(executionTime, taskInstance));
+        return executionContext;
+    }
 
     @Test
     void execute_shouldProceedWithTaskExecution_whenTaskIsNotOnHold() {
@@ -32,32 +87,38 @@ class SchedulerConfigurationTest {
         SchedulerConfiguration.ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), false);
         when(taskInstance.getData()).thenReturn(data);
         when(taskInstance.getTaskName()).thenReturn(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME);
+        when(taskInstance.getId()).thenReturn(TASK_ID);
 
-        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(scheduledTaskRepository);
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
         ExecutionChain executionChain = mock(ExecutionChain.class);
-        ExecutionContext executionContext = mock(ExecutionContext.class);
+        ExecutionContext executionContext = executionContext(taskInstance, Instant.now());
 
         interceptor.execute(taskInstance, executionContext, executionChain);
 
         verify(executionChain, times(1)).proceed(taskInstance, executionContext);
+        assertEquals(1, decisions("proceed"));
+        verify(executionEventLog, never()).publish(any(), any());
     }
 
     @Test
     void execute_shouldRescheduleTask_whenTaskIsOnHoldInDb() {
         TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = mock(TaskInstance.class);
         SchedulerConfiguration.ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), true);
-        ScheduledTask scheduledTask = mock(ScheduledTask.class);
         when(taskInstance.getData()).thenReturn(data);
         when(taskInstance.getTaskName()).thenReturn(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME);
-        when(scheduledTaskRepository.findByIdAndOnHoldTrue(taskInstance.getId())).thenReturn(Optional.of(scheduledTask));
+        when(taskInstance.getId()).thenReturn(TASK_ID);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(true);
 
-        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(scheduledTaskRepository);
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
         ExecutionChain executionChain = mock(ExecutionChain.class);
         ExecutionContext executionContext = mock(ExecutionContext.class);
 
         CompletionHandler<?> result = interceptor.execute(taskInstance, executionContext, executionChain);
 
         assertTrue(result instanceof CompletionHandler.OnCompleteReschedule);
+        assertEquals(1, decisions("reschedule"));
+        assertEquals(0, decisions("replace"));
+        verify(executionEventLog).publish(ExecutionEventType.RESCHEDULED_ON_HOLD, TASK_ID);
     }
 
     @Test
@@ -66,32 +127,186 @@ class SchedulerConfigurationTest {
         SchedulerConfiguration.ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), true);
         when(taskInstance.getData()).thenReturn(data);
         when(taskInstance.getTaskName()).thenReturn(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME);
-        when(scheduledTaskRepository.findByIdAndOnHoldTrue(taskInstance.getId())).thenReturn(Optional.empty());
+        when(taskInstance.getId()).thenReturn(TASK_ID);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
 
-        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(scheduledTaskRepository);
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
         ExecutionChain executionChain = mock(ExecutionChain.class);
         ExecutionContext executionContext = mock(ExecutionContext.class);
 
         CompletionHandler<?> result = interceptor.execute(taskInstance, executionContext, executionChain);
 
         assertTrue(result instanceof CompletionHandler.OnCompleteReplace);
+        assertEquals(1, decisions("replace"));
+        verify(executionEventLog).publish(ExecutionEventType.RELEASED_FROM_HOLD, TASK_ID);
     }
 
     @Test
     void execute_shouldReplaceTask_whenTaskIsNotOnHoldButInDb() {
         TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = mock(TaskInstance.class);
         SchedulerConfiguration.ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), false);
-        ScheduledTask scheduledTask = mock(ScheduledTask.class);
         when(taskInstance.getData()).thenReturn(data);
         when(taskInstance.getTaskName()).thenReturn(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME);
-        when(scheduledTaskRepository.findByIdAndOnHoldTrue(taskInstance.getId())).thenReturn(Optional.of(scheduledTask));
+        when(taskInstance.getId()).thenReturn(TASK_ID);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(true);
 
-        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(scheduledTaskRepository);
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
         ExecutionChain executionChain = mock(ExecutionChain.class);
         ExecutionContext executionContext = mock(ExecutionContext.class);
 
         CompletionHandler<?> result = interceptor.execute(taskInstance, executionContext, executionChain);
 
         assertTrue(result instanceof CompletionHandler.OnCompleteReplace);
+        assertEquals(1, decisions("replace"));
+        verify(executionEventLog).publish(ExecutionEventType.PUT_ON_HOLD, TASK_ID);
+    }
+
+    @Test
+    void execute_shouldNotQueryDbOnEveryFire_whenOnHoldIsCached() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = mock(TaskInstance.class);
+        SchedulerConfiguration.ScheduleAndNoData data = new SchedulerConfiguration.ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), false);
+        when(taskInstance.getData()).thenReturn(data);
+        when(taskInstance.getTaskName()).thenReturn(SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME);
+        when(taskInstance.getId()).thenReturn(TASK_ID);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        ExecutionContext executionContext = executionContext(taskInstance, Instant.now());
+
+        for (int i = 0; i < 10; i++) {
+            interceptor.execute(taskInstance, executionContext, executionChain);
+        }
+
+        verify(executionChain, times(10)).proceed(taskInstance, executionContext);
+        verify(taskOnHoldJdbcRepository, times(1)).isOnHold(TASK_ID);
+    }
+
+    @Test
+    void execute_shouldFireOnceAndContinueFromNow_whenOverdueWithDefaultPolicy() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(null);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        CompletionHandler<Object> taskCompletion = new CompletionHandler.OnCompleteReschedule<>(taskInstance.getData().getSchedule());
+        ExecutionContext executionContext = executionContext(taskInstance, Instant.now().minus(Duration.ofHours(3)));
+        when(executionChain.proceed(taskInstance, executionContext)).thenReturn((CompletionHandler) taskCompletion);
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+        CompletionHandler<?> result = interceptor.execute(taskInstance, executionContext, executionChain);
+
+        assertSame(taskCompletion, result);
+        assertEquals(1, misfires("fire_once"));
+        assertEquals(1, decisions("proceed"));
+    }
+
+    @Test
+    void execute_shouldSkipTheOverdueFire_whenPolicyIsSkip() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.SKIP);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+        CompletionHandler<?> result = interceptor.execute(taskInstance,
+                executionContext(taskInstance, Instant.now().minus(Duration.ofHours(3))), executionChain);
+
+        assertTrue(result instanceof CompletionHandler.OnCompleteReschedule);
+        verify(executionChain, never()).proceed(any(), any());
+        verify(executionEventLog).publish(ExecutionEventType.SKIPPED_AS_MISFIRE, TASK_ID);
+        assertEquals(1, misfires("skip"));
+        assertEquals(1, decisions("reschedule"));
+    }
+
+    @Test
+    void execute_shouldContinueFromTheNextMissedFire_whenPolicyIsFireAll() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.FIRE_ALL);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        Instant missed = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(Duration.ofHours(3));
+        ExecutionContext executionContext = executionContext(taskInstance, missed);
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+        CompletionHandler<SchedulerConfiguration.ScheduleAndNoData> result =
+                (CompletionHandler<SchedulerConfiguration.ScheduleAndNoData>) interceptor.execute(taskInstance, executionContext, executionChain);
+        ExecutionComplete executionComplete = ExecutionComplete.simulatedSuccess(Instant.now());
+        ExecutionOperations<SchedulerConfiguration.ScheduleAndNoData> executionOperations = mock(ExecutionOperations.class);
+        result.complete(executionComplete, executionOperations);
+
+        verify(executionChain).proceed(taskInstance, executionContext);
+        verify(executionOperations).reschedule(executionComplete, missed.plus(Duration.ofHours(1)));
+        assertEquals(1, misfires("fire_all"));
+    }
+
+    @Test
+    void execute_shouldKeepTheMissedFire_whenItsGroupDeferredIt() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.FIRE_ALL);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        ExecutionContext executionContext = executionContext(taskInstance, Instant.now().minus(Duration.ofHours(3)));
+        SchedulerGroups.Deferral deferral = new SchedulerGroups.Deferral(mock(SchedulerJdbcRepository.class), Instant.now());
+        when(executionChain.proceed(taskInstance, executionContext)).thenReturn((CompletionHandler) deferral);
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+
+        assertSame(deferral, interceptor.execute(taskInstance, executionContext, executionChain));
+    }
+
+    @Test
+    void execute_shouldDeferAMisfireToItsCatchUpSlot_andFireItThere() {
+        schedulerMisfires = new SchedulerMisfires(meterRegistry, MisfirePolicy.FIRE_ONCE, Duration.ofMinutes(1), 1);
+        schedulerMisfires.reserveCatchUp("otherTaskId", Instant.now());
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.FIRE_ALL);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        Instant missed = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(Duration.ofHours(3));
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+
+        SchedulerGroups.Deferral deferral = assertInstanceOf(SchedulerGroups.Deferral.class,
+                interceptor.execute(taskInstance, executionContext(taskInstance, missed), executionChain));
+
+        verify(executionChain, never()).proceed(any(), any());
+        assertTrue(deferral.until().isAfter(Instant.now()));
+        assertEquals(1, decisions("defer"));
+        assertEquals(1, misfires("fire_all"));
+
+        ExecutionContext atSlot = executionContext(taskInstance, deferral.until());
+        CompletionHandler<SchedulerConfiguration.ScheduleAndNoData> result =
+                (CompletionHandler<SchedulerConfiguration.ScheduleAndNoData>) interceptor.execute(taskInstance, atSlot, executionChain);
+        ExecutionComplete executionComplete = ExecutionComplete.simulatedSuccess(Instant.now());
+        ExecutionOperations<SchedulerConfiguration.ScheduleAndNoData> executionOperations = mock(ExecutionOperations.class);
+        result.complete(executionComplete, executionOperations);
+
+        verify(executionChain).proceed(taskInstance, atSlot);
+        verify(executionOperations).reschedule(executionComplete, missed.plus(Duration.ofHours(1)));
+        assertEquals(1, misfires("fire_all"));
+    }
+
+    @Test
+    void execute_shouldSkipWithoutACatchUpSlot_whenPolicyIsSkip() {
+        schedulerMisfires = new SchedulerMisfires(meterRegistry, MisfirePolicy.FIRE_ONCE, Duration.ofMinutes(1), 1);
+        schedulerMisfires.reserveCatchUp("otherTaskId", Instant.now());
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.SKIP);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+
+        CompletionHandler<?> result = interceptor.execute(taskInstance,
+                executionContext(taskInstance, Instant.now().minus(Duration.ofHours(3))), mock(ExecutionChain.class));
+
+        assertInstanceOf(CompletionHandler.OnCompleteReschedule.class, result);
+        assertEquals(0, decisions("defer"));
+        assertEquals(1, meterRegistry.get(SchedulerMisfires.CATCH_UP_WAIT_TIMER).timer().count());
+    }
+
+    @Test
+    void execute_shouldNotTreatALateFireWithinTheThresholdAsMisfire() {
+        TaskInstance<SchedulerConfiguration.ScheduleAndNoData> taskInstance = overdueTask(MisfirePolicy.SKIP);
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        ExecutionContext executionContext = executionContext(taskInstance, Instant.now().minusSeconds(30));
+
+        SchedulerConfiguration.TaskExecutionCustomInterceptor interceptor = new SchedulerConfiguration.TaskExecutionCustomInterceptor(taskOnHoldCache, executionEventLog, schedulerMisfires, schedulerJdbcRepository, meterRegistry);
+        interceptor.execute(taskInstance, executionContext, executionChain);
+
+        verify(executionChain).proceed(taskInstance, executionContext);
+        assertEquals(0, misfires("skip"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+class SchedulerExecutionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TaskInstance<Void> taskInstance = new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, "task-1");
+
+    private double availablePermits() {
+        return meterRegistry.get("scheduler.execution.permits.available").gauge().value();
+    }
+
+    @Test
+    void constructor_shouldRejectUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> new SchedulerExecution(meterRegistry, "green", 4, 10));
+    }
+
+    @Test
+    void execute_shouldNotRunMoreThanMaxConcurrencyAtOnce() throws InterruptedException {
+        SchedulerExecution schedulerExecution = new SchedulerExecution(meterRegistry, SchedulerExecution.PLATFORM, 2, 10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutionChain chain = new ExecutionChain(List.of(), (instance, executionContext) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return null;
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(16);
+
+        for (int i = 0; i < 16; i++) {
+            executorService.execute(() -> {
+                schedulerExecution.execute(taskInstance, null, chain);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executorService.shutdown();
+        assertEquals(2, maxRunning.get());
+        assertEquals(2, availablePermits());
+        assertEquals(16, meterRegistry.get(SchedulerExecution.PERMIT_WAIT_TIMER).timer().count());
+    }
+
+    @Test
+    void execute_shouldReleasePermit_whenExecutionFails() {
+        SchedulerExecution schedulerExecution = new SchedulerExecution(meterRegistry, SchedulerExecution.PLATFORM, 1, 10);
+        ExecutionChain failing = new ExecutionChain(List.of(), (instance, executionContext) -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThrows(IllegalStateException.class, () -> schedulerExecution.execute(taskInstance, null, failing));
+
+        assertEquals(1, availablePermits());
+    }
+
+    @Test
+    void releasePermitDuring_shouldFreeThePermitForTheWait() {
+        SchedulerExecution schedulerExecution = new SchedulerExecution(meterRegistry, SchedulerExecution.PLATFORM, 1, 10);
+        AtomicInteger permitsDuringWait = new AtomicInteger(-1);
+        AtomicInteger permitsAfterWait = new AtomicInteger(-1);
+        ExecutionChain chain = new ExecutionChain(List.of(), (instance, executionContext) -> {
+            schedulerExecution.releasePermitDuring(() -> permitsDuringWait.set((int) availablePermits()));
+            permitsAfterWait.set((int) availablePermits());
+            return null;
+        });
+
+        schedulerExecution.execute(taskInstance, null, chain);
+
+        assertEquals(1, permitsDuringWait.get());
+        assertEquals(0, permitsAfterWait.get());
+        assertEquals(1, availablePermits());
+    }
+
+    @Test
+    void releasePermitDuring_shouldOnlyRunTheWait_outsideAnExecution() {
+        SchedulerExecution schedulerExecution = new SchedulerExecution(meterRegistry, SchedulerExecution.PLATFORM, 1, 10);
+        AtomicInteger runs = new AtomicInteger();
+
+        schedulerExecution.releasePermitDuring(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        assertEquals(1, availablePermits());
+    }
+
+    @Test
+    void virtualThreadExecutor_shouldRunExecutionsOnVirtualThreads() throws Exception {
+        ExecutorService executorService = SchedulerExecution.virtualThreadExecutor();
+        String threadName = executorService.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        assertTrue(threadName.startsWith("db-scheduler-virtual-"), threadName);
+    }
+}
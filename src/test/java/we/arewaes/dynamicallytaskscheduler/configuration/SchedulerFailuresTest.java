@@ -0,0 +1,162 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.ExecutionOperations;
+import com.github.kagkarlsson.scheduler.task.FailureHandler;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.ExecutionCancelledException;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Reason;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.service.ExecutionEventLog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerFailuresTest {
+
+    private static final String TASK_ID = "failingTaskId";
+    private static final Instant TIME_DONE = Instant.parse("2026-01-01T00:00:10Z");
+
+    @Mock
+    private ExecutionEventLog executionEventLog;
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    @Mock
+    private ExecutionOperations<ScheduleAndNoData> executionOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SchedulerFailures schedulerFailures(double jitter, int deadLetterAfter) {
+        return new SchedulerFailures(executionEventLog, meterRegistry, Duration.ofMinutes(1), 2, Duration.ofHours(1), jitter, deadLetterAfter);
+    }
+
+    private static ExecutionComplete failure(int previousFailures) {
+        return failure(previousFailures, new IllegalStateException("downstream is gone"));
+    }
+
+    private static ExecutionComplete failure(int previousFailures, Throwable cause) {
+        // every minute, so the backoff alone decides the next fire
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 * * * * *", ZoneOffset.UTC), false);
+        Execution execution = new Execution(TIME_DONE.minusSeconds(10), new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, TASK_ID, data),
+                true, "instance-1", null, null, previousFailures, null, 1);
+        return ExecutionComplete.failure(execution, TIME_DONE.minusSeconds(1), TIME_DONE, cause);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> schedulerFailures(1, 10));
+        assertThrows(IllegalArgumentException.class, () -> schedulerFailures(0, -1));
+    }
+
+    @Test
+    void backoff_shouldGrowExponentiallyUpToTheCap() {
+        SchedulerFailures schedulerFailures = schedulerFailures(0, 10);
+
+        assertEquals(Duration.ofMinutes(1), schedulerFailures.backoff(1));
+        assertEquals(Duration.ofMinutes(4), schedulerFailures.backoff(3));
+        assertEquals(Duration.ofHours(1), schedulerFailures.backoff(12));
+    }
+
+    @Test
+    void backoff_shouldStayWithinTheJitter() {
+        SchedulerFailures schedulerFailures = schedulerFailures(0.2, 10);
+
+        for (int i = 0; i < 100; i++) {
+            long millis = schedulerFailures.backoff(2).toMillis();
+            assertTrue(millis >= 96_000 && millis <= 144_000, "backoff " + millis + " ms");
+        }
+    }
+
+    @Test
+    void handler_shouldRescheduleAtTheFirstFireAfterTheBackoff() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 10).handler(scheduledTaskJdbcRepository);
+        ExecutionComplete executionComplete = failure(2);
+
+        handler.onFailure(executionComplete, executionOperations);
+
+        // third failure: 4 minutes after 00:00:10, then the next full minute
+        verify(executionOperations).reschedule(executionComplete, Instant.parse("2026-01-01T00:05:00Z"));
+        verifyNoInteractions(scheduledTaskJdbcRepository);
+        assertEquals(1, meterRegistry.get(SchedulerFailures.FAILURES_METRIC).tag("outcome", "backoff").counter().count());
+    }
+
+    @Test
+    void handler_shouldDeadLetter_afterTooManyConsecutiveFailures() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 3).handler(scheduledTaskJdbcRepository);
+
+        handler.onFailure(failure(2), executionOperations);
+
+        verify(scheduledTaskJdbcRepository).deadLetter(TASK_ID, TIME_DONE, "java.lang.IllegalStateException: downstream is gone");
+        verify(executionOperations).stop();
+        verify(executionOperations, never()).reschedule(any(), any());
+        verify(executionEventLog).publish(ExecutionEventType.DEAD_LETTERED, TASK_ID);
+        assertEquals(1, meterRegistry.get(SchedulerFailures.FAILURES_METRIC).tag("outcome", "dead-letter").counter().count());
+    }
+
+    @Test
+    void handler_shouldBackOff_whenDeadLetteringFails() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 3).handler(scheduledTaskJdbcRepository);
+        ExecutionComplete executionComplete = failure(2);
+        when(scheduledTaskJdbcRepository.deadLetter(any(), any(), anyString())).thenThrow(new IllegalStateException("database is gone"));
+
+        handler.onFailure(executionComplete, executionOperations);
+
+        verify(executionOperations, never()).stop();
+        verify(executionOperations).reschedule(executionComplete, Instant.parse("2026-01-01T00:05:00Z"));
+    }
+
+    @Test
+    void handler_shouldNeverDeadLetter_whenTurnedOff() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 0).handler(scheduledTaskJdbcRepository);
+        ExecutionComplete executionComplete = failure(1000);
+
+        handler.onFailure(executionComplete, executionOperations);
+
+        verifyNoInteractions(scheduledTaskJdbcRepository);
+        verify(executionOperations).reschedule(executionComplete, Instant.parse("2026-01-01T01:01:00Z"));
+    }
+
+    @Test
+    void handler_shouldRemoveTheExecution_whenItWasCancelled() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 3).handler(scheduledTaskJdbcRepository);
+
+        handler.onFailure(failure(5, new ExecutionCancelledException(Reason.CANCELLED, "cancelled", null)), executionOperations);
+
+        verify(executionOperations).stop();
+        verify(executionOperations, never()).reschedule(any(), any());
+        verifyNoInteractions(scheduledTaskJdbcRepository);
+    }
+
+    @Test
+    void handler_shouldBackOff_whenTheExecutionTimedOut() {
+        FailureHandler<ScheduleAndNoData> handler = schedulerFailures(0, 10).handler(scheduledTaskJdbcRepository);
+        ExecutionComplete executionComplete = failure(2, new ExecutionCancelledException(Reason.TIMEOUT, "timed out", null));
+
+        handler.onFailure(executionComplete, executionOperations);
+
+        verify(executionOperations, never()).stop();
+        verify(executionOperations).reschedule(executionComplete, Instant.parse("2026-01-01T00:05:00Z"));
+    }
+}
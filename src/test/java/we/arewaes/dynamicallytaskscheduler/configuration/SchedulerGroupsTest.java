@@ -0,0 +1,268 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.event.ExecutionChain;
+import com.github.kagkarlsson.scheduler.event.ExecutionInterceptor;
+import com.github.kagkarlsson.scheduler.task.CompletionHandler;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.ExecutionContext;
+import com.github.kagkarlsson.scheduler.task.ExecutionOperations;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerGroups.GroupState;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskGroupLeaseJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskGroupLeaseJdbcRepository.Lease;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskGroupLeaseJdbcRepository.LeaseGrant;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerGroupsTest {
+
+    private static final int THREADS = 10;
+
+    @Mock
+    private TaskGroupLeaseJdbcRepository taskGroupLeaseJdbcRepository;
+    @Mock
+    private SchedulerJdbcRepository schedulerJdbcRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SchedulerGroups schedulerGroups(int maxConcurrency, String limits, String weights) {
+        return new SchedulerGroups(taskGroupLeaseJdbcRepository, new ShardRouter(1, 1), meterRegistry, "instance-1", THREADS,
+                maxConcurrency, limits, weights, Duration.ofSeconds(1), Duration.ofSeconds(2));
+    }
+
+    private static TaskInstance<ScheduleAndNoData> taskInstance(String taskId, String group) {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 * * * * *"), false, Duration.ZERO, null, null, group, null);
+        return new TaskInstance<>(DYNAMIC_RECURRING_TASK_NAME, taskId, data);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> schedulerGroups(-1, "", ""));
+        assertThrows(IllegalArgumentException.class, () -> schedulerGroups(0, "tenant-a", ""));
+        assertThrows(IllegalArgumentException.class, () -> schedulerGroups(0, "", "tenant-a=0"));
+        assertThrows(IllegalArgumentException.class, () -> schedulerGroups(0, "tenant-a=-2", ""));
+    }
+
+    @Test
+    void validate_shouldCheckGroupAndPriority() {
+        assertNull(SchedulerGroups.validate(null, null));
+        assertNull(SchedulerGroups.validate("tenant-a", 32767));
+        assertNotNull(SchedulerGroups.validate(" ", null));
+        assertNotNull(SchedulerGroups.validate("g".repeat(65), null));
+        assertNotNull(SchedulerGroups.validate(null, -1));
+        assertNotNull(SchedulerGroups.validate(null, 40000));
+    }
+
+    @Test
+    void shares_shouldGiveTheBusyGroupsWhatTheQuietOnesLeave() {
+        Map<String, Integer> shares = SchedulerGroups.shares(10, Map.of("a", 1d, "b", 1d, "c", 1d), Map.of("a", 50, "b", 50, "c", 2));
+
+        assertEquals(Map.of("a", 4, "b", 4, "c", 2), shares);
+    }
+
+    @Test
+    void shares_shouldSplitByWeight_andUseEverySlot() {
+        Map<String, Integer> shares = SchedulerGroups.shares(10, Map.of("a", 3d, "b", 1d), Map.of("a", 100, "b", 100));
+
+        assertEquals(10, shares.get("a") + shares.get("b"));
+        assertTrue(shares.get("a") >= 7 && shares.get("b") >= 2, shares.toString());
+    }
+
+    @Test
+    void shares_shouldSpreadSpareSlots_andGiveIdleGroupsAtLeastOne() {
+        Map<String, Integer> shares = SchedulerGroups.shares(10, Map.of("a", 1d, "b", 1d, "c", 1d), Map.of("a", 2, "b", 0, "c", 0));
+
+        assertEquals(10, shares.values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(shares.get("a") >= 2);
+        assertTrue(shares.get("b") >= 1 && shares.get("c") >= 1);
+    }
+
+    @Test
+    void grant_shouldNeverExceedTheCap_andConvergeToEqualParts() {
+        int cap = 6;
+        Map<String, Lease> leases = new LinkedHashMap<>();
+        for (String instance : List.of("i1", "i2", "i3")) {
+            leases.put(instance, new Lease(instance, 0, 10));
+        }
+
+        for (int round = 0; round < 5; round++) {
+            for (String instance : leases.keySet()) {
+                List<Lease> others = leases.values().stream().filter(lease -> !lease.instanceId().equals(instance)).toList();
+                leases.put(instance, new Lease(instance, SchedulerGroups.grant(cap, 10, others), 10));
+                assertTrue(leases.values().stream().mapToInt(Lease::permits).sum() <= cap, leases.toString());
+            }
+        }
+
+        leases.values().forEach(lease -> assertEquals(2, lease.permits(), leases.toString()));
+    }
+
+    @Test
+    void grant_shouldTakeWhatIsFree_butOnlyAnEqualPart_whileAnotherInstanceWantsMore() {
+        assertEquals(5, SchedulerGroups.grant(6, 4, List.of(new Lease("i2", 1, 1))));
+        assertEquals(2, SchedulerGroups.grant(6, 9, List.of(new Lease("i2", 2, 3), new Lease("i3", 2, 0))));
+        assertEquals(0, SchedulerGroups.grant(6, 0, List.of()));
+    }
+
+    @Test
+    void tryAcquire_shouldNeverDefer_anUncappedGroupAlone() {
+        SchedulerGroups schedulerGroups = schedulerGroups(0, "", "");
+        List<GroupState> acquired = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            acquired.add(schedulerGroups.tryAcquire(SchedulerGroups.DEFAULT_GROUP));
+        }
+
+        assertTrue(acquired.stream().allMatch(state -> state != null));
+        assertEquals(THREADS, acquired.get(0).running());
+        acquired.forEach(schedulerGroups::release);
+        assertEquals(0, acquired.get(0).running());
+        assertEquals(0, meterRegistry.get(SchedulerGroups.DEFERRALS_METRIC).counter().count());
+    }
+
+    @Test
+    void tryAcquire_shouldDeferACappedGroup_untilItLeasesPermits() {
+        SchedulerGroups schedulerGroups = schedulerGroups(0, "tenant-a=2", "");
+        when(taskGroupLeaseJdbcRepository.renew(eq("instance-1"), any(), eq(Duration.ofSeconds(3)), any())).thenAnswer(invocation -> {
+            Map<String, Integer> demands = invocation.getArgument(1);
+            LeaseGrant grant = invocation.getArgument(3);
+            Map<String, Integer> held = new HashMap<>();
+            demands.forEach((group, demand) -> held.put(group, grant.permits(group, demand, List.of())));
+            return held;
+        });
+
+        assertNull(schedulerGroups.tryAcquire("tenant-a"));
+        assertEquals(1, meterRegistry.get(SchedulerGroups.DEFERRALS_METRIC).counter().count());
+
+        schedulerGroups.renew();
+
+        assertNotNull(schedulerGroups.tryAcquire("tenant-a"));
+        assertNotNull(schedulerGroups.tryAcquire("tenant-a"));
+        assertNull(schedulerGroups.tryAcquire("tenant-a"));
+        assertEquals(1, meterRegistry.get(SchedulerGroups.LEASE_RENEWALS_METRIC).tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void renew_shouldNotTouchTheDatabase_withoutCappedGroups() {
+        SchedulerGroups schedulerGroups = schedulerGroups(0, "", "");
+        schedulerGroups.release(schedulerGroups.tryAcquire("tenant-a"));
+
+        schedulerGroups.renew();
+
+        verifyNoInteractions(taskGroupLeaseJdbcRepository);
+    }
+
+    @Test
+    void tryAcquire_shouldShareSlotsByWeight_underSkewedLoad() {
+        assertEquals(Map.of("tenant-a", 5, "tenant-b", 5), simulateSkewedLoad(schedulerGroups(0, "", "")));
+        // 7.5 and 2.5 slots, the half slot goes to either
+        Map<String, Integer> weighted = simulateSkewedLoad(schedulerGroups(0, "", "tenant-a=3"));
+        assertEquals(THREADS, weighted.get("tenant-a") + weighted.get("tenant-b"));
+        assertTrue(weighted.get("tenant-b") >= 2 && weighted.get("tenant-b") <= 3, weighted.toString());
+    }
+
+    /**
+     * Nine of every ten due executions belong to tenant-a. Each round picks them in order until every slot is taken,
+     * with the deferred ones counting as demand at the next renewal.
+     *
+     * @return how many executions of each group were running at the end of the last round
+     */
+    private static Map<String, Integer> simulateSkewedLoad(SchedulerGroups schedulerGroups) {
+        Map<String, Integer> running = new HashMap<>();
+        for (int round = 0; round < 10; round++) {
+            List<GroupState> acquired = new ArrayList<>();
+            running.clear();
+            for (int i = 0; i < 200 && acquired.size() < THREADS; i++) {
+                String group = i % 10 == 9 ? "tenant-b" : "tenant-a";
+                GroupState state = schedulerGroups.tryAcquire(group);
+                if (state != null) {
+                    acquired.add(state);
+                    running.merge(group, 1, Integer::sum);
+                }
+            }
+            acquired.forEach(schedulerGroups::release);
+            schedulerGroups.renew();
+        }
+        return running;
+    }
+
+    @Test
+    void interceptor_shouldDeferTheExecution_andNotRunIt() {
+        ExecutionInterceptor interceptor = schedulerGroups(0, "tenant-a=1", "").interceptor(schedulerJdbcRepository);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        TaskInstance<ScheduleAndNoData> taskInstance = taskInstance("tenantTaskId", "tenant-a");
+        Instant before = Instant.now();
+
+        CompletionHandler<?> handler = interceptor.execute(taskInstance, mock(ExecutionContext.class), executionChain);
+
+        SchedulerGroups.Deferral deferral = assertInstanceOf(SchedulerGroups.Deferral.class, handler);
+        assertTrue(!deferral.until().isBefore(before.plusSeconds(2)) && !deferral.until().isAfter(Instant.now().plusSeconds(3)));
+        verify(executionChain, never()).proceed(any(), any());
+    }
+
+    @Test
+    void interceptor_shouldRunTheExecution_andReleaseItsPermit() {
+        SchedulerGroups schedulerGroups = schedulerGroups(0, "", "");
+        ExecutionInterceptor interceptor = schedulerGroups.interceptor(schedulerJdbcRepository);
+        ExecutionChain executionChain = mock(ExecutionChain.class);
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        TaskInstance<ScheduleAndNoData> taskInstance = taskInstance("tenantTaskId", "tenant-a");
+        CompletionHandler<ScheduleAndNoData> onComplete = new CompletionHandler.OnCompleteRemove<>();
+        when(executionChain.proceed(taskInstance, executionContext)).thenAnswer(invocation -> onComplete);
+
+        assertSame(onComplete, interceptor.execute(taskInstance, executionContext, executionChain));
+        assertEquals(THREADS, countAcquirable(schedulerGroups, "tenant-a"));
+    }
+
+    private static int countAcquirable(SchedulerGroups schedulerGroups, String group) {
+        int count = 0;
+        while (schedulerGroups.tryAcquire(group) != null) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void deferral_shouldHandTheExecutionBack_atItsPickedVersion() {
+        Instant until = Instant.parse("2026-01-01T00:00:02Z");
+        Execution execution = new Execution(Instant.parse("2026-01-01T00:00:00Z"), taskInstance("tenantTaskId", "tenant-a"),
+                true, "instance-1", null, null, 3, null, 7);
+        when(schedulerJdbcRepository.deferExecution(DYNAMIC_RECURRING_TASK_NAME, "tenantTaskId", 7, until)).thenReturn(true);
+
+        new SchedulerGroups.Deferral(schedulerJdbcRepository, until).complete(
+                ExecutionComplete.success(execution, until.minusSeconds(2), until.minusSeconds(2)), mock(ExecutionOperations.class));
+
+        verify(schedulerJdbcRepository).deferExecution(DYNAMIC_RECURRING_TASK_NAME, "tenantTaskId", 7, until);
+    }
+}
@@ -0,0 +1,99 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener.CandidateEventType;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener.SchedulerEventType;
+import com.github.kagkarlsson.scheduler.task.Execution;
+import com.github.kagkarlsson.scheduler.task.ExecutionComplete;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerMetricsTest {
+
+    private static final String TASK_NAME = SchedulerConfiguration.DYNAMIC_RECURRING_TASK_NAME;
+
+    @Mock
+    private ObjectProvider<TaskShards> taskShardsProvider;
+
+    @Mock
+    private SchedulerJdbcRepository schedulerJdbcRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SchedulerMetrics schedulerMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        schedulerMetrics = new SchedulerMetrics(meterRegistry, taskShardsProvider, 4);
+    }
+
+    private static Execution execution(Instant executionTime) {
+        return new Execution(executionTime, new TaskInstance<>(TASK_NAME, "exampleTaskId"));
+    }
+
+    @Test
+    void onExecutionStart_shouldRecordLagPerTaskName() {
+        CurrentlyExecuting currentlyExecuting = mock(CurrentlyExecuting.class);
+        Execution execution = execution(Instant.now().minusSeconds(2));
+        when(currentlyExecuting.getTaskInstance()).thenReturn(execution.taskInstance);
+        when(currentlyExecuting.getExecution()).thenReturn(execution);
+
+        schedulerMetrics.onExecutionStart(currentlyExecuting);
+
+        var lag = meterRegistry.get("scheduler.execution.lag").tag("task", TASK_NAME).timer();
+        assertEquals(1, lag.count());
+        assertTrue(lag.totalTime(TimeUnit.SECONDS) >= 2);
+    }
+
+    @Test
+    void onExecutionComplete_shouldRecordDurationPerTaskNameAndResult() {
+        Execution execution = execution(Instant.now());
+        schedulerMetrics.onExecutionComplete(ExecutionComplete.success(execution, Instant.now().minusMillis(150), Instant.now()));
+
+        var duration = meterRegistry.get("scheduler.execution.duration").tag("task", TASK_NAME).tag("result", "ok").timer();
+        assertEquals(1, duration.count());
+        assertTrue(duration.totalTime(TimeUnit.MILLISECONDS) >= 150);
+    }
+
+    @Test
+    void onSchedulerAndCandidateEvent_shouldCountByType() {
+        schedulerMetrics.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+        schedulerMetrics.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+        schedulerMetrics.onCandidateEvent(CandidateEventType.ALREADY_PICKED);
+
+        assertEquals(2, meterRegistry.get("scheduler.events").tag("kind", "scheduler").tag("type", "ran_execute_due").counter().count());
+        assertEquals(1, meterRegistry.get("scheduler.events").tag("kind", "candidate").tag("type", "already_picked").counter().count());
+    }
+
+    @Test
+    void gauges_shouldReportDueExecutionsAndExecutorUtilization() {
+        Scheduler scheduler = mock(Scheduler.class);
+        TaskShard shard = new TaskShard(0, "shard-0", null, null, schedulerJdbcRepository, null, scheduler);
+        when(taskShardsProvider.getObject()).thenReturn(new TaskShards(new ShardRouter(1, 1), List.of(shard)));
+        when(scheduler.getCurrentlyExecuting()).thenReturn(List.of(mock(CurrentlyExecuting.class)));
+        when(schedulerJdbcRepository.countDueExecutions()).thenReturn(42L);
+
+        assertEquals(42, meterRegistry.get("scheduler.executions.due").gauge().value());
+        assertEquals(1, meterRegistry.get("scheduler.executor.active").gauge().value());
+        assertEquals(0.25, meterRegistry.get("scheduler.executor.utilization").gauge().value());
+    }
+}
@@ -0,0 +1,101 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulerMisfiresTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SchedulerMisfires schedulerMisfires(int catchUpRate) {
+        return new SchedulerMisfires(meterRegistry, MisfirePolicy.SKIP, Duration.ofMinutes(1), catchUpRate);
+    }
+
+    @Test
+    void constructor_shouldRejectANegativeCatchUpRate() {
+        assertThrows(IllegalArgumentException.class, () -> schedulerMisfires(-1));
+    }
+
+    @Test
+    void isMisfire_shouldOnlyHoldForFiresLaterThanTheThreshold() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(0);
+
+        assertFalse(schedulerMisfires.isMisfire(Instant.now().minusSeconds(50)));
+        assertTrue(schedulerMisfires.isMisfire(Instant.now().minusSeconds(70)));
+    }
+
+    @Test
+    void policyOf_shouldFallBackToTheDefault() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(0);
+
+        assertEquals(MisfirePolicy.SKIP, schedulerMisfires.policyOf(new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false)));
+        assertEquals(MisfirePolicy.FIRE_ALL, schedulerMisfires.policyOf(
+                new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false, Duration.ZERO, null, MisfirePolicy.FIRE_ALL)));
+    }
+
+    @Test
+    void reserveCatchUp_shouldHandOutSlotsAtTheCatchUpRate() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(20);
+        Instant missed = Instant.now().minus(Duration.ofHours(1));
+
+        assertNull(schedulerMisfires.reserveCatchUp("task-0", missed));
+        List<Instant> slots = new ArrayList<>();
+        for (int i = 1; i < 6; i++) {
+            slots.add(schedulerMisfires.reserveCatchUp("task-" + i, missed));
+        }
+
+        // the first goes through at once, every other one 50 ms after the previous
+        assertTrue(slots.get(0).isAfter(Instant.now()));
+        for (int i = 1; i < slots.size(); i++) {
+            long gapMillis = Duration.between(slots.get(i - 1), slots.get(i)).toMillis();
+            assertTrue(gapMillis >= 45 && gapMillis <= 55, "gap " + gapMillis + " ms");
+        }
+        assertEquals(6, meterRegistry.get(SchedulerMisfires.CATCH_UP_WAIT_TIMER).timer().count());
+    }
+
+    @Test
+    void reserveCatchUp_shouldNotDefer_whenTheRateIsUnlimited() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertNull(schedulerMisfires.reserveCatchUp("task-" + i, Instant.now().minus(Duration.ofHours(1))));
+        }
+    }
+
+    @Test
+    void admittedMisfire_shouldReturnTheMissedFire_onceAndOnlyAtItsSlot() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(1);
+        Instant missed = Instant.now().minus(Duration.ofHours(1));
+        schedulerMisfires.reserveCatchUp("task-0", missed);
+        Instant slot = schedulerMisfires.reserveCatchUp("task-1", missed);
+
+        assertNull(schedulerMisfires.admittedMisfire("task-0", missed));
+        assertNull(schedulerMisfires.admittedMisfire("task-1", missed));
+        assertEquals(missed, schedulerMisfires.admittedMisfire("task-1", slot));
+        assertNull(schedulerMisfires.admittedMisfire("task-1", slot));
+    }
+
+    @Test
+    void count_shouldCountMisfiresByPolicy() {
+        SchedulerMisfires schedulerMisfires = schedulerMisfires(0);
+
+        schedulerMisfires.count(MisfirePolicy.FIRE_ONCE);
+        schedulerMisfires.count(MisfirePolicy.FIRE_ONCE);
+
+        assertEquals(2, meterRegistry.get(SchedulerMisfires.MISFIRES_METRIC).tag("policy", "fire_once").counter().count());
+        assertEquals(0, meterRegistry.get(SchedulerMisfires.MISFIRES_METRIC).tag("policy", "skip").counter().count());
+    }
+}
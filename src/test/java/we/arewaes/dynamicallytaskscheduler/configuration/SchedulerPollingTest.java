@@ -0,0 +1,192 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.CurrentlyExecuting;
+import com.github.kagkarlsson.scheduler.PollingStrategyConfig;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.event.SchedulerListener.SchedulerEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerPollingTest {
+
+    private static final int THREADS = 4;
+    private static final Duration MIN = Duration.ofMillis(50);
+    private static final Duration MAX = Duration.ofMillis(800);
+
+    @Mock
+    private ObjectProvider<Scheduler> schedulerProvider;
+
+    @Mock
+    private SchedulerJdbcRepository schedulerJdbcRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SchedulerPolling schedulerPolling;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        schedulerPolling = new SchedulerPolling(schedulerProvider, schedulerJdbcRepository, meterRegistry, THREADS,
+                true, false, MIN, MAX, "auto", 1, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerPolling.stop();
+    }
+
+    @Test
+    void strategy_shouldUseLockAndFetch_whenClusterIsLargeEnough() {
+        assertEquals(PollingStrategyConfig.Type.FETCH, SchedulerPolling.strategy("auto", 2, 3));
+        assertEquals(PollingStrategyConfig.Type.LOCK_AND_FETCH, SchedulerPolling.strategy("auto", 3, 3));
+        assertEquals(PollingStrategyConfig.Type.FETCH, SchedulerPolling.strategy("fetch", 10, 3));
+        assertEquals(PollingStrategyConfig.Type.LOCK_AND_FETCH, SchedulerPolling.strategy("LOCK-AND-FETCH", 1, 3));
+        assertThrows(IllegalArgumentException.class, () -> SchedulerPolling.strategy("select-for-update", 1, 3));
+    }
+
+    @Test
+    void nextInterval_shouldBackOffExponentially_whenPollsComeBackEmpty() {
+        assertEquals(Duration.ofMillis(100), schedulerPolling.nextInterval(0));
+        assertEquals(Duration.ofMillis(200), schedulerPolling.nextInterval(0));
+        assertEquals(Duration.ofMillis(400), schedulerPolling.nextInterval(0));
+        assertEquals(MAX, schedulerPolling.nextInterval(0));
+        assertEquals(MAX, schedulerPolling.nextInterval(0));
+    }
+
+    @Test
+    void nextInterval_shouldShorten_whenPollsFindWork() {
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+
+        assertEquals(Duration.ofMillis(200), schedulerPolling.nextInterval(1));
+        assertEquals(MIN, schedulerPolling.nextInterval(THREADS));
+        assertEquals(MIN, schedulerPolling.nextInterval(1));
+    }
+
+    @Test
+    void onSchedulerEvent_shouldTriggerNextPoll_afterExecutionsStarted() {
+        Scheduler scheduler = mock(Scheduler.class);
+        when(schedulerProvider.getObject()).thenReturn(scheduler);
+
+        for (int i = 0; i < THREADS; i++) {
+            schedulerPolling.onExecutionStart(mock(CurrentlyExecuting.class));
+        }
+        schedulerPolling.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+
+        verify(scheduler, timeout(1000)).triggerCheckForDueExecutions();
+        assertEquals(MIN, schedulerPolling.getInterval());
+        assertEquals(MIN.toNanos() / 1e9, meterRegistry.get("scheduler.polling.interval").gauge().value());
+    }
+
+    @Test
+    void onSchedulerEvent_shouldPollAtOnce_afterAFullBatch() {
+        SchedulerPolling slow = new SchedulerPolling(schedulerProvider, schedulerJdbcRepository, meterRegistry,
+                THREADS, true, false, Duration.ofSeconds(10), Duration.ofSeconds(20), "fetch", 1, 3);
+        Scheduler scheduler = mock(Scheduler.class);
+        when(schedulerProvider.getObject()).thenReturn(scheduler);
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                slow.onExecutionStart(mock(CurrentlyExecuting.class));
+            }
+            slow.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+
+            verify(scheduler, timeout(1000)).triggerCheckForDueExecutions();
+            assertEquals(Duration.ofSeconds(10), slow.getInterval());
+        } finally {
+            slow.stop();
+        }
+    }
+
+    @Test
+    void onSchedulerEvent_shouldLeavePollingToScheduler_whenNothingIsDueBeforeMaxInterval() {
+        when(schedulerJdbcRepository.findNextExecutionTime()).thenReturn(Optional.of(Instant.now().plusSeconds(60)));
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+
+        schedulerPolling.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+
+        verify(schedulerProvider, after(200).never()).getObject();
+        assertEquals(MAX, schedulerPolling.getInterval());
+    }
+
+    @Test
+    void onSchedulerEvent_shouldNotBackOffPastNextExecution() {
+        when(schedulerJdbcRepository.findNextExecutionTime()).thenReturn(Optional.of(Instant.now().plusMillis(100)));
+        Scheduler scheduler = mock(Scheduler.class);
+        when(schedulerProvider.getObject()).thenReturn(scheduler);
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+
+        schedulerPolling.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+
+        verify(scheduler, timeout(500)).triggerCheckForDueExecutions();
+    }
+
+    @Test
+    void onSchedulerEvent_shouldReuseTheNextExecutionTime_onceBackedOff() {
+        when(schedulerJdbcRepository.findNextExecutionTime()).thenReturn(Optional.of(Instant.now().plusSeconds(60)));
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+        schedulerPolling.nextInterval(0);
+
+        for (int i = 0; i < 5; i++) {
+            schedulerPolling.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+        }
+
+        verify(schedulerJdbcRepository, times(1)).findNextExecutionTime();
+        assertEquals(MAX, schedulerPolling.getInterval());
+    }
+
+    @Test
+    void onSchedulerEvent_shouldNotLookUpTheNextExecutionTime_whenPreciseFiresAreOn() {
+        SchedulerPolling precise = new SchedulerPolling(schedulerProvider, schedulerJdbcRepository, new SimpleMeterRegistry(),
+                THREADS, true, true, MIN, MAX, "fetch", 1, 3);
+        try {
+            for (int i = 0; i < 5; i++) {
+                precise.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+            }
+
+            verify(schedulerJdbcRepository, never()).findNextExecutionTime();
+            assertEquals(MAX, precise.getInterval());
+        } finally {
+            precise.stop();
+        }
+    }
+
+    @Test
+    void onSchedulerEvent_shouldDoNothing_whenNotAdaptive() {
+        SchedulerPolling fixed = new SchedulerPolling(schedulerProvider, schedulerJdbcRepository, new SimpleMeterRegistry(),
+                THREADS, false, false, MIN, MAX, "fetch", 1, 3);
+
+        fixed.onExecutionStart(mock(CurrentlyExecuting.class));
+        fixed.onSchedulerEvent(SchedulerEventType.RAN_EXECUTE_DUE);
+
+        verify(schedulerProvider, never()).getObject();
+        assertEquals(MIN, fixed.getInterval());
+    }
+}
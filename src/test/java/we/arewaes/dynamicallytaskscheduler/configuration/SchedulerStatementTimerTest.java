@@ -0,0 +1,55 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchedulerStatementTimerTest {
+
+    @Test
+    void operation_shouldClassifyDbSchedulerStatements() {
+        assertEquals("fetch-due", SchedulerStatementTimer.operation(
+                "select * from scheduled_tasks where picked = ? and execution_time <= ? order by execution_time asc"));
+        assertEquals("fetch-due", SchedulerStatementTimer.operation(
+                "WITH locked_executions as (UPDATE scheduled_tasks st1 SET picked = ? WHERE picked = ? and execution_time <= ? FOR UPDATE SKIP LOCKED)"));
+        assertEquals("pick", SchedulerStatementTimer.operation(
+                "update scheduled_tasks set picked = ?, picked_by = ?, last_heartbeat = ?, version = version + 1 where picked = ? and task_name = ?"));
+        assertEquals("reschedule", SchedulerStatementTimer.operation(
+                "update scheduled_tasks set picked = ?, picked_by = ?, last_heartbeat = ?, last_success = ?, execution_time = ? where task_name = ?"));
+        assertEquals("heartbeat", SchedulerStatementTimer.operation(
+                "update scheduled_tasks set last_heartbeat = ? where task_name = ? and task_instance = ? and version = ?"));
+        assertEquals("remove", SchedulerStatementTimer.operation(
+                "delete from scheduled_tasks where task_name = ? and task_instance = ? and version = ?"));
+        assertEquals("other", SchedulerStatementTimer.operation("select * from scheduled_tasks where picked = ?"));
+    }
+
+    @Test
+    void getConnection_shouldTimeExecutedStatementsByOperation() throws Exception {
+        String sql = "delete from scheduled_tasks where task_name = ? and task_instance = ? and version = ?";
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(sql)).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        try (Connection timed = new SchedulerStatementTimer(dataSource, meterRegistry).getConnection();
+             PreparedStatement timedStatement = timed.prepareStatement(sql)) {
+            timedStatement.setString(1, "task");
+            assertEquals(1, timedStatement.executeUpdate());
+        }
+
+        verify(statement).setString(1, "task");
+        verify(connection).close();
+        assertEquals(1, meterRegistry.get(SchedulerStatementTimer.TIMER_NAME).tag("operation", "remove").timer().count());
+    }
+}
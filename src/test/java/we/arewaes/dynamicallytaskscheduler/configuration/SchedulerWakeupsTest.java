@@ -0,0 +1,119 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import we.arewaes.dynamicallytaskscheduler.repository.SchedulerJdbcRepository;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SchedulerWakeupsTest {
+
+    @Mock
+    private Scheduler scheduler;
+    @Mock
+    private SchedulerJdbcRepository schedulerJdbcRepository;
+    @Mock
+    private ShardDatabases shardDatabases;
+    @Mock
+    private DataSource schedulerDataSource;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TaskShards taskShards;
+    private SchedulerWakeups schedulerWakeups;
+
+    private SchedulerWakeups start(boolean enabled) throws SQLException {
+        when(schedulerDataSource.getConnection()).thenThrow(new SQLException("no database in unit tests"));
+        when(shardDatabases.get(0)).thenReturn(new ShardDatabases.ShardDatabase(null, schedulerDataSource, null, null, null));
+        taskShards = new TaskShards(new ShardRouter(1, 1),
+                List.of(new TaskShard(0, "shard-0", null, null, schedulerJdbcRepository, null, scheduler)));
+        schedulerWakeups = new SchedulerWakeups(taskShards, shardDatabases, meterRegistry, enabled,
+                Duration.ofSeconds(2), Duration.ofMillis(500), 100, Duration.ofMinutes(1));
+        schedulerWakeups.start();
+        return schedulerWakeups;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (schedulerWakeups != null) {
+            schedulerWakeups.stop();
+        }
+    }
+
+    private double wakeupCount(String source) {
+        return meterRegistry.get(SchedulerWakeups.WAKEUPS_METRIC).tag("source", source).counter().count();
+    }
+
+    @Test
+    void constructor_shouldRejectARefreshIntervalNotShorterThanTheLookAhead() {
+        assertThrows(IllegalArgumentException.class, () -> new SchedulerWakeups(null, null, meterRegistry, true,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), 100, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void refresh_shouldTriggerAPollAtEachPrefetchedExecutionTime() throws SQLException {
+        Instant due = Instant.now().plusMillis(300);
+        when(schedulerJdbcRepository.findExecutionTimesBetween(any(), any(), anyInt())).thenReturn(List.of(due, due));
+
+        start(true);
+
+        verify(scheduler, after(150).never()).triggerCheckForDueExecutions();
+        verify(scheduler, timeout(2000)).triggerCheckForDueExecutions();
+        assertEquals(1, wakeupCount("prefetch"));
+    }
+
+    @Test
+    void dueAt_shouldWakeUpThisInstanceAndNotifyTheOthers() throws SQLException {
+        SchedulerWakeups schedulerWakeups = start(true);
+        Instant due = Instant.now().plusMillis(100);
+
+        schedulerWakeups.dueAt(taskShards.all().get(0), due);
+
+        verify(schedulerJdbcRepository).notify(SchedulerWakeups.CHANNEL, String.valueOf(due.toEpochMilli()));
+        verify(scheduler, timeout(2000)).triggerCheckForDueExecutions();
+    }
+
+    @Test
+    void dueAt_shouldIgnoreExecutionsBeyondTheLookAhead() throws SQLException {
+        SchedulerWakeups schedulerWakeups = start(true);
+
+        schedulerWakeups.dueAt(taskShards.all().get(0), Instant.now().plusSeconds(30));
+
+        verify(schedulerJdbcRepository, never()).notify(anyString(), anyString());
+    }
+
+    @Test
+    void dueAt_shouldDoNothing_whenDisabled() throws SQLException {
+        SchedulerWakeups schedulerWakeups = start(false);
+
+        schedulerWakeups.dueAt(taskShards.all().get(0), Instant.now());
+
+        verify(schedulerJdbcRepository, never()).notify(anyString(), anyString());
+        verify(scheduler, after(200).never()).triggerCheckForDueExecutions();
+        verify(schedulerDataSource, never()).getConnection();
+        assertEquals(0, wakeupCount("notify"));
+    }
+}
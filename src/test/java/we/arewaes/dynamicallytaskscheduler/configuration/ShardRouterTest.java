@@ -0,0 +1,60 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRouterTest {
+
+    private static final int TASKS = 20_000;
+
+    @Test
+    void shardFor_shouldRouteEverythingToShardZero_whenThereIsOneShard() {
+        ShardRouter shardRouter = new ShardRouter(1, 128);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, shardRouter.shardFor("task-" + i));
+        }
+    }
+
+    @Test
+    void shardFor_shouldSpreadTasksEvenly() {
+        ShardRouter shardRouter = new ShardRouter(4, 128);
+        int[] counts = new int[4];
+
+        for (int i = 0; i < TASKS; i++) {
+            counts[shardRouter.shardFor("task-" + i)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - TASKS / 4) < TASKS / 4 * 0.2, "Uneven shard sizes " + List.of(counts[0], counts[1], counts[2], counts[3]));
+        }
+    }
+
+    @Test
+    void shardFor_shouldOnlyMoveTasksToTheNewShard_whenAShardIsAdded() {
+        ShardRouter before = new ShardRouter(3, 128);
+        ShardRouter after = new ShardRouter(4, 128);
+        int moved = 0;
+
+        for (int i = 0; i < TASKS; i++) {
+            String taskId = "task-" + i;
+            if (before.shardFor(taskId) != after.shardFor(taskId)) {
+                assertEquals(3, after.shardFor(taskId));
+                moved++;
+            }
+        }
+
+        assertTrue(moved > TASKS / 4 * 0.8 && moved < TASKS / 4 * 1.2, "Moved " + moved + " tasks");
+    }
+
+    @Test
+    void extraShardUrls_shouldSkipBlankEntries() {
+        assertEquals(List.of("jdbc:postgresql://a/db", "jdbc:postgresql://b/db"),
+                ShardRouter.extraShardUrls(new String[]{"jdbc:postgresql://a/db", " ", " jdbc:postgresql://b/db"}));
+        assertEquals(1, new ShardRouter(new String[]{""}, 16).shardCount());
+    }
+}
@@ -0,0 +1,163 @@
+package we.arewaes.dynamicallytaskscheduler.configuration;
+
+import com.github.kagkarlsson.scheduler.exceptions.SerializationException;
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import org.junit.jupiter.api.Test;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskDataSerializerTest {
+
+    private final TaskDataSerializer serializer = new TaskDataSerializer(Serializer.DEFAULT_JAVA_SERIALIZER, new CronScheduleCache(100));
+
+    @Test
+    void serialize_shouldRoundTripScheduleAndHoldFlag() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *", ZoneId.of("Europe/Amsterdam")), true);
+
+        byte[] bytes = serializer.serialize(data);
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+        assertTrue(TaskDataSerializer.isCompact(bytes));
+        assertEquals(TaskDataSerializer.VERSION_1, bytes[1]);
+        assertEquals(data.getSchedule(), result.getSchedule());
+        assertTrue(result.isOnHold());
+    }
+
+    @Test
+    void serialize_shouldRoundTripJitter() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), true, Duration.ofSeconds(137));
+
+        byte[] bytes = serializer.serialize(data);
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+        assertEquals(TaskDataSerializer.VERSION_2, bytes[1]);
+        assertEquals(TaskDataSerializer.FLAG_ON_HOLD | TaskDataSerializer.FLAG_JITTERED, bytes[TaskDataSerializer.FLAGS_OFFSET]);
+        assertEquals(Duration.ofSeconds(137), result.getJitter());
+        assertTrue(result.isOnHold());
+    }
+
+    @Test
+    void serialize_shouldRoundTripWebhook() {
+        Webhook webhook = new Webhook("https://example.com/hooks/fire?team=a", "PUT", Duration.ofMillis(2500));
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), false, Duration.ZERO, webhook);
+
+        byte[] bytes = serializer.serialize(data);
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+        assertEquals(TaskDataSerializer.FLAG_WEBHOOK, bytes[TaskDataSerializer.FLAGS_OFFSET]);
+        assertEquals(webhook, result.getWebhook());
+        assertEquals(data.getSchedule(), result.getSchedule());
+    }
+
+    @Test
+    void serialize_shouldRoundTripMisfirePolicy() {
+        for (MisfirePolicy misfirePolicy : MisfirePolicy.values()) {
+            ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), true, Duration.ZERO, null, misfirePolicy);
+
+            byte[] bytes = serializer.serialize(data);
+            ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+            assertEquals(misfirePolicy, result.getMisfirePolicy());
+            assertTrue(result.isOnHold());
+            assertEquals(0, bytes[TaskDataSerializer.FLAGS_OFFSET] & (TaskDataSerializer.FLAG_JITTERED | TaskDataSerializer.FLAG_WEBHOOK));
+        }
+        ScheduleAndNoData withDefault = serializer.deserialize(ScheduleAndNoData.class,
+                serializer.serialize(new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), false)));
+        assertNull(withDefault.getMisfirePolicy());
+    }
+
+    @Test
+    void serialize_shouldRoundTripGroupAndPriority() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), false, Duration.ZERO,
+                new Webhook("https://example.com/fire", "POST", Duration.ofSeconds(1)), MisfirePolicy.SKIP, "tenant-a", 90);
+
+        byte[] bytes = serializer.serialize(data);
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+        assertEquals(TaskDataSerializer.FLAG_GROUP | TaskDataSerializer.FLAG_PRIORITY,
+                bytes[TaskDataSerializer.FLAGS_OFFSET] & (TaskDataSerializer.FLAG_GROUP | TaskDataSerializer.FLAG_PRIORITY));
+        assertEquals("tenant-a", result.getGroup());
+        assertEquals(90, result.getPriority());
+        assertEquals(MisfirePolicy.SKIP, result.getMisfirePolicy());
+        assertEquals(data.getWebhook(), result.getWebhook());
+        assertEquals(50, serializer.deserialize(ScheduleAndNoData.class,
+                serializer.serialize(new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false))).getExecutionPriority());
+    }
+
+    @Test
+    void serialize_shouldRoundTripTimeout() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0 * * * *", ZoneId.of("UTC")), false, Duration.ZERO,
+                null, null, "tenant-a", null, Duration.ofMillis(90_500));
+
+        byte[] bytes = serializer.serialize(data);
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, bytes);
+
+        assertEquals((TaskDataSerializer.FLAG_TIMEOUT | TaskDataSerializer.FLAG_GROUP) & 0xff, bytes[TaskDataSerializer.FLAGS_OFFSET] & 0xff);
+        assertEquals(Duration.ofMillis(90_500), result.getTimeout());
+        assertEquals("tenant-a", result.getGroup());
+        assertNull(serializer.deserialize(ScheduleAndNoData.class,
+                serializer.serialize(new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false))).getTimeout());
+    }
+
+    @Test
+    void serialize_shouldBeSmallerThanJavaSerialization() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *", ZoneId.of("UTC")), false);
+
+        byte[] compact = serializer.serialize(data);
+        byte[] java = Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data);
+
+        assertEquals(24, compact.length);
+        assertTrue(compact.length * 10 < java.length);
+    }
+
+    @Test
+    void deserialize_shouldReadJavaSerializedData() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), true);
+        byte[] java = Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data);
+
+        ScheduleAndNoData result = serializer.deserialize(ScheduleAndNoData.class, java);
+
+        assertFalse(TaskDataSerializer.isCompact(java));
+        assertEquals(data.getSchedule(), result.getSchedule());
+        assertTrue(result.isOnHold());
+    }
+
+    @Test
+    void deserialize_shouldShareScheduleInstances_acrossRowsAndFormats() {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *", ZoneId.of("UTC")), false);
+
+        ScheduleAndNoData compact = serializer.deserialize(ScheduleAndNoData.class, serializer.serialize(data));
+        ScheduleAndNoData java = serializer.deserialize(ScheduleAndNoData.class, Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data));
+
+        assertSame(compact.getSchedule(), java.getSchedule());
+        assertTrue(compact.getSchedule() instanceof CompiledCronSchedule);
+    }
+
+    @Test
+    void serialize_shouldUseFallback_whenDataIsNotScheduleAndNoData() {
+        byte[] bytes = serializer.serialize("some data");
+
+        assertFalse(TaskDataSerializer.isCompact(bytes));
+        assertEquals("some data", serializer.deserialize(String.class, bytes));
+    }
+
+    @Test
+    void deserialize_shouldFail_whenVersionIsUnknown() {
+        byte[] bytes = serializer.serialize(new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), false));
+        bytes[1] = 99;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(ScheduleAndNoData.class, bytes));
+    }
+}
@@ -1,5 +1,6 @@
 package we.arewaes.dynamicallytaskscheduler.controller;
 
+import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceCurrentlyExecutingException;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,15 +9,42 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkOperationResult;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkTaskResult;
+import we.arewaes.dynamicallytaskscheduler.domain.RebalanceResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskImportResult;
 import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskView;
+import we.arewaes.dynamicallytaskscheduler.service.BulkTaskOperationService;
+import we.arewaes.dynamicallytaskscheduler.service.BulkTaskService;
+import we.arewaes.dynamicallytaskscheduler.service.ShardRebalancer;
+import we.arewaes.dynamicallytaskscheduler.service.TaskCatalogService;
+import we.arewaes.dynamicallytaskscheduler.service.TaskQueryService;
 import we.arewaes.dynamicallytaskscheduler.service.TaskService;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TaskController.class)
@@ -29,6 +57,21 @@ class TaskControllerTest {
     @MockitoBean
     private TaskService taskService;
 
+    @MockitoBean
+    private BulkTaskService bulkTaskService;
+
+    @MockitoBean
+    private BulkTaskOperationService bulkTaskOperationService;
+
+    @MockitoBean
+    private TaskQueryService taskQueryService;
+
+    @MockitoBean
+    private ShardRebalancer shardRebalancer;
+
+    @MockitoBean
+    private TaskCatalogService taskCatalogService;
+
     @BeforeEach
     void setUp() {
         doNothing().when(taskService).scheduleTask(any(TaskRequest.class));
@@ -46,6 +89,94 @@ class TaskControllerTest {
                 .andExpect(content().string("Task created successfully"));
     }
 
+    @Test
+    void createTask_shouldReturnBadRequest_whenWebhookIsInvalid() throws Exception {
+        doThrow(new IllegalArgumentException("webhook.url is required")).when(taskService).scheduleTask(any(TaskRequest.class));
+
+        mockMvc.perform(post("/task/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskId\":\"exampleTaskId\",\"cron\":\"0 0/5 14 * * *\",\"webhook\":{\"timeout\":\"PT5S\"}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("webhook.url is required"));
+    }
+
+    @Test
+    void createTasks_shouldReturnBulkResult() throws Exception {
+        BulkTaskResult result = new BulkTaskResult();
+        result.setReceived(2);
+        result.setCreated(2);
+        when(bulkTaskService.scheduleTasks(any(InputStream.class))).thenReturn(result);
+
+        mockMvc.perform(post("/task/create/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"taskId\":\"a\",\"cron\":\"0 0/5 14 * * *\"}\n{\"taskId\":\"b\",\"cron\":\"0 0/5 14 * * *\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.created").value(2));
+    }
+
+    @Test
+    void holdTasks_shouldReturnAffectedCounts() throws Exception {
+        BulkOperationResult result = new BulkOperationResult();
+        result.setMatched(3);
+        result.setTasksAffected(3);
+        result.setExecutionsAffected(2);
+        when(bulkTaskOperationService.setTasksOnHold(any(TaskSelector.class), eq(true))).thenReturn(result);
+
+        mockMvc.perform(post("/task/hold/bulk")
+                        .param("onHold", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskIdPrefix\":\"tenant-1-\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasksAffected").value(3))
+                .andExpect(jsonPath("$.executionsAffected").value(2));
+    }
+
+    @Test
+    void requeueTasks_shouldReturnRequeuedCounts() throws Exception {
+        BulkOperationResult result = new BulkOperationResult();
+        result.setMatched(2);
+        result.setTasksAffected(2);
+        result.setExecutionsAffected(2);
+        when(bulkTaskOperationService.requeueTasks(any(TaskSelector.class))).thenReturn(result);
+
+        mockMvc.perform(post("/task/dead-letters/requeue")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deadLettered\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasksAffected").value(2));
+    }
+
+    @Test
+    void deleteTasks_shouldReturnBadRequest_whenSelectorIsEmpty() throws Exception {
+        mockMvc.perform(post("/task/delete/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bulkTaskOperationService, never()).cancelTasks(any(TaskSelector.class));
+    }
+
+    @Test
+    void updateTaskCron_shouldReturnSuccess() throws Exception {
+        mockMvc.perform(patch("/task/cron")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskId\":\"exampleTaskId\",\"cron\":\"0 0/10 14 * * *\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Task cron updated successfully"));
+    }
+
+    @Test
+    void updateTaskCron_shouldReturnConflict_whenTaskIsExecuting() throws Exception {
+        doThrow(new TaskInstanceCurrentlyExecutingException("dynamic-recurring-task", "exampleTaskId"))
+                .when(taskService).updateTaskCron(any(TaskRequest.class));
+
+        mockMvc.perform(patch("/task/cron")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"taskId\":\"exampleTaskId\",\"cron\":\"0 0/10 14 * * *\"}"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void holdTask_shouldReturnSuccess_whenOnlyDbIsTrue() throws Exception {
         mockMvc.perform(post("/task/hold")
@@ -73,4 +204,101 @@ class TaskControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Task deleted successfully"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTask_shouldReturnTask_whenItExists() throws Exception {
+        when(taskQueryService.findTask("exampleTaskId"))
+                .thenReturn(Optional.of(new TaskView("exampleTaskId", "0 0/5 14 * * *", true, null, null, null, null, null, null, null)));
+
+        mockMvc.perform(get("/task/exampleTaskId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.taskId").value("exampleTaskId"))
+                .andExpect(jsonPath("$.cron").value("0 0/5 14 * * *"))
+                .andExpect(jsonPath("$.onHold").value(true));
+    }
+
+    @Test
+    void getTask_shouldReturnNotFound_whenItDoesNotExist() throws Exception {
+        when(taskQueryService.findTask("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/task/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listTasks_shouldStreamPage() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("{\"tasks\":[],\"next\":null}".getBytes());
+            return null;
+        }).when(taskQueryService).writeTasks(eq("taskId-1"), eq(50), any());
+
+        var result = mockMvc.perform(get("/task").param("after", "taskId-1").param("limit", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks").isEmpty());
+    }
+
+    @Test
+    void rebalanceShards_shouldReturnMovedCounts() throws Exception {
+        RebalanceResult result = new RebalanceResult();
+        result.setScanned(10);
+        result.setMisplaced(4);
+        result.setMoved(3);
+        result.setSkipped(1);
+        when(shardRebalancer.rebalance()).thenReturn(result);
+
+        mockMvc.perform(post("/task/shards/rebalance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moved").value(3))
+                .andExpect(jsonPath("$.skipped").value(1));
+    }
+
+    @Test
+    void exportTasks_shouldStreamCsv() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("id,cron,on_hold,jitter_seconds,execution_time,task_data\na,0 0 * * * *,f,0,,\n".getBytes());
+            return null;
+        }).when(taskCatalogService).exportTasks(any());
+
+        var result = mockMvc.perform(get("/task/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(endsWith("a,0 0 * * * *,f,0,,\n")));
+    }
+
+    @Test
+    void importTasks_shouldReturnImportCounts() throws Exception {
+        TaskImportResult result = new TaskImportResult();
+        result.setStaged(2);
+        result.setInserted(1);
+        result.setUpdated(1);
+        when(taskCatalogService.importTasks(any(InputStream.class), eq(true))).thenReturn(result);
+
+        mockMvc.perform(post("/task/import")
+                        .param("overwrite", "true")
+                        .contentType("text/csv")
+                        .content("id,cron,on_hold,jitter_seconds,execution_time,task_data\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1));
+    }
+
+    @Test
+    void importTasks_shouldReturnBadRequest_whenHeaderIsWrong() throws Exception {
+        when(taskCatalogService.importTasks(any(InputStream.class), eq(false))).thenThrow(new IllegalArgumentException("header"));
+
+        mockMvc.perform(post("/task/import")
+                        .contentType("text/csv")
+                        .content("a,b\n"))
+                .andExpect(status().isBadRequest());
+    }
+}
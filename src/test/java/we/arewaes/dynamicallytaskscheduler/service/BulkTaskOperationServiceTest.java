@@ -0,0 +1,121 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkOperationResult;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskSelector;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkTaskOperationServiceTest {
+
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    @Mock
+    private TaskOnHoldCache taskOnHoldCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private SchedulerWakeups schedulerWakeups;
+
+    private BulkTaskOperationService bulkTaskOperationService;
+
+    @BeforeEach
+    void setUp() {
+        TaskShard shard = new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, transactionManager, null);
+        bulkTaskOperationService = new BulkTaskOperationService(new TaskShards(new ShardRouter(1, 1), List.of(shard)), taskOnHoldCache,
+                new CronScheduleCache(100), schedulerWakeups, 2);
+    }
+
+    private static TaskSelector prefix(String prefix) {
+        TaskSelector selector = new TaskSelector();
+        selector.setTaskIdPrefix(prefix);
+        return selector;
+    }
+
+    @Test
+    void setTasksOnHold_shouldUpdateEachChunk() {
+        TaskSelector selector = prefix("tenant-1-");
+        when(scheduledTaskJdbcRepository.findTaskIds(eq(selector), anyString(), anyInt()))
+                .thenReturn(List.of("tenant-1-a", "tenant-1-b"), List.of("tenant-1-c"));
+        when(scheduledTaskJdbcRepository.updateOnHold(any(), eq(true))).thenReturn(2, 1);
+        when(scheduledTaskJdbcRepository.updateExecutionsOnHold(any(), eq(true))).thenReturn(2, 0);
+
+        BulkOperationResult result = bulkTaskOperationService.setTasksOnHold(selector, true);
+
+        assertEquals(3, result.getMatched());
+        assertEquals(3, result.getTasksAffected());
+        assertEquals(2, result.getExecutionsAffected());
+        verify(scheduledTaskJdbcRepository).findTaskIds(selector, "", 2);
+        verify(scheduledTaskJdbcRepository).findTaskIds(selector, "tenant-1-b", 2);
+        verify(scheduledTaskJdbcRepository).updateOnHold(List.of("tenant-1-c"), true);
+        verify(taskOnHoldCache).invalidate("tenant-1-c");
+    }
+
+    @Test
+    void cancelTasks_shouldReportExecutingTasksAsSkipped() {
+        TaskSelector selector = prefix("tenant-1-");
+        when(scheduledTaskJdbcRepository.findTaskIds(eq(selector), anyString(), anyInt())).thenReturn(List.of("tenant-1-a"));
+        when(scheduledTaskJdbcRepository.deleteExecutions(List.of("tenant-1-a"))).thenReturn(0);
+        when(scheduledTaskJdbcRepository.deleteScheduledTasksWithoutExecution(List.of("tenant-1-a"))).thenReturn(0);
+
+        BulkOperationResult result = bulkTaskOperationService.cancelTasks(selector);
+
+        assertEquals(1, result.getMatched());
+        assertEquals(0, result.getTasksAffected());
+        assertEquals(1, result.getSkipped());
+    }
+
+    @Test
+    void requeueTasks_shouldScheduleOnlyDeadLetteredTasks() {
+        TaskSelector selector = prefix("tenant-1-");
+        Instant due = Instant.parse("2026-01-01T01:00:00Z");
+        when(scheduledTaskJdbcRepository.findTaskIds(argThat(s -> Boolean.TRUE.equals(s.getDeadLettered())), anyString(), anyInt()))
+                .thenReturn(List.of("tenant-1-a"));
+        when(scheduledTaskJdbcRepository.requeueDeadLettered(List.of("tenant-1-a")))
+                .thenReturn(List.of(new TaskDefinition("tenant-1-a", "0 0 * * * *", false, 0)));
+        when(scheduledTaskJdbcRepository.insertExecutions(anyMap(), any())).thenReturn(due);
+
+        BulkOperationResult result = bulkTaskOperationService.requeueTasks(selector);
+
+        assertEquals(1, result.getMatched());
+        assertEquals(1, result.getTasksAffected());
+        assertEquals(1, result.getExecutionsAffected());
+        verify(scheduledTaskJdbcRepository).insertExecutions(argThat(executions -> executions.containsKey("tenant-1-a")), any());
+        verify(schedulerWakeups).dueAt(any(), eq(due));
+        assertTrue(selector.getDeadLettered());
+    }
+
+    @Test
+    void cancelTasks_shouldFail_whenSelectorHasNoCriteria() {
+        assertThrows(IllegalArgumentException.class, () -> bulkTaskOperationService.cancelTasks(new TaskSelector()));
+
+        verifyNoInteractions(scheduledTaskJdbcRepository);
+    }
+}
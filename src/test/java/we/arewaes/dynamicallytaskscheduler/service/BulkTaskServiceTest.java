@@ -0,0 +1,153 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.ScheduleJitter;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.configuration.WebhookDefaults;
+import we.arewaes.dynamicallytaskscheduler.domain.BulkTaskResult;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkTaskServiceTest {
+
+    @Mock
+    private SchedulerWakeups schedulerWakeups;
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkTaskService bulkTaskService;
+
+    @BeforeEach
+    void setUp() {
+        bulkTaskService = new BulkTaskService(
+                new TaskShards(new ShardRouter(1, 1), List.of(new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, transactionManager, null))),
+                new CronScheduleCache(100), new ScheduleJitter(Duration.ofMinutes(5)),
+                new WebhookDefaults(Duration.ofSeconds(10), Duration.ofMinutes(1)), schedulerWakeups, new ObjectMapper().findAndRegisterModules(), 2, 10);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void scheduleTasks_shouldInsertInChunks() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap()))
+                .thenAnswer(invocation -> List.copyOf(((Map<String, ScheduleAndNoData>) invocation.getArgument(0)).keySet()));
+
+        BulkTaskResult result = bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0/5 14 * * *\"}",
+                "{\"taskId\":\"task-2\",\"cron\":\"0 0/5 14 * * *\"}",
+                "",
+                "{\"taskId\":\"task-3\",\"cron\":\"0 0/5 14 * * *\"}"));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(0, result.getFailed());
+        verify(scheduledTaskJdbcRepository, times(2)).insertScheduledTasks(anyMap());
+        verify(scheduledTaskJdbcRepository, times(2)).insertExecutions(anyMap(), any());
+    }
+
+    @Test
+    void scheduleTasks_shouldReportInvalidLines() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap())).thenReturn(List.of("task-1"));
+
+        BulkTaskResult result = bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0/5 14 * * *\"}",
+                "not json",
+                "{\"cron\":\"0 0/5 14 * * *\"}",
+                "{\"taskId\":\"task-4\",\"cron\":\"not a cron\"}",
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0/5 14 * * *\"}"));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(2L, 3L, 4L, 5L), result.getFailures().stream().map(f -> f.getLine()).toList());
+        assertEquals("taskId is required", result.getFailures().get(1).getReason());
+        assertEquals("Duplicate taskId in request", result.getFailures().get(3).getReason());
+    }
+
+    @Test
+    void scheduleTasks_shouldReportExistingTasks() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap())).thenReturn(List.of("task-2"));
+
+        BulkTaskResult result = bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0/5 14 * * *\"}",
+                "{\"taskId\":\"task-2\",\"cron\":\"0 0/5 14 * * *\"}"));
+
+        assertEquals(1, result.getCreated());
+        assertEquals("Task already exists", result.getFailures().get(0).getReason());
+        verify(scheduledTaskJdbcRepository).insertExecutions(argThat(executions -> executions.keySet().equals(Set.of("task-2"))), any());
+    }
+
+    @Test
+    void scheduleTasks_shouldJitterTasksThatAskForSpreading() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap())).thenReturn(List.of("task-1", "task-2"));
+
+        bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0 * * * *\",\"spread\":true}",
+                "{\"taskId\":\"task-2\",\"cron\":\"0 0 * * * *\"}"));
+
+        Duration jitter = new ScheduleJitter(Duration.ofMinutes(5)).offset("task-1");
+        verify(scheduledTaskJdbcRepository).insertScheduledTasks(argThat(tasks ->
+                tasks.get("task-1").getJitter().equals(jitter) && tasks.get("task-2").getJitter().isZero()));
+    }
+
+    @Test
+    void scheduleTasks_shouldStoreWebhooksAndReportInvalidOnes() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap())).thenReturn(List.of("task-1"));
+
+        BulkTaskResult result = bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0 * * * *\",\"webhook\":{\"url\":\"http://example.com/fire\",\"method\":\"get\",\"timeout\":\"PT2S\"}}",
+                "{\"taskId\":\"task-2\",\"cron\":\"0 0 * * * *\",\"webhook\":{\"url\":\"http://example.com/fire\",\"timeout\":\"PT5M\"}}"));
+
+        assertEquals(1, result.getCreated());
+        assertTrue(result.getFailures().get(0).getReason().startsWith("Invalid webhook: webhook.timeout"));
+        verify(scheduledTaskJdbcRepository).insertScheduledTasks(argThat(tasks -> tasks.get("task-1").getWebhook()
+                .equals(new Webhook("http://example.com/fire", "GET", Duration.ofSeconds(2)))));
+    }
+
+    @Test
+    void scheduleTasks_shouldFailWholeChunk_whenDatabaseRejectsIt() throws IOException {
+        when(scheduledTaskJdbcRepository.insertScheduledTasks(anyMap())).thenThrow(new DataIntegrityViolationException("boom"));
+
+        BulkTaskResult result = bulkTaskService.scheduleTasks(ndjson(
+                "{\"taskId\":\"task-1\",\"cron\":\"0 0/5 14 * * *\"}",
+                "{\"taskId\":\"task-2\",\"cron\":\"0 0/5 14 * * *\"}"));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(2, result.getFailed());
+    }
+}
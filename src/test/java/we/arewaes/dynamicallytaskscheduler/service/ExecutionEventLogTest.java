@@ -0,0 +1,154 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEvent;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionEventLogTest {
+
+    private static final String INSTANCE_ID = "testInstanceId";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PrintStream originalOut = System.out;
+
+    @AfterEach
+    void restoreOut() {
+        System.setOut(originalOut);
+    }
+
+    private double dropped() {
+        return meterRegistry.get(ExecutionEventLog.DROPPED_METRIC).counter().count();
+    }
+
+    @Test
+    void stdoutSink_shouldPrintStartedLineOnceDrained() {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        ExecutionEventLog eventLog = new ExecutionEventLog(new ExecutionEventSink.StdoutSink(INSTANCE_ID), meterRegistry,
+                16, ExecutionEventLog.DROP, 8, Duration.ofMillis(1));
+        eventLog.start();
+
+        eventLog.publish(ExecutionEventType.STARTED, "testTaskId");
+        eventLog.stop();
+
+        String output = outContent.toString();
+        assertTrue(output.contains("INSTANCE ID: testInstanceId -> Task testTaskId started at "));
+        assertTrue(output.contains(LocalDate.now().toString()));
+    }
+
+    @Test
+    void jsonSink_shouldAppendOneObjectPerLine(@TempDir Path directory) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path file = directory.resolve("events/execution-events.jsonl");
+        ExecutionEventLog eventLog = new ExecutionEventLog(
+                new ExecutionEventSink.JsonLinesSink(INSTANCE_ID, file, objectMapper.getFactory()), meterRegistry,
+                16, ExecutionEventLog.DROP, 8, Duration.ofMillis(1));
+        eventLog.start();
+
+        eventLog.publish(ExecutionEventType.STARTED, "task-1");
+        eventLog.publish(ExecutionEventType.PUT_ON_HOLD, "task-2");
+        eventLog.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(INSTANCE_ID, first.get("instance").asText());
+        assertEquals("task-1", first.get("task").asText());
+        assertEquals("STARTED", first.get("event").asText());
+        assertEquals("PUT_ON_HOLD", objectMapper.readTree(lines.get(1)).get("event").asText());
+    }
+
+    @Test
+    void publish_shouldDropAndCount_whenRingIsFullUnderDropPolicy() {
+        List<ExecutionEvent> written = Collections.synchronizedList(new ArrayList<>());
+        ExecutionEventLog eventLog = new ExecutionEventLog(written::addAll, meterRegistry,
+                4, ExecutionEventLog.DROP, 8, Duration.ofMillis(1));
+
+        for (int i = 0; i < 6; i++) {
+            eventLog.publish(ExecutionEventType.STARTED, "task-" + i);
+        }
+        eventLog.start();
+        eventLog.stop();
+
+        assertEquals(2, dropped());
+        assertEquals(4, written.size());
+        assertEquals("task-0", written.get(0).taskId());
+    }
+
+    @Test
+    void publish_shouldWaitForTheDrainer_whenRingIsFullUnderBlockPolicy() throws InterruptedException {
+        CountDownLatch sinkReleased = new CountDownLatch(1);
+        List<ExecutionEvent> written = Collections.synchronizedList(new ArrayList<>());
+        ExecutionEventLog eventLog = new ExecutionEventLog(events -> {
+            try {
+                sinkReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAll(events);
+        }, meterRegistry, 2, ExecutionEventLog.BLOCK, 1, Duration.ofMillis(1));
+        eventLog.start();
+
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                eventLog.publish(ExecutionEventType.STARTED, "task-" + i);
+            }
+        });
+        publisher.start();
+        publisher.join(200);
+        assertTrue(publisher.isAlive());
+
+        sinkReleased.countDown();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        eventLog.stop();
+
+        assertEquals(0, dropped());
+        assertEquals(10, written.size());
+    }
+
+    @Test
+    void drainer_shouldKeepRunning_whenSinkFails() {
+        List<ExecutionEvent> written = new ArrayList<>();
+        ExecutionEventLog eventLog = new ExecutionEventLog(events -> {
+            if (events.get(0).taskId().equals("poison")) {
+                throw new IllegalStateException("sink down");
+            }
+            written.addAll(events);
+        }, meterRegistry, 16, ExecutionEventLog.DROP, 1, Duration.ofMillis(1));
+        eventLog.start();
+
+        eventLog.publish(ExecutionEventType.STARTED, "poison");
+        eventLog.publish(ExecutionEventType.STARTED, "task-1");
+        eventLog.stop();
+
+        assertEquals(1, meterRegistry.get("scheduler.execution.events.failed").counter().count());
+        assertEquals(List.of("task-1"), written.stream().map(ExecutionEvent::taskId).toList());
+    }
+
+    @Test
+    void constructor_shouldRejectUnknownOverflowPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new ExecutionEventLog(events -> {
+        }, meterRegistry, 16, "spill", 8, Duration.ofMillis(1)));
+    }
+}
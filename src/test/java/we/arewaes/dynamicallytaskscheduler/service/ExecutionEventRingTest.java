@@ -0,0 +1,92 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import org.junit.jupiter.api.Test;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEvent;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionEventRingTest {
+
+    @Test
+    void capacity_shouldRoundUpToPowerOfTwo() {
+        assertEquals(2, new ExecutionEventRing(2).capacity());
+        assertEquals(16, new ExecutionEventRing(16).capacity());
+        assertEquals(32, new ExecutionEventRing(17).capacity());
+    }
+
+    @Test
+    void offer_shouldRejectWhenFull_andAcceptAgainOnceDrained() {
+        ExecutionEventRing ring = new ExecutionEventRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i, ExecutionEventType.STARTED, "task-" + i));
+        }
+
+        assertFalse(ring.offer(4, ExecutionEventType.STARTED, "task-4"));
+        assertEquals(4, ring.size());
+
+        List<ExecutionEvent> batch = new ArrayList<>();
+        assertEquals(2, ring.drainTo(batch, 2));
+        assertEquals(List.of(new ExecutionEvent(0, ExecutionEventType.STARTED, "task-0"),
+                new ExecutionEvent(1, ExecutionEventType.STARTED, "task-1")), batch);
+        assertTrue(ring.offer(4, ExecutionEventType.PUT_ON_HOLD, "task-4"));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    void drainTo_shouldDeliverEveryEventOnceInPublishOrderPerProducer() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 5_000;
+        ExecutionEventRing ring = new ExecutionEventRing(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            String producer = "producer-" + p;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    while (!ring.offer(i, ExecutionEventType.STARTED, producer)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        Map<String, Long> lastSeen = new HashMap<>();
+        List<ExecutionEvent> batch = new ArrayList<>();
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * eventsPerProducer && System.nanoTime() < deadline) {
+            if (ring.drainTo(batch, 16) == 0) {
+                Thread.yield();
+            }
+            for (ExecutionEvent event : batch) {
+                long previous = lastSeen.getOrDefault(event.taskId(), -1L);
+                assertEquals(previous + 1, event.timestampMillis());
+                lastSeen.put(event.taskId(), event.timestampMillis());
+            }
+            received += batch.size();
+            batch.clear();
+        }
+        executor.shutdownNow();
+
+        assertEquals(producers * eventsPerProducer, received);
+        assertEquals(0, ring.size());
+    }
+}
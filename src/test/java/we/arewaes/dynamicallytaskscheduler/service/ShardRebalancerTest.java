@@ -0,0 +1,122 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.RebalanceResult;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.StoredExecution;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardRebalancerTest {
+
+    private final ShardRouter shardRouter = new ShardRouter(2, 16);
+
+    @Mock
+    private ScheduledTaskJdbcRepository shardZeroRepository;
+    @Mock
+    private ScheduledTaskJdbcRepository shardOneRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TaskShards taskShards;
+    private ShardRebalancer shardRebalancer;
+
+    @BeforeEach
+    void setUp() {
+        taskShards = new TaskShards(shardRouter, List.of(
+                new TaskShard(0, "shard-0", null, shardZeroRepository, null, transactionManager, null),
+                new TaskShard(1, "shard-1", null, shardOneRepository, null, transactionManager, null)));
+        shardRebalancer = new ShardRebalancer(taskShards, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskShards.destroy();
+    }
+
+    private List<String> taskIdsOf(int shard, int count) {
+        return IntStream.range(0, 1000).mapToObj(i -> "task-" + i)
+                .filter(taskId -> shardRouter.shardFor(taskId) == shard)
+                .limit(count)
+                .toList();
+    }
+
+    @Test
+    void rebalance_shouldMoveMisplacedTasksToTheirShard() {
+        List<String> misplaced = taskIdsOf(1, 2);
+        List<String> stored = new ArrayList<>(taskIdsOf(0, 3));
+        stored.addAll(misplaced);
+        when(shardZeroRepository.findTaskIds(any(), eq(""), eq(100))).thenReturn(stored.stream().sorted().toList());
+        when(shardOneRepository.findTaskIds(any(), eq(""), eq(100))).thenReturn(List.of());
+        List<StoredExecution> executions = misplaced.stream()
+                .map(taskId -> new StoredExecution(taskId, new byte[]{1}, Instant.now(), 50)).toList();
+        List<TaskDefinition> tasks = misplaced.stream()
+                .map(taskId -> new TaskDefinition(taskId, "0 0 * * * *", false, 0)).toList();
+        when(shardZeroRepository.removeExecutions(misplaced)).thenReturn(executions);
+        when(shardZeroRepository.removeScheduledTasksWithoutExecution(misplaced)).thenReturn(tasks);
+
+        RebalanceResult result = shardRebalancer.rebalance();
+
+        verify(shardOneRepository).insertMovedTasks(tasks, executions);
+        verify(shardZeroRepository, never()).insertMovedTasks(anyList(), anyList());
+        assertEquals(5, result.getScanned());
+        assertEquals(2, result.getMisplaced());
+        assertEquals(2, result.getMoved());
+        assertEquals(0, result.getSkipped());
+    }
+
+    @Test
+    void rebalance_shouldSkipTasksThatAreExecuting() {
+        List<String> misplaced = taskIdsOf(0, 2);
+        when(shardZeroRepository.findTaskIds(any(), eq(""), eq(100))).thenReturn(List.of());
+        when(shardOneRepository.findTaskIds(any(), eq(""), eq(100))).thenReturn(misplaced);
+        when(shardOneRepository.removeExecutions(misplaced)).thenReturn(List.of());
+        when(shardOneRepository.removeScheduledTasksWithoutExecution(misplaced))
+                .thenReturn(List.of(new TaskDefinition(misplaced.get(0), "0 0 * * * *", true, 0)));
+
+        RebalanceResult result = shardRebalancer.rebalance();
+
+        assertEquals(2, result.getMisplaced());
+        assertEquals(1, result.getMoved());
+        assertEquals(1, result.getSkipped());
+    }
+
+    @Test
+    void rebalance_shouldWalkEveryChunkOfAShard() {
+        shardRebalancer = new ShardRebalancer(taskShards, 2);
+        List<String> local = taskIdsOf(0, 3);
+        when(shardZeroRepository.findTaskIds(any(), eq(""), eq(2))).thenReturn(local.subList(0, 2));
+        when(shardZeroRepository.findTaskIds(any(), eq(local.get(1)), eq(2))).thenReturn(local.subList(2, 3));
+        lenient().when(shardOneRepository.findTaskIds(any(), any(), anyInt())).thenReturn(List.of());
+
+        RebalanceResult result = shardRebalancer.rebalance();
+
+        assertEquals(3, result.getScanned());
+        assertEquals(0, result.getMisplaced());
+        verify(shardZeroRepository, never()).removeExecutions(anyList());
+    }
+}
@@ -0,0 +1,155 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskImportResult;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.ImportCounts;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskImport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskCatalogServiceTest {
+
+    private static final String HEADER = ScheduledTaskJdbcRepository.TASK_EXPORT_HEADER + "\n";
+
+    @Mock
+    private ScheduledTaskJdbcRepository shardZeroRepository;
+    @Mock
+    private ScheduledTaskJdbcRepository shardOneRepository;
+    @Mock
+    private TaskImport shardZeroImport;
+    @Mock
+    private TaskImport shardOneImport;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TaskShards taskShards;
+
+    @AfterEach
+    void tearDown() {
+        taskShards.destroy();
+    }
+
+    private TaskCatalogService service(int shards) {
+        List<ScheduledTaskJdbcRepository> repositories = List.of(shardZeroRepository, shardOneRepository);
+        taskShards = new TaskShards(new ShardRouter(shards, 16), IntStream.range(0, shards)
+                .mapToObj(i -> new TaskShard(i, ShardRouter.shardName(i), null, repositories.get(i), null, transactionManager, null))
+                .toList());
+        return new TaskCatalogService(taskShards);
+    }
+
+    private static ByteArrayOutputStream captureWrites(TaskImport taskImport) {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            written.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(taskImport).write(any(byte[].class), anyInt(), anyInt());
+        return written;
+    }
+
+    private static ByteArrayInputStream csv(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportTasks_shouldWriteHeaderAndEveryShard() throws Exception {
+        TaskCatalogService service = service(2);
+        when(shardZeroRepository.exportTasks(any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("a,0 0 * * * *,f,0,,\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+        when(shardOneRepository.exportTasks(any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("b,0 0 * * * *,t,0,,\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportTasks(out);
+
+        assertEquals(HEADER + "a,0 0 * * * *,f,0,,\nb,0 0 * * * *,t,0,,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importTasks_shouldCopyTheBodyAfterTheHeader_whenThereIsOneShard() throws Exception {
+        TaskCatalogService service = service(1);
+        when(shardZeroRepository.startImport()).thenReturn(shardZeroImport);
+        ByteArrayOutputStream written = captureWrites(shardZeroImport);
+        when(shardZeroImport.finish(true)).thenReturn(new ImportCounts(3, 1, 1, 2));
+
+        TaskImportResult result = service.importTasks(csv(HEADER + "a,c,f,0,,\nb,c,f,0,,\nb,c,f,0,,\n"), true);
+
+        assertEquals("a,c,f,0,,\nb,c,f,0,,\nb,c,f,0,,\n", written.toString(StandardCharsets.UTF_8));
+        assertEquals(3, result.getStaged());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getSkipped());
+        assertEquals(2, result.getExecutionsWritten());
+    }
+
+    @Test
+    void importTasks_shouldRouteEveryRowToItsShard() throws Exception {
+        TaskCatalogService service = service(2);
+        when(shardZeroRepository.startImport()).thenReturn(shardZeroImport);
+        when(shardOneRepository.startImport()).thenReturn(shardOneImport);
+        ByteArrayOutputStream shardZeroRows = captureWrites(shardZeroImport);
+        ByteArrayOutputStream shardOneRows = captureWrites(shardOneImport);
+        when(shardZeroImport.finish(false)).thenReturn(new ImportCounts(0, 0, 0, 0));
+        when(shardOneImport.finish(false)).thenReturn(new ImportCounts(0, 0, 0, 0));
+        StringBuilder body = new StringBuilder(HEADER);
+        StringBuilder expectedZero = new StringBuilder();
+        StringBuilder expectedOne = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String taskId = i % 10 == 0 ? "task,\"" + i : "task-" + i;
+            String row = (i % 10 == 0 ? "\"task,\"\"" + i + "\"" : taskId) + ",\"0 0\n* * * *\",f,0,,\n";
+            body.append(row);
+            (taskShards.forTask(taskId).index() == 0 ? expectedZero : expectedOne).append(row);
+        }
+
+        service.importTasks(csv(body.toString()), false);
+
+        assertEquals(expectedZero.toString(), shardZeroRows.toString(StandardCharsets.UTF_8));
+        assertEquals(expectedOne.toString(), shardOneRows.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importTasks_shouldRejectABodyWithoutTheHeader() {
+        TaskCatalogService service = service(1);
+
+        assertThrows(IllegalArgumentException.class, () -> service.importTasks(csv("a,c,f,0,,\n"), false));
+        assertThrows(IllegalArgumentException.class, () -> service.importTasks(csv(""), false));
+        verify(shardZeroRepository, never()).startImport();
+    }
+
+    @Test
+    void importTasks_shouldCancelTheCopies_whenTheMergeFails() {
+        TaskCatalogService service = service(1);
+        when(shardZeroRepository.startImport()).thenReturn(shardZeroImport);
+        when(shardZeroImport.finish(false)).thenThrow(new IllegalStateException("bad row"));
+
+        assertThrows(IllegalStateException.class, () -> service.importTasks(csv(HEADER + "a,c,f,0,,\n"), false));
+        verify(shardZeroImport).cancel();
+    }
+}
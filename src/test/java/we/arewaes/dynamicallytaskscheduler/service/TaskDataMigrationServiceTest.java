@@ -0,0 +1,77 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.github.kagkarlsson.scheduler.serializer.Serializer;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskDataSerializer;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.StoredTaskData;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskDataMigrationServiceTest {
+
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+
+    private TaskDataMigrationService taskDataMigrationService;
+
+    @BeforeEach
+    void setUp() {
+        TaskDataSerializer serializer = new TaskDataSerializer(Serializer.DEFAULT_JAVA_SERIALIZER, new CronScheduleCache(100));
+        TaskShard shard = new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, null, null);
+        taskDataMigrationService = new TaskDataMigrationService(new TaskShards(new ShardRouter(1, 1), List.of(shard)), serializer, 2, Duration.ZERO);
+    }
+
+    private static StoredTaskData javaSerialized(String taskInstance, long version) {
+        ScheduleAndNoData data = new ScheduleAndNoData(new CronSchedule("0 0/5 14 * * *"), false);
+        return new StoredTaskData(taskInstance, Serializer.DEFAULT_JAVA_SERIALIZER.serialize(data), version);
+    }
+
+    @Test
+    void migrate_shouldRewriteJavaSerializedRowsInBatches() {
+        when(scheduledTaskJdbcRepository.findJavaSerializedTaskData("", 2)).thenReturn(List.of(javaSerialized("a", 1), javaSerialized("b", 3)));
+        when(scheduledTaskJdbcRepository.findJavaSerializedTaskData("b", 2)).thenReturn(List.of(javaSerialized("c", 1)));
+        when(scheduledTaskJdbcRepository.updateTaskData(anyList())).thenReturn(2, 1);
+
+        long migrated = taskDataMigrationService.migrate();
+
+        assertEquals(3, migrated);
+        ArgumentCaptor<List<StoredTaskData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTaskJdbcRepository, times(2)).updateTaskData(captor.capture());
+        StoredTaskData rewritten = captor.getAllValues().get(0).get(1);
+        assertEquals("b", rewritten.taskInstance());
+        assertEquals(3, rewritten.version());
+        assertTrue(TaskDataSerializer.isCompact(rewritten.taskData()));
+    }
+
+    @Test
+    void migrate_shouldBackfillMissingPrioritiesInBatches() {
+        when(scheduledTaskJdbcRepository.findExecutionsWithoutPriority("", 2)).thenReturn(List.of("a", "b"));
+        when(scheduledTaskJdbcRepository.findExecutionsWithoutPriority("b", 2)).thenReturn(List.of("c"));
+
+        taskDataMigrationService.migrate();
+
+        verify(scheduledTaskJdbcRepository).backfillPriority(List.of("a", "b"));
+        verify(scheduledTaskJdbcRepository).backfillPriority(List.of("c"));
+    }
+}
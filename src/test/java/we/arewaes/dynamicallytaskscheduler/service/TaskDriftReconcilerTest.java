@@ -0,0 +1,108 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository.TaskDefinition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskDriftReconcilerTest {
+
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    @Captor
+    private ArgumentCaptor<Map<String, ScheduleAndNoData>> executionsCaptor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TaskDriftReconciler taskDriftReconciler;
+
+    @BeforeEach
+    void setUp() {
+        taskDriftReconciler = new TaskDriftReconciler(scheduledTaskJdbcRepository, new CronScheduleCache(100),
+                meterRegistry, true, Duration.ofSeconds(30), 2);
+    }
+
+    private double repaired(String type) {
+        return meterRegistry.counter(TaskDriftReconciler.DRIFT_METRIC, "type", type).count();
+    }
+
+    @Test
+    void reconcileRepairsRangeAndAdvancesWatermark() {
+        when(scheduledTaskJdbcRepository.findTaskIdRangeEnd("task-1", 2)).thenReturn("task-3");
+        when(scheduledTaskJdbcRepository.findTasksWithoutExecution("task-1", "task-3"))
+                .thenReturn(List.of(new TaskDefinition("task-2", "*/5 * * * * *", true, 7)));
+        when(scheduledTaskJdbcRepository.deleteOrphanExecutions("task-1", "task-3")).thenReturn(3);
+        when(scheduledTaskJdbcRepository.repairExecutionsOnHold("task-1", "task-3")).thenReturn(1);
+
+        assertEquals("task-3", taskDriftReconciler.reconcile("task-1"));
+
+        verify(scheduledTaskJdbcRepository).insertExecutions(executionsCaptor.capture(), any());
+        ScheduleAndNoData data = executionsCaptor.getValue().get("task-2");
+        assertTrue(data.isOnHold());
+        assertEquals(Duration.ofSeconds(7), data.getJitter());
+        assertEquals(1, repaired("missing-execution"));
+        assertEquals(3, repaired("orphan-execution"));
+        assertEquals(1, repaired("hold-mismatch"));
+        assertEquals(0, meterRegistry.counter("task.drift.sweeps").count());
+    }
+
+    @Test
+    void reconcileWrapsAroundAfterLastRange() {
+        when(scheduledTaskJdbcRepository.findTaskIdRangeEnd("task-9", 2)).thenReturn(null);
+        when(scheduledTaskJdbcRepository.findTasksWithoutExecution("task-9", null)).thenReturn(List.of());
+
+        assertEquals("", taskDriftReconciler.reconcile("task-9"));
+
+        verify(scheduledTaskJdbcRepository).deleteOrphanExecutions("task-9", null);
+        verify(scheduledTaskJdbcRepository).repairExecutionsOnHold("task-9", null);
+        assertEquals(1, meterRegistry.counter("task.drift.sweeps").count());
+    }
+
+    @Test
+    void reconcileDeadLettersTasksWithInvalidCron() {
+        when(scheduledTaskJdbcRepository.findTaskIdRangeEnd("", 2)).thenReturn("task-2");
+        when(scheduledTaskJdbcRepository.findTasksWithoutExecution("", "task-2")).thenReturn(List.of(
+                new TaskDefinition("task-1", "not a cron", false, 0),
+                new TaskDefinition("task-2", "*/5 * * * * *", false, 0)));
+        when(scheduledTaskJdbcRepository.deadLetter(eq("task-1"), any(), eq("Invalid cron 'not a cron'"))).thenReturn(true);
+
+        assertEquals("task-2", taskDriftReconciler.reconcile(null));
+
+        verify(scheduledTaskJdbcRepository).insertExecutions(executionsCaptor.capture(), any());
+        assertEquals(List.of("task-2"), List.copyOf(executionsCaptor.getValue().keySet()));
+        assertFalse(executionsCaptor.getValue().get("task-2").isOnHold());
+        assertEquals(1, repaired("invalid-cron"));
+        assertEquals(1, repaired("missing-execution"));
+    }
+
+    @Test
+    void reconcileDoesNothingWhenDisabled() {
+        TaskDriftReconciler disabled = new TaskDriftReconciler(scheduledTaskJdbcRepository, new CronScheduleCache(100),
+                meterRegistry, false, Duration.ofSeconds(30), 2);
+
+        assertEquals("task-4", disabled.reconcile("task-4"));
+
+        verifyNoInteractions(scheduledTaskJdbcRepository);
+    }
+}
@@ -1,39 +1,85 @@
 package we.arewaes.dynamicallytaskscheduler.service;
 
-import org.junit.jupiter.api.BeforeEach;
+import com.github.kagkarlsson.scheduler.task.schedule.CronSchedule;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations.Cancellation;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerExecution;
+import we.arewaes.dynamicallytaskscheduler.domain.ExecutionEventType;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
+@ExtendWith(MockitoExtension.class)
 class TaskExecutorServiceTest {
 
-    private static final String INSTANCE_ID = "testInstanceId";
-    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private static final Webhook WEBHOOK = new Webhook("http://example.com/fire", "POST", Duration.ofSeconds(1));
+
+    @Mock
+    private ExecutionEventLog executionEventLog;
+
+    @Mock
+    private WebhookExecutor webhookExecutor;
+
+    @Mock
+    private SchedulerExecution schedulerExecution;
+
+    @InjectMocks
     private TaskExecutorService taskExecutorService;
 
-    @BeforeEach
-    void setUp() {
-        taskExecutorService = new TaskExecutorService(INSTANCE_ID);
-        System.setOut(new PrintStream(outContent));
+    @Test
+    @DisplayName("Test start task execution publishes a started event instead of printing on the executor thread")
+    void startTaskExecution_shouldPublishStartedEvent() {
+        taskExecutorService.startTaskExecution("testTaskId");
+
+        verify(executionEventLog).publish(ExecutionEventType.STARTED, "testTaskId");
     }
 
     @Test
-    @DisplayName("Test start task execution and print start message contains correct message")
-    void startTaskExecution_shouldPrintStartMessage() {
-        String taskId = "testTaskId";
-        LocalDateTime beforeExecution = LocalDateTime.now();
+    void executeTask_shouldOnlyPublish_whenTaskHasNoWebhook() {
+        taskExecutorService.executeTask("testTaskId", new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false), Instant.now(), Cancellation.NONE);
 
-        taskExecutorService.startTaskExecution(taskId);
+        verify(executionEventLog).publish(ExecutionEventType.STARTED, "testTaskId");
+        verifyNoInteractions(webhookExecutor, schedulerExecution);
+    }
 
-        String expectedMessage = String.format("INSTANCE ID: %s -> Task %s started at ", INSTANCE_ID, taskId);
-        String actualMessage = outContent.toString();
-        assertTrue(actualMessage.contains(expectedMessage));
-        assertTrue(actualMessage.contains(beforeExecution.toLocalDate().toString()));
+    @Test
+    void executeTask_shouldCallWebhookWithoutHoldingThePermit() {
+        Instant executionTime = Instant.parse("2026-01-01T10:00:00Z");
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(schedulerExecution).releasePermitDuring(any());
+
+        taskExecutorService.executeTask("testTaskId",
+                new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false, Duration.ZERO, WEBHOOK), executionTime,
+                Cancellation.NONE);
+
+        verify(webhookExecutor).call("testTaskId", WEBHOOK, executionTime);
     }
 
-}
\ No newline at end of file
+    @Test
+    void executeTask_shouldFail_whenWebhookFails() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(schedulerExecution).releasePermitDuring(any());
+        doThrow(new IllegalStateException("answered 503")).when(webhookExecutor).call(any(), any(), any());
+
+        assertThrows(IllegalStateException.class, () -> taskExecutorService.executeTask("testTaskId",
+                new ScheduleAndNoData(new CronSchedule("0 0 * * * *"), false, Duration.ZERO, WEBHOOK), Instant.now(), Cancellation.NONE));
+    }
+}
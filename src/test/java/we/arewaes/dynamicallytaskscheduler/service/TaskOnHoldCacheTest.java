@@ -0,0 +1,108 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import we.arewaes.dynamicallytaskscheduler.repository.TaskOnHoldJdbcRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskOnHoldCacheTest {
+
+    private static final String TASK_ID = "exampleTaskId";
+
+    @Mock
+    private TaskOnHoldJdbcRepository taskOnHoldJdbcRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskOnHoldCache taskOnHoldCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        taskOnHoldCache = new TaskOnHoldCache(taskOnHoldJdbcRepository, 100, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    void isOnHold_shouldQueryDbOnlyOnce_whenCalledRepeatedly() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(true);
+
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+
+        verify(taskOnHoldJdbcRepository, times(1)).isOnHold(TASK_ID);
+    }
+
+    @Test
+    void isOnHold_shouldQueryDbAgain_whenInvalidated() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID))
+                .thenReturn(true)
+                .thenReturn(false);
+
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+        taskOnHoldCache.invalidate(TASK_ID);
+        assertFalse(taskOnHoldCache.isOnHold(TASK_ID));
+
+        verify(taskOnHoldJdbcRepository, times(2)).isOnHold(TASK_ID);
+    }
+
+    @Test
+    void isOnHold_shouldQueryDbAgain_whenLookupFailed() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> taskOnHoldCache.isOnHold(TASK_ID));
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+
+        verify(taskOnHoldJdbcRepository, times(2)).isOnHold(TASK_ID);
+    }
+
+    @Test
+    void isOnHold_shouldNotCacheLookup_whenInvalidatedWhileLoading() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID))
+                .thenAnswer(invocation -> {
+                    taskOnHoldCache.invalidate(TASK_ID);
+                    return true;
+                })
+                .thenReturn(false);
+
+        assertTrue(taskOnHoldCache.isOnHold(TASK_ID));
+        assertFalse(taskOnHoldCache.isOnHold(TASK_ID));
+    }
+
+    @Test
+    void isOnHold_shouldRecordHitAndMissMetrics() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+
+        taskOnHoldCache.isOnHold(TASK_ID);
+        taskOnHoldCache.isOnHold(TASK_ID);
+        taskOnHoldCache.isOnHold(TASK_ID);
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", TaskOnHoldCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", TaskOnHoldCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void isOnHold_shouldTimeDbLookups_onlyOnCacheMiss() {
+        when(taskOnHoldJdbcRepository.isOnHold(TASK_ID)).thenReturn(false);
+
+        taskOnHoldCache.isOnHold(TASK_ID);
+        taskOnHoldCache.isOnHold(TASK_ID);
+
+        assertEquals(1, meterRegistry.get(TaskOnHoldCache.LOOKUP_TIMER).timer().count());
+    }
+}
@@ -0,0 +1,134 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.domain.TaskView;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskQueryServiceTest {
+
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private TaskQueryService taskQueryService;
+
+    @BeforeEach
+    void setUp() {
+        taskQueryService = new TaskQueryService(
+                new TaskShards(new ShardRouter(1, 1), List.of(new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, transactionManager, null))),
+                objectMapper, 2, 3, 500);
+    }
+
+    private void returnTasks(TaskView... tasks) {
+        returnTasks(scheduledTaskJdbcRepository, tasks);
+    }
+
+    private static void returnTasks(ScheduledTaskJdbcRepository repository, TaskView... tasks) {
+        doAnswer(invocation -> {
+            Consumer<TaskView> consumer = invocation.getArgument(3);
+            for (TaskView task : tasks) {
+                consumer.accept(task);
+            }
+            return null;
+        }).when(repository).streamTaskViews(any(), anyInt(), anyInt(), any());
+    }
+
+    private JsonNode writeTasks(String after, Integer limit) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        taskQueryService.writeTasks(after, limit, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    @Test
+    void writeTasks_shouldReturnNextCursor_whenPageIsFull() throws Exception {
+        returnTasks(new TaskView("a", "0 0 * * * *", false, Instant.parse("2026-01-01T00:00:00Z"), "instance-1", 0, null, null, null, null),
+                new TaskView("b", "0 0 * * * *", true, null, null, null, null, null, null, null));
+
+        JsonNode page = writeTasks(null, null);
+
+        verify(scheduledTaskJdbcRepository).streamTaskViews(eq(""), eq(2), eq(2), any());
+        assertEquals(2, page.get("tasks").size());
+        assertEquals("2026-01-01T00:00:00Z", page.get("tasks").get(0).get("nextExecutionTime").asText());
+        assertEquals("instance-1", page.get("tasks").get(0).get("pickedBy").asText());
+        assertTrue(page.get("tasks").get(1).get("onHold").asBoolean());
+        assertEquals("b", page.get("next").asText());
+    }
+
+    @Test
+    void writeTasks_shouldReturnNoCursor_onLastPage() throws Exception {
+        returnTasks(new TaskView("c", "0 0 * * * *", false, null, null, null, null, null, null, null));
+
+        JsonNode page = writeTasks("b", 3);
+
+        verify(scheduledTaskJdbcRepository).streamTaskViews(eq("b"), eq(3), eq(3), any());
+        assertEquals(1, page.get("tasks").size());
+        assertTrue(page.get("next").isNull());
+    }
+
+    @Test
+    void writeTasks_shouldCapLimit() throws Exception {
+        returnTasks();
+
+        writeTasks(null, 1_000_000);
+
+        verify(scheduledTaskJdbcRepository).streamTaskViews(eq(""), eq(3), eq(3), any());
+    }
+
+    @Test
+    void writeTasks_shouldMergePagesOfAllShardsInDatabaseOrder() throws Exception {
+        ScheduledTaskJdbcRepository otherShardRepository = mock(ScheduledTaskJdbcRepository.class);
+        TaskShards taskShards = new TaskShards(new ShardRouter(2, 16), List.of(
+                new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, transactionManager, null),
+                new TaskShard(1, "shard-1", null, otherShardRepository, null, transactionManager, null)));
+        TaskQueryService shardedQueryService = new TaskQueryService(taskShards, objectMapper, 2, 3, 500);
+        returnTasks(new TaskView("a", "0 0 * * * *", false, null, null, null, null, null, null, null),
+                new TaskView("d", "0 0 * * * *", false, null, null, null, null, null, null, null));
+        returnTasks(otherShardRepository, new TaskView("b", "0 0 * * * *", false, null, null, null, null, null, null, null),
+                new TaskView("c", "0 0 * * * *", false, null, null, null, null, null, null, null));
+        when(scheduledTaskJdbcRepository.sortTaskIds(anyList(), eq(2))).thenReturn(List.of("a", "b"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        shardedQueryService.writeTasks(null, null, out);
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+
+        verify(otherShardRepository).streamTaskViews(eq(""), eq(2), eq(2), any());
+        assertEquals(2, page.get("tasks").size());
+        assertEquals("a", page.get("tasks").get(0).get("taskId").asText());
+        assertEquals("b", page.get("tasks").get(1).get("taskId").asText());
+        assertEquals("b", page.get("next").asText());
+        taskShards.destroy();
+    }
+}
@@ -1,20 +1,42 @@
 package we.arewaes.dynamicallytaskscheduler.service;
 
+import com.github.kagkarlsson.scheduler.ScheduledExecution;
 import com.github.kagkarlsson.scheduler.Scheduler;
 import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceCurrentlyExecutingException;
 import com.github.kagkarlsson.scheduler.exceptions.TaskInstanceNotFoundException;
 import com.github.kagkarlsson.scheduler.task.SchedulableInstance;
 import com.github.kagkarlsson.scheduler.task.TaskInstance;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerCancellations;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerConfiguration.ScheduleAndNoData;
+import we.arewaes.dynamicallytaskscheduler.configuration.SchedulerWakeups;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskJdbcRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class TaskSchedulerServiceTest {
@@ -22,15 +44,31 @@ class TaskSchedulerServiceTest {
     @Mock
     private Scheduler scheduler;
 
-    @InjectMocks
+    @Mock
+    private SchedulerWakeups schedulerWakeups;
+
+    @Mock
+    private ScheduledTaskJdbcRepository scheduledTaskJdbcRepository;
+
+    @Mock
+    private SchedulerCancellations schedulerCancellations;
+
+    private TaskShard shard;
     private TaskSchedulerService taskSchedulerService;
 
+    @BeforeEach
+    void setUp() {
+        shard = new TaskShard(0, "shard-0", null, scheduledTaskJdbcRepository, null, null, scheduler);
+        taskSchedulerService = new TaskSchedulerService(new TaskShards(new ShardRouter(1, 1), List.of(shard)),
+                new CronScheduleCache(100), schedulerWakeups, schedulerCancellations);
+    }
+
     @Test
     void scheduleTaskExecution_shouldScheduleTaskSuccessfully() {
         String taskId = "exampleTaskId";
         String trigger = "0 0/5 14 * * *";
 
-        taskSchedulerService.scheduleTaskExecution(taskId, trigger);
+        taskSchedulerService.scheduleTaskExecution(taskId, trigger, Duration.ZERO, null, null, null, null, null);
 
         verify(scheduler, times(1)).scheduleIfNotExists(any(SchedulableInstance.class));
     }
@@ -52,6 +90,7 @@ class TaskSchedulerServiceTest {
         taskSchedulerService.cancelTaskExecution(taskId);
 
         verify(scheduler, times(1)).cancel(any(TaskInstance.class));
+        verifyNoInteractions(schedulerCancellations);
     }
 
     @Test
@@ -62,17 +101,98 @@ class TaskSchedulerServiceTest {
         taskSchedulerService.cancelTaskExecution(taskId);
 
         verify(scheduler, times(1)).cancel(any(TaskInstance.class));
+        verify(schedulerCancellations).cancel(shard, taskId);
     }
 
     @Test
-    void updateTaskExecution_shouldUpdateTaskSuccessfully() {
+    void updateTaskExecution_shouldUpdateExecutionInPlace() {
         String taskId = "exampleTaskId";
         String trigger = "0 0/5 14 * * *";
-        boolean onHold = false;
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), isNull())).thenReturn(true);
+
+        taskSchedulerService.updateTaskExecution(taskId, trigger, true, Duration.ZERO, null, null, null, null, null);
 
-        taskSchedulerService.updateTaskExecution(taskId, trigger, onHold);
+        verify(scheduledTaskJdbcRepository).updateExecution(eq(taskId), argThat(ScheduleAndNoData::isOnHold), isNull());
+        verify(scheduler, never()).cancel(any(TaskInstance.class));
+        verify(scheduler, never()).scheduleIfNotExists(any(SchedulableInstance.class));
+    }
+
+    @Test
+    void updateTaskExecution_shouldSkip_whenTaskIsExecuting() {
+        String taskId = "exampleTaskId";
+        ScheduledExecution<Object> execution = mock(ScheduledExecution.class);
+        when(execution.isPicked()).thenReturn(true);
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), isNull())).thenReturn(false);
+        when(scheduler.getScheduledExecution(any(TaskInstance.class))).thenReturn(Optional.of(execution));
+
+        taskSchedulerService.updateTaskExecution(taskId, "0 0/5 14 * * *", true, Duration.ZERO, null, null, null, null, null);
+
+        verify(scheduler, never()).scheduleIfNotExists(any(SchedulableInstance.class));
+    }
+
+    @Test
+    void updateTaskExecution_shouldSchedule_whenExecutionIsMissing() {
+        String taskId = "exampleTaskId";
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), isNull())).thenReturn(false);
+        when(scheduler.getScheduledExecution(any(TaskInstance.class))).thenReturn(Optional.empty());
+
+        taskSchedulerService.updateTaskExecution(taskId, "0 0/5 14 * * *", false, Duration.ZERO, null, null, null, null, null);
 
         verify(scheduler, times(1)).scheduleIfNotExists(any(SchedulableInstance.class));
-        verify(scheduler, times(1)).cancel(any(TaskInstance.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void rescheduleTaskExecution_shouldMoveExecutionTime() {
+        String taskId = "exampleTaskId";
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), any(Instant.class))).thenReturn(true);
+
+        taskSchedulerService.rescheduleTaskExecution(taskId, "0 0/10 14 * * *", false, Duration.ZERO, null, null, null, null, null);
+
+        verify(scheduledTaskJdbcRepository).updateExecution(eq(taskId),
+                argThat(data -> data.getCronSchedule().getPattern().equals("0 0/10 14 * * *")), any(Instant.class));
+    }
+
+    @Test
+    void scheduleTaskExecution_shouldWakeUpPollersAtTheFirstFire() {
+        when(scheduler.scheduleIfNotExists(any(SchedulableInstance.class))).thenReturn(true);
+
+        taskSchedulerService.scheduleTaskExecution("exampleTaskId", "* * * * * *", Duration.ZERO, null, null, null, null, null);
+
+        verify(schedulerWakeups).dueAt(any(TaskShard.class), argThat(executionTime ->
+                executionTime.isAfter(Instant.now().minusSeconds(1)) && executionTime.isBefore(Instant.now().plusSeconds(2))));
+    }
+
+    @Test
+    void rescheduleTaskExecution_shouldWakeUpPollersAtTheMovedExecutionTime() {
+        String taskId = "exampleTaskId";
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), any(Instant.class))).thenReturn(true);
+
+        taskSchedulerService.rescheduleTaskExecution(taskId, "0 0/10 14 * * *", false, Duration.ZERO, null, null, null, null, null);
+
+        verify(schedulerWakeups).dueAt(any(TaskShard.class), argThat(executionTime -> executionTime.getEpochSecond() % 600 == 0));
+    }
+
+    @Test
+    void rescheduleTaskExecution_shouldKeepJitter() {
+        String taskId = "exampleTaskId";
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), any(Instant.class))).thenReturn(true);
+
+        taskSchedulerService.rescheduleTaskExecution(taskId, "0 0/10 14 * * *", false, Duration.ofSeconds(30), null, null, null, null, null);
+
+        verify(scheduledTaskJdbcRepository).updateExecution(eq(taskId),
+                argThat(data -> data.getJitter().equals(Duration.ofSeconds(30))),
+                argThat(executionTime -> executionTime.getEpochSecond() % 60 == 30));
+    }
+
+    @Test
+    void rescheduleTaskExecution_shouldThrow_whenTaskIsExecuting() {
+        String taskId = "exampleTaskId";
+        ScheduledExecution<Object> execution = mock(ScheduledExecution.class);
+        when(execution.isPicked()).thenReturn(true);
+        when(scheduledTaskJdbcRepository.updateExecution(eq(taskId), any(ScheduleAndNoData.class), any(Instant.class))).thenReturn(false);
+        when(scheduler.getScheduledExecution(any(TaskInstance.class))).thenReturn(Optional.of(execution));
+
+        assertThrows(TaskInstanceCurrentlyExecutingException.class,
+                () -> taskSchedulerService.rescheduleTaskExecution(taskId, "0 0/10 14 * * *", false, Duration.ZERO, null, null, null, null, null));
+    }
+}
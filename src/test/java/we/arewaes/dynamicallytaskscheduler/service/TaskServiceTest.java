@@ -1,22 +1,37 @@
 package we.arewaes.dynamicallytaskscheduler.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import we.arewaes.dynamicallytaskscheduler.configuration.CronScheduleCache;
+import we.arewaes.dynamicallytaskscheduler.configuration.ScheduleJitter;
+import we.arewaes.dynamicallytaskscheduler.configuration.ShardRouter;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShard;
+import we.arewaes.dynamicallytaskscheduler.configuration.TaskShards;
+import we.arewaes.dynamicallytaskscheduler.configuration.WebhookDefaults;
+import we.arewaes.dynamicallytaskscheduler.domain.MisfirePolicy;
 import we.arewaes.dynamicallytaskscheduler.domain.TaskRequest;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
 import we.arewaes.dynamicallytaskscheduler.entity.ScheduledTask;
 import we.arewaes.dynamicallytaskscheduler.repository.ScheduledTaskRepository;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,10 +41,23 @@ class TaskServiceTest {
     private TaskSchedulerService taskSchedulerService;
     @Mock
     private ScheduledTaskRepository scheduledTaskRepository;
+    @Mock
+    private TaskOnHoldCache taskOnHoldCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
+    private final ScheduleJitter scheduleJitter = new ScheduleJitter(Duration.ofMinutes(5));
+    private final WebhookDefaults webhookDefaults = new WebhookDefaults(Duration.ofSeconds(10), Duration.ofMinutes(1));
+    private final CronScheduleCache cronScheduleCache = new CronScheduleCache(100);
     private TaskService taskService;
 
+    @BeforeEach
+    void setUp() {
+        TaskShard shard = new TaskShard(0, "shard-0", scheduledTaskRepository, null, null, transactionManager, null);
+        taskService = new TaskService(taskSchedulerService, new TaskShards(new ShardRouter(1, 1), List.of(shard)),
+                taskOnHoldCache, scheduleJitter, webhookDefaults, cronScheduleCache);
+    }
+
     @Test
     void createTask_shouldCreateTaskSuccessfully() {
         String taskId = "newTaskId";
@@ -39,12 +67,145 @@ class TaskServiceTest {
         taskRequest.setCron(cronExpression);
 
         when(scheduledTaskRepository.save(any())).thenReturn(new ScheduledTask());
-        doNothing().when(taskSchedulerService).scheduleTaskExecution(taskId, cronExpression);
+        doNothing().when(taskSchedulerService).scheduleTaskExecution(taskId, cronExpression, Duration.ZERO, null, null, null, null, null);
 
         taskService.scheduleTask(taskRequest);
 
         verify(scheduledTaskRepository).save(any());
-        verify(taskSchedulerService).scheduleTaskExecution(taskId, cronExpression);
+        verify(taskSchedulerService).scheduleTaskExecution(taskId, cronExpression, Duration.ZERO, null, null, null, null, null);
+    }
+
+    @Test
+    void createTask_shouldStoreJitter_whenSpreadIsRequested() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("spreadTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setSpread(true);
+        Duration jitter = scheduleJitter.offset("spreadTaskId");
+
+        taskService.scheduleTask(taskRequest);
+
+        verify(scheduledTaskRepository).save(argThat(task -> task.getJitterSeconds() == jitter.toSeconds()));
+        verify(taskSchedulerService).scheduleTaskExecution("spreadTaskId", "0 0 * * * *", jitter, null, null, null, null, null);
+    }
+
+    @Test
+    void createTask_shouldStoreWebhookWithDefaults() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("webhookTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setWebhook(new Webhook("https://example.com/fire", null, null));
+        Webhook expected = new Webhook("https://example.com/fire", "POST", Duration.ofSeconds(10));
+
+        taskService.scheduleTask(taskRequest);
+
+        verify(scheduledTaskRepository).save(argThat(task -> expected.equals(task.getWebhook())));
+        verify(taskSchedulerService).scheduleTaskExecution("webhookTaskId", "0 0 * * * *", Duration.ZERO, expected, null, null, null, null);
+    }
+
+    @Test
+    void createTask_shouldStoreMisfirePolicy() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("catchUpTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setMisfirePolicy(MisfirePolicy.FIRE_ALL);
+
+        taskService.scheduleTask(taskRequest);
+
+        verify(scheduledTaskRepository).save(argThat(task -> task.getMisfirePolicy() == MisfirePolicy.FIRE_ALL));
+        verify(taskSchedulerService).scheduleTaskExecution("catchUpTaskId", "0 0 * * * *", Duration.ZERO, null, MisfirePolicy.FIRE_ALL, null, null, null);
+    }
+
+    @Test
+    void createTask_shouldStoreGroupAndPriority() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("tenantTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setGroup("tenant-a");
+        taskRequest.setPriority(80);
+
+        taskService.scheduleTask(taskRequest);
+
+        verify(scheduledTaskRepository).save(argThat(task -> "tenant-a".equals(task.getTaskGroup()) && task.getPriority() == 80));
+        verify(taskSchedulerService).scheduleTaskExecution("tenantTaskId", "0 0 * * * *", Duration.ZERO, null, null, "tenant-a", 80, null);
+    }
+
+    @Test
+    void createTask_shouldRejectInvalidPriority() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("tenantTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setPriority(-1);
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.scheduleTask(taskRequest));
+        verifyNoInteractions(scheduledTaskRepository, taskSchedulerService);
+    }
+
+    @Test
+    void createTask_shouldStoreTimeout() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("slowTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setTimeout(Duration.ofSeconds(30));
+
+        taskService.scheduleTask(taskRequest);
+
+        verify(scheduledTaskRepository).save(argThat(task -> task.getTimeoutMillis() == 30_000));
+        verify(taskSchedulerService).scheduleTaskExecution("slowTaskId", "0 0 * * * *", Duration.ZERO, null, null, null, null, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void createTask_shouldRejectNonPositiveTimeout() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("slowTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setTimeout(Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.scheduleTask(taskRequest));
+        verifyNoInteractions(scheduledTaskRepository, taskSchedulerService);
+    }
+
+    @Test
+    void createTask_shouldRejectInvalidCron_beforeSavingTheTask() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("badCronTaskId");
+        taskRequest.setCron("not a cron");
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.scheduleTask(taskRequest));
+        verifyNoInteractions(scheduledTaskRepository, taskSchedulerService);
+    }
+
+    @Test
+    void createTask_shouldRejectInvalidWebhook() {
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("webhookTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        taskRequest.setWebhook(new Webhook("ftp://example.com/fire", null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.scheduleTask(taskRequest));
+        verify(scheduledTaskRepository, never()).save(any());
+    }
+
+    @Test
+    void createTask_shouldSaveTaskOnItsShard() {
+        ShardRouter shardRouter = new ShardRouter(2, 16);
+        ScheduledTaskRepository otherRepository = mock(ScheduledTaskRepository.class);
+        List<ScheduledTaskRepository> repositories = List.of(scheduledTaskRepository, otherRepository);
+        TaskShards taskShards = new TaskShards(shardRouter, List.of(
+                new TaskShard(0, "shard-0", repositories.get(0), null, null, transactionManager, null),
+                new TaskShard(1, "shard-1", repositories.get(1), null, null, transactionManager, null)));
+        TaskService shardedTaskService = new TaskService(taskSchedulerService, taskShards, taskOnHoldCache, scheduleJitter, webhookDefaults,
+                cronScheduleCache);
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("shardedTaskId");
+        taskRequest.setCron("0 0 * * * *");
+        int shard = shardRouter.shardFor("shardedTaskId");
+
+        shardedTaskService.scheduleTask(taskRequest);
+
+        verify(repositories.get(shard)).save(any());
+        verify(repositories.get(1 - shard), never()).save(any());
+        taskShards.destroy();
     }
 
     @Test
@@ -57,6 +218,39 @@ class TaskServiceTest {
 
         verify(scheduledTaskRepository).findById(taskId);
         verify(scheduledTaskRepository).save(any());
+        verify(taskOnHoldCache).invalidate(taskId);
+        verify(taskSchedulerService).updateTaskExecution(taskId, null, true, Duration.ZERO, null, null, null, null, null);
+    }
+
+    @Test
+    void holdTask_shouldOnlyUpdateTheRow_whenTaskIsDeadLettered() {
+        ScheduledTask task = new ScheduledTask();
+        task.setDeadLetteredAt(Instant.parse("2026-01-01T00:00:00Z"));
+        when(scheduledTaskRepository.findById("parkedTaskId")).thenReturn(Optional.of(task));
+
+        taskService.setTaskOnHold("parkedTaskId", true);
+
+        verify(scheduledTaskRepository).save(task);
+        verifyNoInteractions(taskSchedulerService);
+    }
+
+    @Test
+    void updateTaskCron_shouldSaveCronAndRescheduleExecution() {
+        ScheduledTask task = new ScheduledTask();
+        task.setId("taskToUpdate");
+        task.setCron("0 0/5 14 * * *");
+        task.setOnHold(true);
+        task.setJitterSeconds(42);
+        TaskRequest taskRequest = new TaskRequest();
+        taskRequest.setTaskId("taskToUpdate");
+        taskRequest.setCron("0 0/10 14 * * *");
+        when(scheduledTaskRepository.findById("taskToUpdate")).thenReturn(Optional.of(task));
+
+        taskService.updateTaskCron(taskRequest);
+
+        assertEquals("0 0/10 14 * * *", task.getCron());
+        verify(scheduledTaskRepository).save(task);
+        verify(taskSchedulerService).rescheduleTaskExecution("taskToUpdate", "0 0/10 14 * * *", true, Duration.ofSeconds(42), null, null, null, null, null);
     }
 
     @Test
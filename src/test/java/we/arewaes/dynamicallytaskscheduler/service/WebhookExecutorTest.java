@@ -0,0 +1,106 @@
+package we.arewaes.dynamicallytaskscheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import we.arewaes.dynamicallytaskscheduler.domain.Webhook;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WireMockTest
+class WebhookExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookExecutor webhookExecutor;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp(WireMockRuntimeInfo wireMock) {
+        webhookExecutor = new WebhookExecutor(new ObjectMapper(), meterRegistry, Duration.ofSeconds(1), 1, HttpClient.Version.HTTP_2);
+        baseUrl = wireMock.getHttpBaseUrl();
+    }
+
+    private long requests(String outcome) {
+        return meterRegistry.get(WebhookExecutor.REQUEST_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void call_shouldPostTheFire() {
+        stubFor(post("/fire").willReturn(ok()));
+
+        webhookExecutor.call("task-1", new Webhook(baseUrl + "/fire", "POST", Duration.ofSeconds(2)), Instant.parse("2026-01-01T10:00:00Z"));
+
+        verify(postRequestedFor(urlEqualTo("/fire"))
+                .withHeader("X-Task-Id", equalTo("task-1"))
+                .withRequestBody(equalToJson("{\"taskId\":\"task-1\",\"executionTime\":\"2026-01-01T10:00:00Z\"}")));
+        assertEquals(1, requests(WebhookExecutor.SUCCESS));
+    }
+
+    @Test
+    void call_shouldSendNoBody_whenMethodIsGet() {
+        stubFor(get("/fire").willReturn(ok()));
+
+        webhookExecutor.call("task-1", new Webhook(baseUrl + "/fire", "GET", Duration.ofSeconds(2)), Instant.now());
+
+        verify(getRequestedFor(urlEqualTo("/fire")).withHeader("X-Task-Id", equalTo("task-1")));
+    }
+
+    @Test
+    void call_shouldFail_whenTheResponseIsNot2xx() {
+        stubFor(post("/fire").willReturn(serverError()));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                webhookExecutor.call("task-1", new Webhook(baseUrl + "/fire", "POST", Duration.ofSeconds(2)), Instant.now()));
+
+        assertTrue(e.getMessage().endsWith("answered 500"), e.getMessage());
+        assertEquals(1, requests(WebhookExecutor.HTTP_ERROR));
+    }
+
+    @Test
+    void call_shouldFail_whenTheResponseIsLate() {
+        stubFor(post("/slow").willReturn(aResponse().withStatus(200).withFixedDelay(2000)));
+
+        assertThrows(IllegalStateException.class, () ->
+                webhookExecutor.call("task-1", new Webhook(baseUrl + "/slow", "POST", Duration.ofMillis(200)), Instant.now()));
+
+        assertEquals(1, requests(WebhookExecutor.TIMEOUT));
+    }
+
+    @Test
+    void call_shouldNotExceedTheConcurrencyPerHost() throws Exception {
+        stubFor(post("/slow").willReturn(aResponse().withStatus(200).withFixedDelay(1000)));
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                webhookExecutor.call("task-1", new Webhook(baseUrl + "/slow", "POST", Duration.ofSeconds(5)), Instant.now()));
+        Thread.sleep(200);
+
+        assertThrows(IllegalStateException.class, () ->
+                webhookExecutor.call("task-2", new Webhook(baseUrl + "/slow", "POST", Duration.ofMillis(200)), Instant.now()));
+
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, requests(WebhookExecutor.HOST_LIMIT));
+        assertEquals(1, requests(WebhookExecutor.SUCCESS));
+    }
+}